@@ -0,0 +1,65 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.util.StringUtilities;
+import epox.webaom.db.SQLiteDatabaseManager;
+import java.io.File;
+
+/** Realistic AniDB data and a headless application context shared by the benchmarks. */
+final class BenchmarkData {
+    /** Data section of a {@code 220 FILE} reply with the fields WebAOM requests, 34 in total. */
+    static final String FILE_DATA = "1021453|8069|117863|8853|0|1|1503238553|70cd93f2ffe26c2fcf8fa4b4e9fde6f3"
+            + "|9e107d9d372bb6826bd81d3542a419d6|2fd4e1c67a2d28fced849ee1bb76e7391b93eb12|a4e6f2c1"
+            + "|japanese|english|very high|Blu-ray|FLAC|H264/AVC|1920x1080|mkv|1440|Coalgirls|Coalgirls|01"
+            + "|As If I Met Her in My Dream...|Yume no Naka de Atta, Yoona...|夢の中で逢った、ような……"
+            + "|12|12|2011-2011|TV Series|Mahou Shoujo Madoka Magica|魔法少女まどか☆マギカ"
+            + "|Puella Magi Madoka Magica|Action,Drama,Magic,Fantasy,Psychological";
+
+    static final File FILE = new File(
+            "/anime/incoming/[Coalgirls] Mahou Shoujo Madoka Magica - 01 (1920x1080 Blu-ray FLAC) [A4E6F2C1].mkv");
+
+    private BenchmarkData() {}
+
+    /**
+     * Point the application context at in-memory stand-ins. The database manager is never
+     * connected, so lookups miss and writes are dropped without touching the disk.
+     */
+    static Cache installContext() {
+        AppContext.jobCounter = new JobCounter();
+        AppContext.databaseManager = new SQLiteDatabaseManager();
+        AppContext.cache = new Cache();
+        AppContext.gui = null;
+        return AppContext.cache;
+    }
+
+    static String[] fileFields() {
+        return StringUtilities.split(FILE_DATA, '|');
+    }
+
+    /** A hashed job for {@link #FILE} that has been identified from {@link #FILE_DATA}. */
+    static Job identifiedJob(Cache cache) {
+        Job job = new Job(FILE, Job.HASHED);
+        String[] fields = fileFields();
+        job.ed2kHash = fields[7];
+        job.md5Hash = fields[8];
+        job.sha1Hash = fields[9];
+        job.crc32Hash = fields[10];
+        cache.parseFile(fields, job);
+        return job;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.util.StringUtilities;
+import epox.webaom.data.AniDBFile;
+import epox.webaom.net.FileMask;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Cache#parseFile(String[], FileMask, Job)} on a FILE reply, including splitting the reply into
+ * fields. The anime, episode and group are cached after the first call, so this measures the common
+ * case of identifying another file of a known series, either from a full reply or from one holding
+ * only the file and episode fields, as requested once the anime and group are cached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheParseBenchmark {
+    @Param({"full", "episode"})
+    public String reply;
+
+    private Cache cache;
+    private Job job;
+    private FileMask mask;
+    private String data;
+
+    @Setup
+    public void setUp() {
+        cache = BenchmarkData.installContext();
+        job = BenchmarkData.identifiedJob(cache);
+        if (reply.equals("full")) {
+            mask = FileMask.FULL;
+            data = BenchmarkData.FILE_DATA;
+            return;
+        }
+        mask = new FileMask(false, true, false);
+        String[] fields = BenchmarkData.fileFields();
+        String[] fileAndEpisode = new String[mask.fieldCount()];
+        System.arraycopy(fields, 0, fileAndEpisode, 0, FileMask.FILE_FIELDS);
+        System.arraycopy(
+                fields,
+                FileMask.FILE_FIELDS + FileMask.GROUP_FIELDS,
+                fileAndEpisode,
+                FileMask.FILE_FIELDS,
+                FileMask.EPISODE_FIELDS);
+        data = String.join("|", fileAndEpisode);
+    }
+
+    @Benchmark
+    public AniDBFile parseFile() {
+        return cache.parseFile(StringUtilities.split(data, '|'), mask, job);
+    }
+}
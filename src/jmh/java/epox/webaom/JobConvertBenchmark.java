@@ -0,0 +1,78 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.util.StringUtilities;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tag substitution: {@link StringUtilities#replaceCCCode(String, Map)} alone with a prepared tag map,
+ * and {@link Job#convert(String)}, which builds the map first. Both run on the bundled file info
+ * template and on a typical rename pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobConvertBenchmark {
+    private static final String RENAME_PATTERN =
+            "%ann (%yea) - %enr - %epn [%src-%res][%aud][%dub][%vid]-%grp [%CRC]";
+
+    private String template;
+    private Job job;
+    private Map<String, String> tags;
+
+    @Setup
+    public void setUp() {
+        job = BenchmarkData.identifiedJob(BenchmarkData.installContext());
+        template = AppContext.getFileString("file.htm");
+        tags = job.genMap();
+    }
+
+    @Benchmark
+    public String replaceCCCodeTemplate() {
+        return StringUtilities.replaceCCCode(template, tags);
+    }
+
+    @Benchmark
+    public String replaceCCCodePattern() {
+        return StringUtilities.replaceCCCode(RENAME_PATTERN, tags);
+    }
+
+    @Benchmark
+    public String convertTemplate() {
+        return job.convert(template);
+    }
+
+    @Benchmark
+    public String convertPattern() {
+        return job.convert(RENAME_PATTERN);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link JobList#add(File)} into lists of 10k, 100k and 1M jobs, which is what every file of a dropped
+ * folder goes through. {@code addNewFile} adds a path the list does not have yet and removes it again
+ * after the invocation; {@code addKnownFile} re-adds the last path in the list, as happens when a
+ * folder is dropped a second time.
+ *
+ * <p>The paths don't exist, so the jobs are created as missing and never enter the disk queue; the
+ * database manager is not connected, so its lookups return at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JobListBenchmark {
+    private static final File NEW_FILE = new File("/anime/incoming/new episode.mkv");
+
+    @Param({"10000", "100000", "1000000"})
+    public int jobCount;
+
+    private JobList jobList;
+    private File knownFile;
+    private Job added;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.installContext();
+        jobList = new JobList();
+        for (int i = 0; i < jobCount; i++) {
+            knownFile = new File("/anime/library/series " + (i / 26) + "/episode " + (i % 26) + ".mkv");
+            jobList.add(new Job(knownFile, Job.HASHWAIT));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeAdded() {
+        if (added != null) {
+            jobList.rem(jobCount);
+            added = null;
+        }
+    }
+
+    @Benchmark
+    public Job addNewFile() {
+        added = jobList.add(NEW_FILE);
+        return added;
+    }
+
+    @Benchmark
+    public Job addKnownFile() {
+        return jobList.add(knownFile);
+    }
+}
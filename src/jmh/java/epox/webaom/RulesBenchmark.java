@@ -0,0 +1,97 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Rules#apply(Job)} on an identified job, which runs once per file after identification.
+ *
+ * <p>{@code single} is the shipped rename rule with truncation enabled. {@code branching} is the kind
+ * of script users build up over time: type, episode, group and source tests with regex conditions for
+ * the name, and per-type folders for the move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RulesBenchmark {
+    private static final String SINGLE_RENAME =
+            "DO SET 'TRUNCATE<200,%ann (%yea) - %enr - %epn [%src-%res][%aud][%dub][%vid]-%grp>'";
+
+    private static final String BRANCHING_RENAME = """
+            #Movies keep the year, specials and credits keep their title
+            IF T(Movie) DO SET '%ann (%yea)'
+            ELSE IF E([SCTPO].*) DO SET '%ann - %enr - %epn'
+            ELSE IF X(1) DO SET '%ann'
+            ELSE DO SET '%ann - %enr'
+            IF A(Naruto.*,One Piece) DO ADD ' - %epn'
+            IF G(unknown) DO ADD ' [RAW]'
+            ELSE DO ADD ' [%grp]'
+            IF R(Blu-ray,DVD) DO ADD '[%src]'
+            IF Q(very high,high) DO ADD '[%res]'
+            IF C(H264/AVC,H265/HEVC) DO ADD '[%vid]'
+            IF D(japanese);S(english) DO ADD '[SUB]'
+            IF D(english) DO ADD '[DUB]'
+            IF I(crc) DO ADD '[%CRC]'
+            """;
+
+    private static final String BRANCHING_MOVE = """
+            IF N(Hentai) DO FAIL
+            IF T(Movie) DO SET '/anime/movies/%ann (%yea)/'
+            ELSE IF T(OVA,Web) DO SET '/anime/ova/%ann/'
+            ELSE IF Y(1990-1999) DO SET '/anime/retro/%ann/'
+            ELSE DO SET '/anime/series/%ann (%yea)/'
+            """;
+
+    @Param({"single", "branching"})
+    public String script;
+
+    private final Rules rules = new Rules();
+    private Job job;
+
+    @Setup
+    public void setUp() {
+        job = BenchmarkData.identifiedJob(BenchmarkData.installContext());
+        if (script.equals("single")) {
+            rules.setRenameRules(SINGLE_RENAME);
+            rules.setMoveRules("#MOVE");
+        } else {
+            rules.setRenameRules(BRANCHING_RENAME);
+            rules.setMoveRules(BRANCHING_MOVE);
+        }
+    }
+
+    @Benchmark
+    public File apply() {
+        return rules.apply(job);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Ed2kHash} on inputs just below, at and just past the 9500 KiB block size, and over several
+ * blocks. Exact multiples of the block size also hash an empty trailing block, so they are the cases
+ * most likely to regress when the block handling changes.
+ *
+ * <p>Data is fed in {@link #CHUNK_SIZE} pieces, which is not a divisor of the block size, so chunks
+ * straddle block ends the way disk reads do. The score is milliseconds per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Ed2kBlockBoundaryBenchmark {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    @Param({"9727999", "9728000", "9728001", "19456000", "48640000"})
+    public int size;
+
+    private byte[] data;
+    private final Ed2kHash ed2k = new Ed2kHash();
+
+    @Setup
+    public void setUp() {
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+    }
+
+    @Benchmark
+    public byte[] chunked() {
+        ed2k.reset();
+        for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+            ed2k.update(data, offset, Math.min(CHUNK_SIZE, data.length - offset));
+        }
+        return ed2k.digest();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of every {@link HashAlgorithm} the hashing stage can run, fed the way DiskIO feeds them:
+ * from a heap array and from a direct buffer.
+ *
+ * <p>Each invocation hashes {@link #DATA_SIZE} bytes and counts as that many operations, so the
+ * reported score is nanoseconds per byte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashAlgorithmBenchmark {
+    private static final int DATA_SIZE = 4194304;
+
+    @Param({"crc32", "ed2k", "md5", "sha1", "tth", "tth-parallel"})
+    public String algorithm;
+
+    private byte[] data;
+    private ByteBuffer directData;
+    private HashAlgorithm hash;
+
+    @Setup
+    public void setUp() {
+        data = new byte[DATA_SIZE];
+        new Random(42).nextBytes(data);
+        directData = ByteBuffer.allocateDirect(DATA_SIZE);
+        directData.put(data).flip();
+        hash = create(algorithm);
+    }
+
+    static HashAlgorithm create(String name) {
+        return switch (name) {
+            case "crc32" -> new Crc32Hash();
+            case "ed2k" -> new Ed2kHash();
+            case "md5" -> new Md5Hash();
+            case "sha1" -> new Sha1Hash();
+            case "tth" -> new TthHash();
+            case "tth-parallel" -> new ParallelTthHash();
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + name);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] heapArray() {
+        hash.reset();
+        hash.update(data, 0, data.length);
+        return hash.digest();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] directBuffer() {
+        hash.reset();
+        hash.update(directData.duplicate());
+        return hash.digest();
+    }
+}
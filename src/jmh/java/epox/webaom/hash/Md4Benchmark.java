@@ -0,0 +1,93 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import gnu.crypto.hash.IMessageDigest;
+import gnu.crypto.hash.MD4;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MD4 throughput of {@link Md4} against {@code gnu.crypto.hash.MD4}, the engine ED2K used before.
+ *
+ * <p>Each invocation hashes {@link #DATA_SIZE} bytes and counts as that many operations, so the
+ * reported score is nanoseconds per byte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Md4Benchmark {
+    private static final int DATA_SIZE = 1048576;
+
+    private byte[] data;
+    private ByteBuffer directData;
+    private final Md4 md4 = new Md4();
+    private final IMessageDigest gnuMd4 = new MD4();
+    private final Ed2kHash ed2k = new Ed2kHash();
+
+    @Setup
+    public void setUp() {
+        data = new byte[DATA_SIZE];
+        new Random(42).nextBytes(data);
+        directData = ByteBuffer.allocateDirect(DATA_SIZE);
+        directData.put(data).flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] gnuCrypto() {
+        gnuMd4.update(data, 0, data.length);
+        return gnuMd4.digest();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] md4Array() {
+        md4.update(data, 0, data.length);
+        return md4.digest();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] md4DirectBuffer() {
+        md4.update(directData.duplicate());
+        return md4.digest();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DATA_SIZE)
+    public byte[] ed2k() {
+        ed2k.reset();
+        ed2k.update(data, 0, data.length);
+        return ed2k.digest();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.hash;
+
+import epox.webaom.util.BufferPool;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ED2K of a 64 MiB file read in turn with the digest ({@code sequential}) or through
+ * {@link ReadAhead} ({@code readAhead}), on simulated storage.
+ *
+ * <p>Real disks can't be chosen from a benchmark, so reads copy from memory and then park for as
+ * long as the device profile would take: {@code hdd} serves 8 MiB requests at 150 MB/s plus 0.5 ms
+ * each, {@code ssd} 4 MiB requests at 1500 MB/s plus 0.1 ms each, matching the read sizes
+ * {@code HashScheduler} picks for each. Parked time does not use the CPU, so with read-ahead the
+ * score should approach the larger of read and digest time instead of their sum: the digest hides
+ * behind the disk on {@code hdd}, and the reads hide behind the digest on {@code ssd}. The score is
+ * milliseconds per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ReadAheadBenchmark {
+    private static final int FILE_SIZE = 64 << 20;
+
+    @Param({"hdd", "ssd"})
+    public String device;
+
+    @Param({"sequential", "readAhead"})
+    public String mode;
+
+    private ByteBuffer file;
+    private ByteBuffer[] buffers;
+    private ExecutorService executor;
+    private long bytesPerSecond;
+    private long requestNanos;
+
+    @Setup
+    public void setUp() {
+        byte[] data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        file = ByteBuffer.allocateDirect(FILE_SIZE).put(data).flip();
+
+        int readSize;
+        if (device.equals("hdd")) {
+            readSize = BufferPool.LARGE;
+            bytesPerSecond = 150_000_000L;
+            requestNanos = 500_000;
+        } else {
+            readSize = BufferPool.MEDIUM;
+            bytesPerSecond = 1_500_000_000L;
+            requestNanos = 100_000;
+        }
+        buffers = new ByteBuffer[] {ByteBuffer.allocateDirect(readSize), ByteBuffer.allocateDirect(readSize)};
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public byte[] hashFile() throws Exception {
+        Ed2kHash ed2k = new Ed2kHash();
+        if (mode.equals("readAhead")) {
+            try (ReadAhead reader =
+                    new ReadAhead(this::simulatedRead, 0, FILE_SIZE, buffers, executor, new HashTimings())) {
+                ByteBuffer chunk;
+                while ((chunk = reader.next()) != null) {
+                    ed2k.update(chunk);
+                }
+            }
+        } else {
+            ByteBuffer buffer = buffers[0];
+            long position = 0;
+            while (position < FILE_SIZE) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), FILE_SIZE - position));
+                simulatedRead(buffer, position);
+                position += buffer.limit();
+                ed2k.update(buffer.flip());
+            }
+        }
+        return ed2k.digest();
+    }
+
+    /** Copy a whole request from memory, then wait out the rest of the simulated device time. */
+    private int simulatedRead(ByteBuffer destination, long position) {
+        long start = System.nanoTime();
+        int length = destination.remaining();
+        destination.put(file.slice((int) position, length));
+        long deviceNanos = requestNanos + length * 1_000_000_000L / bytesPerSecond;
+        long remaining = deviceNanos - (System.nanoTime() - start);
+        if (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of a received FILE reply as {@link AniDBConnection} does it after decryption: inflating
+ * compressed datagrams, decoding the text and parsing tag, code, message and data into an
+ * {@link AniDBConnectionResponse}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDecodeBenchmark {
+    private static final String TAG = "t00042";
+
+    private static final String FILE_REPLY = TAG + " 220 FILE\n"
+            + "1021453|8069|117863|8853|0|1|1503238553|70cd93f2ffe26c2fcf8fa4b4e9fde6f3"
+            + "|9e107d9d372bb6826bd81d3542a419d6|2fd4e1c67a2d28fced849ee1bb76e7391b93eb12|a4e6f2c1"
+            + "|japanese|english|very high|Blu-ray|FLAC|H264/AVC|1920x1080|mkv|1440|Coalgirls|Coalgirls|01"
+            + "|As If I Met Her in My Dream...|Yume no Naka de Atta, Yoona...|夢の中で逢った、ような……"
+            + "|12|12|2011-2011|TV Series|Mahou Shoujo Madoka Magica|魔法少女まどか☆マギカ"
+            + "|Puella Magi Madoka Magica|Action,Drama,Magic,Fantasy,Psychological\n";
+
+    @Param({"plain", "compressed"})
+    public String payload;
+
+    private byte[] datagram;
+
+    @Setup
+    public void setUp() {
+        byte[] text = FILE_REPLY.getBytes(StandardCharsets.UTF_8);
+        if (payload.equals("plain")) {
+            datagram = text;
+            return;
+        }
+        // The server marks compressed replies with two zero bytes before the zlib stream
+        Deflater deflater = new Deflater();
+        deflater.setInput(text);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(0);
+        byte[] chunk = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        datagram = out.toByteArray();
+    }
+
+    @Benchmark
+    public AniDBConnectionResponse decode() throws Exception {
+        String response = AniDBConnection.decodePayload(datagram, datagram.length, "UTF-8");
+        return new AniDBConnectionResponse(TAG, TAG.length() - 1, response);
+    }
+}
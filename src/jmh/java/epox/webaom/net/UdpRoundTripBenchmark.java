@@ -0,0 +1,144 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.net;
+
+import epox.webaom.net.server.FloodPolicy;
+import epox.webaom.net.server.LocalAniDBServer;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FILE requests through {@link AniDBConnection} to a {@link LocalAniDBServer} on loopback, one at a
+ * time, with flood protection off on both sides.
+ *
+ * <p>Besides the time per request, every iteration prints the bytes the client allocated per
+ * request: the benchmark thread plus the transport's sender and receiver threads, but not the
+ * server, which runs in the same JVM. {@code -prof gc} would count the server's garbage as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UdpRoundTripBenchmark {
+    private static final String ED2K = "70cd93f2ffe26c2fcf8fa4b4e9fde6f3";
+
+    private static final String FILE_DATA = "1021453|8069|117863|8853|0|1|1503238553|" + ED2K
+            + "|japanese|english|very high|Blu-ray|FLAC|H264/AVC|1920x1080|mkv|1440|Coalgirls|01"
+            + "|As If I Met Her in My Dream...|夢の中で逢った、ような……|12|12|2011-2011|TV Series"
+            + "|Mahou Shoujo Madoka Magica|魔法少女まどか☆マギカ|Action,Drama,Magic,Fantasy";
+
+    @Param({"plain", "encrypted"})
+    public String session;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private LocalAniDBServer server;
+    private AniDBConnection connection;
+    private long[] clientThreads;
+    private long allocatedAtStart;
+    private long requests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        AniDBConnection.setShutdown(false);
+        server = new LocalAniDBServer();
+        server.setFloodPolicy(FloodPolicy.OFF);
+        server.setCompressAll(compressed);
+        server.addUser("bench", "bench", "benchkey");
+        server.addFile(1021453, 1503238553L, ED2K, FILE_DATA);
+        server.start(0);
+
+        connection = new AniDBConnection(
+                null,
+                new AniDBConnectionSettings("127.0.0.1", server.getPort(), 0, 5, 0, 1, false),
+                new FloodLimiter());
+        if (!connection.connect()) {
+            throw new IllegalStateException(connection.getLastError());
+        }
+        connection.set("bench", "bench", session.equals("encrypted") ? "benchkey" : null);
+        if (session.equals("encrypted") && connection.encrypt() < 0) {
+            throw new IllegalStateException("ENCRYPT failed");
+        }
+        if (!connection.login()) {
+            throw new IllegalStateException(connection.getLastError());
+        }
+        clientThreads = new long[] {
+            Thread.currentThread().threadId(), threadId("AniDB-send"), threadId("AniDB-receive")
+        };
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        requests = 0;
+        allocatedAtStart = allocated();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportAllocations() {
+        if (requests > 0) {
+            long perRequest = (allocated() - allocatedAtStart) / requests;
+            System.out.printf("%n  client allocations: %d bytes/request%n", perRequest);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connection.disconnect();
+        server.close();
+    }
+
+    @Benchmark
+    public AniDBConnectionResponse file() throws AniDBException {
+        requests++;
+        return connection.send("FILE", "size=1503238553&ed2k=" + ED2K + "&fmask=7FF8FEF8&amask=C000F0C0", true);
+    }
+
+    private long allocated() {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(clientThreads)) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private static long threadId(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals(name))
+                .mapToLong(Thread::threadId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No thread " + name));
+    }
+}
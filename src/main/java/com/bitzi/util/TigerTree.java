@@ -13,6 +13,7 @@
 package com.bitzi.util;
 
 import gnu.crypto.hash.Tiger;
+import java.nio.ByteBuffer;
 import java.security.DigestException;
 import java.security.MessageDigest;
 import java.util.ArrayList;
@@ -96,6 +97,32 @@ public class TigerTree extends MessageDigest {
         }
     }
 
+    /**
+     * Buffers without a backing array are read one leaf at a time into the leaf buffer, instead of
+     * the default MessageDigestSpi path which copies them into a temporary array first.
+     */
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        if (input.hasArray()) {
+            int length = input.remaining();
+            engineUpdate(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.limit());
+            return;
+        }
+        byteCount += input.remaining();
+        nodes.ensureCapacity(log2Ceil(byteCount / BLOCKSIZE));
+
+        while (input.hasRemaining()) {
+            int chunk = Math.min(BLOCKSIZE - bufferOffset, input.remaining());
+            input.get(buffer, bufferOffset, chunk);
+            bufferOffset += chunk;
+            if (bufferOffset == BLOCKSIZE) {
+                blockUpdate();
+                bufferOffset = 0;
+            }
+        }
+    }
+
     @Override
     protected byte[] engineDigest() {
         byte[] hash = new byte[HASHSIZE];
@@ -157,6 +184,16 @@ public class TigerTree extends MessageDigest {
         throw new CloneNotSupportedException();
     }
 
+    /** Return a new instance that continues from this one's state. Stored node hashes are never modified. */
+    public TigerTree copy() {
+        TigerTree copy = new TigerTree();
+        System.arraycopy(buffer, 0, copy.buffer, 0, bufferOffset);
+        copy.bufferOffset = bufferOffset;
+        copy.byteCount = byteCount;
+        copy.nodes = new ArrayList<>(nodes);
+        return copy;
+    }
+
     private void blockUpdate() {
         blockUpdate(buffer, 0, bufferOffset);
     }
@@ -28,6 +28,7 @@ import javax.swing.event.ListDataListener;
 public class UniqueStringList implements ListModel<String> {
     private final List<String> stringList;
     private final String separator;
+    /** The list shown in the options, if any; null when running without a UI. */
     private ListDataListener listDataListener;
 
     public UniqueStringList(String separator) {
@@ -39,19 +40,25 @@ public class UniqueStringList implements ListModel<String> {
         if (!stringList.contains(element)) {
             int size = getSize();
             stringList.add(element);
-            listDataListener.intervalAdded(new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, size, size));
+            if (listDataListener != null) {
+                listDataListener.intervalAdded(new ListDataEvent(this, ListDataEvent.INTERVAL_ADDED, size, size));
+            }
         }
     }
 
     public void removeElementAt(int index) {
         String removed = stringList.remove(index);
-        listDataListener.intervalRemoved(new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, index, index));
+        if (listDataListener != null) {
+            listDataListener.intervalRemoved(new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, index, index));
+        }
     }
 
     public void reset() {
         int size = getSize();
         stringList.clear();
-        listDataListener.intervalRemoved(new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, 0, size - 1));
+        if (listDataListener != null) {
+            listDataListener.intervalRemoved(new ListDataEvent(this, ListDataEvent.INTERVAL_REMOVED, 0, size - 1));
+        }
     }
 
     public boolean includes(String element) {
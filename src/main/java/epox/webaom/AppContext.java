@@ -24,6 +24,7 @@ import epox.webaom.db.DatabaseManager;
 import epox.webaom.db.DatabaseManagerFactory;
 import epox.webaom.net.AniDBConnectionSettings;
 import epox.webaom.net.AniDBFileClient;
+import epox.webaom.net.FloodLimiter;
 import epox.webaom.ui.DialogHelper;
 import epox.webaom.ui.MainPanel;
 import epox.webaom.ui.shortcuts.ShortcutRegistry;
@@ -84,6 +85,8 @@ public final class AppContext {
     public static JobList jobs;
     public static AniDBConnectionSettings usetup;
     public static MainPanel gui;
+    /** What the DiskIO and NetIO workers report to: {@link #gui}, or the console in batch mode. */
+    public static Frontend frontend;
     /** File handler for managing file extensions and file operations. */
     public static FileHandler fileHandler;
     /** Primary popup menu component (jobs table context menu). */
@@ -148,17 +151,10 @@ public final class AppContext {
     public static void init() {
         // A.mem0 = A.getUsed();
         Thread.currentThread().setName("Main");
-        jobs = new JobList();
-        jobCounter = new JobCounter();
-        rules = new Rules();
-        cache = new Cache();
-        databaseManager = DatabaseManagerFactory.createEmbedded();
-        fileHandler = new FileHandler();
-        opt = new Options();
-        dio = new DiskIOManager();
-        nio = new NetworkIOManager();
+        initCore(new Options());
         // A.mem1 = A.getUsed();
         gui = new MainPanel();
+        frontend = gui;
 
         String legacyTemplatePath = getLegacyTemplatePath(IS_DEVELOPMENT);
         if (legacyTemplatePath != null) {
@@ -173,6 +169,29 @@ public final class AppContext {
         // A.mem2 = A.getUsed();
     }
 
+    /**
+     * Set up the job list, cache and workers without creating any Swing component, for the batch
+     * mode. Unlike {@link #init()} this loads nothing: the caller loads the options and applies them.
+     */
+    public static void initHeadless(Options options, Frontend headlessFrontend) {
+        initCore(options);
+        frontend = headlessFrontend;
+    }
+
+    private static void initCore(Options options) {
+        jobs = new JobList();
+        jobCounter = new JobCounter();
+        rules = new Rules();
+        cache = new Cache();
+        databaseManager = DatabaseManagerFactory.createEmbedded();
+        fileHandler = new FileHandler();
+        opt = options;
+        dio = new DiskIOManager();
+        dio.getMetrics().register();
+        FloodLimiter.shared().register();
+        nio = new NetworkIOManager();
+    }
+
     static String getLegacyTemplatePath(boolean isDevelopment) {
         return isDevelopment ? null : PlatformPaths.getLegacyTemplateFilePath();
     }
@@ -287,14 +306,27 @@ public final class AppContext {
     }
 
     public static void dialog(String title, String msg) {
+        if (isHeadless()) {
+            frontend.showMessage((title.endsWith(":") ? title : title + ":") + " " + msg);
+            return;
+        }
         DialogHelper.showMessageDialog(component, msg, title, JOptionPane.PLAIN_MESSAGE);
     }
 
+    /** True in batch mode, where there is nobody to answer a dialog; questions get their safe answer. */
+    private static boolean isHeadless() {
+        return gui == null && frontend != null;
+    }
+
     public static void dialog2(String title, String msg) {
         new epox.webaom.ui.JFrameHtml(title, msg);
     }
 
     public static boolean confirm(String title, String msg, String pos, String neg) {
+        if (isHeadless()) {
+            frontend.showMessage(title + ": " + msg + " (" + neg + ")");
+            return false;
+        }
         Object[] o = {pos, neg};
         return DialogHelper.showOptionDialog(
                         AppContext.component,
@@ -318,6 +350,9 @@ public final class AppContext {
      * @return 0 for Yes, 1 for No, 2 for Cancel, -1 if closed
      */
     public static int showYesNoCancelDialog(String title, String msg) {
+        if (isHeadless()) {
+            return -1;
+        }
         Object[] options = {"Yes", "No", "Cancel"};
         return DialogHelper.showOptionDialog(
                 AppContext.component,
@@ -348,6 +383,9 @@ public final class AppContext {
      * @return one of FILENAME_TRUNCATE, FILENAME_SKIP, FILENAME_TRUNCATE_ALL, or FILENAME_SKIP_ALL
      */
     public static int showFilenameTooLongDialog(String filename, int currentBytes, int maxBytes) {
+        if (isHeadless()) {
+            return FILENAME_SKIP;
+        }
         String displayName = filename;
         if (displayName.length() > 60) {
             displayName = displayName.substring(0, 57) + "...";
@@ -25,7 +25,10 @@ import epox.webaom.data.Episode;
 import epox.webaom.data.Group;
 import epox.webaom.data.Path;
 import epox.webaom.db.DatabaseManager;
+import epox.webaom.net.FileMask;
+import java.io.File;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class Cache {
@@ -54,7 +57,14 @@ public class Cache {
     /** Whether to hide new/missing files from tree */
     private static boolean hideNew = false;
 
+    /** How long the data of an anime that is still airing is used after it last came from the server. */
+    static final long AIRING_REFRESH_MS = 6 * 60 * 60 * 1000L;
+
     private final CacheMap[] cacheMaps;
+    /** The last file identified in each directory, to guess the anime and group of the next one. */
+    private final Map<File, AniDBFile> lastFileInDirectory = new HashMap<>();
+    /** When the data of each anime last came from the server in this session. */
+    private final Map<Integer, Long> animeRefreshedAt = new HashMap<>();
 
     public Cache() {
         cacheMaps = new CacheMap[3];
@@ -97,10 +107,12 @@ public class Cache {
                 + cacheMaps[DatabaseManager.INDEX_ANIME].size();
     }
 
-    public void clear() {
+    public synchronized void clear() {
         for (CacheMap cacheMap : cacheMaps) {
             cacheMap.clear();
         }
+        lastFileInDirectory.clear();
+        animeRefreshedAt.clear();
     }
 
     public void add(AniDBEntity baseObject, int updateMode, int cacheType) {
@@ -150,73 +162,90 @@ public class Cache {
         }
     }
 
+    /** Parse a reply to a FILE request with {@link FileMask#FULL}. */
     public AniDBFile parseFile(String[] fields, Job job) {
-        if (fields.length != 34) {
-            LOGGER.warning(() -> "Unexpected response! len=" + fields.length);
+        return parseFile(fields, FileMask.FULL, job);
+    }
+
+    /**
+     * Parse a reply to a FILE request. The parts {@code mask} left out are taken from the cache,
+     * which {@link #canComplete(String[], FileMask)} should have confirmed; only the parts that came
+     * with the reply are written back to the database.
+     */
+    public synchronized AniDBFile parseFile(String[] fields, FileMask mask, Job job) {
+        if (fields.length != mask.fieldCount()) {
+            LOGGER.warning(() -> "Unexpected response! len=" + fields.length + ", mask=" + mask);
             job.setError("Unexpected response from server.");
             return null;
         }
         AniDBFile file = new AniDBFile(fields);
-        int fieldIndex = 20;
+        int fieldIndex = FileMask.FILE_FIELDS;
         // create/retrieve data objects
-        Anime anime = (Anime) cacheMaps[DatabaseManager.INDEX_ANIME].get(file.getAnimeId());
+        Anime anime = (Anime) (mask.anime()
+                ? cacheMaps[DatabaseManager.INDEX_ANIME].get(file.getAnimeId())
+                : get(file.getAnimeId(), DatabaseManager.INDEX_ANIME));
+        Episode episode = (Episode) (mask.episode()
+                ? cacheMaps[DatabaseManager.INDEX_EPISODE].get(file.getEpisodeId())
+                : get(file.getEpisodeId(), DatabaseManager.INDEX_EPISODE));
+        Group group;
+        if (mask.group()) {
+            group = (Group) cacheMaps[DatabaseManager.INDEX_GROUP].get(file.getGroupId());
+        } else if (file.getGroupId() == 0) {
+            group = Group.NONE;
+        } else {
+            group = (Group) get(file.getGroupId(), DatabaseManager.INDEX_GROUP);
+        }
+        boolean uncached = (anime == null && !mask.anime())
+                || (episode == null && !mask.episode())
+                || (group == null && !mask.group());
+        if (uncached) {
+            LOGGER.warning(() -> "Response lacks uncached data! fid=" + file.getFileId() + ", mask=" + mask);
+            job.setError("Incomplete response from server.");
+            return null;
+        }
+
         if (anime == null) {
             anime = new Anime(file.getAnimeId());
         } else {
             AppContext.animeTreeRoot.remove(anime);
         }
         file.setAnime(anime);
-
-        Episode episode = (Episode) cacheMaps[DatabaseManager.INDEX_EPISODE].get(file.getEpisodeId());
         if (episode == null) {
             episode = new Episode(file.getEpisodeId());
         }
         file.setEpisode(episode);
-
-        Group group = (Group) cacheMaps[DatabaseManager.INDEX_GROUP].get(file.getGroupId());
         if (group == null) {
             group = new Group(file.getGroupId());
         }
         file.setGroup(group);
 
-        // set group data
-        file.getGroup().name = fields[fieldIndex++];
-        file.getGroup().shortName = fields[fieldIndex++];
-        // set episode data
-        file.getEpisode().num = fields[fieldIndex++];
-        file.getEpisode().eng = fields[fieldIndex++];
-        file.getEpisode().rom = StringUtilities.n(fields[fieldIndex++]);
-        file.getEpisode().kan = StringUtilities.n(fields[fieldIndex++]);
-        // set anime data
-        file.getAnime().episodeCount = Integer.parseInt(fields[fieldIndex++]);
-        file.getAnime().latestEpisode = Integer.parseInt(fields[fieldIndex++]);
-
-        try {
-            file.getAnime().year = Integer.parseInt(fields[fieldIndex++].substring(0, 4));
-        } catch (Exception ex) {
-            file.getAnime().year = 0;
+        if (mask.group()) {
+            group.name = fields[fieldIndex++];
+            group.shortName = fields[fieldIndex++];
         }
-        try {
-            file.getAnime().endYear = Integer.parseInt(fields[fieldIndex - 1].substring(5, 9));
-        } catch (Exception ex) {
-            file.getAnime().endYear = file.getAnime().year;
+        if (mask.episode()) {
+            episode.num = fields[fieldIndex++];
+            episode.eng = fields[fieldIndex++];
+            episode.rom = StringUtilities.n(fields[fieldIndex++]);
+            episode.kan = StringUtilities.n(fields[fieldIndex++]);
+        }
+        if (mask.anime()) {
+            parseAnime(anime, fields, fieldIndex);
+            animeRefreshedAt.put(anime.getId(), System.currentTimeMillis());
         }
-        file.getAnime().type = fields[fieldIndex++];
-        file.getAnime().romajiTitle = fields[fieldIndex++];
-        file.getAnime().kanjiTitle = StringUtilities.n(fields[fieldIndex++]);
-        file.getAnime().englishTitle = StringUtilities.n(fields[fieldIndex++]);
-        file.getAnime().categories = fields[fieldIndex];
-        file.getAnime().init();
         // wrap up
-        file.setDefaultName(file.getAnime().romajiTitle + " - " + file.getEpisode().num + " - " + file.getEpisode().eng
-                + " - [" + ((file.getGroupId() > 0) ? file.getGroup().shortName : "RAW") + "]");
+        file.setDefaultName(anime.romajiTitle + " - " + episode.num + " - " + episode.eng
+                + " - [" + ((file.getGroupId() > 0) ? group.shortName : "RAW") + "]");
         file.pack();
 
         // update cache/db
-        add(file.getAnime(), 2, DatabaseManager.INDEX_ANIME);
-        add(file.getEpisode(), 2, DatabaseManager.INDEX_EPISODE);
-        add(file.getGroup(), 2, DatabaseManager.INDEX_GROUP);
+        add(anime, mask.anime() ? 2 : 0, DatabaseManager.INDEX_ANIME);
+        add(episode, mask.episode() ? 2 : 0, DatabaseManager.INDEX_EPISODE);
+        if (mask.group() || group != Group.NONE) {
+            add(group, mask.group() ? 2 : 0, DatabaseManager.INDEX_GROUP);
+        }
         AppContext.databaseManager.update(file.getFileId(), file, DatabaseManager.INDEX_FILE);
+        lastFileInDirectory.put(job.getFile().getParentFile(), file);
 
         // update data tree
         job.anidbFile = file;
@@ -224,6 +253,87 @@ public class Cache {
         return file;
     }
 
+    private static void parseAnime(Anime anime, String[] fields, int fieldIndex) {
+        anime.episodeCount = Integer.parseInt(fields[fieldIndex++]);
+        anime.latestEpisode = Integer.parseInt(fields[fieldIndex++]);
+
+        try {
+            anime.year = Integer.parseInt(fields[fieldIndex++].substring(0, 4));
+        } catch (Exception ex) {
+            anime.year = 0;
+        }
+        try {
+            anime.endYear = Integer.parseInt(fields[fieldIndex - 1].substring(5, 9));
+        } catch (Exception ex) {
+            anime.endYear = anime.year;
+        }
+        anime.type = fields[fieldIndex++];
+        anime.romajiTitle = fields[fieldIndex++];
+        anime.kanjiTitle = StringUtilities.n(fields[fieldIndex++]);
+        anime.englishTitle = StringUtilities.n(fields[fieldIndex++]);
+        anime.categories = fields[fieldIndex];
+        anime.init();
+    }
+
+    /**
+     * The mask to request a job's file with. Its anime and group are not known before the reply, so
+     * they are guessed from the last file identified in the same directory, which is usually another
+     * episode of the same release. Parts the cache or database holds fresh are left out; the episode
+     * is always requested since it changes from file to file.
+     */
+    public synchronized FileMask fileMaskFor(Job job) {
+        AniDBFile previous = lastFileInDirectory.get(job.getFile().getParentFile());
+        if (previous == null) {
+            return FileMask.FULL;
+        }
+        boolean group = previous.getGroupId() != 0 && get(previous.getGroupId(), DatabaseManager.INDEX_GROUP) == null;
+        boolean anime = !isFresh((Anime) get(previous.getAnimeId(), DatabaseManager.INDEX_ANIME));
+        return new FileMask(group, true, anime);
+    }
+
+    /**
+     * Whether {@link #parseFile(String[], FileMask, Job)} can fill in what a reply to a request with
+     * {@code mask} left out. When the guess of {@link #fileMaskFor(Job)} was wrong it cannot, and the
+     * file has to be requested again with {@link FileMask#FULL}.
+     */
+    public synchronized boolean canComplete(String[] fields, FileMask mask) {
+        if (fields.length < FileMask.FILE_FIELDS) {
+            return true; // malformed, parseFile reports it
+        }
+        AniDBFile file = new AniDBFile(fields);
+        return (mask.anime() || isFresh((Anime) get(file.getAnimeId(), DatabaseManager.INDEX_ANIME)))
+                && (mask.episode() || get(file.getEpisodeId(), DatabaseManager.INDEX_EPISODE) != null)
+                && (mask.group()
+                        || file.getGroupId() == 0
+                        || get(file.getGroupId(), DatabaseManager.INDEX_GROUP) != null);
+    }
+
+    /**
+     * Whether the cache or database holds the anime, episode and group {@code file} refers to, so
+     * {@link #gatherInfo(Job, boolean)} can complete it without asking the server.
+     */
+    public synchronized boolean hasInfoFor(AniDBFile file) {
+        return get(file.getAnimeId(), DatabaseManager.INDEX_ANIME) != null
+                && get(file.getEpisodeId(), DatabaseManager.INDEX_EPISODE) != null
+                && (file.getGroupId() == 0 || get(file.getGroupId(), DatabaseManager.INDEX_GROUP) != null);
+    }
+
+    /**
+     * Whether cached anime data can stand in for the server's. Finished anime no longer change;
+     * airing ones are trusted for {@link #AIRING_REFRESH_MS} after their data last came from the
+     * server, so new episodes show up in the episode count.
+     */
+    private boolean isFresh(Anime anime) {
+        if (anime == null) {
+            return false;
+        }
+        if (anime.episodeCount > 0 && anime.latestEpisode >= anime.episodeCount) {
+            return true;
+        }
+        Long refreshedAt = animeRefreshedAt.get(anime.getId());
+        return refreshedAt != null && System.currentTimeMillis() - refreshedAt < AIRING_REFRESH_MS;
+    }
+
     public String stats() {
         return cacheMaps[0].size() + "," + cacheMaps[1].size() + "," + cacheMaps[2].size();
     }
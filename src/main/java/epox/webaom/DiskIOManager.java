@@ -19,58 +19,150 @@ package epox.webaom;
 import epox.av.AVInfo;
 import epox.webaom.hash.Ed2kHash;
 import epox.webaom.hash.HashAlgorithm;
+import epox.webaom.hash.HashPipeline;
+import epox.webaom.hash.HashTimings;
+import epox.webaom.hash.ParallelEd2k;
+import epox.webaom.hash.ReadAhead;
+import epox.webaom.util.BufferPool;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
-import javax.swing.SwingUtilities;
 
 /**
  * Manages disk I/O operations including parallel file hashing, file moving, and AV parsing.
  *
- * <p>Hashing operations run in parallel (up to 4 files simultaneously) using a thread pool,
- * while move and parse operations remain single-threaded for simplicity.
+ * <p>Hashing operations run in parallel using a thread pool, with concurrency decided per storage
+ * device by {@link HashScheduler}. Moves run in parallel too, one per source/destination device
+ * pair (see {@link MoveScheduler}), while parse operations remain single-threaded for simplicity.
+ * When several checksums are enabled, a file's digests can run on separate threads fed by a single
+ * reader (see {@link HashPipeline}). When only one or two large files are being hashed, the ED2K
+ * blocks of each file are read and hashed on several threads (see {@link ParallelEd2k}).
  */
 public class DiskIOManager implements Runnable {
     private static final String DISK_SPACE_ERROR_MESSAGE = "There is not enough space on the disk";
     private static final DecimalFormat DECIMAL_FORMATTER = new DecimalFormat("0.00");
 
-    /** Number of files to hash in parallel */
-    private static final int PARALLEL_HASH_JOBS = 4;
+    /** Upper bound on files hashed in parallel across all devices */
+    private static final int MAX_PARALLEL_HASH_JOBS =
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
 
-    /** Buffer size per hash task (3MB) */
-    private static final int BUFFER_SIZE = 1048576 * 3;
+    /** Cap on direct memory held in buffers: half the heap limit, at most 512 MB */
+    private static final long BUFFER_POOL_MAX_BYTES = Math.min(512L * 1048576, Runtime.getRuntime().maxMemory() / 2);
 
-    /** Shared buffer for single-threaded operations (move, parse) */
-    private static final byte[] SHARED_BUFFER = new byte[BUFFER_SIZE];
+    /** Buffers in circulation per file when digests run in a {@link HashPipeline} */
+    private static final int PIPELINE_RING_SIZE = 4;
+
+    /** Buffers per file when the next chunk is read while the current one is digested */
+    private static final int READ_AHEAD_BUFFERS = 2;
+
+    /** Files at least this large are read through memory-mapped windows when mapping is enabled */
+    private static final long MAPPED_MIN_FILE_SIZE = 64L * 1048576;
+
+    /** Size of each memory-mapped window; bounds address space per hash task */
+    private static final long MAPPED_WINDOW_SIZE = 256L * 1048576;
+
+    /** New files are read rather than mapped while windows this large in total await collection */
+    private static final long MAPPED_MAX_LIVE_BYTES = 8 * MAPPED_WINDOW_SIZE;
+
+    /** The JVM's count of mapped buffers not yet collected, null if it doesn't report one */
+    private static final BufferPoolMXBean MAPPED_BUFFERS =
+            ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                    .filter(pool -> pool.getName().equals("mapped"))
+                    .findFirst()
+                    .orElse(null);
+
+    /** Files at least this large may have their ED2K blocks hashed in parallel */
+    private static final long PARALLEL_ED2K_MIN_FILE_SIZE = 4L * Ed2kHash.BLOCK_SIZE;
+
+    /** At most this many files may be in the hash queue for intra-file parallel ED2K to kick in */
+    private static final int PARALLEL_ED2K_MAX_FILES = 2;
 
     private static final String FAILED_MOVE_CLEANUP_MESSAGE = "Cleanup after failed moving operation.";
     private static final String ABORTED_MOVE_CLEANUP_MESSAGE = "Cleanup after aborted moving operation.";
     private static final String SUCCESSFUL_MOVE_CLEANUP_MESSAGE = "Cleanup after successful moving operation.";
 
+    /** Direct buffers for hashing, copying and verifying, shared by all DiskIO threads */
+    private final BufferPool bufferPool = new BufferPool(BUFFER_POOL_MAX_BYTES);
+
+    /** Threads running moves, at most one per source/destination device pair */
+    private ExecutorService moveExecutor;
+
+    /** Decides which waiting jobs to move based on the devices they are moved between */
+    private MoveScheduler moveScheduler;
+
+    /** Jobs currently being moved */
+    private final Set<Job> activeMoveJobs = ConcurrentHashMap.newKeySet();
+
     /** Thread pool for parallel hashing */
     private ExecutorService hashExecutor;
 
+    /** Decides which waiting jobs to hash based on the device they are stored on */
+    private HashScheduler hashScheduler;
+
+    /** Threads running individual digests for pipelined hash tasks (one per algorithm per file) */
+    private ExecutorService digestExecutor;
+
     /** Jobs currently being hashed (to prevent double-submission) */
     private final Set<Job> activeHashJobs = ConcurrentHashMap.newKeySet();
 
+    /** Hash and move jobs whose task has ended, released by the main loop on its next pass */
+    private final Queue<Job> completedJobs = new ConcurrentLinkedQueue<>();
+
+    /** Per-stage timings and load, published through JMX and the status panel */
+    private final DiskIOMetrics metrics = new DiskIOMetrics(
+            this::countQueuedHashJobs,
+            activeHashJobs::size,
+            activeMoveJobs::size,
+            () -> bufferPool.getStats().lentBytes());
+
+    /** Digest state of files whose hashing was stopped, so they resume instead of starting over */
+    private final HashCheckpoints checkpoints = new HashCheckpoints();
+
+    /** Permits released by {@link #wakeUp()}; the main loop parks on this while idle */
+    private final Semaphore wakeUps = new Semaphore(0);
+
     /** Total bytes hashed across all jobs in current session */
     private final AtomicLong totalBytesHashed = new AtomicLong(0);
 
     /** Session start time for speed calculation */
     private volatile long sessionStartTime;
 
+    /** Length of one autotuner measurement window */
+    private static final long TUNE_WINDOW_MS = 5000;
+
+    /** Adjusts hash concurrency from measured throughput; null unless auto-tune is enabled */
+    private HashConcurrencyTuner concurrencyTuner;
+
+    /** Set when a hash slot sat idle for lack of work during the current tuning window */
+    private boolean tuneWindowStarved;
+
+    /** Receives successive chunks of a file being hashed. */
+    private interface ChunkConsumer {
+        void accept(ByteBuffer chunk) throws IOException, InterruptedException;
+    }
+
     public static class ChecksumData {
         final String name;
         final HashAlgorithm algorithm;
@@ -84,55 +176,87 @@ public class DiskIOManager implements Runnable {
 
     @Override
     public void run() {
-        AppContext.gui.setDiskIoOptionsEnabled(false);
-        hashExecutor = Executors.newFixedThreadPool(PARALLEL_HASH_JOBS, r -> {
+        AppContext.frontend.setDiskIoOptionsEnabled(false);
+        hashScheduler = new HashScheduler(
+                MAX_PARALLEL_HASH_JOBS, AppContext.frontend.getHashOptions().getHashDeviceLimits());
+        concurrencyTuner = null;
+        if (AppContext.frontend.getHashOptions().isHashAutotuneEnabled()) {
+            concurrencyTuner = new HashConcurrencyTuner(
+                    Math.min(HashScheduler.SOLID_STATE_LIMIT, hashScheduler.getMaxConcurrent()),
+                    1,
+                    hashScheduler.getMaxConcurrent());
+            hashScheduler.setConcurrencyLimit(concurrencyTuner.getLevel());
+        }
+        hashExecutor = Executors.newFixedThreadPool(hashScheduler.getMaxConcurrent(), r -> {
             Thread t = new Thread(r);
             t.setName("HashWorker-" + t.threadId());
             t.setDaemon(true);
             return t;
         });
+        digestExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r);
+            t.setName("HashDigest-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
+        moveScheduler =
+                new MoveScheduler(MoveScheduler.MAX_CONCURRENT, () -> AppContext.frontend.isDiskIoOk(), bufferPool);
+        moveExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r);
+            t.setName("MoveWorker-" + t.threadId());
+            t.setDaemon(true);
+            return t;
+        });
 
         totalBytesHashed.set(0);
         sessionStartTime = System.currentTimeMillis();
 
-        AppContext.gui.status0("DiskIO started.");
-        AppContext.gui.println("DiskIO started.");
+        AppContext.frontend.status0("DiskIO started.");
+        AppContext.frontend.println("DiskIO started.");
 
         try {
             mainLoop();
         } finally {
             shutdownExecutor();
             String summary = getSessionSummary();
-            AppContext.gui.status0(summary);
-            AppContext.gui.println(summary);
-            AppContext.gui.statusProgressBar.setValue(0);
-            AppContext.gui.diskIoThread = null;
-            AppContext.gui.setDiskIoOptionsEnabled(true);
+            if (concurrencyTuner != null) {
+                summary += " [" + concurrencyTuner.describe() + "]";
+            }
+            AppContext.frontend.status0(summary);
+            AppContext.frontend.println(summary);
+            AppContext.frontend.println("Buffer pool: " + bufferPool.getStats());
+            AppContext.frontend.setProgress(0);
+            AppContext.frontend.diskIoStopped();
+            AppContext.frontend.setDiskIoOptionsEnabled(true);
         }
     }
 
+    public DiskIOMetrics getMetrics() {
+        return metrics;
+    }
+
+    private int countQueuedHashJobs() {
+        return AppContext.jobs != null ? AppContext.jobs.countJobsDio(Job.HASHWAIT) : 0;
+    }
+
     /**
-     * Main processing loop. Handles move/parse operations single-threaded,
-     * and submits hash jobs to the thread pool for parallel processing.
+     * Main processing loop. Handles parse operations single-threaded, and submits move and hash
+     * jobs to their thread pools for parallel processing.
+     *
+     * <p>When there is nothing to start, the loop parks until a task completes, new disk work
+     * is queued (see {@link #wakeUp()}), or the next status update is due. It doesn't wake up at
+     * all while waiting for work with no hashes running.
      */
     private void mainLoop() {
         long lastStatusUpdate = System.currentTimeMillis();
+        long lastTuneSample = lastStatusUpdate;
         final long STATUS_UPDATE_INTERVAL_MS = 500;
 
-        while (AppContext.gui.isDiskIoOk()) {
-            boolean didWork = false;
+        while (AppContext.frontend.isDiskIoOk()) {
+            releaseCompletedJobs();
 
-            // Handle MOVE operations (single-threaded)
-            Job moveJob = getNextJobByStatus(Job.MOVEWAIT);
-            if (moveJob != null) {
-                try {
-                    fileMove(moveJob);
-                } catch (IOException e) {
-                    handleMoveError(moveJob, e);
-                }
-                didWork = true;
-                continue; // Check for more work immediately
-            }
+            // Start MOVE operations on idle device pairs (parallel)
+            int movesSubmitted = submitMoveJobs();
 
             // Handle PARSE operations (single-threaded)
             Job parseJob = getNextJobByStatus(Job.PARSEWAIT);
@@ -142,36 +266,90 @@ public class DiskIOManager implements Runnable {
                 } catch (IOException e) {
                     handleParseError(parseJob, e);
                 }
-                didWork = true;
                 continue;
             }
 
             // Submit hash jobs to thread pool (parallel)
             int submitted = submitHashJobs();
-            if (submitted > 0) {
-                didWork = true;
+            if (submitted == 0
+                    && concurrencyTuner != null
+                    && activeHashJobs.size() < hashScheduler.getConcurrencyLimit()
+                    && AppContext.jobs.getJobsDio(1, Job.HASHWAIT, activeHashJobs).isEmpty()) {
+                tuneWindowStarved = true;
             }
 
             // Update status bar with consolidated speed
             long now = System.currentTimeMillis();
+            if (concurrencyTuner != null && now - lastTuneSample >= TUNE_WINDOW_MS) {
+                lastTuneSample = now;
+                sampleConcurrencyTuner(now);
+            }
             if (!activeHashJobs.isEmpty() && now - lastStatusUpdate >= STATUS_UPDATE_INTERVAL_MS) {
                 lastStatusUpdate = now;
                 updateConsolidatedStatus();
             }
+            if (submitted > 0 || movesSubmitted > 0) {
+                continue;
+            }
 
             // Exit if no work available and no jobs in progress
-            if (!didWork && activeHashJobs.isEmpty() && !hasMoreWork()) {
+            if (activeHashJobs.isEmpty() && activeMoveJobs.isEmpty() && !hasMoreWork()) {
                 break;
             }
 
-            // Brief pause to avoid tight loop when waiting for hash completion
-            if (!didWork && !activeHashJobs.isEmpty()) {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+            long timeout = 0; // nothing running: wait for new work only
+            if (!activeHashJobs.isEmpty()) {
+                long nextDue = lastStatusUpdate + STATUS_UPDATE_INTERVAL_MS;
+                if (concurrencyTuner != null) {
+                    nextDue = Math.min(nextDue, lastTuneSample + TUNE_WINDOW_MS);
                 }
+                timeout = Math.max(1, nextDue - now);
+            }
+            if (!awaitWakeUp(timeout)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Wake the main loop so it looks for work again. Called when jobs enter the disk I/O queue, when
+     * a hash task ends, and when DiskIO is stopped. Wake-ups are never lost: one that arrives while
+     * the loop is busy makes its next wait return immediately.
+     */
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    /**
+     * Park until {@link #wakeUp()} is called or the timeout passes.
+     *
+     * @param timeoutMs maximum wait, or 0 to wait for a wake-up indefinitely
+     * @return false if the thread was interrupted
+     */
+    private boolean awaitWakeUp(long timeoutMs) {
+        try {
+            if (timeoutMs > 0) {
+                wakeUps.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+            } else {
+                wakeUps.acquire();
+            }
+            // One pass of the loop handles everything signalled so far
+            wakeUps.drainPermits();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Free the scheduler slots of hash and move tasks that have ended since the last pass. */
+    private void releaseCompletedJobs() {
+        Job job;
+        while ((job = completedJobs.poll()) != null) {
+            if (activeHashJobs.remove(job)) {
+                hashScheduler.release(job);
+            } else if (activeMoveJobs.remove(job)) {
+                moveScheduler.release(job);
             }
         }
     }
@@ -179,7 +357,28 @@ public class DiskIOManager implements Runnable {
     private void updateConsolidatedStatus() {
         String stats = getFinalSessionStats();
         if (!stats.isEmpty()) {
-            AppContext.gui.status0(stats);
+            if (concurrencyTuner != null) {
+                stats += " [" + concurrencyTuner.describe() + "]";
+            }
+            AppContext.frontend.status0(stats);
+        }
+    }
+
+    /**
+     * Feed the autotuner the bytes hashed during the last window and apply its new level. Windows in
+     * which a slot went idle for lack of queued files are not used for tuning.
+     */
+    private void sampleConcurrencyTuner(long now) {
+        boolean saturated = !tuneWindowStarved;
+        tuneWindowStarved = false;
+        boolean wasSettled = concurrencyTuner.isSettled();
+        int previousLevel = concurrencyTuner.getLevel();
+        if (concurrencyTuner.sample(
+                totalBytesHashed.get(), now, HashConcurrencyTuner.processCpuLoad(), saturated)) {
+            hashScheduler.setConcurrencyLimit(concurrencyTuner.getLevel());
+            AppContext.frontend.println("Hash autotune: " + previousLevel + " -> " + concurrencyTuner.describe());
+        } else if (concurrencyTuner.isSettled() && !wasSettled) {
+            AppContext.frontend.println("Hash autotune: " + concurrencyTuner.describe());
         }
     }
 
@@ -241,34 +440,75 @@ public class DiskIOManager implements Runnable {
     }
 
     /**
-     * Submit hash jobs to the thread pool, up to PARALLEL_HASH_JOBS concurrent.
+     * Submit hash jobs to the thread pool, as many as the per-device limits allow.
      *
      * @return number of jobs submitted
      */
     private int submitHashJobs() {
-        int slotsAvailable = PARALLEL_HASH_JOBS - activeHashJobs.size();
-        if (slotsAvailable <= 0) {
+        List<Job> jobs = hashScheduler.next(AppContext.jobs, activeHashJobs);
+        if (jobs.isEmpty()) {
             return 0;
         }
-
-        List<Job> jobs = AppContext.jobs.getJobsDio(slotsAvailable, Job.HASHWAIT, activeHashJobs);
+        activeHashJobs.addAll(jobs);
+        // With only a file or two to hash, per-file parallelism is all that can keep fast storage busy
+        int queuedFiles = activeHashJobs.size()
+                + AppContext.jobs
+                        .getJobsDio(PARALLEL_ED2K_MAX_FILES, Job.HASHWAIT, activeHashJobs)
+                        .size();
+        boolean fewFiles = queuedFiles <= PARALLEL_ED2K_MAX_FILES;
         for (Job job : jobs) {
-            activeHashJobs.add(job);
             JobManager.updateStatus(job, Job.HASHING);
-            hashExecutor.submit(new HashTask(job));
+            hashExecutor.submit(new HashTask(
+                    job, fewFiles ? ed2kParallelism(job, queuedFiles) : 1, hashScheduler.getReadBufferSize(job)));
         }
 
         return jobs.size();
     }
 
     /**
-     * Gracefully shut down the hash executor, waiting for active tasks to complete.
+     * Start moves on every device pair that has none running.
+     *
+     * @return number of jobs submitted
+     */
+    private int submitMoveJobs() {
+        List<MoveScheduler.Assignment> assignments = moveScheduler.next(AppContext.jobs, activeMoveJobs);
+        for (MoveScheduler.Assignment assignment : assignments) {
+            activeMoveJobs.add(assignment.job());
+            moveExecutor.submit(new MoveTask(assignment.job(), assignment.mover()));
+        }
+        return assignments.size();
+    }
+
+    /**
+     * Threads to hash one file's ED2K blocks with: the device's concurrent read limit shared among
+     * the queued files, bounded by the CPU count. Rotational disks (limit 1) always get 1.
+     */
+    private int ed2kParallelism(Job job, int queuedFiles) {
+        int deviceShare = hashScheduler.getDeviceLimit(job) / Math.max(1, queuedFiles);
+        return Math.max(1, Math.min(deviceShare, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Gracefully shut down the hash and move executors, waiting for active tasks to complete.
      */
     private void shutdownExecutor() {
         if (hashExecutor == null) {
             return;
         }
 
+        // Moves see isDiskIoOk() turn false and stop at the next chunk
+        moveExecutor.shutdown();
+        try {
+            if (!moveExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                moveExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            moveExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        activeMoveJobs.clear();
+        moveScheduler.clear();
+
         hashExecutor.shutdown();
         try {
             // Wait for active hash jobs to complete
@@ -282,22 +522,44 @@ public class DiskIOManager implements Runnable {
             hashExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        // Pipelines and read-ahead end their tasks before the hash task returns, so nothing is left running here
+        digestExecutor.shutdown();
         activeHashJobs.clear();
+        completedJobs.clear();
+        hashScheduler.clear();
     }
 
     /**
-     * Hash task that runs in the thread pool. Each task has its own buffer
+     * Hash task that runs in the thread pool. Each task has its own buffers
      * and hash algorithm instances for thread safety.
      */
     private class HashTask implements Runnable {
         private final Job job;
-        private final byte[] buffer = new byte[BUFFER_SIZE];
         private final LinkedHashMap<String, ChecksumData> checksums;
+        private final boolean pipelined;
+        private final boolean memoryMapped;
+        private final boolean readAhead;
+        private final int ed2kParallelism;
+        private final int readBufferSize;
         private final long startTime;
-
-        HashTask(Job job) {
+        private final HashTimings timings = new HashTimings();
+        private long startNanos;
+        private boolean digestsOverlap;
+        private long fileBytesRead;
+        private long resumedFrom;
+        private byte[][] ed2kBlockDigests;
+        private FileFingerprint fingerprint;
+
+        HashTask(Job job, int ed2kParallelism, int readBufferSize) {
             this.job = job;
-            this.checksums = AppContext.gui.miscOptionsPanel.createChecksums();
+            this.ed2kParallelism = ed2kParallelism;
+            this.readBufferSize = readBufferSize;
+            this.checksums = new LinkedHashMap<>();
+            AppContext.frontend.getHashOptions().createChecksums().forEach((name, data) -> checksums.put(
+                    name, new ChecksumData(name, timings.wrap(name, data.algorithm))));
+            this.pipelined = checksums.size() > 1 && AppContext.frontend.getHashOptions().isHashPipelineEnabled();
+            this.memoryMapped = AppContext.frontend.getHashOptions().isHashMemoryMapEnabled();
+            this.readAhead = AppContext.frontend.getHashOptions().isHashReadAheadEnabled();
             this.startTime = System.currentTimeMillis();
         }
 
@@ -308,7 +570,8 @@ public class DiskIOManager implements Runnable {
             } catch (IOException e) {
                 handleHashError(e);
             } finally {
-                activeHashJobs.remove(job);
+                completedJobs.add(job);
+                wakeUp();
             }
         }
 
@@ -329,36 +592,229 @@ public class DiskIOManager implements Runnable {
                 return;
             }
 
-            long fileBytesRead = 0;
-            int bytesRead;
-
-            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
-                while (AppContext.gui.isDiskIoOk() && (bytesRead = inputStream.read(buffer)) != -1) {
-                    // Update all hash algorithms with the chunk
-                    for (ChecksumData data : checksums.values()) {
-                        data.algorithm.update(buffer, 0, bytesRead);
-                    }
-
-                    fileBytesRead += bytesRead;
-                    totalBytesHashed.addAndGet(bytesRead);
-                    job.hashProgress = (float) fileBytesRead / job.fileSize;
+            // Taken before reading, so a file modified while being hashed won't match the cache later
+            fingerprint = FileFingerprint.of(file);
+            startNanos = System.nanoTime();
+            // Files that fit in one buffer gain nothing from handing chunks to other threads
+            boolean parallelEd2k =
+                    ed2kParallelism > 1 && checksums.size() == 1 && job.fileSize >= PARALLEL_ED2K_MIN_FILE_SIZE;
+            resume(checkpoints.take(file, fingerprint), parallelEd2k);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                boolean mapped = memoryMapped && job.fileSize >= MAPPED_MIN_FILE_SIZE && canMap();
+                if (parallelEd2k) {
+                    digestEd2kParallel(channel);
+                } else if (pipelined && job.fileSize > readBufferSize) {
+                    digestsOverlap = true;
+                    digestPipelined(channel.position(fileBytesRead), mapped);
+                } else if (mapped) {
+                    readMapped(channel, this::updateAll);
+                } else if (readAhead && job.fileSize - fileBytesRead > readBufferSize) {
+                    digestReadAhead(channel);
+                } else {
+                    digestSequential(channel.position(fileBytesRead));
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.hashProgress = 0f;
             }
 
-            // Check if hashing completed or was interrupted
-            if (job.hashProgress >= 0.9999f) {
+            // Only a run that digested every byte may report, and cache, its checksums
+            boolean complete = !Thread.currentThread().isInterrupted()
+                    && (parallelEd2k ? checksums.get("ed2k").hexValue != null : fileBytesRead == job.fileSize);
+            if (complete) {
                 completeHashing(file);
             } else {
-                // Interrupted - reset progress and return to wait state
+                // Interrupted - keep what was hashed so far and return to wait state
+                saveCheckpoint(file);
                 job.hashProgress = 0f;
                 JobManager.updateStatus(job, Job.HASHWAIT);
             }
         }
 
+        /**
+         * Continue from a checkpoint of an earlier, stopped run. A checkpoint taken with a different
+         * set of checksums, or by the other ED2K path, is dropped and the file starts over.
+         */
+        private void resume(HashCheckpoints.Checkpoint checkpoint, boolean parallelEd2k) {
+            fileBytesRead = 0;
+            ed2kBlockDigests = parallelEd2k ? new byte[ParallelEd2k.blockCount(job.fileSize)][] : null;
+            if (checkpoint == null) {
+                job.hashProgress = 0f;
+                return;
+            }
+            if (parallelEd2k && checkpoint.blockDigests() != null) {
+                ed2kBlockDigests = checkpoint.blockDigests();
+            } else if (!parallelEd2k
+                    && checkpoint.algorithms() != null
+                    && checkpoint.algorithms().keySet().equals(checksums.keySet())) {
+                checkpoint.algorithms().forEach((name, algorithm) -> checksums.put(
+                        name, new ChecksumData(name, timings.wrap(name, algorithm))));
+            } else {
+                job.hashProgress = 0f;
+                return;
+            }
+            fileBytesRead = checkpoint.offset();
+            resumedFrom = fileBytesRead;
+            job.hashProgress = (float) fileBytesRead / job.fileSize;
+            String message = "Resuming " + HyperlinkBuilder.formatAsName(job.getFile()) + " at "
+                    + DiskIOMetrics.formatSize(fileBytesRead);
+            AppContext.frontend.invokeLater(() -> AppContext.frontend.println(message));
+        }
+
+        /**
+         * Remember the digest state of a stopped file. Skipped if the thread was interrupted, since
+         * pipelined digests may then not have caught up with the reads.
+         */
+        private void saveCheckpoint(File file) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (ed2kBlockDigests != null) {
+                long done = ParallelEd2k.bytesDone(ed2kBlockDigests, job.fileSize);
+                checkpoints.saveBlocks(file, fingerprint, done, ed2kBlockDigests);
+            } else {
+                Map<String, HashAlgorithm> algorithms = new LinkedHashMap<>();
+                checksums.forEach((name, data) -> algorithms.put(name, data.algorithm));
+                checkpoints.saveStream(file, fingerprint, fileBytesRead, algorithms);
+            }
+        }
+
+        /** Read the file and update every algorithm with each chunk on this thread. */
+        private void digestSequential(FileChannel channel) throws IOException, InterruptedException {
+            ByteBuffer buffer = bufferPool.acquire(readBufferSize);
+            try {
+                while (AppContext.frontend.isDiskIoOk() && timedRead(channel, buffer) != -1) {
+                    buffer.flip();
+                    countBytes(buffer.remaining());
+                    updateAll(buffer);
+                    buffer.clear();
+                }
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+
+        /**
+         * Digest chunks on this thread while a reader task on the digest executor keeps the next
+         * chunk in flight, so reads and digests overlap instead of taking turns.
+         */
+        private void digestReadAhead(FileChannel channel) throws IOException, InterruptedException {
+            ByteBuffer[] buffers = bufferPool.acquire(readBufferSize, READ_AHEAD_BUFFERS);
+            try (ReadAhead reader =
+                    new ReadAhead(channel::read, fileBytesRead, job.fileSize, buffers, digestExecutor, timings)) {
+                ByteBuffer chunk;
+                while (AppContext.frontend.isDiskIoOk() && (chunk = reader.next()) != null) {
+                    countBytes(chunk.remaining());
+                    updateAll(chunk);
+                }
+            } finally {
+                bufferPool.release(buffers);
+            }
+        }
+
+        /**
+         * Hash the file's ED2K blocks on several threads with positional reads. Only used when ED2K
+         * is the sole checksum, since the other algorithms need the data in order.
+         */
+        private void digestEd2kParallel(FileChannel channel) throws IOException, InterruptedException {
+            byte[] digest = ParallelEd2k.hash(
+                    channel,
+                    job.fileSize,
+                    ed2kParallelism,
+                    digestExecutor,
+                    bufferPool,
+                    AppContext.frontend::isDiskIoOk,
+                    this::countBytes,
+                    timings,
+                    ed2kBlockDigests);
+            if (digest != null) {
+                checksums.get("ed2k").hexValue = HexFormat.of().formatHex(digest);
+            }
+        }
+
+        /** Update all hash algorithms with the same chunk. */
+        private void updateAll(ByteBuffer chunk) {
+            int start = chunk.position();
+            for (ChecksumData data : checksums.values()) {
+                chunk.position(start);
+                data.algorithm.update(chunk);
+            }
+        }
+
+        /**
+         * Read the file on this thread and let each algorithm digest the chunks on its own thread.
+         * Returns once every algorithm has consumed all data read.
+         */
+        private void digestPipelined(FileChannel channel, boolean mapped) throws IOException, InterruptedException {
+            List<HashAlgorithm> algorithms =
+                    checksums.values().stream().map(data -> data.algorithm).toList();
+
+            ByteBuffer[] ring = bufferPool.acquire(readBufferSize, PIPELINE_RING_SIZE);
+            try (HashPipeline pipeline = new HashPipeline(algorithms, ring, digestExecutor)) {
+                if (mapped) {
+                    readMapped(channel, pipeline::publishView);
+                } else {
+                    ByteBuffer buffer = pipeline.acquire();
+                    while (AppContext.frontend.isDiskIoOk() && timedRead(channel, buffer) != -1) {
+                        buffer.flip();
+                        countBytes(buffer.remaining());
+                        pipeline.publish(buffer);
+                        buffer = pipeline.acquire();
+                    }
+                    pipeline.release(buffer);
+                }
+                pipeline.finish();
+            } finally {
+                bufferPool.release(ring);
+            }
+        }
+
+        /**
+         * Map the file in read-only windows and hand it on in {@code readBufferSize} slices, so the
+         * digests read straight from the page cache.
+         *
+         * <p>Windows cannot be unmapped explicitly; each stays mapped until it is garbage collected.
+         * That is accepted since they hold page cache rather than heap, and {@link #canMap()} stops
+         * further files from being mapped while too many wait for collection.
+         */
+        private void readMapped(FileChannel channel, ChunkConsumer consumer) throws IOException, InterruptedException {
+            long position = fileBytesRead;
+            while (AppContext.frontend.isDiskIoOk() && position < job.fileSize) {
+                long windowSize = Math.min(MAPPED_WINDOW_SIZE, job.fileSize - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                while (AppContext.frontend.isDiskIoOk() && window.hasRemaining()) {
+                    int length = Math.min(readBufferSize, window.remaining());
+                    ByteBuffer slice = window.slice(window.position(), length);
+                    window.position(window.position() + length);
+                    countBytes(length);
+                    consumer.accept(slice);
+                }
+                position += windowSize;
+            }
+        }
+
+        /** Read into {@code buffer}, counting the time spent waiting as read time. */
+        private int timedRead(FileChannel channel, ByteBuffer buffer) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return channel.read(buffer);
+            } finally {
+                timings.addRead(System.nanoTime() - start);
+            }
+        }
+
+        private void countBytes(long length) {
+            fileBytesRead += length;
+            totalBytesHashed.addAndGet(length);
+            job.hashProgress = (float) fileBytesRead / job.fileSize;
+        }
+
         private void completeHashing(File file) {
             // Extract hash values from all algorithms
             for (ChecksumData data : checksums.values()) {
-                data.hexValue = data.algorithm.hexValue();
+                if (data.hexValue == null) {
+                    data.hexValue = data.algorithm.hexValue();
+                }
             }
 
             // Store hash values in job
@@ -367,6 +823,9 @@ public class DiskIOManager implements Runnable {
             job.sha1Hash = checksums.containsKey("sha1") ? checksums.get("sha1").hexValue : null;
             job.tthHash = checksums.containsKey("tth") ? checksums.get("tth").hexValue : null;
             job.crc32Hash = checksums.containsKey("crc32") ? checksums.get("crc32").hexValue : null;
+            HashCache.store(job, file, fingerprint);
+            long bytesThisRun = fileBytesRead - resumedFrom;
+            metrics.fileHashed(file.getName(), bytesThisRun, System.nanoTime() - startNanos, timings, digestsOverlap);
 
             job.hashProgress = 1f;
 
@@ -380,19 +839,19 @@ public class DiskIOManager implements Runnable {
                     .map(data -> data.name + ": " + data.hexValue)
                     .collect(Collectors.joining("\n"));
             String statsMessage = "Hashed " + HyperlinkBuilder.formatAsName(file) + " @ "
-                    + formatStats(file.length(), elapsedSeconds);
+                    + formatStats(bytesThisRun, elapsedSeconds);
 
-            // Update UI on EDT for thread safety
-            SwingUtilities.invokeLater(() -> {
-                AppContext.gui.printHash(ed2kLink);
+            // Hand the output to the UI thread
+            AppContext.frontend.invokeLater(() -> {
+                AppContext.frontend.printHash(ed2kLink);
                 if (!otherHashes.isEmpty()) {
-                    AppContext.gui.printHash(otherHashes);
+                    AppContext.frontend.printHash(otherHashes);
                 }
-                AppContext.gui.println(statsMessage);
+                AppContext.frontend.println(statsMessage);
             });
 
             // Transition to HASHED state (triggers next workflow step)
-            JobManager.updateStatus(job, Job.HASHED);
+            JobManager.hashed(job);
         }
 
         private void handleHashError(IOException e) {
@@ -402,8 +861,8 @@ public class DiskIOManager implements Runnable {
             job.setError(e.getMessage());
 
             String errorMessage = e.getMessage();
-            SwingUtilities.invokeLater(() -> {
-                AppContext.gui.println(HyperlinkBuilder.formatAsError(errorMessage));
+            AppContext.frontend.invokeLater(() -> {
+                AppContext.frontend.println(HyperlinkBuilder.formatAsError(errorMessage));
             });
         }
     }
@@ -417,23 +876,25 @@ public class DiskIOManager implements Runnable {
         }
         File file = job.getFile();
         JobManager.updateStatus(job, Job.PARSING);
-        AppContext.gui.status0("Parsing " + file.getName());
-        AppContext.gui.statusProgressBar.setValue(0);
+        AppContext.frontend.status0("Parsing " + file.getName());
+        AppContext.frontend.setProgress(0);
 
         AVInfo avInfo = new AVInfo(file);
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         float parseProgress = avInfo.parse();
-        while (AppContext.gui.isDiskIoOk() && parseProgress >= 0) {
-            AppContext.gui.statusProgressBar.setValue((int) (10 * parseProgress));
+        while (AppContext.frontend.isDiskIoOk() && parseProgress >= 0) {
+            AppContext.frontend.setProgress((int) (10 * parseProgress));
             parseProgress = avInfo.parse();
         }
         if (parseProgress < 0) {
             job.avFileInfo = avInfo.build();
+            metrics.fileParsed(System.nanoTime() - startNanos);
         }
         avInfo.close();
         long endTime = System.currentTimeMillis();
-        AppContext.gui.statusProgressBar.setValue(1000);
-        AppContext.gui.println("Parsed " + HyperlinkBuilder.formatAsName(file) + " @ "
+        AppContext.frontend.setProgress(1000);
+        AppContext.frontend.println("Parsed " + HyperlinkBuilder.formatAsName(file) + " @ "
                 + formatStats(file.length(), (endTime - startTime) / 1000f));
         JobManager.updateStatus(job, Job.FINISHED);
     }
@@ -442,10 +903,33 @@ public class DiskIOManager implements Runnable {
         e.printStackTrace();
         JobManager.updateStatus(job, Job.FAILED);
         job.setError(e.getMessage());
-        AppContext.gui.println(HyperlinkBuilder.formatAsError(e.getMessage()));
+        AppContext.frontend.println(HyperlinkBuilder.formatAsError(e.getMessage()));
     }
 
-    private void fileMove(Job job) throws IOException {
+    /** Moves one job's file on a move worker thread, using its lane's {@link FileMover}. */
+    private class MoveTask implements Runnable {
+        private final Job job;
+        private final FileMover mover;
+
+        MoveTask(Job job, FileMover mover) {
+            this.job = job;
+            this.mover = mover;
+        }
+
+        @Override
+        public void run() {
+            try {
+                fileMove(job, mover);
+            } catch (IOException e) {
+                handleMoveError(job, e);
+            } finally {
+                completedJobs.add(job);
+                wakeUp();
+            }
+        }
+    }
+
+    private void fileMove(Job job, FileMover fileMover) throws IOException {
         if (job.currentFile.equals(job.targetFile)) {
             job.targetFile = null;
             JobManager.updateStatus(job, Job.MOVED);
@@ -454,11 +938,11 @@ public class DiskIOManager implements Runnable {
         if (!job.currentFile.exists()) {
             JobManager.updateStatus(job, Job.FAILED);
             job.setError("File does not exist.");
-            AppContext.gui.println(HyperlinkBuilder.formatAsError("File " + job.currentFile + " does not exist!"));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError("File " + job.currentFile + " does not exist!"));
             return;
         }
         if (!job.currentFile.canRead()) {
-            AppContext.gui.println(HyperlinkBuilder.formatAsError("Cannot read file: " + job.currentFile));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError("Cannot read file: " + job.currentFile));
             JobManager.updateStatus(job, Job.FAILED);
             job.setError("File can not be read.");
             return;
@@ -470,32 +954,61 @@ public class DiskIOManager implements Runnable {
             }
         } catch (IOException e) {
             String folderCreationError = "Folder " + parentDirectory + " cannot be created!";
+            // Left waiting, the job would be picked up again right away
+            JobManager.updateStatus(job, Job.FAILED);
             job.setError(folderCreationError);
-            AppContext.gui.println(HyperlinkBuilder.formatAsError(folderCreationError));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError(folderCreationError));
             return;
         }
+        job.moveProgress = 0f;
         JobManager.updateStatus(job, Job.MOVING);
-        AppContext.gui.status0("Moving " + job.currentFile.getName());
+        AppContext.frontend.status0("Moving " + job.currentFile.getName());
 
         long startTime = System.currentTimeMillis();
+        long fileSize = job.currentFile.length();
+        // Several moves run at once, so progress goes to the job rather than the shared status bar
+        LongConsumer progress = done -> job.moveProgress = fileSize > 0 ? (float) done / fileSize : 1f;
         boolean needsCopy = !Files.exists(job.targetFile.toPath());
-        if (needsCopy && !fileCopy(job.currentFile, job.targetFile)) {
+        if (needsCopy && fileMover.rename(job.currentFile.toPath(), job.targetFile.toPath())) {
+            // Same file store: the data never moved, so there is nothing to verify
+            metrics.moveRenamed();
+            copySiblingFiles(job.currentFile, job.targetFile);
+            handleSuccessfulMove(job, startTime, fileSize, true);
+            return;
+        }
+
+        FileMover.VerifyPolicy policy = AppContext.frontend.getHashOptions().getMoveVerifyPolicy();
+        if (needsCopy && !fileCopy(fileMover, job.currentFile, job.targetFile, policy, progress)) {
             AppContext.deleteFileAndFolder(job.targetFile, ABORTED_MOVE_CLEANUP_MESSAGE);
             JobManager.updateStatus(job, Job.MOVEWAIT);
             return;
         }
 
         if (needsCopy) {
+            metrics.moveCopied(fileSize, fileMover.getCopyNanos());
             copySiblingFiles(job.currentFile, job.targetFile);
+            if (policy == FileMover.VerifyPolicy.TRUST_TRANSFER) {
+                handleSuccessfulMove(job, startTime, fileSize, false);
+                return;
+            }
         }
 
-        JobManager.updateStatus(job, Job.MOVECHECK);
-        AppContext.gui.status0("Checking " + job.currentFile.getName());
-        String checksumHex = computeFileChecksum(job.targetFile);
+        String checksumHex;
+        if (needsCopy) {
+            checksumHex = fileMover.getChecksum();
+        } else {
+            // Someone else put a file there; only keep it if it is the same file
+            JobManager.updateStatus(job, Job.MOVECHECK);
+            AppContext.frontend.status0("Checking " + job.currentFile.getName());
+            checksumHex = fileMover.hash(job.targetFile.toPath(), progress);
+        }
+        if (checksumHex != null && fileMover.getVerifyNanos() > 0) {
+            metrics.moveVerified(fileSize, fileMover.getVerifyNanos());
+        }
         if (checksumHex == null) {
             handleCanceledChecksum(job, needsCopy);
         } else if (job.ed2kHash.equalsIgnoreCase(checksumHex)) {
-            handleSuccessfulMove(job, startTime);
+            handleSuccessfulMove(job, startTime, fileSize, true);
         } else {
             handleFailedChecksumVerification(job, needsCopy);
         }
@@ -510,10 +1023,10 @@ public class DiskIOManager implements Runnable {
         job.setError(e.getMessage());
 
         String errorMessage = e.getMessage();
-        AppContext.gui.println(HyperlinkBuilder.formatAsError(errorMessage));
-        AppContext.gui.status0(errorMessage);
-        if (AppContext.gui.isDiskIoOk()) {
-            AppContext.gui.toggleDiskIo();
+        AppContext.frontend.println(HyperlinkBuilder.formatAsError(errorMessage));
+        AppContext.frontend.status0(errorMessage);
+        if (AppContext.frontend.isDiskIoOk()) {
+            AppContext.frontend.toggleDiskIo();
         }
     }
 
@@ -521,17 +1034,21 @@ public class DiskIOManager implements Runnable {
         if (needsCopy) {
             AppContext.deleteFileAndFolder(job.targetFile, ABORTED_MOVE_CLEANUP_MESSAGE);
         }
-        if (!AppContext.gui.isDiskIoOk()) {
+        if (!AppContext.frontend.isDiskIoOk()) {
             JobManager.updateStatus(job, Job.MOVEWAIT);
         }
     }
 
-    private void handleSuccessfulMove(Job job, long startTime) {
-        AppContext.gui.println("Moved " + HyperlinkBuilder.formatAsName(job.currentFile) + " to "
+    private void handleSuccessfulMove(Job job, long startTime, long fileSize, boolean verified) {
+        AppContext.frontend.println("Moved " + HyperlinkBuilder.formatAsName(job.currentFile) + " to "
                 + HyperlinkBuilder.formatAsName(job.targetFile) + " @ "
-                + formatStats(job.currentFile.length(), (System.currentTimeMillis() - startTime) / 1000f));
+                + formatStats(fileSize, (System.currentTimeMillis() - startTime) / 1000f));
         AppContext.deleteFileAndFolder(job.currentFile, SUCCESSFUL_MOVE_CLEANUP_MESSAGE);
         JobManager.setJobFile(job, job.targetFile);
+        // Only a rename or a copy checked against the ed2k vouches for the new file's hashes
+        if (verified) {
+            HashCache.store(job, job.currentFile, FileFingerprint.of(job.currentFile));
+        }
         job.targetFile = null;
         job.directoryId = -1;
         JobManager.updateStatus(job, Job.MOVED);
@@ -541,16 +1058,22 @@ public class DiskIOManager implements Runnable {
         JobManager.updateStatus(job, Job.FAILED);
         if (needsCopy) {
             job.setError("CRC check failed on copy. HW problem?");
-            AppContext.gui.println(
+            AppContext.frontend.println(
                     HyperlinkBuilder.formatAsError(job.currentFile + " was not moved! CRC check failed. HW problem?"));
         } else {
             job.setError("CRC check failed on copy. Destination file does already exist, but with"
                     + " wrong CRC. Handle this manually.");
-            AppContext.gui.println(HyperlinkBuilder.formatAsError(job.currentFile + " was not moved! Destination file '"
-                    + job.targetFile + "' does already exist, but with wrong CRC. Handle this" + " manually."));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError(job.currentFile
+                    + " was not moved! Destination file '" + job.targetFile
+                    + "' does already exist, but with wrong CRC. Handle this" + " manually."));
         }
     }
 
+    /** Whether mapped windows awaiting collection leave room for another file to be mapped. */
+    private static boolean canMap() {
+        return MAPPED_BUFFERS == null || MAPPED_BUFFERS.getMemoryUsed() < MAPPED_MAX_LIVE_BYTES;
+    }
+
     private String formatStats(long fileSizeBytes, float elapsedTimeSeconds) {
         if (elapsedTimeSeconds <= 0) {
             elapsedTimeSeconds = 0.001f; // Avoid division by zero
@@ -573,50 +1096,22 @@ public class DiskIOManager implements Runnable {
                 + HyperlinkBuilder.formatAsNumber(timeText) + " seconds)";
     }
 
-    private boolean fileCopy(File sourceFile, File destinationFile) throws IOException {
-        int bytesRead;
-        long totalBytesRead = 0;
-        long fileLength = sourceFile.length();
-        float progress = 0;
-
-        AppContext.gui.statusProgressBar.setValue(0);
-        try (InputStream inputStream = Files.newInputStream(sourceFile.toPath());
-                OutputStream outputStream = Files.newOutputStream(destinationFile.toPath())) {
-            while (AppContext.gui.isDiskIoOk() && (bytesRead = inputStream.read(SHARED_BUFFER)) != -1) {
-                outputStream.write(SHARED_BUFFER, 0, bytesRead);
-                totalBytesRead += bytesRead;
-                progress = (float) totalBytesRead / fileLength;
-                AppContext.gui.statusProgressBar.setValue((int) (1000 * progress));
-            }
+    private boolean fileCopy(
+            FileMover fileMover,
+            File sourceFile,
+            File destinationFile,
+            FileMover.VerifyPolicy policy,
+            LongConsumer progress)
+            throws IOException {
+        try {
+            return fileMover.copy(sourceFile.toPath(), destinationFile.toPath(), policy, progress);
         } catch (IOException e) {
             if (e.getMessage() != null && e.getMessage().contains("space")) {
                 AppContext.dialog("IOException", DISK_SPACE_ERROR_MESSAGE + ":\n" + destinationFile);
-            } else {
-                throw e;
+                return false;
             }
+            throw e;
         }
-        return progress == 1;
-    }
-
-    private String computeFileChecksum(File file) throws IOException {
-        Ed2kHash edonkeyHash = new Ed2kHash();
-        int bytesRead;
-        long totalBytesRead = 0;
-        long fileLength = file.length();
-        float progress = 0;
-        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
-            AppContext.gui.statusProgressBar.setValue(0);
-            while (AppContext.gui.isDiskIoOk() && (bytesRead = inputStream.read(SHARED_BUFFER)) != -1) {
-                edonkeyHash.update(SHARED_BUFFER, 0, bytesRead);
-                totalBytesRead += bytesRead;
-                progress = (float) totalBytesRead / fileLength;
-                AppContext.gui.statusProgressBar.setValue((int) (1000 * progress));
-            }
-        }
-        if (progress < 1) {
-            return null;
-        }
-        return edonkeyHash.hexValue();
     }
 
     private void copySiblingFiles(File sourceFile, File destinationFile) {
@@ -653,9 +1148,9 @@ public class DiskIOManager implements Runnable {
             }
             try {
                 Files.copy(sibling.toPath(), destSibling.toPath());
-                AppContext.gui.println("Renamed sibling: " + sibling.getName());
+                AppContext.frontend.println("Renamed sibling: " + sibling.getName());
             } catch (IOException e) {
-                AppContext.gui.println("Failed to rename sibling file: " + sibling.getName());
+                AppContext.frontend.println("Failed to rename sibling file: " + sibling.getName());
             }
         }
     }
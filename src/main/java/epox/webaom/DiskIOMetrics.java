@@ -0,0 +1,331 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.webaom.hash.HashTimings;
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Timing and load figures of the DiskIO stages, collected so a slow session can be told apart as
+ * I/O-bound or CPU-bound without a profiler.
+ *
+ * <p>Hash tasks report how long each file spent waiting for reads and inside each digest (see
+ * {@link HashTimings}); moves report copy and verify throughput; parses report their duration. Queue
+ * depth, active workers and buffered bytes are read from the {@link DiskIOManager} when asked for.
+ * Everything is published through JMX as {@value #OBJECT_NAME} and shown in the status panel.
+ */
+public class DiskIOMetrics implements DiskIOMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(DiskIOMetrics.class.getName());
+
+    public static final String OBJECT_NAME = "epox.webaom:type=DiskIO";
+
+    /** Hashed files kept for {@link #getRecentFiles()}. */
+    static final int RECENT_FILES = 16;
+
+    /** Bytes processed and the nanoseconds it took. */
+    private static final class Throughput {
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        void add(long byteCount, long nanoCount) {
+            bytes.add(byteCount);
+            nanos.add(nanoCount);
+        }
+
+        double megabytesPerSecond() {
+            long nanoCount = nanos.sum();
+            return nanoCount > 0 ? bytes.sum() / 1048576.0 / (nanoCount / 1e9) : 0;
+        }
+
+        void reset() {
+            bytes.reset();
+            nanos.reset();
+        }
+    }
+
+    private final IntSupplier hashQueueDepth;
+    private final IntSupplier activeHashWorkers;
+    private final IntSupplier activeMoveWorkers;
+    private final LongSupplier bytesInFlight;
+
+    private final LongAdder filesHashed = new LongAdder();
+    private final LongAdder bytesHashed = new LongAdder();
+    private final Throughput reads = new Throughput();
+    private final Map<String, Throughput> digests = new LinkedHashMap<>();
+    /** Digest time on each file's critical path: the slowest digest when they ran side by side. */
+    private final LongAdder digestPathNanos = new LongAdder();
+    private final Deque<String> recentFiles = new ArrayDeque<>();
+
+    private final LongAdder movesRenamed = new LongAdder();
+    private final LongAdder movesCopied = new LongAdder();
+    private final Throughput copies = new Throughput();
+    private final Throughput verifies = new Throughput();
+
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    public DiskIOMetrics(
+            IntSupplier hashQueueDepth,
+            IntSupplier activeHashWorkers,
+            IntSupplier activeMoveWorkers,
+            LongSupplier bytesInFlight) {
+        this.hashQueueDepth = hashQueueDepth;
+        this.activeHashWorkers = activeHashWorkers;
+        this.activeMoveWorkers = activeMoveWorkers;
+        this.bytesInFlight = bytesInFlight;
+    }
+
+    /** Publish these metrics through the platform MBean server. Failures are logged, not thrown. */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            LOGGER.warning("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record a fully hashed file.
+     *
+     * @param elapsedNanos wall time from opening the file to the last digest
+     * @param digestsOverlap whether the digests ran on separate threads at the same time
+     */
+    public void fileHashed(String name, long bytes, long elapsedNanos, HashTimings timings, boolean digestsOverlap) {
+        filesHashed.increment();
+        bytesHashed.add(bytes);
+        long readNanos = timings.getReadNanos();
+        if (readNanos > 0) {
+            reads.add(bytes, readNanos);
+        }
+        Map<String, Long> digestNanos = timings.getDigestNanos();
+        long pathNanos = 0;
+        StringBuilder line = new StringBuilder(name)
+                .append(": ")
+                .append(formatSize(bytes))
+                .append(" in ")
+                .append(formatSeconds(elapsedNanos))
+                .append(", read ")
+                .append(formatSeconds(readNanos));
+        synchronized (digests) {
+            for (Map.Entry<String, Long> entry : digestNanos.entrySet()) {
+                digests.computeIfAbsent(entry.getKey(), algorithm -> new Throughput())
+                        .add(bytes, entry.getValue());
+                pathNanos = digestsOverlap ? Math.max(pathNanos, entry.getValue()) : pathNanos + entry.getValue();
+                line.append(", ").append(entry.getKey()).append(' ').append(formatSeconds(entry.getValue()));
+            }
+        }
+        digestPathNanos.add(pathNanos);
+        synchronized (recentFiles) {
+            recentFiles.addFirst(line.toString());
+            if (recentFiles.size() > RECENT_FILES) {
+                recentFiles.removeLast();
+            }
+        }
+    }
+
+    public void moveRenamed() {
+        movesRenamed.increment();
+    }
+
+    public void moveCopied(long bytes, long nanos) {
+        movesCopied.increment();
+        copies.add(bytes, nanos);
+    }
+
+    public void moveVerified(long bytes, long nanos) {
+        verifies.add(bytes, nanos);
+    }
+
+    public void fileParsed(long nanos) {
+        filesParsed.increment();
+        parseNanos.add(nanos);
+    }
+
+    @Override
+    public long getFilesHashed() {
+        return filesHashed.sum();
+    }
+
+    @Override
+    public long getBytesHashed() {
+        return bytesHashed.sum();
+    }
+
+    @Override
+    public double getReadMegabytesPerSecond() {
+        return reads.megabytesPerSecond();
+    }
+
+    @Override
+    public Map<String, Double> getDigestMegabytesPerSecond() {
+        Map<String, Double> throughput = new LinkedHashMap<>();
+        synchronized (digests) {
+            digests.forEach((algorithm, digest) -> throughput.put(algorithm, digest.megabytesPerSecond()));
+        }
+        return throughput;
+    }
+
+    @Override
+    public double getReadShare() {
+        long readNanos = reads.nanos.sum();
+        long total = readNanos + digestPathNanos.sum();
+        return total > 0 ? (double) readNanos / total : 0;
+    }
+
+    @Override
+    public String getBottleneck() {
+        long readNanos = reads.nanos.sum();
+        long digestNanos = digestPathNanos.sum();
+        if (readNanos == 0 && digestNanos == 0) {
+            return "unknown";
+        }
+        return readNanos > digestNanos ? "I/O-bound" : "CPU-bound";
+    }
+
+    @Override
+    public int getHashQueueDepth() {
+        return hashQueueDepth.getAsInt();
+    }
+
+    @Override
+    public int getActiveHashWorkers() {
+        return activeHashWorkers.getAsInt();
+    }
+
+    @Override
+    public int getActiveMoveWorkers() {
+        return activeMoveWorkers.getAsInt();
+    }
+
+    @Override
+    public long getBytesInFlight() {
+        return bytesInFlight.getAsLong();
+    }
+
+    @Override
+    public long getMovesRenamed() {
+        return movesRenamed.sum();
+    }
+
+    @Override
+    public long getMovesCopied() {
+        return movesCopied.sum();
+    }
+
+    @Override
+    public double getCopyMegabytesPerSecond() {
+        return copies.megabytesPerSecond();
+    }
+
+    @Override
+    public double getVerifyMegabytesPerSecond() {
+        return verifies.megabytesPerSecond();
+    }
+
+    @Override
+    public long getFilesParsed() {
+        return filesParsed.sum();
+    }
+
+    @Override
+    public double getAverageParseMillis() {
+        long files = filesParsed.sum();
+        return files > 0 ? parseNanos.sum() / 1e6 / files : 0;
+    }
+
+    @Override
+    public List<String> getRecentFiles() {
+        synchronized (recentFiles) {
+            return new ArrayList<>(recentFiles);
+        }
+    }
+
+    @Override
+    public void reset() {
+        filesHashed.reset();
+        bytesHashed.reset();
+        reads.reset();
+        synchronized (digests) {
+            digests.clear();
+        }
+        digestPathNanos.reset();
+        synchronized (recentFiles) {
+            recentFiles.clear();
+        }
+        movesRenamed.reset();
+        movesCopied.reset();
+        copies.reset();
+        verifies.reset();
+        filesParsed.reset();
+        parseNanos.reset();
+    }
+
+    /** The figures as a few lines of text for the status panel; the first one is a summary. */
+    public List<String> describe() {
+        DecimalFormat rate = new DecimalFormat("0.0");
+        List<String> lines = new ArrayList<>();
+        lines.add("Hashed " + getFilesHashed() + " files, " + formatSize(getBytesHashed()) + ": " + getBottleneck()
+                + " (" + Math.round(getReadShare() * 100) + "% waiting for reads)");
+
+        StringBuilder throughput = new StringBuilder("Read ")
+                .append(rate.format(getReadMegabytesPerSecond()))
+                .append(" MB/s");
+        getDigestMegabytesPerSecond().forEach((algorithm, megabytesPerSecond) -> throughput
+                .append(", ")
+                .append(algorithm)
+                .append(' ')
+                .append(rate.format(megabytesPerSecond))
+                .append(" MB/s"));
+        lines.add(throughput.toString());
+
+        lines.add("Queue " + getHashQueueDepth() + " waiting, " + getActiveHashWorkers() + " hashing, "
+                + getActiveMoveWorkers() + " moving, " + formatSize(getBytesInFlight()) + " in buffers");
+        lines.add("Moved " + getMovesRenamed() + " by rename, " + getMovesCopied() + " copied @ "
+                + rate.format(getCopyMegabytesPerSecond()) + " MB/s, verified @ "
+                + rate.format(getVerifyMegabytesPerSecond()) + " MB/s");
+        lines.add("Parsed " + getFilesParsed() + " files, " + Math.round(getAverageParseMillis()) + " ms average");
+        return lines;
+    }
+
+    static String formatSize(long bytes) {
+        DecimalFormat decimal = new DecimalFormat("0.00");
+        if (bytes >= 1073741824) {
+            return decimal.format(bytes / 1073741824.0) + " GB";
+        }
+        if (bytes >= 1048576) {
+            return decimal.format(bytes / 1048576.0) + " MB";
+        }
+        return decimal.format(bytes / 1024.0) + " KB";
+    }
+
+    private static String formatSeconds(long nanos) {
+        return new DecimalFormat("0.00").format(nanos / 1e9) + " s";
+    }
+}
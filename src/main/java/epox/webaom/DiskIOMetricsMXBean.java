@@ -0,0 +1,68 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link DiskIOMetrics}, registered as {@value DiskIOMetrics#OBJECT_NAME}. Totals cover
+ * the whole run of the application, or everything since the last {@link #reset()}.
+ */
+public interface DiskIOMetricsMXBean {
+    long getFilesHashed();
+
+    long getBytesHashed();
+
+    /** Throughput of the reads that hashing waited for, not counting memory-mapped files. */
+    double getReadMegabytesPerSecond();
+
+    /** Throughput of each checksum algorithm over the time spent in its calls. */
+    Map<String, Double> getDigestMegabytesPerSecond();
+
+    /** Fraction of read plus digest time that was spent waiting for reads. */
+    double getReadShare();
+
+    /** "I/O-bound", "CPU-bound", or "unknown" before anything was hashed. */
+    String getBottleneck();
+
+    int getHashQueueDepth();
+
+    int getActiveHashWorkers();
+
+    int getActiveMoveWorkers();
+
+    /** Bytes held in read and copy buffers that are currently lent out. */
+    long getBytesInFlight();
+
+    long getMovesRenamed();
+
+    long getMovesCopied();
+
+    double getCopyMegabytesPerSecond();
+
+    double getVerifyMegabytesPerSecond();
+
+    long getFilesParsed();
+
+    double getAverageParseMillis();
+
+    /** Read and digest times of the most recently hashed files, newest first. */
+    List<String> getRecentFiles();
+
+    void reset();
+}
@@ -0,0 +1,53 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+package epox.webaom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * What identifies an unchanged file on disk without reading it: size, modification time and,
+ * where the file system exposes one, the file key (device and inode on Unix).
+ *
+ * @param size file size in bytes
+ * @param modifiedMillis last modification time in milliseconds
+ * @param fileKey file system identity of the file, or an empty string when not available
+ */
+public record FileFingerprint(long size, long modifiedMillis, String fileKey) {
+    /** Longest file key stored; keys are short ("(dev=803,ino=1234567)") on every known platform. */
+    public static final int MAX_FILE_KEY_LENGTH = 64;
+
+    /**
+     * Read the fingerprint of a file.
+     *
+     * @return the fingerprint, or null if the file's attributes cannot be read
+     */
+    public static FileFingerprint of(File file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            Object key = attributes.fileKey();
+            String fileKey = key == null ? "" : key.toString();
+            if (fileKey.length() > MAX_FILE_KEY_LENGTH) {
+                fileKey = fileKey.substring(0, MAX_FILE_KEY_LENGTH);
+            }
+            return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(), fileKey);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.webaom.hash.Ed2kHash;
+import epox.webaom.util.BufferPool;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Moves files for the rename/move step.
+ *
+ * <p>When the source and target directory are on the same file store the file is simply renamed
+ * with an atomic {@link Files#move}. Otherwise it is copied, and how the copy is checked against the
+ * known ED2K depends on the {@link VerifyPolicy}:
+ * <ul>
+ *   <li>{@link VerifyPolicy#HASH_WHILE_COPYING} reads the source once and hashes each chunk from the
+ *       same buffer it writes to the target, so the move costs a single pass.</li>
+ *   <li>{@link VerifyPolicy#READ_BACK} lets the kernel copy the data with
+ *       {@link FileChannel#transferTo} and then hashes the target as read back from disk.</li>
+ *   <li>{@link VerifyPolicy#TRUST_TRANSFER} only does the kernel copy.</li>
+ * </ul>
+ *
+ * <p>Read buffers come from a shared {@link BufferPool} and are only held during a copy or hash.
+ * An instance is meant for one thread at a time.
+ */
+public class FileMover {
+    /** Bytes per read, write or transfer call; also the progress granularity. */
+    private static final int CHUNK_SIZE = BufferPool.MEDIUM;
+
+    /** How a copied file is checked before the source is deleted. */
+    public enum VerifyPolicy {
+        HASH_WHILE_COPYING("hash", "Hash while copying"),
+        READ_BACK("readback", "Read back"),
+        TRUST_TRANSFER("trust", "Trust transfer");
+
+        private final String optionValue;
+        private final String label;
+
+        VerifyPolicy(String optionValue, String label) {
+            this.optionValue = optionValue;
+            this.label = label;
+        }
+
+        public String getOptionValue() {
+            return optionValue;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+
+        /** The policy stored as {@code value}, or {@link #HASH_WHILE_COPYING} for unknown or empty values. */
+        public static VerifyPolicy fromOptionValue(String value) {
+            for (VerifyPolicy policy : values()) {
+                if (policy.optionValue.equals(value)) {
+                    return policy;
+                }
+            }
+            return HASH_WHILE_COPYING;
+        }
+    }
+
+    private final BooleanSupplier keepGoing;
+    private final BufferPool bufferPool;
+    private String checksum;
+    private long copyNanos;
+    private long verifyNanos;
+
+    /** @param keepGoing polled between chunks; returning false aborts the copy or hash */
+    public FileMover(BooleanSupplier keepGoing, BufferPool bufferPool) {
+        this.keepGoing = keepGoing;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Rename {@code source} to {@code target} if both are on the same file store.
+     *
+     * @return true if the file was moved, false if a copy is needed
+     */
+    public boolean rename(Path source, Path target) throws IOException {
+        if (!isSameFileStore(source, target.getParent())) {
+            return false;
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (AtomicMoveNotSupportedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copy {@code source} to the new file {@code target}. With a policy that hashes, the ED2K of the
+     * data is available from {@link #getChecksum()} afterwards.
+     *
+     * @param progress receives the number of bytes done so far in the current pass
+     * @return false if aborted; the partial target is left for the caller to remove
+     */
+    public boolean copy(Path source, Path target, VerifyPolicy policy, LongConsumer progress) throws IOException {
+        checksum = null;
+        copyNanos = 0;
+        verifyNanos = 0;
+        long start = System.nanoTime();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(
+                        target, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            if (policy == VerifyPolicy.HASH_WHILE_COPYING) {
+                return copyHashing(in, out, progress);
+            }
+            if (!transfer(in, out, progress)) {
+                return false;
+            }
+        } finally {
+            copyNanos = System.nanoTime() - start;
+        }
+        if (policy == VerifyPolicy.READ_BACK) {
+            checksum = hash(target, progress);
+            return checksum != null;
+        }
+        return true;
+    }
+
+    /**
+     * ED2K of the last copy, or null if the last copy didn't hash ({@link VerifyPolicy#TRUST_TRANSFER})
+     * or was aborted.
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /** How long the data transfer of the last copy took; with hashing while copying, the whole pass. */
+    public long getCopyNanos() {
+        return copyNanos;
+    }
+
+    /** How long the last separate hash pass took, 0 if the last copy had none. */
+    public long getVerifyNanos() {
+        return verifyNanos;
+    }
+
+    /**
+     * Hash a file as stored on disk.
+     *
+     * @return the ED2K as hex, or null if aborted
+     */
+    public String hash(Path file, LongConsumer progress) throws IOException {
+        Ed2kHash ed2k = new Ed2kHash();
+        ByteBuffer chunk = acquireBuffer();
+        long done = 0;
+        long start = System.nanoTime();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(chunk.clear()) != -1) {
+                if (!keepGoing.getAsBoolean()) {
+                    return null;
+                }
+                ed2k.update(chunk.flip());
+                done += chunk.limit();
+                progress.accept(done);
+            }
+        } finally {
+            bufferPool.release(chunk);
+            verifyNanos = System.nanoTime() - start;
+        }
+        return ed2k.hexValue();
+    }
+
+    private boolean copyHashing(FileChannel in, FileChannel out, LongConsumer progress) throws IOException {
+        Ed2kHash ed2k = new Ed2kHash();
+        ByteBuffer chunk = acquireBuffer();
+        long done = 0;
+        try {
+            while (in.read(chunk.clear()) != -1) {
+                if (!keepGoing.getAsBoolean()) {
+                    return false;
+                }
+                chunk.flip();
+                ed2k.update(chunk);
+                chunk.rewind();
+                while (chunk.hasRemaining()) {
+                    out.write(chunk);
+                }
+                done += chunk.limit();
+                progress.accept(done);
+            }
+        } finally {
+            bufferPool.release(chunk);
+        }
+        checksum = ed2k.hexValue();
+        return true;
+    }
+
+    /**
+     * Copy through {@link FileChannel#transferTo}, which avoids user-space buffers where the OS can.
+     * Should it stop making progress before the end of the file, the rest is copied through a buffer.
+     */
+    boolean transfer(FileChannel in, FileChannel out, LongConsumer progress) throws IOException {
+        long size = in.size();
+        long position = 0;
+        boolean stalled = false;
+        while (position < size) {
+            if (!keepGoing.getAsBoolean()) {
+                return false;
+            }
+            long sent = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+            if (sent <= 0) {
+                if (position >= in.size()) {
+                    throw new EOFException("File shrank while copying at offset " + position);
+                }
+                if (stalled) {
+                    return copyBuffered(in, out, position, size, progress);
+                }
+                stalled = true; // Retried once before giving up on the kernel copy
+                continue;
+            }
+            stalled = false;
+            position += sent;
+            progress.accept(position);
+        }
+        return true;
+    }
+
+    /** Copy the bytes from {@code position} to {@code size} with positional reads and writes. */
+    private boolean copyBuffered(FileChannel in, FileChannel out, long position, long size, LongConsumer progress)
+            throws IOException {
+        ByteBuffer chunk = acquireBuffer();
+        try {
+            while (position < size) {
+                if (!keepGoing.getAsBoolean()) {
+                    return false;
+                }
+                chunk.clear().limit((int) Math.min(CHUNK_SIZE, size - position));
+                if (in.read(chunk, position) < 0) {
+                    throw new EOFException("File shrank while copying at offset " + position);
+                }
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    out.write(chunk, position + chunk.position());
+                }
+                position += chunk.limit();
+                progress.accept(position);
+            }
+        } finally {
+            bufferPool.release(chunk);
+        }
+        return true;
+    }
+
+    private ByteBuffer acquireBuffer() throws IOException {
+        try {
+            return bufferPool.acquire(CHUNK_SIZE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a buffer");
+        }
+    }
+
+    static boolean isSameFileStore(Path source, Path targetDirectory) {
+        try {
+            return Objects.equals(Files.getFileStore(source), Files.getFileStore(targetDirectory));
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+}
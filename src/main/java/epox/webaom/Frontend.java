@@ -0,0 +1,81 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom;
+
+import epox.swing.Log;
+import epox.webaom.data.Mylist;
+import epox.webaom.net.AniDBFileClient;
+
+/**
+ * What the DiskIO and NetIO workers need from the user interface: log output, the start/stop state
+ * of the two workers and the settings they read while running.
+ *
+ * <p>{@link epox.webaom.ui.MainPanel} implements this for the desktop application and
+ * {@link epox.webaom.cli.ConsoleFrontend} for the batch mode, where the workers run without Swing.
+ */
+public interface Frontend extends Log {
+    /** Show a hash line (ed2k link or checksums) of a file that finished hashing. */
+    void printHash(String hashes);
+
+    /** Progress of the current DiskIO step in tenths of a percent, 0 to 1000. */
+    void setProgress(int value);
+
+    boolean isDiskIoOk();
+
+    boolean isNetworkIoOk();
+
+    /** Start DiskIO if it is stopped, stop it if it is running. */
+    void toggleDiskIo();
+
+    /** Stop both workers for good, e.g. after AniDB banned the client. */
+    void kill();
+
+    void showMessage(String message);
+
+    /** Lock (or unlock) the controls after an error the user has to look at. */
+    void handleFatalError(boolean isFatal);
+
+    void setDiskIoOptionsEnabled(boolean enabled);
+
+    void setNetworkIoOptionsEnabled(boolean enabled);
+
+    /** Called with true once logged in, and with false when NetIO has stopped. */
+    void setNetworkIoEnabled(boolean enabled);
+
+    /** Called by the DiskIO thread as it exits. */
+    void diskIoStopped();
+
+    /** Called by the NetIO thread as it exits. */
+    void networkIoStopped();
+
+    /** A new, not yet connected AniDB client using the current connection settings and credentials. */
+    AniDBFileClient createConnection();
+
+    HashOptions getHashOptions();
+
+    /** MyList state, storage, source and so on to use when adding files. */
+    Mylist getMylistData();
+
+    /** Days a file stored in the database identifies files without asking AniDB; 0 always asks. */
+    int getLocalIdentifyDays();
+
+    /** Run output code on the UI's own thread; frontends without one run it right away. */
+    default void invokeLater(Runnable task) {
+        task.run();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+package epox.webaom;
+
+import epox.webaom.db.DatabaseManager;
+import java.io.File;
+import java.util.Set;
+
+/**
+ * Remembers the checksums of hashed files by their {@link FileFingerprint}, so a file that was not
+ * modified since it was hashed is not read again when it is added back to the job list.
+ *
+ * <p>The cache lives in the database ({@code htb}) and is keyed on directory and file name; a row
+ * only matches while size, modification time and file key are all unchanged.
+ */
+public final class HashCache {
+    private HashCache() {}
+
+    /**
+     * Fill in a job's checksums from the cache if its file is unchanged and every checksum that
+     * would be computed now is cached.
+     *
+     * @return true if the job's hashes were restored and it needs no hashing
+     */
+    public static boolean restore(Job job) {
+        DatabaseManager databaseManager = AppContext.databaseManager;
+        if (databaseManager == null || !databaseManager.isConnected()) {
+            return false;
+        }
+        File file = job.currentFile;
+        FileFingerprint fingerprint = FileFingerprint.of(file);
+        if (fingerprint == null) {
+            return false;
+        }
+        int directoryId = databaseManager.getDirectoryId(file.getParent());
+        String[] hashes = databaseManager.getCachedHashes(directoryId, file.getName(), fingerprint);
+        if (hashes == null || !coversSelectedChecksums(hashes)) {
+            return false;
+        }
+        job.directoryId = directoryId;
+        job.fileSize = fingerprint.size();
+        job.ed2kHash = hashes[0];
+        job.md5Hash = hashes[1];
+        job.sha1Hash = hashes[2];
+        job.tthHash = hashes[3];
+        job.crc32Hash = hashes[4];
+        job.hashProgress = 1f;
+        return true;
+    }
+
+    /**
+     * Cache the checksums of a job for its file.
+     *
+     * @param fingerprint the fingerprint taken before the file was read, so a file modified while it
+     *     was being hashed will not match later
+     */
+    public static void store(Job job, File file, FileFingerprint fingerprint) {
+        DatabaseManager databaseManager = AppContext.databaseManager;
+        if (fingerprint == null
+                || job.ed2kHash == null
+                || databaseManager == null
+                || !databaseManager.isConnected()) {
+            return;
+        }
+        databaseManager.putCachedHashes(
+                databaseManager.getDirectoryId(file.getParent()),
+                file.getName(),
+                fingerprint,
+                new String[] {job.ed2kHash, job.md5Hash, job.sha1Hash, job.tthHash, job.crc32Hash});
+    }
+
+    private static boolean coversSelectedChecksums(String[] hashes) {
+        if (hashes[0] == null) {
+            return false;
+        }
+        if (AppContext.frontend == null) {
+            return true;
+        }
+        Set<String> selected = AppContext.frontend.getHashOptions().getChecksumNames();
+        return (!selected.contains("md5") || hashes[1] != null)
+                && (!selected.contains("sha1") || hashes[2] != null)
+                && (!selected.contains("tth") || hashes[3] != null)
+                && (!selected.contains("crc32") || hashes[4] != null);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom;
+
+import epox.webaom.hash.HashAlgorithm;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Digest state of files whose hashing was stopped part way, so they continue where they stopped
+ * instead of being read again from the start.
+ *
+ * <p>A checkpoint is either a copy of every algorithm's state after the first {@code offset} bytes
+ * of the file, or the ED2K block digests finished by a parallel ED2K hash, which need not be
+ * contiguous. It is keyed on the file's path and only handed out again while the file's
+ * {@link FileFingerprint} is unchanged. Checkpoints are kept in memory only, since the JDK's MD5 and
+ * SHA-1 state cannot be written out; the oldest are dropped beyond {@link #MAX_ENTRIES}.
+ */
+public class HashCheckpoints {
+    /** Files remembered at once; a checkpoint holds little more than the digests' own state. */
+    static final int MAX_ENTRIES = 64;
+
+    /**
+     * Where a file's hashing stopped.
+     *
+     * @param fingerprint the file's fingerprint when hashing started
+     * @param offset bytes of the file already hashed
+     * @param algorithms copies of each algorithm's state after {@code offset} bytes, by checksum name,
+     *     or null for a parallel ED2K checkpoint
+     * @param blockDigests finished ED2K block digests with nulls for the rest, or null
+     */
+    public record Checkpoint(
+            FileFingerprint fingerprint, long offset, Map<String, HashAlgorithm> algorithms, byte[][] blockDigests) {}
+
+    private final Map<String, Checkpoint> checkpoints = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Checkpoint> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Remember the state of every algorithm after the first {@code offset} bytes of a file. Nothing
+     * is stored if an algorithm's state cannot be copied.
+     *
+     * @param algorithms the running algorithms by checksum name; they are copied, not kept
+     */
+    public void saveStream(File file, FileFingerprint fingerprint, long offset, Map<String, HashAlgorithm> algorithms) {
+        if (fingerprint == null || offset <= 0) {
+            return;
+        }
+        Map<String, HashAlgorithm> copies = new LinkedHashMap<>();
+        for (Map.Entry<String, HashAlgorithm> entry : algorithms.entrySet()) {
+            HashAlgorithm copy = entry.getValue().copy();
+            if (copy == null) {
+                return;
+            }
+            copies.put(entry.getKey(), copy);
+        }
+        put(file, new Checkpoint(fingerprint, offset, copies, null));
+    }
+
+    /** Remember the ED2K block digests a stopped parallel hash finished. */
+    public void saveBlocks(File file, FileFingerprint fingerprint, long offset, byte[][] blockDigests) {
+        if (fingerprint == null || offset <= 0) {
+            return;
+        }
+        put(file, new Checkpoint(fingerprint, offset, null, blockDigests.clone()));
+    }
+
+    /**
+     * Remove and return the checkpoint of a file, if the file is unchanged since it was taken.
+     *
+     * @return the checkpoint, or null if there is none or the file was modified
+     */
+    public synchronized Checkpoint take(File file, FileFingerprint fingerprint) {
+        Checkpoint checkpoint = checkpoints.remove(file.getAbsolutePath());
+        if (checkpoint == null || !checkpoint.fingerprint().equals(fingerprint)) {
+            return null;
+        }
+        return checkpoint;
+    }
+
+    public synchronized int size() {
+        return checkpoints.size();
+    }
+
+    private synchronized void put(File file, Checkpoint checkpoint) {
+        checkpoints.put(file.getAbsolutePath(), checkpoint);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.text.DecimalFormat;
+
+/**
+ * Hill-climbing tuner for the number of files hashed in parallel.
+ *
+ * <p>The tuner is fed the running byte counter at fixed intervals. Each level is measured over one
+ * full window after a settling window, so jobs started at the previous level have drained. When a
+ * step improves aggregate throughput by more than {@link #MIN_GAIN} it keeps climbing in that
+ * direction; otherwise it returns to the best level and tries the other direction. Once both
+ * directions fail it settles, and re-probes every {@link #REPROBE_WINDOWS} windows since the
+ * storage and CPU mix changes as the queue moves on to other files. It will not climb while the
+ * CPU is saturated, since more hash threads cannot help then.
+ */
+public class HashConcurrencyTuner {
+    /** Relative throughput gain required to accept a step. Smaller gains are treated as noise. */
+    static final double MIN_GAIN = 0.05;
+
+    /** Process CPU load above which the tuner will not add workers. */
+    static final double CPU_SATURATED = 0.90;
+
+    /** Windows spent at a settled level before probing again. */
+    static final int REPROBE_WINDOWS = 12;
+
+    private static final DecimalFormat DECIMAL_FORMATTER = new DecimalFormat("0.0");
+
+    private final int minLevel;
+    private final int maxLevel;
+    private int level;
+    private int bestLevel;
+    private double bestThroughput;
+    private int direction = 1;
+    private boolean reversed;
+    private boolean settled;
+    private boolean settlingWindow = true;
+    private int windowsSinceSettled;
+    private long windowStartBytes = -1;
+    private long windowStartMillis;
+    private double lastThroughput;
+    private double lastCpuLoad = -1;
+    private String lastDecision = "measuring";
+
+    public HashConcurrencyTuner(int initialLevel, int minLevel, int maxLevel) {
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.level = clamp(initialLevel);
+        this.bestLevel = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isSettled() {
+        return settled;
+    }
+
+    public String getLastDecision() {
+        return lastDecision;
+    }
+
+    /**
+     * Feed the end of a measurement window.
+     *
+     * @param totalBytes bytes hashed so far in the session
+     * @param nowMillis current time
+     * @param cpuLoad process CPU load in [0, 1], or negative if unknown
+     * @param saturated whether there was enough queued work to keep every slot busy during the window
+     * @return true if {@link #getLevel()} changed
+     */
+    public boolean sample(long totalBytes, long nowMillis, double cpuLoad, boolean saturated) {
+        if (windowStartBytes < 0 || !saturated) {
+            // A starved queue says nothing about the level, so restart the window
+            startWindow(totalBytes, nowMillis);
+            return false;
+        }
+        long elapsed = nowMillis - windowStartMillis;
+        if (elapsed <= 0) {
+            return false;
+        }
+        double throughput = (totalBytes - windowStartBytes) * 1000.0 / elapsed;
+        startWindow(totalBytes, nowMillis);
+        if (settlingWindow) {
+            settlingWindow = false;
+            return false;
+        }
+        lastThroughput = throughput;
+        lastCpuLoad = cpuLoad;
+
+        if (settled) {
+            if (++windowsSinceSettled < REPROBE_WINDOWS) {
+                // Track drift at the settled level so a re-probe compares against current conditions
+                bestThroughput = throughput;
+                return false;
+            }
+            settled = false;
+            reversed = false;
+            direction = 1;
+            bestThroughput = throughput;
+            return step("re-probing");
+        }
+
+        if (level == bestLevel) {
+            // First measurement, or back at the best level after a failed step
+            bestThroughput = Math.max(bestThroughput, throughput);
+            return step("baseline");
+        }
+        if (throughput > bestThroughput * (1 + MIN_GAIN)) {
+            bestLevel = level;
+            bestThroughput = throughput;
+            return step("improved");
+        }
+        // No gain: go back to the best level and try the other way, or settle
+        if (!reversed) {
+            reversed = true;
+            direction = -direction;
+            return moveTo(bestLevel, "no gain, reversing");
+        }
+        return settle("no gain");
+    }
+
+    private boolean step(String reason) {
+        int target = level + direction;
+        if (direction > 0 && lastCpuLoad >= CPU_SATURATED) {
+            target = level; // more threads can't help a saturated CPU
+        }
+        if (target == level || target != clamp(target)) {
+            if (!reversed) {
+                reversed = true;
+                direction = -direction;
+                target = level + direction;
+                if (target == clamp(target) && !(direction > 0 && lastCpuLoad >= CPU_SATURATED)) {
+                    return moveTo(target, reason + ", trying " + (direction > 0 ? "up" : "down"));
+                }
+            }
+            return settle(reason + ", at limit");
+        }
+        return moveTo(target, reason);
+    }
+
+    private boolean moveTo(int target, String reason) {
+        boolean changed = target != level;
+        level = target;
+        settlingWindow = changed;
+        lastDecision = reason;
+        return changed;
+    }
+
+    private boolean settle(String reason) {
+        settled = true;
+        windowsSinceSettled = 0;
+        boolean changed = moveTo(bestLevel, reason + ", settled");
+        return changed;
+    }
+
+    private void startWindow(long totalBytes, long nowMillis) {
+        windowStartBytes = totalBytes;
+        windowStartMillis = nowMillis;
+    }
+
+    private int clamp(int value) {
+        return Math.max(minLevel, Math.min(maxLevel, value));
+    }
+
+    /** Short description of the current state for the status bar and log. */
+    public String describe() {
+        String text = "x" + level + (settled ? " tuned" : " tuning") + " ("
+                + DECIMAL_FORMATTER.format(lastThroughput / 1048576) + " MB/s";
+        if (lastCpuLoad >= 0) {
+            text += ", CPU " + Math.round(lastCpuLoad * 100) + "%";
+        }
+        return text + ", " + lastDecision + ")";
+    }
+
+    /**
+     * Current process CPU load in [0, 1], or -1 when the JVM doesn't expose it.
+     */
+    public static double processCpuLoad() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean sunBean) {
+            double load = sunBean.getProcessCpuLoad();
+            return load >= 0 ? load : -1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom;
+
+import epox.webaom.hash.Crc32Hash;
+import epox.webaom.hash.Ed2kHash;
+import epox.webaom.hash.HashAlgorithm;
+import epox.webaom.hash.Md5Hash;
+import epox.webaom.hash.ParallelTthHash;
+import epox.webaom.hash.Sha1Hash;
+import epox.webaom.hash.TthHash;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** Hashing and moving settings read by {@link DiskIOManager}. */
+public interface HashOptions {
+    /** Names of the selected checksums ({@code ed2k}, {@code crc32}, {@code md5}, {@code sha1}, {@code tth}). */
+    Set<String> getChecksumNames();
+
+    boolean isHashPipelineEnabled();
+
+    boolean isHashMemoryMapEnabled();
+
+    boolean isHashAutotuneEnabled();
+
+    boolean isHashReadAheadEnabled();
+
+    /** Per-mount hash concurrency in the form {@code path=limit;path=limit}. */
+    String getHashDeviceLimits();
+
+    FileMover.VerifyPolicy getMoveVerifyPolicy();
+
+    /**
+     * Create a new set of checksum algorithms for a single hashing task.
+     * Each call creates fresh instances since hash algorithms are NOT thread-safe.
+     * This method should be called once per HashTask worker.
+     *
+     * @return map of checksum name to ChecksumData, in the order the checksums are shown
+     */
+    default LinkedHashMap<String, DiskIOManager.ChecksumData> createChecksums() {
+        Set<String> names = getChecksumNames();
+        LinkedHashMap<String, DiskIOManager.ChecksumData> checksums = new LinkedHashMap<>();
+
+        if (names.contains("ed2k")) {
+            checksums.put("ed2k", new DiskIOManager.ChecksumData("ed2k", new Ed2kHash()));
+        }
+        if (names.contains("crc32")) {
+            checksums.put("crc32", new DiskIOManager.ChecksumData("crc32", new Crc32Hash()));
+        }
+        if (names.contains("md5")) {
+            checksums.put("md5", new DiskIOManager.ChecksumData("md5", new Md5Hash()));
+        }
+        if (names.contains("sha1")) {
+            checksums.put("sha1", new DiskIOManager.ChecksumData("sha1", new Sha1Hash()));
+        }
+        if (names.contains("tth")) {
+            HashAlgorithm tth = isHashPipelineEnabled() ? new ParallelTthHash() : new TthHash();
+            checksums.put("tth", new DiskIOManager.ChecksumData("tth", tth));
+        }
+        return checksums;
+    }
+
+    /** The settings as stored in an options file, for running without the options panel. */
+    static HashOptions of(Options options) {
+        return new HashOptions() {
+            @Override
+            public Set<String> getChecksumNames() {
+                Set<String> names = new LinkedHashSet<>();
+                names.add("ed2k"); // always needed to identify files
+                if (options.getBoolean(Options.BOOL_HASH_CRC)) {
+                    names.add("crc32");
+                }
+                if (options.getBoolean(Options.BOOL_HASH_MD5)) {
+                    names.add("md5");
+                }
+                if (options.getBoolean(Options.BOOL_HASH_SHA)) {
+                    names.add("sha1");
+                }
+                if (options.getBoolean(Options.BOOL_HASH_TTH)) {
+                    names.add("tth");
+                }
+                return names;
+            }
+
+            @Override
+            public boolean isHashPipelineEnabled() {
+                return options.getBoolean(Options.BOOL_HASH_PIPELINE);
+            }
+
+            @Override
+            public boolean isHashMemoryMapEnabled() {
+                return options.getBoolean(Options.BOOL_HASH_MMAP);
+            }
+
+            @Override
+            public boolean isHashAutotuneEnabled() {
+                return options.getBoolean(Options.BOOL_HASH_AUTOTUNE);
+            }
+
+            @Override
+            public boolean isHashReadAheadEnabled() {
+                return options.getBoolean(Options.BOOL_HASH_READ_AHEAD);
+            }
+
+            @Override
+            public String getHashDeviceLimits() {
+                return options.getString(Options.STR_HASH_DEVICE_LIMITS);
+            }
+
+            @Override
+            public FileMover.VerifyPolicy getMoveVerifyPolicy() {
+                return FileMover.VerifyPolicy.fromOptionValue(options.getString(Options.STR_MOVE_VERIFY));
+            }
+        };
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.webaom.util.BufferPool;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.logging.Logger;
+
+/**
+ * Decides which waiting hash jobs to start, grouping them by the storage device they live on.
+ *
+ * <p>Each device gets its own concurrency limit: one sequential stream for rotational disks (so
+ * parallel reads don't seek-thrash), more for solid-state storage, or whatever the user configured
+ * for the mount. Free slots are handed out round-robin across devices, so a long queue on one disk
+ * cannot starve the others.
+ */
+public class HashScheduler {
+    private static final Logger LOGGER = Logger.getLogger(HashScheduler.class.getName());
+
+    /** Concurrent hashes on a spinning disk; more than one makes the heads seek between files. */
+    public static final int ROTATIONAL_LIMIT = 1;
+
+    /** Concurrent hashes on SSD/NVMe storage. */
+    public static final int SOLID_STATE_LIMIT = 4;
+
+    /** Concurrent hashes when the device type cannot be detected (network shares, non-Linux). */
+    public static final int UNKNOWN_LIMIT = 2;
+
+    /** Resolves the storage device of a file. Replaceable for tests. */
+    interface DeviceResolver {
+        StorageDevice resolve(File file);
+    }
+
+    /** A storage device (file store) and its current hashing load. */
+    static class StorageDevice {
+        final String key;
+        final String description;
+        final Boolean rotational;
+        int limit;
+        int active;
+
+        StorageDevice(String key, String description, Boolean rotational) {
+            this.key = key;
+            this.description = description;
+            this.rotational = rotational;
+        }
+
+        private String typeName() {
+            if (rotational == null) {
+                return "unknown";
+            }
+            return rotational ? "rotational" : "solid state";
+        }
+    }
+
+    private final int maxConcurrent;
+    private final Map<String, Integer> mountLimits;
+    private final DeviceResolver resolver;
+    private final Map<String, StorageDevice> devices = new LinkedHashMap<>();
+    private final Map<File, StorageDevice> directoryDevices = new HashMap<>();
+    private final Map<Job, StorageDevice> activeJobs = new IdentityHashMap<>();
+    private int nextDevice;
+    private int concurrencyLimit;
+
+    /**
+     * @param maxConcurrent upper bound on hashes running at once across all devices
+     * @param limitSpec per-mount overrides in the form {@code path=limit;path=limit}, may be empty
+     */
+    public HashScheduler(int maxConcurrent, String limitSpec) {
+        this(maxConcurrent, limitSpec, HashScheduler::resolveFileStore);
+    }
+
+    HashScheduler(int maxConcurrent, String limitSpec, DeviceResolver resolver) {
+        this.maxConcurrent = maxConcurrent;
+        this.concurrencyLimit = maxConcurrent;
+        this.mountLimits = parseLimits(limitSpec);
+        this.resolver = resolver;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getActiveCount() {
+        return activeJobs.size();
+    }
+
+    /**
+     * Lower the global limit below {@link #getMaxConcurrent()}, e.g. from the autotuner. Running
+     * jobs are not affected; new ones only start once the active count drops below the limit.
+     */
+    public synchronized void setConcurrencyLimit(int limit) {
+        concurrencyLimit = Math.max(1, Math.min(maxConcurrent, limit));
+    }
+
+    public synchronized int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * Pick the next jobs to hash and mark them as running. Devices are visited round-robin, one job
+     * per device per pass, until every device is at its limit or the global limit is reached.
+     *
+     * @param jobList the job list to pull {@code HASHWAIT} jobs from
+     * @param exclude jobs already being hashed
+     * @return jobs to start, each of which must be passed to {@link #release(Job)} when done
+     */
+    public synchronized List<Job> next(JobList jobList, Set<Job> exclude) {
+        int slotsAvailable = concurrencyLimit - activeJobs.size();
+        if (slotsAvailable <= 0) {
+            return List.of();
+        }
+
+        // The whole queue: a rescan queues one drive's files before the next drive's, so any prefix of it
+        // may hold a single device. Device lookups are cached per directory.
+        List<Job> waiting = jobList.getJobsDio(Integer.MAX_VALUE, Job.HASHWAIT, exclude);
+        if (waiting.isEmpty()) {
+            return List.of();
+        }
+
+        // Group candidates by device, keeping queue order and no more than the free slots per device
+        Map<StorageDevice, List<Job>> candidates = new LinkedHashMap<>();
+        for (Job job : waiting) {
+            StorageDevice device = deviceOf(job);
+            List<Job> jobs = candidates.computeIfAbsent(device, d -> new ArrayList<>());
+            if (jobs.size() < device.limit - device.active) {
+                jobs.add(job);
+            }
+        }
+
+        List<StorageDevice> order = rotatedDeviceOrder();
+        List<Job> selected = new ArrayList<>();
+        boolean progress = true;
+        while (progress && selected.size() < slotsAvailable) {
+            progress = false;
+            for (StorageDevice device : order) {
+                List<Job> jobs = candidates.get(device);
+                if (jobs == null || jobs.isEmpty() || device.active >= device.limit) {
+                    continue;
+                }
+                Job job = jobs.remove(0);
+                device.active++;
+                activeJobs.put(job, device);
+                selected.add(job);
+                progress = true;
+                if (selected.size() >= slotsAvailable) {
+                    break;
+                }
+            }
+        }
+        if (!selected.isEmpty()) {
+            nextDevice++;
+        }
+        return selected;
+    }
+
+    /**
+     * Concurrent reads the device of a job's file is allowed, which also bounds how many threads
+     * may read different parts of one file at once.
+     */
+    public synchronized int getDeviceLimit(Job job) {
+        return deviceOf(job).limit;
+    }
+
+    /** Size of sequential reads when hashing a job's file; spinning disks get longer reads. */
+    public synchronized int getReadBufferSize(Job job) {
+        return Boolean.TRUE.equals(deviceOf(job).rotational) ? BufferPool.LARGE : BufferPool.MEDIUM;
+    }
+
+    /** Mark a job returned by {@link #next(JobList, Set)} as no longer running. */
+    public synchronized void release(Job job) {
+        StorageDevice device = activeJobs.remove(job);
+        if (device != null) {
+            device.active--;
+        }
+    }
+
+    /** Forget running jobs, e.g. after the hash executor was shut down. */
+    public synchronized void clear() {
+        activeJobs.clear();
+        for (StorageDevice device : devices.values()) {
+            device.active = 0;
+        }
+    }
+
+    private List<StorageDevice> rotatedDeviceOrder() {
+        List<StorageDevice> all = new ArrayList<>(devices.values());
+        if (all.isEmpty()) {
+            return all;
+        }
+        int start = Math.floorMod(nextDevice, all.size());
+        List<StorageDevice> order = new ArrayList<>(all.size());
+        order.addAll(all.subList(start, all.size()));
+        order.addAll(all.subList(0, start));
+        return order;
+    }
+
+    StorageDevice deviceOf(Job job) {
+        File file = job.getFile();
+        File directory = file.getParentFile() != null ? file.getParentFile() : file;
+        StorageDevice cached = directoryDevices.get(directory);
+        if (cached != null) {
+            return cached;
+        }
+        StorageDevice resolved = resolver.resolve(file);
+        StorageDevice device = devices.get(resolved.key);
+        if (device == null) {
+            device = resolved;
+            device.limit = limitFor(file, device);
+            devices.put(device.key, device);
+            String message = "Hash device " + device.description + " (" + device.typeName() + "): "
+                    + device.limit + " concurrent";
+            LOGGER.info(message);
+            if (AppContext.frontend != null) {
+                AppContext.frontend.println(message);
+            }
+        }
+        directoryDevices.put(directory, device);
+        return device;
+    }
+
+    private int limitFor(File file, StorageDevice device) {
+        Path path = file.toPath().toAbsolutePath();
+        String bestMatch = null;
+        for (String mount : mountLimits.keySet()) {
+            // Whole path components only, so /mnt/disk1 doesn't cover /mnt/disk10
+            if (startsWith(path, mount) && (bestMatch == null || mount.length() > bestMatch.length())) {
+                bestMatch = mount;
+            }
+        }
+        if (bestMatch != null) {
+            return mountLimits.get(bestMatch);
+        }
+        if (device.rotational == null) {
+            return UNKNOWN_LIMIT;
+        }
+        return device.rotational ? ROTATIONAL_LIMIT : SOLID_STATE_LIMIT;
+    }
+
+    private static boolean startsWith(Path path, String mount) {
+        try {
+            return path.startsWith(Paths.get(mount).toAbsolutePath());
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse per-mount limits in the form {@code /mnt/disk1=1;/mnt/nvme=6}. Malformed entries are
+     * skipped; limits below 1 are raised to 1.
+     */
+    static Map<String, Integer> parseLimits(String spec) {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return limits;
+        }
+        StringTokenizer tokenizer = new StringTokenizer(spec, ";");
+        while (tokenizer.hasMoreTokens()) {
+            String entry = tokenizer.nextToken().trim();
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                int limit = Integer.parseInt(entry.substring(separator + 1).trim());
+                limits.put(entry.substring(0, separator).trim(), Math.max(1, limit));
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Ignoring hash device limit: " + entry);
+            }
+        }
+        return limits;
+    }
+
+    static StorageDevice resolveFileStore(File file) {
+        try {
+            FileStore store = Files.getFileStore(file.toPath());
+            return new StorageDevice(store.name() + "|" + store.type(), store.toString(), isRotational(store.name()));
+        } catch (IOException | SecurityException e) {
+            // Missing files fail later in HashTask; group them by parent so they don't block anything
+            String key = String.valueOf(file.getAbsoluteFile().getParent());
+            return new StorageDevice(key, key, null);
+        }
+    }
+
+    /**
+     * Look up whether a block device is rotational via Linux sysfs. Partitions inherit the flag of
+     * their parent disk.
+     *
+     * @return true/false when known, null on other platforms or for network and virtual file systems
+     */
+    static Boolean isRotational(String deviceName) {
+        if (deviceName == null || !deviceName.startsWith("/dev/")) {
+            return null;
+        }
+        String name = deviceName.substring("/dev/".length());
+        if (name.startsWith("mapper/")) {
+            // Device-mapper names are symlinks to dm-N, which carries its own queue flags
+            try {
+                name = Paths.get(deviceName).toRealPath().getFileName().toString();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        try {
+            Path block = Paths.get("/sys/class/block", name).toRealPath();
+            Path flag = block.resolve("queue/rotational");
+            if (!Files.exists(flag)) {
+                flag = block.getParent().resolve("queue/rotational");
+            }
+            if (Files.exists(flag)) {
+                return Files.readString(flag).trim().equals("1");
+            }
+        } catch (IOException | SecurityException e) {
+            // not a block device we can inspect
+        }
+        return null;
+    }
+}
@@ -92,6 +92,10 @@ public class Job {
     public boolean altVisible = true;
     /** Hashing progress from 0.0 to 1.0, updated by HashTask workers */
     public volatile float hashProgress = 0f;
+    /** Moving (copy or check) progress from 0.0 to 1.0, updated by move workers */
+    public volatile float moveProgress = 0f;
+    /** Set by the user to run this job's network requests ahead of the others, see {@link NetworkScheduler} */
+    public volatile boolean boosted = false;
 
     private int status;
 
@@ -281,6 +285,10 @@ public class Job {
         if (check(HASHING)) {
             return "Hashing " + (int) (hashProgress * 100) + "%";
         }
+        if (check(MOVING)) {
+            // Also matches MOVECHECK
+            return statusStr(getStatus()) + " " + (int) (moveProgress * 100) + "%";
+        }
         if (check(H_NORMAL)) {
             return statusStr(getStatus());
         }
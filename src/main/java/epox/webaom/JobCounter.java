@@ -46,6 +46,19 @@ public class JobCounter {
         return 1000 * (statusCounts[INDEX_FINISHED]) / activeJobCount;
     }
 
+    /** Job counts per category, as listed by {@link #getStatus()}. */
+    public record Counts(int finished, int diskIo, int networkIo, int errors, int halted, int total) {}
+
+    public synchronized Counts getCounts() {
+        return new Counts(
+                statusCounts[INDEX_FINISHED],
+                statusCounts[INDEX_DISK_IO],
+                statusCounts[INDEX_NETWORK_IO],
+                statusCounts[INDEX_ERROR],
+                statusCounts[INDEX_HALTED],
+                totalJobCount);
+    }
+
     public synchronized String getStatus() {
         StringBuilder statusText = new StringBuilder();
         for (int index = 0; index < STATUS_COUNT; index++) {
@@ -161,7 +161,23 @@ public class JobList {
         JobManager.resetBatchChoice(); // Reset "apply to all" choice when new files added
     }
 
-    public synchronized Job add(File file) {
+    public Job add(File file) {
+        AddedFile added = addFile(file);
+        if (added == null) {
+            return null;
+        }
+        if (added.hashesCached()) {
+            // Unchanged since it was last hashed: continue as if hashing just finished. This may look the
+            // file up in the database and apply rules, so it runs outside the lock the table model needs.
+            JobManager.hashed(added.job());
+        }
+        return added.job();
+    }
+
+    /** A job {@link #add(File)} put in the list, and whether its hashes came from the hash cache. */
+    private record AddedFile(Job job, boolean hashesCached) {}
+
+    private synchronized AddedFile addFile(File file) {
         Job existingJob = findJob(file);
         if (existingJob != null) {
             if (!existingJob.isJobsVisible()) {
@@ -185,19 +201,22 @@ public class JobList {
                 }
                 AppContext.jobCounter.register(-1, -1, existingJob.getStatus(), existingJob.getHealth());
                 refreshView();
-                return existingJob;
+                return new AddedFile(existingJob, false);
             }
             return null;
         }
         if (filePathSet.add(file)) { // TODO if update then check against existing files
             Job job = new Job(file, Job.HASHWAIT);
             int status = AppContext.databaseManager.getJob(job, false);
+            boolean hashesCached = false;
             if (status >= 0 && job.anidbFile != null) {
                 AppContext.cache.gatherInfo(job, true);
                 job.setStatus(status, false);
+            } else {
+                hashesCached = HashCache.restore(job);
             }
             addJobInternal(job);
-            return job;
+            return new AddedFile(job, hashesCached);
         }
         return null;
     }
@@ -320,6 +339,20 @@ public class JobList {
         return jobs;
     }
 
+    /** Number of visible jobs with {@code status} in the disk I/O queue. */
+    public int countJobsDio(int status) {
+        int count = 0;
+        // Read from JMX and UI threads, so take the lock updateQueues() modifies the queues under
+        synchronized (jobQueues) {
+            for (Job job : jobQueues.get(QUEUE_DISK_IO).values()) {
+                if (job.isJobsVisible() && job.getStatus() == status) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     public Job getJobNio() {
         LinkedHashMap<Job, Job> queue = jobQueues.get(QUEUE_NETWORK_IO);
         for (Job job : queue.values()) {
@@ -330,6 +363,35 @@ public class JobList {
         return null;
     }
 
+    /** All visible jobs in the network I/O queue, in queue order. */
+    public List<Job> getJobsNio() {
+        synchronized (jobQueues) {
+            List<Job> jobs = new ArrayList<>(jobQueues.get(QUEUE_NETWORK_IO).size());
+            for (Job job : jobQueues.get(QUEUE_NETWORK_IO).values()) {
+                if (job.isJobsVisible()) {
+                    jobs.add(job);
+                }
+            }
+            return jobs;
+        }
+    }
+
+    /** Up to {@code maxCount} visible jobs with {@code status} in the network I/O queue, in queue order. */
+    public List<Job> getJobsNio(int maxCount, int status) {
+        List<Job> jobs = new ArrayList<>();
+        synchronized (jobQueues) {
+            for (Job job : jobQueues.get(QUEUE_NETWORK_IO).values()) {
+                if (jobs.size() >= maxCount) {
+                    break;
+                }
+                if (job.isJobsVisible() && job.getStatus() == status) {
+                    jobs.add(job);
+                }
+            }
+        }
+        return jobs;
+    }
+
     public boolean workForDio() {
         return getJobDio() != null;
     }
@@ -339,9 +401,9 @@ public class JobList {
     }
 
     public void updateQueues(Job job, int oldStatus, int newStatus) {
+        int newQueue = getQueueType(newStatus);
         synchronized (jobQueues) {
             int oldQueue = getQueueType(oldStatus);
-            int newQueue = getQueueType(newStatus);
 
             // Only update if changing queues (preserve position within same queue)
             if (oldQueue != newQueue) {
@@ -353,6 +415,10 @@ public class JobList {
                 }
             }
         }
+        // The disk I/O thread parks while it has nothing to do; tell it there may be work now
+        if (newQueue == QUEUE_DISK_IO && AppContext.dio != null) {
+            AppContext.dio.wakeUp();
+        }
     }
 
     /**
@@ -244,6 +244,19 @@ public final class JobManager {
     }
 
     public static void updateStatus(Job job, int status, boolean checkIfBusy) {
+        updateStatus(job, status, checkIfBusy, false);
+    }
+
+    /**
+     * Move on a job whose file was just hashed or whose hashes were restored. Unlike a plain
+     * {@link Job#HASHED} update, such as the one to re-identify a job, a file that AniDB identified
+     * before is identified from the database instead of waiting for NetIO; see {@link LocalIdentifier}.
+     */
+    public static void hashed(Job job) {
+        updateStatus(job, Job.HASHED, false, true);
+    }
+
+    private static void updateStatus(Job job, int status, boolean checkIfBusy, boolean identifyLocally) {
         synchronized (job) {
             if (checkIfBusy && job.check(Job.S_DOING)) {
                 return;
@@ -302,17 +315,12 @@ public final class JobManager {
                         }
                         job.isFresh = false;
                     }
+                    if (newStatus == Job.IDENTWAIT && identifyLocally && LocalIdentifier.identify(job)) {
+                        newStatus = identifiedStatus(job);
+                    }
                     break;
                 case Job.IDENTIFIED:
-                    if (job.anidbFile == null || job.anidbFile.getFileId() == 0 || !updatePath(job)) {
-                        newStatus = Job.FAILED;
-                    } else if (AppContext.autoadd && job.mylistId == 0) {
-                        newStatus = Job.ADDWAIT;
-                    } else if (job.targetFile != null) {
-                        newStatus = Job.MOVEWAIT;
-                    } else {
-                        newStatus = Job.FINISHED;
-                    }
+                    newStatus = identifiedStatus(job);
                     break;
                 case Job.ADDED:
                     if (job.anidbFile == null || job.anidbFile.getFileId() == 0) {
@@ -351,13 +359,24 @@ public final class JobManager {
         }
     }
 
+    private static int identifiedStatus(Job job) {
+        if (job.anidbFile == null || job.anidbFile.getFileId() == 0 || !updatePath(job)) {
+            return Job.FAILED;
+        } else if (AppContext.autoadd && job.mylistId == 0) {
+            return Job.ADDWAIT;
+        } else if (job.targetFile != null) {
+            return Job.MOVEWAIT;
+        }
+        return Job.FINISHED;
+    }
+
     public static boolean updatePath(Job job) {
         if (!AppContext.opt.getBoolean(Options.BOOL_AUTO_RENAME)) {
             return true; // Skip automatic renaming
         }
         if (job.incompl()) {
             job.setError("Extensive fileinfo not available.");
-            AppContext.gui.println(job.currentFile + " cannot be renamed: Extensive fileinfo not available.");
+            AppContext.frontend.println(job.currentFile + " cannot be renamed: Extensive fileinfo not available.");
             return false;
         }
         return updatePath(job, AppContext.rules.apply(job));
@@ -366,7 +385,7 @@ public final class JobManager {
     public static boolean applyRulesForced(Job job) {
         if (job.incompl()) {
             job.setError("Extensive fileinfo not available.");
-            AppContext.gui.println(job.currentFile + " cannot be renamed: Extensive fileinfo not available.");
+            AppContext.frontend.println(job.currentFile + " cannot be renamed: Extensive fileinfo not available.");
             return false;
         }
         File dest = AppContext.rules.apply(job);
@@ -397,10 +416,10 @@ public final class JobManager {
             if (choice == AppContext.FILENAME_TRUNCATE || choice == AppContext.FILENAME_TRUNCATE_ALL) {
                 String truncatedName = Rules.smartTruncateFilename(destFilename, Rules.MAX_FILENAME_BYTES);
                 destinationFile = new File(destinationFile.getParent(), truncatedName);
-                AppContext.gui.println("Truncated filename to: " + HyperlinkBuilder.formatAsName(destinationFile));
+                AppContext.frontend.println("Truncated filename to: " + HyperlinkBuilder.formatAsName(destinationFile));
             } else {
                 String displayName = destFilename.length() > 50 ? destFilename.substring(0, 50) + "..." : destFilename;
-                AppContext.gui.println(
+                AppContext.frontend.println(
                         "Skipped rename due to long filename: " + displayName + " (" + currentBytes + " bytes)");
                 return true;
             }
@@ -420,18 +439,18 @@ public final class JobManager {
         // SOURCE FILE HEALTHY?
         if (!job.currentFile.exists()) {
             job.setError("File does not exist.");
-            AppContext.gui.println(sourceDisplayName + " cannot be moved. File not found.");
+            AppContext.frontend.println(sourceDisplayName + " cannot be moved. File not found.");
             return false;
         }
         // DESTINATION FILE HEALTHY?
         if (isNormalMove && destinationFile.exists()) {
             if (job.currentFile.length() == destinationFile.length()) { // could be the same
                 job.targetFile = destinationFile;
-                AppContext.gui.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
+                AppContext.frontend.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
                 return true;
             }
             job.setError("File cannot be moved. Destination file already exists!");
-            AppContext.gui.println(sourceDisplayName + " cannot be moved to " + destDisplayName
+            AppContext.frontend.println(sourceDisplayName + " cannot be moved to " + destDisplayName
                     + ": Destination file already exists!");
             return false;
         }
@@ -439,7 +458,7 @@ public final class JobManager {
         File parentFolder = destinationFile.getParentFile();
         if (!parentFolder.exists() && !parentFolder.mkdirs()) {
             job.setError("Folder " + parentFolder + " cannot be created!");
-            AppContext.gui.println("Folder " + parentFolder + " cannot be created!");
+            AppContext.frontend.println("Folder " + parentFolder + " cannot be created!");
             return false;
         }
         AppContext.jobs.addPath(destinationFile);
@@ -454,15 +473,15 @@ public final class JobManager {
                     moveSiblingFiles(job.currentFile, destinationFile);
                     AppContext.deleteFile(job.currentFile.getParentFile(), cleanupMessage);
                     JobManager.setJobFile(job, destinationFile);
-                    AppContext.gui.println("Renamed " + sourceDisplayName + " to " + destDisplayName);
+                    AppContext.frontend.println("Renamed " + sourceDisplayName + " to " + destDisplayName);
                     return true;
                 }
-                AppContext.gui.println(HyperlinkBuilder.formatAsError("Renaming failed!") + " (" + sourceDisplayName
-                        + " to " + destDisplayName + ")");
+                AppContext.frontend.println(HyperlinkBuilder.formatAsError("Renaming failed!") + " ("
+                        + sourceDisplayName + " to " + destDisplayName + ")");
                 return false;
             }
             job.targetFile = destinationFile;
-            AppContext.gui.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
+            AppContext.frontend.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
             return true;
         }
         // TRY TO MOVE: *NIX
@@ -470,11 +489,11 @@ public final class JobManager {
             moveSiblingFiles(job.currentFile, destinationFile);
             AppContext.deleteFile(job.currentFile.getParentFile(), cleanupMessage);
             JobManager.setJobFile(job, destinationFile);
-            AppContext.gui.println("Renamed " + sourceDisplayName + " to " + destDisplayName);
+            AppContext.frontend.println("Renamed " + sourceDisplayName + " to " + destDisplayName);
             return true;
         }
         job.targetFile = destinationFile;
-        AppContext.gui.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
+        AppContext.frontend.println(sourceDisplayName + " will be moved to " + destDisplayName + " later.");
         return true;
         // THE END
     }
@@ -526,9 +545,9 @@ public final class JobManager {
                 continue;
             }
             if (!sibling.renameTo(destSibling)) {
-                AppContext.gui.println("Failed to rename sibling file: " + sibling.getName());
+                AppContext.frontend.println("Failed to rename sibling file: " + sibling.getName());
             } else {
-                AppContext.gui.println("Renamed sibling: " + sibling.getName());
+                AppContext.frontend.println("Renamed sibling: " + sibling.getName());
             }
         }
     }
@@ -0,0 +1,81 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.webaom.data.AniDBFile;
+import epox.webaom.db.DatabaseManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifies hashed files from the database when AniDB identified a file of the same size and ED2K
+ * hash before, such as another copy of a release or a file added again after an import, so they
+ * don't spend FILE requests from the flood-limited API budget.
+ *
+ * <p>A file row is trusted for {@link Frontend#getLocalIdentifyDays()} days after it was last
+ * written from a server reply. Older rows, and files whose anime, episode or group are missing from
+ * the database, are identified by AniDB as before.
+ */
+public final class LocalIdentifier {
+    /** Days a file row identifies files when the option is not set. */
+    public static final int DEFAULT_MAX_AGE_DAYS = 30;
+
+    private LocalIdentifier() {}
+
+    /**
+     * Set a job's file from the database if it holds a fresh row for the job's size and ED2K hash
+     * together with its anime, episode and group.
+     *
+     * @return true if the job was identified and needs no FILE request
+     */
+    public static boolean identify(Job job) {
+        DatabaseManager databaseManager = AppContext.databaseManager;
+        int days = AppContext.frontend != null ? AppContext.frontend.getLocalIdentifyDays() : DEFAULT_MAX_AGE_DAYS;
+        if (days <= 0
+                || job.fileIdOverride > 0
+                || job.ed2kHash == null
+                || AppContext.cache == null
+                || databaseManager == null
+                || !databaseManager.isConnected()) {
+            return false;
+        }
+        AniDBFile file = databaseManager.getFile(job.fileSize, job.ed2kHash, TimeUnit.DAYS.toMillis(days));
+        if (file == null || !AppContext.cache.hasInfoFor(file)) {
+            return false;
+        }
+        file.setMylistEntryId(job.mylistId);
+        file.setJob(job);
+        job.anidbFile = file;
+        AppContext.cache.gatherInfo(job, true);
+        if (AppContext.frontend != null) {
+            AppContext.frontend.println(
+                    "Found " + HyperlinkBuilder.formatAsName(file.getDefaultName()) + " in database");
+        }
+        return true;
+    }
+
+    /** The number of days in an option value, {@link #DEFAULT_MAX_AGE_DAYS} if it is empty or invalid. */
+    public static int parseDays(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_MAX_AGE_DAYS;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            return DEFAULT_MAX_AGE_DAYS;
+        }
+    }
+}
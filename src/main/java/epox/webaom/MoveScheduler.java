@@ -0,0 +1,179 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import epox.webaom.util.BufferPool;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides which waiting move jobs to start, one lane per (source device, destination device) pair.
+ *
+ * <p>A lane runs one move at a time, so two copies never compete for the same pair of drives, while
+ * moves between different drives run side by side. Each lane keeps its own {@link FileMover}.
+ * Jobs heading for the same target file are never started together.
+ */
+public class MoveScheduler {
+    /** Upper bound on moves running at once across all lanes. */
+    public static final int MAX_CONCURRENT = 8;
+
+    /** A source and destination device pair. */
+    static class Lane {
+        final String key;
+        final FileMover mover;
+        boolean busy;
+
+        Lane(String key, FileMover mover) {
+            this.key = key;
+            this.mover = mover;
+        }
+    }
+
+    /** A job to start and the lane's mover to run it with. */
+    public record Assignment(Job job, FileMover mover) {}
+
+    /** The lane of a waiting job, valid while the job keeps this target. */
+    private record WaitingLane(File target, Lane lane) {}
+
+    private final int maxConcurrent;
+    private final HashScheduler.DeviceResolver resolver;
+    private final BooleanSupplier keepGoing;
+    private final BufferPool bufferPool;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final Map<File, String> directoryDevices = new HashMap<>();
+    private final Map<Job, Lane> activeJobs = new IdentityHashMap<>();
+    /** Targets of the running moves as they were when the move started; a move clears its job's field. */
+    private final Map<Job, File> activeTargets = new HashMap<>();
+    /** Lanes of the waiting jobs, so finding one needs no file system lookups on every pass. */
+    private Map<Job, WaitingLane> waitingLanes = new IdentityHashMap<>();
+
+    /** @param keepGoing and bufferPool are passed on to every lane's {@link FileMover} */
+    public MoveScheduler(int maxConcurrent, BooleanSupplier keepGoing, BufferPool bufferPool) {
+        this(maxConcurrent, keepGoing, bufferPool, HashScheduler::resolveFileStore);
+    }
+
+    MoveScheduler(
+            int maxConcurrent,
+            BooleanSupplier keepGoing,
+            BufferPool bufferPool,
+            HashScheduler.DeviceResolver resolver) {
+        this.maxConcurrent = maxConcurrent;
+        this.keepGoing = keepGoing;
+        this.bufferPool = bufferPool;
+        this.resolver = resolver;
+    }
+
+    public synchronized int getActiveCount() {
+        return activeJobs.size();
+    }
+
+    /**
+     * Pick the next jobs to move, at most one per idle lane, and mark them as running.
+     *
+     * @param jobList the job list to pull {@code MOVEWAIT} jobs from
+     * @param exclude jobs already being moved
+     * @return jobs to start, each of which must be passed to {@link #release(Job)} when done
+     */
+    public synchronized List<Assignment> next(JobList jobList, Set<Job> exclude) {
+        if (activeJobs.size() >= maxConcurrent) {
+            return List.of();
+        }
+        List<Assignment> selected = new ArrayList<>();
+        // The whole queue, so a long backlog for one busy lane cannot hide work for the idle ones
+        List<Job> waiting = jobList.getJobsDio(Integer.MAX_VALUE, Job.MOVEWAIT, exclude);
+        Map<Job, WaitingLane> known = new IdentityHashMap<>(waiting.size() * 2);
+        for (Job job : waiting) {
+            WaitingLane waitingLane = waitingLanes.get(job);
+            if (waitingLane == null || !Objects.equals(waitingLane.target(), job.targetFile)) {
+                waitingLane = new WaitingLane(job.targetFile, laneOf(job));
+            }
+            known.put(job, waitingLane);
+        }
+        waitingLanes = known;
+        for (Job job : waiting) {
+            if (job.targetFile != null && activeTargets.containsValue(job.targetFile)) {
+                continue;
+            }
+            Lane lane = known.get(job).lane();
+            if (lane.busy) {
+                continue;
+            }
+            lane.busy = true;
+            activeJobs.put(job, lane);
+            if (job.targetFile != null) {
+                activeTargets.put(job, job.targetFile);
+            }
+            selected.add(new Assignment(job, lane.mover));
+            if (activeJobs.size() >= maxConcurrent) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /** Mark a job returned by {@link #next(JobList, Set)} as no longer running. */
+    public synchronized void release(Job job) {
+        Lane lane = activeJobs.remove(job);
+        if (lane != null) {
+            lane.busy = false;
+        }
+        activeTargets.remove(job);
+    }
+
+    /** Forget running jobs, e.g. after the move executor was shut down. */
+    public synchronized void clear() {
+        activeJobs.clear();
+        activeTargets.clear();
+        for (Lane lane : lanes.values()) {
+            lane.busy = false;
+        }
+    }
+
+    Lane laneOf(Job job) {
+        File sourceFile = job.currentFile;
+        File sourceDirectory = sourceFile.getParentFile() != null ? sourceFile.getParentFile() : sourceFile;
+        String source = deviceOf(sourceDirectory, sourceFile);
+        String target = source;
+        if (job.targetFile != null) {
+            // The target folder is usually created by the move itself, so look at what exists of it
+            File existing = existingAncestor(job.targetFile);
+            target = deviceOf(existing, existing);
+        }
+        return lanes.computeIfAbsent(
+                source + " -> " + target, key -> new Lane(key, new FileMover(keepGoing, bufferPool)));
+    }
+
+    private String deviceOf(File directory, File probe) {
+        return directoryDevices.computeIfAbsent(directory, d -> resolver.resolve(probe).key);
+    }
+
+    private static File existingAncestor(File file) {
+        File ancestor = file.getAbsoluteFile();
+        while (ancestor.getParentFile() != null && !ancestor.exists()) {
+            ancestor = ancestor.getParentFile();
+        }
+        return ancestor;
+    }
+}
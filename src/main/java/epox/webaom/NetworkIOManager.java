@@ -21,26 +21,43 @@ import epox.webaom.data.Episode;
 import epox.webaom.data.Group;
 import epox.webaom.db.DatabaseManager;
 import epox.webaom.net.AniDBConnection;
+import epox.webaom.net.AniDBConnectionResponse;
 import epox.webaom.net.AniDBException;
 import epox.webaom.net.AniDBFileClient;
+import epox.webaom.net.FileMask;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class NetworkIOManager implements Runnable {
     private static final String THREAD_TERMINATED_MESSAGE = "NetIO thread terminated.";
 
+    /**
+     * FILE requests sent ahead for the next jobs waiting to be identified, so each reply is already
+     * on its way while the job before it is processed.
+     */
+    private static final int IDENTIFY_AHEAD = 2;
+
+    private final Map<Job, FileRequest> identifyAhead = new LinkedHashMap<>();
+    private final NetworkScheduler scheduler = new NetworkScheduler();
     private Job currentJob;
 
+    /** A FILE request in flight and the mask it was sent with. */
+    private record FileRequest(FileMask mask, CompletableFuture<AniDBConnectionResponse> reply) {}
+
     @Override
     public void run() {
-        AppContext.gui.status1("Checking connection...");
+        AppContext.frontend.status1("Checking connection...");
         boolean timedOut = false;
-        AniDBFileClient ac = AppContext.gui.createConnection();
+        AniDBFileClient ac = AppContext.frontend.createConnection();
         if (ac.connect()) {
             if (ping(ac)) {
                 AppContext.conn = ac;
                 try {
                     doWork();
-                    AppContext.gui.println(THREAD_TERMINATED_MESSAGE);
-                    AppContext.gui.status1(THREAD_TERMINATED_MESSAGE);
+                    AppContext.frontend.println(THREAD_TERMINATED_MESSAGE);
+                    AppContext.frontend.status1(THREAD_TERMINATED_MESSAGE);
                 } catch (AniDBException e) {
                     if (isExpectedShutdownException(e)) {
                         cleanCurrentJob("Interrupted during shutdown");
@@ -48,11 +65,12 @@ public class NetworkIOManager implements Runnable {
                         e.printStackTrace();
                         String message = e.getMessage();
                         timedOut = message != null && message.contains("TIME OUT");
-                        AppContext.gui.status1(message);
-                        AppContext.gui.showMessage(" " + ((message == null) ? "Null pointer exception." : message));
+                        AppContext.frontend.status1(message);
+                        AppContext.frontend.showMessage(
+                                " " + ((message == null) ? "Null pointer exception." : message));
                         if (!e.is(AniDBException.ENCRYPTION)) {
-                            AppContext.gui.kill();
-                            AppContext.gui.handleFatalError(true);
+                            AppContext.frontend.kill();
+                            AppContext.frontend.handleFatalError(true);
                         }
                         cleanCurrentJob(e.getMessage());
                     }
@@ -61,15 +79,15 @@ public class NetworkIOManager implements Runnable {
                     if (AniDBConnection.isShutdown()) {
                         cleanCurrentJob("Interrupted during shutdown");
                     } else {
-                        AppContext.gui.println(" " + HyperlinkBuilder.formatAsError("Thread interrupted"));
+                        AppContext.frontend.println(" " + HyperlinkBuilder.formatAsError("Thread interrupted"));
                         cleanCurrentJob("Thread interrupted");
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
-                    AppContext.gui.println(" " + HyperlinkBuilder.formatAsError(e.getMessage()));
-                    AppContext.gui.showMessage(" " + e.getMessage());
-                    AppContext.gui.kill();
-                    AppContext.gui.handleFatalError(true);
+                    AppContext.frontend.println(" " + HyperlinkBuilder.formatAsError(e.getMessage()));
+                    AppContext.frontend.showMessage(" " + e.getMessage());
+                    AppContext.frontend.kill();
+                    AppContext.frontend.handleFatalError(true);
                     cleanCurrentJob(e.getMessage());
                 }
                 AppContext.conn.disconnect();
@@ -77,32 +95,32 @@ public class NetworkIOManager implements Runnable {
             } else {
                 ac.disconnect();
                 ac = null;
-                AppContext.gui.status1("Sleeping...");
+                AppContext.frontend.status1("Sleeping...");
                 try {
                     Thread.sleep(100);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
-                AppContext.gui.status1(THREAD_TERMINATED_MESSAGE);
+                AppContext.frontend.status1(THREAD_TERMINATED_MESSAGE);
             }
             try {
                 if (!AniDBConnection.isShutdown() && ac != null && ac.isLoggedIn() && !timedOut && ac.logout()) {
-                    AppContext.gui.println("Logged out after extra check!");
+                    AppContext.frontend.println("Logged out after extra check!");
                 }
             } catch (Exception e) {
                 e.printStackTrace();
             }
         } else {
             String errorMsg = ac.getLastError();
-            if (errorMsg.endsWith("Cannot bind")) {
+            if (errorMsg.endsWith("Cannot bind") || errorMsg.contains("Address already in use")) {
                 errorMsg = "The local port is already in use. Try another port.";
             }
-            AppContext.gui.println(HyperlinkBuilder.formatAsError(errorMsg));
-            AppContext.gui.showMessage(errorMsg);
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError(errorMsg));
+            AppContext.frontend.showMessage(errorMsg);
         }
-        AppContext.gui.setNetworkIoOptionsEnabled(true);
-        AppContext.gui.setNetworkIoEnabled(false);
-        AppContext.gui.networkIoThread = null;
+        AppContext.frontend.setNetworkIoOptionsEnabled(true);
+        AppContext.frontend.setNetworkIoEnabled(false);
+        AppContext.frontend.networkIoStopped();
     }
 
     private boolean isExpectedShutdownException(AniDBException exception) {
@@ -135,45 +153,91 @@ public class NetworkIOManager implements Runnable {
     }
 
     private void doWork() throws AniDBException, InterruptedException {
-        AppContext.gui.status1("Authenticating...");
+        AppContext.frontend.status1("Authenticating...");
         if (AppContext.conn.login()) {
-            AppContext.gui.setNetworkIoEnabled(true);
-            do {
-                currentJob = AppContext.jobs.getJobNio();
-                if (currentJob != null) {
-                    if (currentJob.getStatus() == Job.REMWAIT) {
-                        remove(currentJob);
-                    } else {
-                        if (currentJob.getStatus() == Job.IDENTWAIT) {
-                            identify(currentJob);
-                        }
-                        if (AppContext.gui.isNetworkIoOk() && currentJob.getStatus() == Job.ADDWAIT) {
-                            mylistAdd(currentJob);
-                        }
-                    }
+            AppContext.frontend.setNetworkIoEnabled(true);
+            try {
+                processJobs();
+            } finally {
+                cancelIdentifyAhead();
+            }
+            AppContext.frontend.status1("Disconnecting...");
+            AppContext.conn.logout();
+        }
+    }
+
+    private void processJobs() throws AniDBException, InterruptedException {
+        do {
+            currentJob = scheduler.next(AppContext.jobs);
+            requestIdentifyAhead();
+            if (currentJob != null) {
+                if (currentJob.getStatus() == Job.REMWAIT) {
+                    remove(currentJob);
                 } else {
-                    AppContext.gui.status1("Idle");
-                    Thread.sleep(500);
+                    if (currentJob.getStatus() == Job.IDENTWAIT) {
+                        identify(currentJob);
+                    }
+                    if (AppContext.frontend.isNetworkIoOk() && currentJob.getStatus() == Job.ADDWAIT) {
+                        mylistAdd(currentJob);
+                    }
                 }
-            } while (AppContext.gui.isNetworkIoOk());
-            AppContext.gui.status1("Disconnecting...");
-            AppContext.conn.logout();
+            } else {
+                AppContext.frontend.status1("Idle");
+                Thread.sleep(500);
+            }
+        } while (AppContext.frontend.isNetworkIoOk());
+    }
+
+    /**
+     * Send FILE requests for the current job and the next ones waiting to be identified, and drop
+     * those for jobs that have moved on.
+     */
+    private void requestIdentifyAhead() {
+        Iterator<Map.Entry<Job, FileRequest>> entries = identifyAhead.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Job, FileRequest> entry = entries.next();
+            if (entry.getKey().getStatus() != Job.IDENTWAIT) {
+                entry.getValue().reply().cancel(false);
+                entries.remove();
+            }
+        }
+        for (Job job : scheduler.upcoming(AppContext.jobs, Job.IDENTWAIT, IDENTIFY_AHEAD + 1)) {
+            if (identifyAhead.size() > IDENTIFY_AHEAD) {
+                break;
+            }
+            if (job.anidbFile == null && !identifyAhead.containsKey(job)) {
+                identifyAhead.put(job, requestFileData(job, AppContext.cache.fileMaskFor(job)));
+            }
+        }
+    }
+
+    private void cancelIdentifyAhead() {
+        for (FileRequest request : identifyAhead.values()) {
+            request.reply().cancel(false);
+        }
+        identifyAhead.clear();
+    }
+
+    private static FileRequest requestFileData(Job job, FileMask mask) {
+        if (job.fileIdOverride > 0) {
+            return new FileRequest(mask, AppContext.conn.requestFileData(job.fileIdOverride, mask));
         }
+        return new FileRequest(mask, AppContext.conn.requestFileData(job.fileSize, job.ed2kHash, mask));
     }
 
     private void remove(Job job) throws AniDBException {
         JobManager.updateStatus(job, Job.REMING);
-        AppContext.gui.status1("Removing from mylist: " + job.getFile());
+        AppContext.frontend.status1("Removing from mylist: " + job.getFile());
         if (job.mylistId > 0) {
             if (AppContext.conn.removeFromMylist(job.mylistId, job.getFile().getName())) {
                 job.mylistId = 0;
-                AppContext.gui.println("Removed " + HyperlinkBuilder.formatAsName(job.getFile()));
+                AppContext.frontend.println("Removed " + HyperlinkBuilder.formatAsName(job.getFile()));
                 JobManager.updateStatus(job, Job.FINISHED);
                 return;
             }
-            AppContext.gui.println(HyperlinkBuilder.formatAsError("Could not remove: " + job.getFile()));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError("Could not remove: " + job.getFile()));
         } else {
-            AppContext.gui.println(HyperlinkBuilder.formatAsError("Not in mylist: " + job.getFile()));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError("Not in mylist: " + job.getFile()));
         }
         job.setError("Was not in mylist");
         JobManager.updateStatus(job, Job.FAILED);
@@ -181,24 +245,31 @@ public class NetworkIOManager implements Runnable {
 
     private void identify(Job job) throws AniDBException {
         JobManager.updateStatus(job, Job.IDENTIFYING);
-        AppContext.gui.status1("Retrieving file data for " + job.getFile().getName());
+        AppContext.frontend.status1("Retrieving file data for " + job.getFile().getName());
         if (job.anidbFile == null) {
-            String[] fileData;
-            if (job.fileIdOverride > 0) {
-                fileData = AppContext.conn.retrieveFileData(
-                        job.fileIdOverride, job.getFile().getName());
-            } else {
+            FileRequest request = identifyAhead.remove(job);
+            if (request == null) {
+                request = requestFileData(job, AppContext.cache.fileMaskFor(job));
+            }
+            String name = job.getFile().getName();
+            String[] fileData = AppContext.conn.retrieveFileData(
+                    request.reply(),
+                    job.fileIdOverride > 0 ? name : AniDBFileClient.ed2kLink(job.fileSize, job.ed2kHash, name));
+            FileMask mask = request.mask();
+            if (fileData != null && !AppContext.cache.canComplete(fileData, mask)) {
+                // The file belongs to another anime or group than its neighbours; ask again for everything
+                mask = FileMask.FULL;
                 fileData = AppContext.conn.retrieveFileData(
-                        job.fileSize, job.ed2kHash, job.getFile().getName());
+                        AppContext.conn.requestFileData(Integer.parseInt(fileData[0]), mask), name);
             }
-            if (fileData != null && AppContext.cache.parseFile(fileData, job) != null) {
+            if (fileData != null && AppContext.cache.parseFile(fileData, mask, job) != null) {
                 job.mylistId = job.anidbFile.getMylistEntryId();
                 job.anidbFile.setJob(job);
                 String fileName = HyperlinkBuilder.formatAsName(job.anidbFile.getDefaultName());
                 String animeLink = HyperlinkBuilder.createHyperlink(job.anidbFile.getAnimeUrl(), "a");
                 String epLink = HyperlinkBuilder.createHyperlink(job.anidbFile.getEpisodeUrl(), "e");
                 String fileLink = HyperlinkBuilder.createHyperlink(job.anidbFile.getFileUrl(), "f");
-                AppContext.gui.println("Found " + fileName + " " + animeLink + " " + epLink + " " + fileLink);
+                AppContext.frontend.println("Found " + fileName + " " + animeLink + " " + epLink + " " + fileLink);
                 JobManager.updateStatus(job, Job.IDENTIFIED);
             } else {
                 JobManager.updateStatus(job, Job.UNKNOWN);
@@ -222,11 +293,11 @@ public class NetworkIOManager implements Runnable {
 
     private void mylistAdd(Job job) throws AniDBException {
         JobManager.updateStatus(job, Job.ADDING);
-        AppContext.gui.status1("Adding " + job.getFile() + " to your list...");
-        int listId = AppContext.conn.addFileToMylist(job, AppContext.gui.mylistOptionsPanel.getMylistData());
+        AppContext.frontend.status1("Adding " + job.getFile() + " to your list...");
+        int listId = AppContext.conn.addFileToMylist(job, AppContext.frontend.getMylistData());
         if (listId > 0) {
             job.mylistId = listId;
-            AppContext.gui.println("Added " + HyperlinkBuilder.formatAsName(job.getFile()) + " to mylist");
+            AppContext.frontend.println("Added " + HyperlinkBuilder.formatAsName(job.getFile()) + " to mylist");
         }
         JobManager.updateStatus(job, Job.ADDED);
     }
@@ -235,21 +306,21 @@ public class NetworkIOManager implements Runnable {
         try {
             long encryptTime = ac.encrypt();
             String replyTime = HyperlinkBuilder.formatAsNumber(String.valueOf(encryptTime));
-            AppContext.gui.println("AniDB is reachable. Received reply in " + replyTime + " ms.");
+            AppContext.frontend.println("AniDB is reachable. Received reply in " + replyTime + " ms.");
             return true;
         } catch (java.net.SocketTimeoutException e) {
             String errorMessage = "AniDB is not reachable.";
-            AppContext.gui.println(HyperlinkBuilder.formatAsError(errorMessage));
-            AppContext.gui.status1(errorMessage);
-            AppContext.gui.showMessage(errorMessage);
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError(errorMessage));
+            AppContext.frontend.status1(errorMessage);
+            AppContext.frontend.showMessage(errorMessage);
         } catch (NumberFormatException e) {
-            AppContext.gui.showMessage("Invalid number. " + e.getMessage());
+            AppContext.frontend.showMessage("Invalid number. " + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
-            AppContext.gui.println(HyperlinkBuilder.formatAsError(e.getMessage()));
-            AppContext.gui.showMessage(e.getMessage());
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError(e.getMessage()));
+            AppContext.frontend.showMessage(e.getMessage());
         }
-        AppContext.gui.println("Check out the connection options or try again later.");
+        AppContext.frontend.println("Check out the connection options or try again later.");
         return false;
     }
 }
@@ -0,0 +1,170 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which network job to run next, so a long batch of one kind cannot hold up the others.
+ *
+ * <p>Waiting jobs are split by operation: identify, mylist add and mylist remove. Each operation with
+ * work gets a share of the turns by its weight (stride scheduling), so files dropped in behind
+ * thousands of mylist adds are identified within a few requests. Within an operation jobs run in
+ * queue order, except that jobs the user boosted go first.
+ *
+ * <p>A boost counts as {@link #BOOST_MS} of waiting, so a job that has waited that much longer than a
+ * boosted one still goes ahead of it. An operation whose next job is boosted or has waited that long
+ * takes its turn before the others; among those, the weights apply again, so no operation starves.
+ */
+public class NetworkScheduler {
+
+    /** Waiting time a boost is worth; also how long a job waits before it is due like a boosted one. */
+    public static final long BOOST_MS = 60 * 60 * 1000;
+
+    /** The kinds of network jobs, each with its share of the turns. */
+    public enum Operation {
+        IDENTIFY(4),
+        ADD(2),
+        REMOVE(1);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /** Divisible by every weight; an operation's pass advances by this over its weight per turn. */
+    private static final long STRIDE = 4;
+
+    private final LongSupplier clock;
+    private final long[] pass = new long[Operation.values().length];
+    private Map<Job, Long> queuedAt = new IdentityHashMap<>();
+
+    public NetworkScheduler() {
+        this(System::currentTimeMillis);
+    }
+
+    NetworkScheduler(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Pick the job to run next and count the turn against its operation. A job that is already in
+     * progress is returned first, so an interrupted job is finished before anything else.
+     *
+     * @param jobList the job list to pull network jobs from
+     * @return the job to run, or null if there is none
+     */
+    public synchronized Job next(JobList jobList) {
+        List<Job> waiting = jobList.getJobsNio();
+        long now = clock.getAsLong();
+        track(waiting, now);
+
+        Job[] heads = new Job[Operation.values().length];
+        for (Job job : waiting) {
+            if (job.check(Job.S_DOING)) {
+                return job;
+            }
+            Operation operation = operationOf(job.getStatus());
+            if (operation == null) {
+                continue;
+            }
+            Job head = heads[operation.ordinal()];
+            if (head == null || waited(job, now) > waited(head, now)) {
+                heads[operation.ordinal()] = job;
+            }
+        }
+
+        Operation chosen = null;
+        boolean chosenDue = false;
+        for (Operation operation : Operation.values()) {
+            Job head = heads[operation.ordinal()];
+            if (head == null) {
+                continue;
+            }
+            boolean due = waited(head, now) >= BOOST_MS;
+            if (chosen == null
+                    || (due && !chosenDue)
+                    || (due == chosenDue && pass[operation.ordinal()] < pass[chosen.ordinal()])) {
+                chosen = operation;
+                chosenDue = due;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        // Idle operations don't save up turns for when work arrives
+        long current = pass[chosen.ordinal()];
+        for (Operation operation : Operation.values()) {
+            if (heads[operation.ordinal()] == null) {
+                pass[operation.ordinal()] = Math.max(pass[operation.ordinal()], current);
+            }
+        }
+        pass[chosen.ordinal()] += STRIDE / chosen.weight;
+        return heads[chosen.ordinal()];
+    }
+
+    /**
+     * The jobs with {@code status} in the order this scheduler will run them, e.g. to send their
+     * requests ahead.
+     */
+    public synchronized List<Job> upcoming(JobList jobList, int status, int maxCount) {
+        List<Job> waiting = jobList.getJobsNio();
+        long now = clock.getAsLong();
+        track(waiting, now);
+
+        List<Job> jobs = new ArrayList<>();
+        for (Job job : waiting) {
+            if (job.getStatus() == status) {
+                jobs.add(job);
+            }
+        }
+        // Stable, so jobs that have waited as long keep their queue order
+        jobs.sort(Comparator.comparingLong(job -> -waited(job, now)));
+        return jobs.size() > maxCount ? jobs.subList(0, maxCount) : jobs;
+    }
+
+    /** Remember when each job was first seen waiting and forget the jobs that have left the queue. */
+    private void track(List<Job> waiting, long now) {
+        Map<Job, Long> seen = new IdentityHashMap<>(waiting.size() * 2);
+        for (Job job : waiting) {
+            Long since = queuedAt.get(job);
+            seen.put(job, since != null ? since : now);
+        }
+        queuedAt = seen;
+    }
+
+    private long waited(Job job, long now) {
+        return now - queuedAt.get(job) + (job.boosted ? BOOST_MS : 0);
+    }
+
+    /** @return the operation of a waiting network status, or null for any other status */
+    static Operation operationOf(int status) {
+        return switch (status) {
+            case Job.IDENTWAIT -> Operation.IDENTIFY;
+            case Job.ADDWAIT -> Operation.ADD;
+            case Job.REMWAIT -> Operation.REMOVE;
+            default -> null;
+        };
+    }
+}
@@ -46,8 +46,16 @@ public class Options {
     public static final int BOOL_AUTO_RENAME = 13;
     /** Load all jobs including finished ones. */
     public static final int BOOL_LOAD_ALL_JOBS = 14;
+    /** Run each enabled checksum on its own thread while hashing a file. */
+    public static final int BOOL_HASH_PIPELINE = 15;
+    /** Read large files through memory-mapped windows while hashing. */
+    public static final int BOOL_HASH_MMAP = 16;
+    /** Tune the number of files hashed in parallel from measured throughput. */
+    public static final int BOOL_HASH_AUTOTUNE = 17;
+    /** Read the next chunks on another thread while the current one is digested. */
+    public static final int BOOL_HASH_READ_AHEAD = 18;
 
-    public static final int BOOLEAN_OPTIONS_COUNT = 15;
+    public static final int BOOLEAN_OPTIONS_COUNT = 19;
     // Integer option indices
     public static final int INT_REMOTE_PORT = 0;
     public static final int INT_LOCAL_PORT = 1;
@@ -83,7 +91,13 @@ public class Options {
     public static final int STR_LAST_DIRECTORY = 18;
     public static final int STR_THEME_LIGHT = 19;
     public static final int STR_THEME_DARK = 20;
-    public static final int STRING_OPTIONS_COUNT = 21;
+    /** Per-mount hash concurrency overrides, e.g. {@code /mnt/disk1=1;/mnt/nvme=6}. */
+    public static final int STR_HASH_DEVICE_LIMITS = 21;
+    /** How copied files are verified when moving across file stores, see {@link FileMover.VerifyPolicy}. */
+    public static final int STR_MOVE_VERIFY = 22;
+    /** Days a file stored in the database identifies files without asking AniDB, see {@link LocalIdentifier}. */
+    public static final int STR_LOCAL_IDENTIFY_DAYS = 23;
+    public static final int STRING_OPTIONS_COUNT = 24;
     private static final String OPTIONS_VERSION = "001";
     /** Secondary separator character (ASCII STX) for section boundaries. */
     private static final String SECTION_SEPARATOR = "\2";
@@ -94,14 +108,24 @@ public class Options {
     public final boolean[] booleanOptions = new boolean[BOOLEAN_OPTIONS_COUNT];
 
     public Options() {
+        this(defaultOptionsFile());
+    }
+
+    /** Options read from and written to {@code optionsFile} instead of the platform config directory. */
+    public Options(File optionsFile) {
+        this.optionsFile = optionsFile;
+        // Default auto-rename to true to preserve existing behavior
+        booleanOptions[BOOL_AUTO_RENAME] = true;
+        booleanOptions[BOOL_HASH_PIPELINE] = true;
+        booleanOptions[BOOL_HASH_READ_AHEAD] = true;
+    }
+
+    private static File defaultOptionsFile() {
         // Migrate legacy config to XDG-compliant path if needed (skip in dev mode)
         if (!AppContext.IS_DEVELOPMENT) {
             PlatformPaths.migrateIfNeeded(PlatformPaths.getLegacyConfigFilePath(), PlatformPaths.getConfigFilePath());
         }
-
-        optionsFile = new File(PlatformPaths.getConfigFilePath());
-        // Default auto-rename to true to preserve existing behavior
-        booleanOptions[BOOL_AUTO_RENAME] = true;
+        return new File(PlatformPaths.getConfigFilePath());
     }
 
     public boolean existsOnDisk() {
@@ -213,7 +213,7 @@ public class Rules {
                 truncateStart = text.indexOf(TRUNC);
             }
         } catch (NumberFormatException e) {
-            AppContext.gui.println(HyperlinkBuilder.formatAsError("Truncation error: " + e.getMessage()));
+            AppContext.frontend.println(HyperlinkBuilder.formatAsError("Truncation error: " + e.getMessage()));
         }
         return text;
     }
@@ -292,7 +292,9 @@ public class Rules {
 
         File f = new File(abs);
 
-        AppContext.gui.println("% New file: " + f);
+        if (AppContext.frontend != null) {
+            AppContext.frontend.println("% New file: " + f);
+        }
         return f;
     }
 
@@ -395,7 +397,7 @@ public class Rules {
             if (closeIndex > 0 && commaIndex > 0 && commaIndex < closeIndex) {
                 sections.add(new Section(upperOp.substring(0, closeIndex + 1)));
             } else {
-                AppContext.gui.println(HyperlinkBuilder.formatAsError("Invalid rule element: " + operation));
+                AppContext.frontend.println(HyperlinkBuilder.formatAsError("Invalid rule element: " + operation));
             }
             return false;
         }
@@ -522,7 +524,8 @@ public class Rules {
                             && tagValueMap.containsKey(comparison[1])
                             && !tagValueMap.get(comparison[0]).equals(tagValueMap.get(comparison[1]));
                 }
-                AppContext.gui.println(HyperlinkBuilder.formatAsError("Invalid data in test: U(" + testValue + ")"));
+                AppContext.frontend.println(
+                        HyperlinkBuilder.formatAsError("Invalid data in test: U(" + testValue + ")"));
                 return false;
             }
             case 'L': { // Tags are equal (Like)
@@ -532,7 +535,8 @@ public class Rules {
                             && tagValueMap.containsKey(comparison[1])
                             && tagValueMap.get(comparison[0]).equals(tagValueMap.get(comparison[1]));
                 }
-                AppContext.gui.println(HyperlinkBuilder.formatAsError("Invalid data in test: L(" + testValue + ")"));
+                AppContext.frontend.println(
+                        HyperlinkBuilder.formatAsError("Invalid data in test: L(" + testValue + ")"));
                 return false;
             }
             case 'Z': { // Tag matches regex
@@ -541,7 +545,8 @@ public class Rules {
                     return tagValueMap.containsKey(comparison[0])
                             && matchesPattern(tagValueMap.get(comparison[0]), comparison[1]);
                 }
-                AppContext.gui.println(HyperlinkBuilder.formatAsError("Invalid data in test: Z(" + testValue + ")"));
+                AppContext.frontend.println(
+                        HyperlinkBuilder.formatAsError("Invalid data in test: Z(" + testValue + ")"));
                 return false;
             }
 
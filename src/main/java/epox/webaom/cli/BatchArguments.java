@@ -0,0 +1,143 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line of the batch mode.
+ *
+ * @param paths files and directory trees to process
+ * @param optionsFile options file to use, or null for the one saved by the desktop application
+ * @param databaseUrl database to record jobs in, or null to follow the options
+ * @param useDatabase false if no database should be used at all
+ * @param identify whether to log in to AniDB and identify the hashed files
+ * @param addToMylist whether to add identified files to MyList, or null to follow the options
+ * @param move false if files should be left where they are, whatever the rules say
+ * @param progressSeconds seconds between progress lines, 0 for none
+ * @param help whether only the usage was asked for
+ */
+public record BatchArguments(
+        List<File> paths,
+        File optionsFile,
+        String databaseUrl,
+        boolean useDatabase,
+        boolean identify,
+        Boolean addToMylist,
+        boolean move,
+        int progressSeconds,
+        boolean help) {
+
+    static final int DEFAULT_PROGRESS_SECONDS = 5;
+
+    static final String USAGE = """
+            Usage: java -cp webaom.jar epox.webaom.cli.WebAOMBatch [options] <file or directory>...
+
+            Hashes the files and directory trees, identifies them on AniDB, adds them to MyList
+            and renames or moves them by the rules in the options file, then prints a summary.
+
+              --options <file>   options file (default: the one saved by the desktop application)
+              --db <url>         database to record the jobs in (default: the options' database,
+                                 if it is set to load at startup)
+              --no-db            do not use a database
+              --no-identify      only hash, do not connect to AniDB
+              --add, --no-add    add identified files to MyList or not (default: from the options)
+              --no-move          do not rename or move any file
+              --progress <sec>   seconds between progress lines, 0 for none (default: 5)
+              --help             show this text
+
+            AniDB login: the username saved in the options or WEBAOM_USERNAME, the password saved
+            in the options or WEBAOM_PASSWORD, the encryption key from WEBAOM_API_KEY.
+
+            Exit status: 0 when every file was processed, 1 when some failed or are left
+            unfinished, 2 for usage errors.
+            """;
+
+    /**
+     * @throws IllegalArgumentException for unknown options, missing option values and a missing path
+     */
+    public static BatchArguments parse(String... args) {
+        List<File> paths = new ArrayList<>();
+        File optionsFile = null;
+        String databaseUrl = null;
+        boolean useDatabase = true;
+        boolean identify = true;
+        Boolean addToMylist = null;
+        boolean move = true;
+        int progressSeconds = DEFAULT_PROGRESS_SECONDS;
+        boolean optionsEnded = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (optionsEnded || !arg.startsWith("--")) {
+                paths.add(new File(arg));
+                continue;
+            }
+            switch (arg) {
+                case "--" -> optionsEnded = true;
+                case "--options" -> optionsFile = new File(value(args, ++i, arg));
+                case "--db" -> databaseUrl = value(args, ++i, arg);
+                case "--no-db" -> useDatabase = false;
+                case "--no-identify" -> identify = false;
+                case "--add" -> addToMylist = true;
+                case "--no-add" -> addToMylist = false;
+                case "--no-move" -> move = false;
+                case "--progress" -> progressSeconds = seconds(value(args, ++i, arg));
+                case "--help" -> {
+                    return new BatchArguments(
+                            List.of(), null, null, true, true, null, true, DEFAULT_PROGRESS_SECONDS, true);
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No file or directory given");
+        }
+        return new BatchArguments(
+                List.copyOf(paths),
+                optionsFile,
+                databaseUrl,
+                useDatabase,
+                identify,
+                addToMylist,
+                move,
+                progressSeconds,
+                false);
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static int seconds(String value) {
+        try {
+            int seconds = Integer.parseInt(value);
+            if (seconds >= 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("--progress needs a number of seconds, not " + value);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import epox.webaom.AppContext;
+import epox.webaom.Frontend;
+import epox.webaom.HashOptions;
+import epox.webaom.LocalIdentifier;
+import epox.webaom.Options;
+import epox.webaom.data.Mylist;
+import epox.webaom.data.MylistStates;
+import epox.webaom.net.AniDBConnection;
+import epox.webaom.net.AniDBConnectionSettings;
+import epox.webaom.net.AniDBFileClient;
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * {@link Frontend} for the batch mode: log lines go to a stream as plain text, status messages are
+ * kept for the progress lines, and the settings come straight from the options file.
+ */
+public class ConsoleFrontend implements Frontend {
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    /** Connection defaults and limits, as in the connection options panel. */
+    private static final int DEFAULT_TIMEOUT = 20;
+    private static final int MIN_TIMEOUT = 10;
+    private static final int MAX_TIMEOUT = 60;
+    private static final int DEFAULT_DELAY = 4;
+    private static final int MIN_DELAY = 3;
+    private static final int MAX_DELAY = 10;
+
+    private final PrintStream out;
+    private final Options options;
+    private final HashOptions hashOptions;
+    private volatile boolean diskIoRunning;
+    private volatile boolean networkIoRunning;
+    private volatile boolean killed;
+    private volatile String diskStatus = "";
+    private volatile String networkStatus = "";
+
+    public ConsoleFrontend(PrintStream out, Options options) {
+        this.out = out;
+        this.options = options;
+        this.hashOptions = HashOptions.of(options);
+    }
+
+    @Override
+    public void println(Object message) {
+        out.println(toPlainText(String.valueOf(message)));
+    }
+
+    @Override
+    public void status0(String message) {
+        diskStatus = message == null ? "" : toPlainText(message);
+    }
+
+    @Override
+    public void status1(String message) {
+        networkStatus = message == null ? "" : toPlainText(message);
+    }
+
+    @Override
+    public void printHash(String hashes) {
+        out.println(hashes);
+    }
+
+    @Override
+    public void setProgress(int value) {
+        // the progress lines show job counts instead
+    }
+
+    @Override
+    public boolean isDiskIoOk() {
+        return diskIoRunning && !killed;
+    }
+
+    @Override
+    public boolean isNetworkIoOk() {
+        return networkIoRunning && !killed;
+    }
+
+    @Override
+    public void toggleDiskIo() {
+        setDiskIoRunning(!diskIoRunning);
+    }
+
+    public void setDiskIoRunning(boolean running) {
+        diskIoRunning = running;
+        if (!running && AppContext.dio != null) {
+            AppContext.dio.wakeUp(); // let a parked DiskIO thread see that it should stop
+        }
+    }
+
+    public void setNetworkIoRunning(boolean running) {
+        networkIoRunning = running;
+    }
+
+    @Override
+    public void kill() {
+        killed = true;
+        if (AppContext.dio != null) {
+            AppContext.dio.wakeUp();
+        }
+    }
+
+    public boolean isKilled() {
+        return killed;
+    }
+
+    @Override
+    public void showMessage(String message) {
+        out.println("! " + toPlainText(message.strip()));
+    }
+
+    @Override
+    public void handleFatalError(boolean isFatal) {
+        if (isFatal) {
+            setDiskIoRunning(false);
+        }
+    }
+
+    @Override
+    public void setDiskIoOptionsEnabled(boolean enabled) {
+        // nothing to lock
+    }
+
+    @Override
+    public void setNetworkIoOptionsEnabled(boolean enabled) {
+        // nothing to lock
+    }
+
+    @Override
+    public void setNetworkIoEnabled(boolean enabled) {
+        if (!enabled) {
+            networkIoRunning = false;
+        }
+    }
+
+    @Override
+    public void diskIoStopped() {
+        // the batch runner watches the thread itself
+    }
+
+    @Override
+    public void networkIoStopped() {
+        // the batch runner watches the thread itself
+    }
+
+    @Override
+    public AniDBFileClient createConnection() {
+        String host = options.getString(Options.STR_HOST_URL);
+        int remotePort = options.getInteger(Options.INT_REMOTE_PORT);
+        int localPort = options.getInteger(Options.INT_LOCAL_PORT);
+        AppContext.usetup = new AniDBConnectionSettings(
+                host == null || host.isBlank() ? AniDBConnection.DEFAULT_HOST : host,
+                remotePort > 0 ? remotePort : AniDBConnection.DEFAULT_REMOTE_PORT,
+                localPort > 0 ? localPort : AniDBConnection.DEFAULT_LOCAL_PORT,
+                clamp(options.getInteger(Options.INT_TIMEOUT), DEFAULT_TIMEOUT, MIN_TIMEOUT, MAX_TIMEOUT),
+                clamp(options.getInteger(Options.INT_DATAGRAM_DELAY), DEFAULT_DELAY, MIN_DELAY, MAX_DELAY) * 1000,
+                3,
+                options.getBoolean(Options.BOOL_NAT_KEEP_ALIVE));
+        AniDBFileClient connection = new AniDBFileClient(this, AppContext.usetup);
+        connection.set(AppContext.userPass.username, AppContext.userPass.password, AppContext.userPass.apiKey);
+        return connection;
+    }
+
+    @Override
+    public HashOptions getHashOptions() {
+        return hashOptions;
+    }
+
+    @Override
+    public Mylist getMylistData() {
+        Mylist mylist = new Mylist();
+        int state = options.getInteger(Options.INT_FILE_STATE);
+        if (MylistStates.isValidLocation(state)) {
+            mylist.state = state;
+        }
+        mylist.viewed = options.getBoolean(Options.BOOL_WATCHED) ? 1 : 0;
+        mylist.storage = Objects.requireNonNullElse(options.getString(Options.STR_STORAGE), "");
+        mylist.source = Objects.requireNonNullElse(options.getString(Options.STR_SOURCE_FOLDER), "");
+        mylist.other = Objects.requireNonNullElse(options.getString(Options.STR_OTHER_INFO), "");
+        return mylist;
+    }
+
+    @Override
+    public int getLocalIdentifyDays() {
+        return LocalIdentifier.parseDays(options.getString(Options.STR_LOCAL_IDENTIFY_DAYS));
+    }
+
+    /** Last DiskIO status message, e.g. the current hash speed. */
+    public String getDiskStatus() {
+        return diskStatus;
+    }
+
+    /** Last NetIO status message. */
+    public String getNetworkStatus() {
+        return networkStatus;
+    }
+
+    /** Log messages are HTML for the desktop log; drop the markup and decode the basic entities. */
+    static String toPlainText(String html) {
+        if (html.indexOf('<') < 0 && html.indexOf('&') < 0) {
+            return html;
+        }
+        return HTML_TAG.matcher(html)
+                .replaceAll("")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&nbsp;", " ")
+                .replace("&amp;", "&");
+    }
+
+    /** A stored value of 0 means unset; anything else is kept within the panel's slider range. */
+    private static int clamp(int value, int unset, int min, int max) {
+        if (value == 0) {
+            return unset;
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import epox.webaom.AppContext;
+import epox.webaom.Job;
+import epox.webaom.JobCounter;
+import epox.webaom.Options;
+import epox.webaom.db.DatabaseManagerFactory;
+import epox.webaom.net.AniDBConnection;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Batch mode for machines without a display: hashes the given files and directory trees, identifies
+ * them on AniDB, adds them to MyList and renames or moves them, printing progress to stdout.
+ *
+ * <p>It runs the same {@link epox.webaom.DiskIOManager} and {@link epox.webaom.NetworkIOManager}
+ * workers as the desktop application, with a {@link ConsoleFrontend} in place of the main panel.
+ * No Swing component or look and feel is created, so it starts quickly even on small servers.
+ */
+public final class WebAOMBatch {
+    static final int EXIT_OK = 0;
+    static final int EXIT_UNFINISHED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final long POLL_INTERVAL_MS = 250;
+
+    /** How long NetIO may take to finish its current job; AniDB replies can take a few seconds each. */
+    private static final long NETWORK_STOP_TIMEOUT_MS = 30000;
+
+    private static final long DISK_STOP_TIMEOUT_MS = 10000;
+
+    private final BatchArguments arguments;
+    private final PrintStream out;
+    private ConsoleFrontend console;
+    private Thread diskIoThread;
+    private Thread networkIoThread;
+
+    private WebAOMBatch(BatchArguments arguments, PrintStream out) {
+        this.arguments = arguments;
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        Thread.currentThread().setName("Main");
+        System.exit(run(System.out, args));
+    }
+
+    /** Run the batch and return the exit status. */
+    static int run(PrintStream out, String... args) {
+        BatchArguments arguments;
+        try {
+            arguments = BatchArguments.parse(args);
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            out.print(BatchArguments.USAGE);
+            return EXIT_USAGE;
+        }
+        if (arguments.help()) {
+            out.print(BatchArguments.USAGE);
+            return EXIT_OK;
+        }
+        for (File path : arguments.paths()) {
+            if (!path.exists()) {
+                out.println("Not found: " + path);
+                return EXIT_USAGE;
+            }
+        }
+        return new WebAOMBatch(arguments, out).run();
+    }
+
+    private int run() {
+        long startTime = System.currentTimeMillis();
+        Options options = arguments.optionsFile() != null ? new Options(arguments.optionsFile()) : new Options();
+        console = new ConsoleFrontend(out, options);
+        AppContext.initHeadless(options, console);
+        if (!loadOptions(options)) {
+            return EXIT_USAGE;
+        }
+        if (!openDatabase(options)) {
+            return EXIT_UNFINISHED;
+        }
+        try {
+            int added = addFiles();
+            if (added == 0) {
+                out.println("No files to process.");
+                return EXIT_OK;
+            }
+            out.println("Added " + added + (added == 1 ? " file" : " files") + " in "
+                    + (System.currentTimeMillis() - startTime) + " ms.");
+
+            console.setDiskIoRunning(true);
+            diskIoThread = startWorker("DiskIO", AppContext.dio);
+            if (arguments.identify()) {
+                console.setNetworkIoRunning(true);
+                networkIoThread = startWorker("NetIO", AppContext.nio);
+            }
+            waitUntilDone();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.println("! Interrupted");
+        } finally {
+            stopWorkers();
+            AppContext.databaseManager.shutdown();
+        }
+        return printSummary(System.currentTimeMillis() - startTime);
+    }
+
+    /** Apply the options file the way the main panel does, with the command line on top. */
+    private boolean loadOptions(Options options) {
+        if (options.loadFromFile()) {
+            AppContext.userPass.set(options.getString(Options.STR_USERNAME));
+            AppContext.fileHandler.loadOptions(options);
+            AppContext.rules.loadFromOptions(options);
+        } else {
+            if (arguments.optionsFile() != null) {
+                out.println("Options file " + arguments.optionsFile() + " not found, using defaults.");
+            }
+            AppContext.fileHandler.loadDefaultExtensions();
+        }
+        AppContext.autoadd = arguments.addToMylist() != null
+                ? arguments.addToMylist()
+                : options.getBoolean(Options.BOOL_ADD_FILE);
+        if (!arguments.move()) {
+            options.setBoolean(Options.BOOL_AUTO_RENAME, false);
+        }
+
+        String username = System.getenv("WEBAOM_USERNAME");
+        if (username != null && !username.isBlank()) {
+            AppContext.userPass.username = username.toLowerCase(Locale.ROOT);
+        }
+        String password = System.getenv("WEBAOM_PASSWORD");
+        if (password != null && !password.isEmpty()) {
+            AppContext.userPass.password = password;
+        }
+        String apiKey = System.getenv("WEBAOM_API_KEY");
+        if (apiKey != null) {
+            AppContext.userPass.apiKey = apiKey;
+        }
+        if (arguments.identify() && (isBlank(AppContext.userPass.username) || isBlank(AppContext.userPass.password))) {
+            out.println("No AniDB login: set WEBAOM_USERNAME and WEBAOM_PASSWORD, or use --no-identify.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean openDatabase(Options options) {
+        String url = arguments.databaseUrl();
+        if (url == null) {
+            if (!arguments.useDatabase() || !options.getBoolean(Options.BOOL_AUTO_LOAD_DATABASE)) {
+                return true;
+            }
+            url = options.getString(Options.STR_DATABASE_URL);
+        }
+        if (url == null || url.isEmpty()) {
+            url = DatabaseManagerFactory.getEmbeddedConnectionString();
+        }
+        AppContext.databaseManager = DatabaseManagerFactory.create(url);
+        if (!AppContext.databaseManager.initialize(url)) {
+            out.println("! Could not open the database " + url);
+            return false;
+        }
+        return true;
+    }
+
+    private int addFiles() {
+        int added = 0;
+        for (File path : arguments.paths()) {
+            added += addFileRecursive(path);
+        }
+        return added;
+    }
+
+    private int addFileRecursive(File file) {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles(AppContext.fileHandler.createFileFilter());
+            if (files == null) {
+                return 0;
+            }
+            int added = 0;
+            for (File child : files) {
+                added += addFileRecursive(child);
+            }
+            return added;
+        }
+        return AppContext.fileHandler.addFile(file) ? 1 : 0;
+    }
+
+    private Thread startWorker(String name, Runnable worker) {
+        Thread thread = new Thread(worker, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Wait until no job is left for DiskIO, and none for NetIO while it is still running. DiskIO
+     * ends by itself when its queue is empty, so it is restarted when identified files come back for
+     * moving, as the desktop application's timer does.
+     */
+    private void waitUntilDone() throws InterruptedException {
+        long progressInterval = arguments.progressSeconds() * 1000L;
+        long start = System.currentTimeMillis();
+        long nextProgress = start + progressInterval;
+        while (!console.isKilled()) {
+            Thread.sleep(POLL_INTERVAL_MS);
+            JobCounter.Counts counts = AppContext.jobCounter.getCounts();
+            boolean networkActive = networkIoThread != null && networkIoThread.isAlive();
+            if (!diskIoThread.isAlive()) {
+                if (counts.diskIo() > 0 && console.isDiskIoOk()) {
+                    diskIoThread = startWorker("DiskIO", AppContext.dio);
+                } else if (!networkActive || counts.networkIo() == 0) {
+                    return;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (progressInterval > 0 && now >= nextProgress) {
+                nextProgress = now + progressInterval;
+                printProgress((now - start) / 1000, networkActive);
+            }
+        }
+    }
+
+    private void printProgress(long elapsedSeconds, boolean networkActive) {
+        StringBuilder line = new StringBuilder()
+                .append("# ")
+                .append(elapsedSeconds)
+                .append("s ")
+                .append(AppContext.jobCounter.getStatus());
+        if (diskIoThread.isAlive() && !console.getDiskStatus().isEmpty()) {
+            line.append(" | DiskIO: ").append(console.getDiskStatus());
+        }
+        if (networkActive && !console.getNetworkStatus().isEmpty()) {
+            line.append(" | NetIO: ").append(console.getNetworkStatus());
+        }
+        out.println(line);
+    }
+
+    private void stopWorkers() {
+        console.setDiskIoRunning(false);
+        if (networkIoThread != null) {
+            console.setNetworkIoRunning(false);
+            join(networkIoThread, NETWORK_STOP_TIMEOUT_MS);
+            if (networkIoThread.isAlive()) {
+                AniDBConnection.setShutdown(true);
+                if (AppContext.conn != null) {
+                    AppContext.conn.disconnect();
+                }
+                join(networkIoThread, DISK_STOP_TIMEOUT_MS);
+            }
+        }
+        if (diskIoThread != null) {
+            join(diskIoThread, DISK_STOP_TIMEOUT_MS);
+        }
+    }
+
+    private void join(Thread thread, long timeoutMs) {
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            out.println("! " + thread.getName() + " did not stop in time");
+        }
+    }
+
+    /** List the files that did not make it and return the exit status. */
+    private int printSummary(long elapsedMs) {
+        JobCounter.Counts counts = AppContext.jobCounter.getCounts();
+        for (Object entry : AppContext.jobs.array()) {
+            Job job = (Job) entry;
+            if (job.check(Job.FAILED) || job.check(Job.UNKNOWN)) {
+                String error = job.errorMessage != null ? ": " + job.errorMessage : "";
+                out.println("! " + job.getStatusText() + " " + job.getFile() + error);
+            }
+        }
+        int unfinished = counts.diskIo() + (arguments.identify() ? counts.networkIo() : 0) + counts.halted();
+        StringBuilder summary = new StringBuilder()
+                .append("Done in ")
+                .append(String.format(Locale.ROOT, "%.1f", elapsedMs / 1000.0))
+                .append(" s: ")
+                .append(counts.total())
+                .append(counts.total() == 1 ? " file, " : " files, ")
+                .append(counts.finished())
+                .append(" finished, ")
+                .append(counts.errors())
+                .append(" failed");
+        if (!arguments.identify()) {
+            summary.append(", ").append(counts.networkIo()).append(" hashed");
+        }
+        if (unfinished > 0) {
+            summary.append(", ").append(unfinished).append(" unfinished");
+        }
+        out.println(summary.append('.'));
+        return counts.errors() == 0 && unfinished == 0 ? EXIT_OK : EXIT_UNFINISHED;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -128,7 +128,7 @@ public class Anime extends AniDBEntity {
         if (!episodeProgress.set(episodeNumber, value)) {
             if (episodeNumber > (episodeCount > 0 ? episodeCount : latestEpisode)) {
                 if (!episodeProgress.fill(value)) {
-                    epox.webaom.AppContext.gui.println("@ Completion " + (value ? "over" : "under") + "flow: " + this
+                    epox.webaom.AppContext.frontend.println("@ Completion " + (value ? "over" : "under") + "flow: " + this
                             + " [" + type + "] epno=" + episodeNumber);
                 }
             }
@@ -161,7 +161,7 @@ public class Anime extends AniDBEntity {
                             setOrFill(Integer.parseInt(rangeParts[0]), watched);
                             break;
                         default:
-                            epox.webaom.AppContext.gui.println("@ Anime.registerEpisode: Unexpected epno format!");
+                            epox.webaom.AppContext.frontend.println("@ Anime.registerEpisode: Unexpected epno format!");
                     }
                 }
             }
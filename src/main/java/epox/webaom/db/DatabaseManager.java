@@ -19,6 +19,7 @@ package epox.webaom.db;
 import epox.av.FileInfo;
 import epox.util.StringUtilities;
 import epox.webaom.AppContext;
+import epox.webaom.FileFingerprint;
 import epox.webaom.Job;
 import epox.webaom.data.AniDBEntity;
 import epox.webaom.data.AniDBFile;
@@ -31,7 +32,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -102,8 +105,8 @@ public abstract class DatabaseManager {
     /**
      * Returns all SQL files for this database type.
      * Index 0 = schema file (db00*.sql) for new database creation.
-     * Index 1-6 = migration files to upgrade from version (index-1) to version index.
-     * Example: index 1 = v0→v1, index 5 = v4→v5, index 6 = v5→v6.
+     * Index 1-8 = migration files to upgrade from version (index-1) to version index.
+     * Example: index 1 = v0→v1, index 5 = v4→v5, index 8 = v7→v8.
      */
     protected abstract String[] getSqlFiles();
 
@@ -211,7 +214,7 @@ public abstract class DatabaseManager {
                     connection.prepareStatement("update etb set english=?,kanji=?,romaji=?,number=? where eid=?");
             updateStatements[INDEX_FILE] = connection.prepareStatement("update ftb set"
                 + " aid=?,eid=?,gid=?,def_name=?,state=?,size=?,len=?,ed2k=?,md5=?,sha1=?,crc32=?,dublang=?,sublang=?,quality=?,ripsource=?,audio=?,video=?,resolution=?,ext=?"
-                + " where fid=?");
+                + ",time=CURRENT_TIMESTAMP where fid=?");
             updateStatements[INDEX_GROUP] = connection.prepareStatement("update gtb set name=?,short=? where gid=?");
             updateStatements[INDEX_JOB] = connection.prepareStatement(
                     "update jtb set name=?,did=?,status=?,jobs_visible=?,alt_visible=?,md5=?,sha1=?,tth=?,crc32=?,"
@@ -380,7 +383,7 @@ public abstract class DatabaseManager {
 
     // ========== Directory ID management ==========
 
-    public int getDirectoryId(String path) {
+    public synchronized int getDirectoryId(String path) {
         if (!isInitialized) {
             return -1;
         }
@@ -643,6 +646,130 @@ public abstract class DatabaseManager {
         return isInitialized && job != null && job.ed2kHash != null && !job.ed2kHash.isBlank();
     }
 
+    // ========== Local identification ==========
+
+    /**
+     * Look up a file that AniDB identified before by its size and ED2K hash, e.g. an earlier copy of
+     * the same release.
+     *
+     * @param maxAgeMillis how long ago the row may have last been written from a server reply
+     * @return the file with its default name and no mylist id, or null if there is no such row or
+     *     it is older than {@code maxAgeMillis}
+     */
+    public synchronized AniDBFile getFile(long size, String ed2k, long maxAgeMillis) {
+        if (!isInitialized || ed2k == null) {
+            return null;
+        }
+        try (PreparedStatement ps = connection.prepareStatement("select fid,aid,eid,gid,def_name,state,size,ed2k,"
+                + "md5,sha1,crc32,dublang,sublang,quality,ripsource,audio,video,resolution,ext,len,time from ftb"
+                + " where size=? and ed2k=?")) {
+            ps.setLong(1, size);
+            ps.setString(2, ed2k.toLowerCase(Locale.ROOT));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long age = System.currentTimeMillis() - getTimestampMillis(rs, 21);
+                if (age > maxAgeMillis) {
+                    log("{ File " + rs.getInt(1) + " is stale: " + age / 1000 + " s old");
+                    return null;
+                }
+                String[] fields = new String[20];
+                for (int i = 0; i < fields.length; i++) {
+                    String value = rs.getString(i + 1);
+                    fields[i] = value != null ? value : "";
+                }
+                String defaultName = fields[4];
+                fields[4] = "0";
+                AniDBFile file = new AniDBFile(fields);
+                file.setDefaultName(defaultName);
+                if (fields[18].isEmpty()) {
+                    // Rows from before the ext column; the job falls back to its file name's extension
+                    file.setExtension(null);
+                }
+                file.pack();
+                log("{ File found: " + file.getFileId());
+                return file;
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    /** A timestamp column in milliseconds since the epoch, 0 if it is empty. */
+    protected long getTimestampMillis(ResultSet rs, int column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.getTime() : 0;
+    }
+
+    // ========== Hash cache ==========
+
+    /**
+     * Look up the checksums cached for a file, provided it still has the given fingerprint.
+     *
+     * @return ed2k, md5, sha1, tth and crc32 (each possibly null), or null if nothing matches
+     */
+    public synchronized String[] getCachedHashes(int directoryId, String name, FileFingerprint fingerprint) {
+        if (!isInitialized) {
+            return null;
+        }
+        try (PreparedStatement ps = connection.prepareStatement("select ed2k,md5,sha1,tth,crc32 from htb"
+                + " where did=? and name=? and size=? and mtime=? and fkey=?")) {
+            ps.setInt(1, directoryId);
+            ps.setString(2, name);
+            ps.setLong(3, fingerprint.size());
+            ps.setLong(4, fingerprint.modifiedMillis());
+            ps.setString(5, fingerprint.fileKey());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    String[] hashes = new String[5];
+                    for (int i = 0; i < hashes.length; i++) {
+                        hashes[i] = rs.getString(i + 1);
+                    }
+                    return hashes;
+                }
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Cache the checksums of a file, replacing whatever was cached for its path.
+     *
+     * @param hashes ed2k, md5, sha1, tth and crc32; only ed2k is required
+     */
+    public synchronized boolean putCachedHashes(
+            int directoryId, String name, FileFingerprint fingerprint, String[] hashes) {
+        if (!isInitialized || directoryId < 1) {
+            return false;
+        }
+        try (PreparedStatement delete = connection.prepareStatement("delete from htb where did=? and name=?");
+                PreparedStatement insert = connection.prepareStatement(
+                        "insert into htb (did,name,size,mtime,fkey,ed2k,md5,sha1,tth,crc32) values"
+                                + " (?,?,?,?,?,?,?,?,?,?)")) {
+            delete.setInt(1, directoryId);
+            delete.setString(2, name);
+            delete.executeUpdate();
+
+            int paramIndex = 1;
+            insert.setInt(paramIndex++, directoryId);
+            insert.setString(paramIndex++, name);
+            insert.setLong(paramIndex++, fingerprint.size());
+            insert.setLong(paramIndex++, fingerprint.modifiedMillis());
+            insert.setString(paramIndex++, fingerprint.fileKey());
+            for (String hash : hashes) {
+                insert.setString(paramIndex++, hash);
+            }
+            return insert.executeUpdate() > 0;
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
     public synchronized boolean update(int entityId, Object dataObject, int entityType) {
         if (!isInitialized) {
             return false;
@@ -757,6 +884,7 @@ public abstract class DatabaseManager {
     }
 
     protected void cleanDatabase() {
+        exec("delete from htb", false);
         exec("delete from jtb", false);
         exec("delete from dtb", false);
         exec("delete from ftb where fid>0", false);
@@ -38,10 +38,10 @@ public class MySQLDatabaseManager extends DatabaseManager {
 
     /**
      * SQL files for MySQL.
-     * Index 0 = schema, Index 1-7 = migrations from version (index-1) to version index.
+     * Index 0 = schema, Index 1-8 = migrations from version (index-1) to version index.
      */
     private static final String[] SQL_FILES = {
-        "db00.sql", // schema (creates at v7) - needs serial->auto_increment conversion
+        "db00.sql", // schema (creates at v8) - needs serial->auto_increment conversion
         "db03.sql", // v0 -> v1
         "db04.sql", // v1 -> v2
         "db05.sql", // v2 -> v3
@@ -49,6 +49,7 @@ public class MySQLDatabaseManager extends DatabaseManager {
         "db07b.sql", // v4 -> v5
         "db08b.sql", // v5 -> v6
         "db09b.sql", // v6 -> v7
+        "db10b.sql", // v7 -> v8
     };
 
     public MySQLDatabaseManager() {
@@ -37,10 +37,10 @@ public class PostgreSQLDatabaseManager extends DatabaseManager {
 
     /**
      * SQL files for PostgreSQL.
-     * Index 0 = schema, Index 1-7 = migrations from version (index-1) to version index.
+     * Index 0 = schema, Index 1-8 = migrations from version (index-1) to version index.
      */
     private static final String[] SQL_FILES = {
-        "db00.sql", // schema (creates at v7)
+        "db00.sql", // schema (creates at v8)
         "db03.sql", // v0 -> v1
         "db04.sql", // v1 -> v2
         "db05.sql", // v2 -> v3
@@ -48,6 +48,7 @@ public class PostgreSQLDatabaseManager extends DatabaseManager {
         "db07a.sql", // v4 -> v5
         "db08a.sql", // v5 -> v6
         "db09a.sql", // v6 -> v7
+        "db10a.sql", // v7 -> v8
     };
 
     public PostgreSQLDatabaseManager() {
@@ -85,7 +86,7 @@ public class PostgreSQLDatabaseManager extends DatabaseManager {
     }
 
     @Override
-    public int getDirectoryId(String path) {
+    public synchronized int getDirectoryId(String path) {
         if (!isInitialized) {
             return -1;
         }
@@ -24,6 +24,9 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 
 /**
  * SQLite-specific database manager implementation.
@@ -41,10 +44,10 @@ public class SQLiteDatabaseManager extends DatabaseManager {
 
     /**
      * SQL files for SQLite.
-     * Index 0 = schema, Index 1-7 = migrations from version (index-1) to version index.
+     * Index 0 = schema, Index 1-8 = migrations from version (index-1) to version index.
      */
     private static final String[] SQL_FILES = {
-        "db00c.sql", // schema (creates at v7)
+        "db00c.sql", // schema (creates at v8)
         "db03.sql", // v0 -> v1
         "db04.sql", // v1 -> v2
         "db05.sql", // v2 -> v3
@@ -52,6 +55,7 @@ public class SQLiteDatabaseManager extends DatabaseManager {
         "db07c.sql", // v4 -> v5
         "db08c.sql", // v5 -> v6
         "db09c.sql", // v6 -> v7
+        "db10c.sql", // v7 -> v8
     };
 
     public SQLiteDatabaseManager() {
@@ -123,6 +127,22 @@ public class SQLiteDatabaseManager extends DatabaseManager {
         return -1;
     }
 
+    /** SQLite keeps {@code datetime('now')} and {@code CURRENT_TIMESTAMP} as UTC text. */
+    @Override
+    protected long getTimestampMillis(ResultSet rs, int column) throws SQLException {
+        String text = rs.getString(column);
+        if (text == null || text.length() < 19) {
+            return 0;
+        }
+        try {
+            return LocalDateTime.parse(text.substring(0, 19).replace(' ', 'T'))
+                    .toInstant(ZoneOffset.UTC)
+                    .toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return 0;
+        }
+    }
+
     @Override
     protected String escapeString(String value) {
         if (value == null) {
@@ -16,6 +16,7 @@
 
 package epox.webaom.hash;
 
+import java.nio.ByteBuffer;
 import java.util.HexFormat;
 import java.util.zip.CRC32;
 
@@ -24,23 +25,107 @@ import java.util.zip.CRC32;
  *
  * <p>On Java 21+, the JDK implementation uses SSE4.2 intrinsics on x86 and CRC instructions on
  * ARM, making this the fastest CRC32 possible on the JVM.
+ *
+ * <p>{@link CRC32} cannot be copied or seeded with a value, so a {@link #copy()} keeps the CRC of
+ * the data so far as a prefix and folds it into the CRC of the data that follows with the zlib
+ * {@code crc32_combine} algorithm.
  */
 public class Crc32Hash implements HashAlgorithm {
 
+    /** Reflected CRC-32 polynomial. */
+    private static final int POLYNOMIAL = 0xEDB88320;
+
+    /** {@code X2N[k]} is x^(2^k) modulo the polynomial. */
+    private static final int[] X2N = new int[32];
+
+    static {
+        int power = 1 << 30; // x^1
+        X2N[0] = power;
+        for (int k = 1; k < X2N.length; k++) {
+            X2N[k] = power = multiplyModP(power, power);
+        }
+    }
+
     private final CRC32 crc32 = new CRC32();
+    private int prefixCrc;
+    private long length;
+
+    public Crc32Hash() {}
+
+    private Crc32Hash(int prefixCrc) {
+        this.prefixCrc = prefixCrc;
+    }
 
     @Override
     public void update(byte[] buffer, int offset, int length) {
         crc32.update(buffer, offset, length);
+        this.length += length;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        length += buffer.remaining();
+        crc32.update(buffer);
     }
 
     @Override
     public void reset() {
         crc32.reset();
+        prefixCrc = 0;
+        length = 0;
+    }
+
+    @Override
+    public byte[] digest() {
+        int value = value();
+        return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
     }
 
     @Override
     public String hexValue() {
-        return HexFormat.of().toHexDigits((int) crc32.getValue());
+        return HexFormat.of().toHexDigits(value());
+    }
+
+    @Override
+    public HashAlgorithm copy() {
+        return new Crc32Hash(value());
+    }
+
+    private int value() {
+        return combine(prefixCrc, (int) crc32.getValue(), length);
+    }
+
+    /** CRC of the concatenation of two inputs, from their CRCs and the second input's length. */
+    static int combine(int firstCrc, int secondCrc, long secondLength) {
+        return multiplyModP(powerOfTwoModP(secondLength, 3), firstCrc) ^ secondCrc;
+    }
+
+    /** x^(n * 2^k) modulo the polynomial. */
+    private static int powerOfTwoModP(long n, int k) {
+        int product = 1 << 31; // x^0
+        while (n != 0) {
+            if ((n & 1) != 0) {
+                product = multiplyModP(X2N[k & 31], product);
+            }
+            n >>>= 1;
+            k++;
+        }
+        return product;
+    }
+
+    /** Product of two polynomials modulo the CRC polynomial, in reflected bit order. */
+    private static int multiplyModP(int a, int b) {
+        int mask = 1 << 31;
+        int product = 0;
+        while (true) {
+            if ((a & mask) != 0) {
+                product ^= b;
+                if ((a & (mask - 1)) == 0) {
+                    return product;
+                }
+            }
+            mask >>>= 1;
+            b = (b & 1) != 0 ? (b >>> 1) ^ POLYNOMIAL : b >>> 1;
+        }
     }
 }
@@ -16,8 +16,7 @@
 
 package epox.webaom.hash;
 
-import gnu.crypto.hash.IMessageDigest;
-import gnu.crypto.hash.MD4;
+import java.nio.ByteBuffer;
 import java.util.HexFormat;
 
 /**
@@ -29,39 +28,52 @@ import java.util.HexFormat;
  */
 public class Ed2kHash implements HashAlgorithm {
 
-    private static final int BLOCK_SIZE = 9728000; // 9500 * 1024
+    /** ED2K block size; every block is hashed with MD4 independently of the others. */
+    public static final int BLOCK_SIZE = 9728000; // 9500 * 1024
 
-    private IMessageDigest md4;
-    private IMessageDigest md4final;
-    private final byte[] blockHash = new byte[16];
+    private final Md4 md4 = new Md4();
+    private final Md4 md4final = new Md4();
+    /** Finishes digests from copies of the running state, so {@link #digest()} can be repeated. */
+    private final Md4 scratch = new Md4();
+    private final byte[] blockHash = new byte[Md4.DIGEST_LENGTH];
     private long length;
 
-    public Ed2kHash() {
-        md4 = new MD4();
-        md4final = new MD4();
-        length = 0;
-    }
-
     @Override
     public void update(byte[] buffer, int offset, int length) {
         int remaining = length;
         int currentOffset = offset;
 
         while (remaining > 0) {
-            int passed = (int) (this.length % BLOCK_SIZE);
-            int space = BLOCK_SIZE - passed;
-            int chunk = Math.min(space, remaining);
-
+            int chunk = Math.min(spaceInBlock(), remaining);
             md4.update(buffer, currentOffset, chunk);
-            this.length += chunk;
             currentOffset += chunk;
             remaining -= chunk;
+            advance(chunk);
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        // Md4 reads direct and mapped buffers in place; only the limit is moved to stop at block ends
+        int limit = buffer.limit();
+        while (buffer.position() < limit) {
+            int chunk = Math.min(spaceInBlock(), limit - buffer.position());
+            buffer.limit(buffer.position() + chunk);
+            md4.update(buffer);
+            buffer.limit(limit);
+            advance(chunk);
+        }
+    }
+
+    private int spaceInBlock() {
+        return BLOCK_SIZE - (int) (length % BLOCK_SIZE);
+    }
 
-            if (this.length % BLOCK_SIZE == 0) {
-                System.arraycopy(md4.digest(), 0, blockHash, 0, 16);
-                md4final.update(blockHash, 0, 16);
-                md4.reset();
-            }
+    private void advance(int chunk) {
+        length += chunk;
+        if (length % BLOCK_SIZE == 0) {
+            md4.digest(blockHash, 0);
+            md4final.update(blockHash, 0, blockHash.length);
         }
     }
 
@@ -72,18 +84,29 @@ public class Ed2kHash implements HashAlgorithm {
         length = 0;
     }
 
+    @Override
+    public HashAlgorithm copy() {
+        Ed2kHash copy = new Ed2kHash();
+        copy.md4.copyFrom(md4);
+        copy.md4final.copyFrom(md4final);
+        copy.length = length;
+        return copy;
+    }
+
     @Override
     public String hexValue() {
-        byte[] result;
+        return HexFormat.of().formatHex(digest());
+    }
+
+    @Override
+    public byte[] digest() {
+        scratch.copyFrom(md4);
         if (length < BLOCK_SIZE) {
-            IMessageDigest md4copy = (IMessageDigest) md4.clone();
-            result = md4copy.digest();
-        } else {
-            IMessageDigest md4temp = (IMessageDigest) md4final.clone();
-            IMessageDigest md4copy = (IMessageDigest) md4.clone();
-            md4temp.update(md4copy.digest(), 0, 16);
-            result = md4temp.digest();
+            return scratch.digest();
         }
-        return HexFormat.of().formatHex(result);
+        scratch.digest(blockHash, 0);
+        scratch.copyFrom(md4final);
+        scratch.update(blockHash, 0, blockHash.length);
+        return scratch.digest();
     }
 }
@@ -16,6 +16,8 @@
 
 package epox.webaom.hash;
 
+import java.nio.ByteBuffer;
+
 /**
  * Common interface for all hash/checksum algorithms used in the hashing pipeline.
  *
@@ -27,9 +29,32 @@ public interface HashAlgorithm {
     /** Feed a chunk of data into the hash computation. */
     void update(byte[] buffer, int offset, int length);
 
+    /**
+     * Feed the remaining bytes of a buffer into the hash computation, leaving its position at the
+     * limit. Direct and memory-mapped buffers are consumed without copying them into a heap array
+     * where the underlying digest allows it.
+     */
+    void update(ByteBuffer buffer);
+
     /** Reset the algorithm state so it can be reused for a new computation. */
     void reset();
 
+    /**
+     * Return the computed hash as raw bytes. The returned array is owned by the caller. Like
+     * {@link #hexValue()}, this must not be followed by further updates without a {@link #reset()}.
+     */
+    byte[] digest();
+
     /** Return the computed hash as a lowercase string (hex for most algorithms, Base32 for TTH). */
     String hexValue();
+
+    /**
+     * Return an independent instance that continues from the current state, as if it had been fed
+     * the same data. Used to checkpoint files whose hashing is stopped part way.
+     *
+     * @return the copy, or null if this algorithm's state cannot be copied
+     */
+    default HashAlgorithm copy() {
+        return null;
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans a single stream of file chunks out to several {@link HashAlgorithm}s, each running on its
+ * own thread.
+ *
+ * <p>The reader fills buffers taken from a small ring with {@link #acquire()} and hands them to
+ * every digest with {@link #publish(ByteBuffer)}. A published buffer is treated as immutable and
+ * returns to the ring once the last digest has consumed it, so throughput is bound by the slowest
+ * digest rather than by the sum of all of them. Buffers the pipeline does not own, such as slices
+ * of a memory-mapped window, can be fed with {@link #publishView(ByteBuffer)}; they count against
+ * the same ring capacity but are simply dropped once consumed.
+ *
+ * <p>Typical usage:
+ *
+ * <pre>{@code
+ * try (HashPipeline pipeline = new HashPipeline(algorithms, ring, executor)) {
+ *     ByteBuffer buffer = pipeline.acquire();
+ *     while (channel.read(buffer) != -1) {
+ *         pipeline.publish(buffer.flip());
+ *         buffer = pipeline.acquire();
+ *     }
+ *     pipeline.release(buffer);
+ *     pipeline.finish();
+ * }
+ * }</pre>
+ */
+public final class HashPipeline implements AutoCloseable {
+
+    /** Marker chunk telling consumers that no more data follows. */
+    private static final Chunk END_OF_STREAM = new Chunk(ByteBuffer.allocate(0), false);
+
+    /** How often a blocked reader re-checks whether a digest has failed. */
+    private static final long ACQUIRE_POLL_MS = 100;
+
+    private final Semaphore ringSlots;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    private final List<BlockingQueue<Chunk>> consumerQueues;
+    private final CountDownLatch consumersDone;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean ended;
+
+    /**
+     * Create a pipeline and start one consumer per algorithm on the given executor.
+     *
+     * @param algorithms digests to feed; each is only ever touched by its own consumer thread
+     * @param ring buffers to circulate (at least 2); they are not shared with anything else until
+     *     {@link #finish()} or {@link #close()} returns
+     * @param executor executor with at least {@code algorithms.size()} threads available
+     */
+    public HashPipeline(List<HashAlgorithm> algorithms, ByteBuffer[] ring, ExecutorService executor) {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one algorithm is required");
+        }
+        if (ring.length < 2) {
+            throw new IllegalArgumentException("Ring size must be at least 2");
+        }
+        ringSlots = new Semaphore(ring.length);
+        for (ByteBuffer buffer : ring) {
+            freeBuffers.add(buffer);
+        }
+        // Every chunk in circulation fits in a consumer queue, plus room for the end marker,
+        // so publishing never blocks on a slow consumer - only taking a ring slot does.
+        consumerQueues = new ArrayList<>(algorithms.size());
+        consumersDone = new CountDownLatch(algorithms.size());
+        for (HashAlgorithm algorithm : algorithms) {
+            BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(ring.length + 1);
+            consumerQueues.add(queue);
+            executor.execute(() -> consume(algorithm, queue));
+        }
+    }
+
+    /**
+     * Take a cleared buffer from the ring, waiting for the slowest digest to release one if needed.
+     *
+     * @throws IOException if a digest failed or was stopped, so the buffer would never come back
+     */
+    public ByteBuffer acquire() throws IOException, InterruptedException {
+        takeSlot();
+        return freeBuffers.poll().clear();
+    }
+
+    /**
+     * Hand a filled buffer, flipped for reading, to every digest. The caller must not touch the
+     * buffer afterwards.
+     *
+     * @param buffer a buffer previously returned by {@link #acquire()}
+     * @throws IOException if a digest failed on an earlier chunk
+     */
+    public void publish(ByteBuffer buffer) throws IOException {
+        rethrowFailure();
+        enqueue(new Chunk(buffer, true));
+    }
+
+    /**
+     * Hand a buffer the pipeline does not own to every digest, waiting for a ring slot first. The
+     * buffer's content must stay unchanged until {@link #finish()} returns.
+     *
+     * @throws IOException if a digest failed
+     */
+    public void publishView(ByteBuffer view) throws IOException, InterruptedException {
+        takeSlot();
+        enqueue(new Chunk(view, false));
+    }
+
+    /** Return an acquired buffer to the ring without publishing it. */
+    public void release(ByteBuffer buffer) {
+        freeBuffers.add(buffer);
+        ringSlots.release();
+    }
+
+    /**
+     * Signal end of input and wait until every digest has consumed all published data.
+     *
+     * @throws IOException if a digest failed
+     * @throws InterruptedException if interrupted while waiting for the digests
+     */
+    public void finish() throws IOException, InterruptedException {
+        endStream();
+        consumersDone.await();
+        rethrowFailure();
+    }
+
+    /**
+     * Signal end of input without waiting for the consumers to drain. Used when a file is abandoned
+     * midway; only read the algorithms' values after a successful {@link #finish()}.
+     */
+    @Override
+    public void close() {
+        endStream();
+    }
+
+    private void takeSlot() throws IOException, InterruptedException {
+        while (!ringSlots.tryAcquire(ACQUIRE_POLL_MS, TimeUnit.MILLISECONDS)) {
+            rethrowFailure();
+        }
+    }
+
+    private void enqueue(Chunk chunk) {
+        chunk.pending.set(consumerQueues.size());
+        for (BlockingQueue<Chunk> queue : consumerQueues) {
+            queue.add(chunk);
+        }
+    }
+
+    private void endStream() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        for (BlockingQueue<Chunk> queue : consumerQueues) {
+            queue.add(END_OF_STREAM);
+        }
+    }
+
+    private void consume(HashAlgorithm algorithm, BlockingQueue<Chunk> queue) {
+        try {
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk == END_OF_STREAM) {
+                    break;
+                }
+                try {
+                    if (failure.get() == null) {
+                        // Each digest reads through its own view so positions don't interfere
+                        algorithm.update(chunk.data.duplicate());
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    // Keep acknowledging after a failure so the reader never deadlocks waiting for a slot
+                    if (chunk.pending.decrementAndGet() == 0) {
+                        if (chunk.pooled) {
+                            freeBuffers.add(chunk.data);
+                        }
+                        ringSlots.release();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            consumersDone.countDown();
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IOException("Digest failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static final class Chunk {
+        final ByteBuffer data;
+        final boolean pooled;
+        final AtomicInteger pending = new AtomicInteger();
+
+        Chunk(ByteBuffer data, boolean pooled) {
+            this.data = data;
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of hashing one file went: waiting for reads, and inside each digest.
+ *
+ * <p>Digest time is the time spent in an algorithm's calls, on whatever thread made them. For most
+ * algorithms that is CPU time; for {@link ParallelTthHash} it includes waiting for the pool. Reads
+ * from memory-mapped files are page faults inside the digests and are not counted as read time.
+ *
+ * <p>Safe to update from several threads, since pipelined digests and parallel ED2K workers report
+ * from their own.
+ */
+public class HashTimings {
+    private final LongAdder readNanos = new LongAdder();
+    private final Map<String, LongAdder> digestNanos = new LinkedHashMap<>();
+
+    public void addRead(long nanos) {
+        readNanos.add(nanos);
+    }
+
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    /** Counter of the nanoseconds spent in {@code algorithm}; the same one is returned for a name. */
+    public synchronized LongAdder digestCounter(String algorithm) {
+        return digestNanos.computeIfAbsent(algorithm, name -> new LongAdder());
+    }
+
+    /** Digest nanoseconds per algorithm, in the order the algorithms were first seen. */
+    public synchronized Map<String, Long> getDigestNanos() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        digestNanos.forEach((name, nanos) -> snapshot.put(name, nanos.sum()));
+        return snapshot;
+    }
+
+    /** Wrap {@code algorithm} so the time spent in each of its calls is counted under {@code name}. */
+    public HashAlgorithm wrap(String name, HashAlgorithm algorithm) {
+        return new Timed(algorithm, digestCounter(name));
+    }
+
+    private static final class Timed implements HashAlgorithm {
+        private final HashAlgorithm delegate;
+        private final LongAdder nanos;
+
+        Timed(HashAlgorithm delegate, LongAdder nanos) {
+            this.delegate = delegate;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public void update(byte[] buffer, int offset, int length) {
+            long start = System.nanoTime();
+            delegate.update(buffer, offset, length);
+            nanos.add(System.nanoTime() - start);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            long start = System.nanoTime();
+            delegate.update(buffer);
+            nanos.add(System.nanoTime() - start);
+        }
+
+        @Override
+        public void reset() {
+            delegate.reset();
+        }
+
+        @Override
+        public byte[] digest() {
+            long start = System.nanoTime();
+            byte[] digest = delegate.digest();
+            nanos.add(System.nanoTime() - start);
+            return digest;
+        }
+
+        @Override
+        public String hexValue() {
+            long start = System.nanoTime();
+            String hexValue = delegate.hexValue();
+            nanos.add(System.nanoTime() - start);
+            return hexValue;
+        }
+
+        /** The copy is not timed; wrap it again to count its calls. */
+        @Override
+        public HashAlgorithm copy() {
+            return delegate.copy();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * MD4 message digest (RFC 1320) tuned for ED2K hashing.
+ *
+ * <p>Unlike {@code gnu.crypto.hash.MD4} this does not allocate per block: the state lives in an
+ * int array, message words are read little-endian straight from the input (including direct and
+ * memory-mapped buffers), and the compression function is fully unrolled. {@link #digest(byte[],
+ * int)} finishes into the caller's array, and a digest that must not disturb a running computation
+ * is taken with {@link #copyFrom(Md4)} into a scratch instance instead of cloning.
+ */
+public final class Md4 {
+    public static final int DIGEST_LENGTH = 16;
+
+    private static final int BLOCK_LENGTH = 64;
+    private static final int ROUND2 = 0x5A827999;
+    private static final int ROUND3 = 0x6ED9EBA1;
+
+    private static final VarHandle LITTLE_ENDIAN_INT =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int[] state = new int[4];
+    private final int[] words = new int[16];
+    private final byte[] pending = new byte[BLOCK_LENGTH];
+    private int pendingLength;
+    private long count;
+
+    public Md4() {
+        reset();
+    }
+
+    public void reset() {
+        state[0] = 0x67452301;
+        state[1] = 0xEFCDAB89;
+        state[2] = 0x98BADCFE;
+        state[3] = 0x10325476;
+        pendingLength = 0;
+        count = 0;
+    }
+
+    /** Make this instance continue from the exact state of {@code other}. */
+    public void copyFrom(Md4 other) {
+        System.arraycopy(other.state, 0, state, 0, state.length);
+        System.arraycopy(other.pending, 0, pending, 0, other.pendingLength);
+        pendingLength = other.pendingLength;
+        count = other.count;
+    }
+
+    public void update(byte[] input, int offset, int length) {
+        count += length;
+        if (pendingLength > 0) {
+            int chunk = Math.min(BLOCK_LENGTH - pendingLength, length);
+            System.arraycopy(input, offset, pending, pendingLength, chunk);
+            pendingLength += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (pendingLength < BLOCK_LENGTH) {
+                return;
+            }
+            compress(pending, 0);
+            pendingLength = 0;
+        }
+        while (length >= BLOCK_LENGTH) {
+            compress(input, offset);
+            offset += BLOCK_LENGTH;
+            length -= BLOCK_LENGTH;
+        }
+        if (length > 0) {
+            System.arraycopy(input, offset, pending, 0, length);
+            pendingLength = length;
+        }
+    }
+
+    /** Consume the remaining bytes of a buffer, leaving its position at the limit. */
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        count += input.remaining();
+        if (pendingLength > 0) {
+            int chunk = Math.min(BLOCK_LENGTH - pendingLength, input.remaining());
+            input.get(pending, pendingLength, chunk);
+            pendingLength += chunk;
+            if (pendingLength < BLOCK_LENGTH) {
+                return;
+            }
+            compress(pending, 0);
+            pendingLength = 0;
+        }
+        int position = input.position();
+        boolean swap = input.order() != ByteOrder.LITTLE_ENDIAN;
+        while (input.limit() - position >= BLOCK_LENGTH) {
+            for (int i = 0; i < 16; i++) {
+                int word = input.getInt(position + 4 * i);
+                words[i] = swap ? Integer.reverseBytes(word) : word;
+            }
+            compress();
+            position += BLOCK_LENGTH;
+        }
+        input.position(position);
+        pendingLength = input.remaining();
+        input.get(pending, 0, pendingLength);
+    }
+
+    /** Finish the digest into a new array and reset. */
+    public byte[] digest() {
+        byte[] result = new byte[DIGEST_LENGTH];
+        digest(result, 0);
+        return result;
+    }
+
+    /** Finish the digest into {@code output} at {@code offset} and reset. */
+    public void digest(byte[] output, int offset) {
+        long bits = count << 3;
+        pending[pendingLength++] = (byte) 0x80;
+        if (pendingLength > BLOCK_LENGTH - 8) {
+            Arrays.fill(pending, pendingLength, BLOCK_LENGTH, (byte) 0);
+            compress(pending, 0);
+            pendingLength = 0;
+        }
+        Arrays.fill(pending, pendingLength, BLOCK_LENGTH - 8, (byte) 0);
+        LITTLE_ENDIAN_INT.set(pending, BLOCK_LENGTH - 8, (int) bits);
+        LITTLE_ENDIAN_INT.set(pending, BLOCK_LENGTH - 4, (int) (bits >>> 32));
+        compress(pending, 0);
+        for (int i = 0; i < 4; i++) {
+            LITTLE_ENDIAN_INT.set(output, offset + 4 * i, state[i]);
+        }
+        reset();
+    }
+
+    private void compress(byte[] block, int offset) {
+        for (int i = 0; i < 16; i++) {
+            words[i] = (int) LITTLE_ENDIAN_INT.get(block, offset + 4 * i);
+        }
+        compress();
+    }
+
+    private void compress() {
+        final int x0 = words[0];
+        final int x1 = words[1];
+        final int x2 = words[2];
+        final int x3 = words[3];
+        final int x4 = words[4];
+        final int x5 = words[5];
+        final int x6 = words[6];
+        final int x7 = words[7];
+        final int x8 = words[8];
+        final int x9 = words[9];
+        final int x10 = words[10];
+        final int x11 = words[11];
+        final int x12 = words[12];
+        final int x13 = words[13];
+        final int x14 = words[14];
+        final int x15 = words[15];
+        int a = state[0];
+        int b = state[1];
+        int c = state[2];
+        int d = state[3];
+
+        // Round 1
+        a = Integer.rotateLeft(a + (d ^ (b & (c ^ d))) + x0, 3);
+        d = Integer.rotateLeft(d + (c ^ (a & (b ^ c))) + x1, 7);
+        c = Integer.rotateLeft(c + (b ^ (d & (a ^ b))) + x2, 11);
+        b = Integer.rotateLeft(b + (a ^ (c & (d ^ a))) + x3, 19);
+        a = Integer.rotateLeft(a + (d ^ (b & (c ^ d))) + x4, 3);
+        d = Integer.rotateLeft(d + (c ^ (a & (b ^ c))) + x5, 7);
+        c = Integer.rotateLeft(c + (b ^ (d & (a ^ b))) + x6, 11);
+        b = Integer.rotateLeft(b + (a ^ (c & (d ^ a))) + x7, 19);
+        a = Integer.rotateLeft(a + (d ^ (b & (c ^ d))) + x8, 3);
+        d = Integer.rotateLeft(d + (c ^ (a & (b ^ c))) + x9, 7);
+        c = Integer.rotateLeft(c + (b ^ (d & (a ^ b))) + x10, 11);
+        b = Integer.rotateLeft(b + (a ^ (c & (d ^ a))) + x11, 19);
+        a = Integer.rotateLeft(a + (d ^ (b & (c ^ d))) + x12, 3);
+        d = Integer.rotateLeft(d + (c ^ (a & (b ^ c))) + x13, 7);
+        c = Integer.rotateLeft(c + (b ^ (d & (a ^ b))) + x14, 11);
+        b = Integer.rotateLeft(b + (a ^ (c & (d ^ a))) + x15, 19);
+        // Round 2
+        a = Integer.rotateLeft(a + ((b & c) | (b & d) | (c & d)) + x0 + ROUND2, 3);
+        d = Integer.rotateLeft(d + ((a & b) | (a & c) | (b & c)) + x4 + ROUND2, 5);
+        c = Integer.rotateLeft(c + ((d & a) | (d & b) | (a & b)) + x8 + ROUND2, 9);
+        b = Integer.rotateLeft(b + ((c & d) | (c & a) | (d & a)) + x12 + ROUND2, 13);
+        a = Integer.rotateLeft(a + ((b & c) | (b & d) | (c & d)) + x1 + ROUND2, 3);
+        d = Integer.rotateLeft(d + ((a & b) | (a & c) | (b & c)) + x5 + ROUND2, 5);
+        c = Integer.rotateLeft(c + ((d & a) | (d & b) | (a & b)) + x9 + ROUND2, 9);
+        b = Integer.rotateLeft(b + ((c & d) | (c & a) | (d & a)) + x13 + ROUND2, 13);
+        a = Integer.rotateLeft(a + ((b & c) | (b & d) | (c & d)) + x2 + ROUND2, 3);
+        d = Integer.rotateLeft(d + ((a & b) | (a & c) | (b & c)) + x6 + ROUND2, 5);
+        c = Integer.rotateLeft(c + ((d & a) | (d & b) | (a & b)) + x10 + ROUND2, 9);
+        b = Integer.rotateLeft(b + ((c & d) | (c & a) | (d & a)) + x14 + ROUND2, 13);
+        a = Integer.rotateLeft(a + ((b & c) | (b & d) | (c & d)) + x3 + ROUND2, 3);
+        d = Integer.rotateLeft(d + ((a & b) | (a & c) | (b & c)) + x7 + ROUND2, 5);
+        c = Integer.rotateLeft(c + ((d & a) | (d & b) | (a & b)) + x11 + ROUND2, 9);
+        b = Integer.rotateLeft(b + ((c & d) | (c & a) | (d & a)) + x15 + ROUND2, 13);
+        // Round 3
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + x0 + ROUND3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + x8 + ROUND3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + x4 + ROUND3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + x12 + ROUND3, 15);
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + x2 + ROUND3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + x10 + ROUND3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + x6 + ROUND3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + x14 + ROUND3, 15);
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + x1 + ROUND3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + x9 + ROUND3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + x5 + ROUND3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + x13 + ROUND3, 15);
+        a = Integer.rotateLeft(a + (b ^ c ^ d) + x3 + ROUND3, 3);
+        d = Integer.rotateLeft(d + (a ^ b ^ c) + x11 + ROUND3, 9);
+        c = Integer.rotateLeft(c + (d ^ a ^ b) + x7 + ROUND3, 11);
+        b = Integer.rotateLeft(b + (c ^ d ^ a) + x15 + ROUND3, 15);
+
+        state[0] += a;
+        state[1] += b;
+        state[2] += c;
+        state[3] += d;
+    }
+}
@@ -16,6 +16,7 @@
 
 package epox.webaom.hash;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
@@ -38,20 +39,48 @@ public class Md5Hash implements HashAlgorithm {
         }
     }
 
+    private Md5Hash(MessageDigest md5) {
+        this.md5 = md5;
+    }
+
     @Override
     public void update(byte[] buffer, int offset, int length) {
         md5.update(buffer, offset, length);
         cachedDigest = null;
     }
 
+    @Override
+    public void update(ByteBuffer buffer) {
+        md5.update(buffer);
+        cachedDigest = null;
+    }
+
     @Override
     public void reset() {
         md5.reset();
         cachedDigest = null;
     }
 
+    @Override
+    public byte[] digest() {
+        return computeDigest().clone();
+    }
+
     @Override
     public String hexValue() {
+        return HexFormat.of().formatHex(computeDigest());
+    }
+
+    @Override
+    public HashAlgorithm copy() {
+        try {
+            return new Md5Hash((MessageDigest) md5.clone());
+        } catch (CloneNotSupportedException e) {
+            return null;
+        }
+    }
+
+    private byte[] computeDigest() {
         if (cachedDigest == null) {
             try {
                 cachedDigest = ((MessageDigest) md5.clone()).digest();
@@ -59,6 +88,6 @@ public class Md5Hash implements HashAlgorithm {
                 cachedDigest = md5.digest();
             }
         }
-        return HexFormat.of().formatHex(cachedDigest);
+        return cachedDigest;
     }
 }
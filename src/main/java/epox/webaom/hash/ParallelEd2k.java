@@ -0,0 +1,251 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import epox.webaom.util.BufferPool;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * ED2K hash of a whole file computed on several threads.
+ *
+ * <p>Every {@link Ed2kHash#BLOCK_SIZE} block's MD4 is independent of the others, so workers claim
+ * blocks in turn, read them with positional {@link FileChannel#read(ByteBuffer, long)} calls and
+ * store the block digests by index. Only the final MD4 over the block digests is ordered. The result
+ * is bit-identical to feeding the file through {@link Ed2kHash} sequentially, including the MD4 of
+ * the empty trailing block that files of an exact multiple of the block size get.
+ *
+ * <p>This pays off on storage that serves several streams at once (SSD/NVMe, striped arrays), not on
+ * a single spinning disk where the parallel reads would seek against each other.
+ */
+public final class ParallelEd2k {
+
+    /** Bytes read per positional read call. */
+    private static final int READ_SIZE = BufferPool.SMALL;
+
+    /** How often the calling thread reports progress while the workers run. */
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    private ParallelEd2k() {}
+
+    /**
+     * Hash the first {@code size} bytes of a channel.
+     *
+     * @param channel channel to read from; only positional reads are used, its position is untouched
+     * @param size number of bytes to hash
+     * @param parallelism number of worker threads to use
+     * @param executor executor with at least {@code parallelism} threads available
+     * @param bufferPool pool the workers take their read buffers from
+     * @param keepGoing polled by the workers between reads; returning false aborts the computation
+     * @param progress receives byte counts as blocks are read, always on the calling thread
+     * @param timings receives the workers' read time and their MD4 time under {@code "ed2k"}
+     * @return the 16-byte ED2K digest, or null if aborted through {@code keepGoing}
+     */
+    public static byte[] hash(
+            FileChannel channel,
+            long size,
+            int parallelism,
+            ExecutorService executor,
+            BufferPool bufferPool,
+            BooleanSupplier keepGoing,
+            LongConsumer progress,
+            HashTimings timings)
+            throws IOException, InterruptedException {
+        byte[][] blockDigests = new byte[blockCount(size)][];
+        return hash(channel, size, parallelism, executor, bufferPool, keepGoing, progress, timings, blockDigests);
+    }
+
+    /**
+     * Hash the first {@code size} bytes of a channel, skipping blocks whose digests are already known,
+     * e.g. from an earlier run that was stopped. Blocks are filled in as they complete, so after an
+     * abort {@code blockDigests} holds everything that was finished.
+     *
+     * @param blockDigests {@link #blockCount(long)} entries, null for the blocks still to be hashed
+     * @see #hash(FileChannel, long, int, ExecutorService, BufferPool, BooleanSupplier, LongConsumer, HashTimings)
+     */
+    public static byte[] hash(
+            FileChannel channel,
+            long size,
+            int parallelism,
+            ExecutorService executor,
+            BufferPool bufferPool,
+            BooleanSupplier keepGoing,
+            LongConsumer progress,
+            HashTimings timings,
+            byte[][] blockDigests)
+            throws IOException, InterruptedException {
+        LongAdder digestNanos = timings.digestCounter("ed2k");
+        int blockCount = blockDigests.length;
+        AtomicInteger nextBlock = new AtomicInteger();
+        AtomicLong bytesRead = new AtomicLong();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        BooleanSupplier running = () -> !stopped.get() && keepGoing.getAsBoolean();
+        int workers = Math.max(1, Math.min(parallelism, blockCount));
+        CountDownLatch done = new CountDownLatch(workers);
+
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                ByteBuffer buffer = null;
+                try {
+                    buffer = bufferPool.acquire(READ_SIZE);
+                    Md4 md4 = new Md4();
+                    int block;
+                    while (failure.get() == null && (block = nextBlock.getAndIncrement()) < blockCount) {
+                        if (blockDigests[block] != null) {
+                            continue;
+                        }
+                        long start = (long) block * Ed2kHash.BLOCK_SIZE;
+                        long end = Math.min(size, start + Ed2kHash.BLOCK_SIZE);
+                        if (!hashRange(channel, start, end, buffer, md4, bytesRead, running, timings)) {
+                            return;
+                        }
+                        long digestStart = System.nanoTime();
+                        blockDigests[block] = md4.digest();
+                        digestNanos.add(System.nanoTime() - digestStart);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, e);
+                } finally {
+                    bufferPool.release(buffer);
+                    done.countDown();
+                }
+            });
+        }
+
+        long reported = 0;
+        try {
+            while (!done.await(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                long current = bytesRead.get();
+                progress.accept(current - reported);
+                reported = current;
+            }
+        } catch (InterruptedException e) {
+            // The caller closes the channel once we return, so the workers must be done with it first
+            stopped.set(true);
+            awaitUninterruptibly(done);
+            throw e;
+        }
+        progress.accept(bytesRead.get() - reported);
+
+        Exception cause = failure.get();
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        } else if (cause != null) {
+            throw new IOException("ED2K worker failed: " + cause.getMessage(), cause);
+        }
+        for (byte[] digest : blockDigests) {
+            if (digest == null) {
+                return null; // aborted
+            }
+        }
+        return combine(blockDigests);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Number of blocks, and so of block digests, in the ED2K hash of {@code size} bytes. */
+    public static int blockCount(long size) {
+        return (int) (size / Ed2kHash.BLOCK_SIZE) + 1;
+    }
+
+    /** Bytes covered by the block digests that are already known. */
+    public static long bytesDone(byte[][] blockDigests, long size) {
+        long done = 0;
+        for (int block = 0; block < blockDigests.length; block++) {
+            if (blockDigests[block] != null) {
+                long start = (long) block * Ed2kHash.BLOCK_SIZE;
+                done += Math.min(size, start + Ed2kHash.BLOCK_SIZE) - start;
+            }
+        }
+        return done;
+    }
+
+    private static boolean hashRange(
+            FileChannel channel,
+            long start,
+            long end,
+            ByteBuffer buffer,
+            Md4 md4,
+            AtomicLong bytesRead,
+            BooleanSupplier keepGoing,
+            HashTimings timings)
+            throws IOException {
+        LongAdder digestNanos = timings.digestCounter("ed2k");
+        long position = start;
+        while (position < end) {
+            if (!keepGoing.getAsBoolean()) {
+                return false;
+            }
+            buffer.clear().limit((int) Math.min(READ_SIZE, end - position));
+            long readStart = System.nanoTime();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new EOFException("File shrank while hashing at offset " + (position + buffer.position()));
+                }
+            }
+            long digestStart = System.nanoTime();
+            timings.addRead(digestStart - readStart);
+            md4.update(buffer.flip());
+            digestNanos.add(System.nanoTime() - digestStart);
+            position += buffer.limit();
+            bytesRead.addAndGet(buffer.limit());
+        }
+        return true;
+    }
+
+    /** The single block's MD4 for files below one block, otherwise the MD4 of all block MD4s. */
+    static byte[] combine(byte[][] blockDigests) {
+        if (blockDigests.length == 1) {
+            return blockDigests[0];
+        }
+        Md4 md4 = new Md4();
+        for (byte[] digest : blockDigests) {
+            md4.update(digest, 0, digest.length);
+        }
+        return md4.digest();
+    }
+}
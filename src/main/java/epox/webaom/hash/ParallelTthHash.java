@@ -0,0 +1,204 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import com.bitzi.util.Base32;
+import gnu.crypto.hash.Tiger;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Tiger Tree Hash (TTH) computed on a {@link ForkJoinPool}.
+ *
+ * <p>Input is cut into segments of {@link #SEGMENT_LEAVES} 1024-byte leaves. Since the segment size
+ * is a power of two, each full segment is a complete subtree of the THEX tree, so its root can be
+ * computed independently on a pool thread. The digest pairs those subtree roots (and the root of the
+ * trailing partial segment) exactly like the leaf levels, promoting an unpaired last node, which
+ * gives the same Base32 root as {@link TthHash}.
+ *
+ * <p>The updating thread copies data into segment buffers and keeps at most a few segments per pool
+ * thread in flight, joining the oldest before it starts another, so memory use stays bounded.
+ */
+public class ParallelTthHash implements HashAlgorithm {
+
+    private static final int LEAF_SIZE = 1024;
+
+    /** Leaves per independently hashed subtree; must be a power of two. */
+    static final int SEGMENT_LEAVES = 1024;
+
+    private static final int SEGMENT_SIZE = SEGMENT_LEAVES * LEAF_SIZE;
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final ArrayDeque<Segment> inFlight = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> freeSegments = new ArrayDeque<>();
+    private final List<byte[]> subtreeRoots = new ArrayList<>();
+    private byte[] pending;
+    private int pendingLength;
+    private byte[] cachedDigest;
+
+    /** A segment whose subtree root is being computed on the pool. */
+    private record Segment(byte[] data, ForkJoinTask<byte[]> root) {}
+
+    public ParallelTthHash() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelTthHash(ForkJoinPool pool) {
+        this.pool = pool;
+        this.maxInFlight = 2 * Math.max(1, pool.getParallelism());
+    }
+
+    @Override
+    public void update(byte[] buffer, int offset, int length) {
+        cachedDigest = null;
+        while (length > 0) {
+            int chunk = Math.min(SEGMENT_SIZE - pendingLength, length);
+            System.arraycopy(buffer, offset, pendingSegment(), pendingLength, chunk);
+            pendingLength += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (pendingLength == SEGMENT_SIZE) {
+                submitPending();
+            }
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        cachedDigest = null;
+        while (buffer.hasRemaining()) {
+            int chunk = Math.min(SEGMENT_SIZE - pendingLength, buffer.remaining());
+            buffer.get(pendingSegment(), pendingLength, chunk);
+            pendingLength += chunk;
+            if (pendingLength == SEGMENT_SIZE) {
+                submitPending();
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Segment segment : inFlight) {
+            segment.root().cancel(false);
+        }
+        inFlight.clear();
+        subtreeRoots.clear();
+        pendingLength = 0;
+        cachedDigest = null;
+    }
+
+    @Override
+    public byte[] digest() {
+        return computeDigest().clone();
+    }
+
+    @Override
+    public String hexValue() {
+        return Base32.encode(computeDigest()).toLowerCase(Locale.ROOT);
+    }
+
+    /** Waits for the segments in flight, so the copy only has to take over their roots. */
+    @Override
+    public HashAlgorithm copy() {
+        while (!inFlight.isEmpty()) {
+            joinOldest();
+        }
+        ParallelTthHash copy = new ParallelTthHash(pool);
+        copy.subtreeRoots.addAll(subtreeRoots);
+        if (pendingLength > 0) {
+            System.arraycopy(pending, 0, copy.pendingSegment(), 0, pendingLength);
+            copy.pendingLength = pendingLength;
+        }
+        return copy;
+    }
+
+    private byte[] computeDigest() {
+        if (cachedDigest == null) {
+            while (!inFlight.isEmpty()) {
+                joinOldest();
+            }
+            List<byte[]> roots = new ArrayList<>(subtreeRoots);
+            // Empty input still hashes one empty leaf; otherwise only a non-empty tail adds a leaf
+            if (pendingLength > 0 || roots.isEmpty()) {
+                roots.add(subtreeRoot(pendingSegment(), pendingLength, new Tiger()));
+            }
+            cachedDigest = reduce(roots, new Tiger());
+        }
+        return cachedDigest;
+    }
+
+    private byte[] pendingSegment() {
+        if (pending == null) {
+            pending = freeSegments.isEmpty() ? new byte[SEGMENT_SIZE] : freeSegments.pop();
+        }
+        return pending;
+    }
+
+    private void submitPending() {
+        if (inFlight.size() >= maxInFlight) {
+            joinOldest();
+        }
+        byte[] data = pending;
+        inFlight.add(new Segment(data, pool.submit(() -> subtreeRoot(data, SEGMENT_SIZE, new Tiger()))));
+        pending = null;
+        pendingLength = 0;
+    }
+
+    private void joinOldest() {
+        Segment segment = inFlight.poll();
+        subtreeRoots.add(segment.root().join());
+        freeSegments.push(segment.data());
+    }
+
+    /** Root of the THEX subtree over the leaves in {@code data[0, length)}. */
+    private static byte[] subtreeRoot(byte[] data, int length, Tiger tiger) {
+        int leafCount = Math.max(1, (length + LEAF_SIZE - 1) / LEAF_SIZE);
+        List<byte[]> nodes = new ArrayList<>(leafCount);
+        for (int offset = 0; nodes.size() < leafCount; offset += LEAF_SIZE) {
+            tiger.reset();
+            tiger.update((byte) 0); // leaf prefix
+            tiger.update(data, offset, Math.min(LEAF_SIZE, length - offset));
+            nodes.add(tiger.digest());
+        }
+        return reduce(nodes, tiger);
+    }
+
+    /** Pair nodes level by level until one is left; an unpaired last node moves up unchanged. */
+    private static byte[] reduce(List<byte[]> nodes, Tiger tiger) {
+        while (nodes.size() > 1) {
+            List<byte[]> parents = new ArrayList<>((nodes.size() + 1) / 2);
+            for (int i = 0; i + 1 < nodes.size(); i += 2) {
+                tiger.reset();
+                tiger.update((byte) 1); // node prefix
+                tiger.update(nodes.get(i), 0, nodes.get(i).length);
+                tiger.update(nodes.get(i + 1), 0, nodes.get(i + 1).length);
+                parents.add(tiger.digest());
+            }
+            if (nodes.size() % 2 == 1) {
+                parents.add(nodes.get(nodes.size() - 1));
+            }
+            nodes = parents;
+        }
+        return nodes.get(0);
+    }
+}
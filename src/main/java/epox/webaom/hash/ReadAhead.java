@@ -0,0 +1,183 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads a file range on another thread, keeping the next chunks in flight while the caller digests
+ * the current one.
+ *
+ * <p>A hash task that reads and digests on one thread leaves the disk idle while it hashes and the
+ * CPU idle while the disk seeks. Here a reader task fills the given buffers with positional reads
+ * and queues them in file order; {@link #next()} hands them out and returns the previous chunk to
+ * the reader. With two buffers this is classic double buffering: throughput approaches the slower
+ * of the disk and the digests instead of their sum.
+ *
+ * <p>The reader is never interrupted, since an interrupt would close the shared channel. On
+ * {@link #close()} it finishes the read in progress and stops; the buffers are free for other use
+ * once {@code close()} returns.
+ */
+public final class ReadAhead implements AutoCloseable {
+
+    /** Reads into a buffer from a file position, like {@link FileChannel#read(ByteBuffer, long)}. */
+    @FunctionalInterface
+    public interface PositionalReader {
+        int read(ByteBuffer destination, long position) throws IOException;
+    }
+
+    /** Marker queued after the last chunk, or after a failure. */
+    private static final ByteBuffer END_OF_RANGE = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final CountDownLatch readerDone = new CountDownLatch(1);
+    private volatile boolean stopped;
+    private ByteBuffer current;
+    private boolean ended;
+
+    /**
+     * Start reading {@code [start, end)} on the given executor.
+     *
+     * @param reader source of the data; called only from the reader task
+     * @param buffers buffers to read into (at least 2), each filled to its capacity except the last
+     * @param executor executor with a thread available for the reader
+     * @param timings receives the time spent in reads
+     */
+    public ReadAhead(
+            PositionalReader reader,
+            long start,
+            long end,
+            ByteBuffer[] buffers,
+            ExecutorService executor,
+            HashTimings timings) {
+        if (buffers.length < 2) {
+            throw new IllegalArgumentException("At least two buffers are required");
+        }
+        freeBuffers = new ArrayBlockingQueue<>(buffers.length);
+        for (ByteBuffer buffer : buffers) {
+            freeBuffers.add(buffer);
+        }
+        // Every buffer plus the end marker fits, so the reader never blocks on a slow consumer
+        filledBuffers = new ArrayBlockingQueue<>(buffers.length + 1);
+        executor.execute(() -> read(reader, start, end, timings));
+    }
+
+    /**
+     * Wait for the next chunk, flipped for reading. The previous chunk goes back to the reader, so it
+     * must no longer be used.
+     *
+     * @return the next chunk, or null once the whole range was returned
+     * @throws IOException if a read failed or the file ended before the range did
+     */
+    public ByteBuffer next() throws IOException, InterruptedException {
+        recycleCurrent();
+        if (ended) {
+            return null;
+        }
+        ByteBuffer buffer = filledBuffers.take();
+        if (buffer == END_OF_RANGE) {
+            ended = true;
+            rethrowFailure();
+            return null;
+        }
+        current = buffer;
+        return buffer;
+    }
+
+    /** Stop reading ahead and wait for the reader to let go of the buffers. */
+    @Override
+    public void close() {
+        stopped = true;
+        recycleCurrent();
+        // A reader waiting for a free buffer gets one back, sees the stop flag and ends
+        ByteBuffer buffer;
+        while ((buffer = filledBuffers.poll()) != null) {
+            if (buffer != END_OF_RANGE) {
+                freeBuffers.add(buffer);
+            }
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                readerDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void read(PositionalReader reader, long start, long end, HashTimings timings) {
+        try {
+            long position = start;
+            while (position < end) {
+                ByteBuffer buffer = freeBuffers.take();
+                if (stopped) {
+                    break;
+                }
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                long readStart = System.nanoTime();
+                while (buffer.hasRemaining()) {
+                    if (reader.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("File shrank while hashing at offset " + (position + buffer.position()));
+                    }
+                }
+                timings.addRead(System.nanoTime() - readStart);
+                position += buffer.limit();
+                filledBuffers.add(buffer.flip());
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+        } finally {
+            filledBuffers.add(END_OF_RANGE);
+            readerDone.countDown();
+        }
+    }
+
+    private void recycleCurrent() {
+        if (current != null) {
+            freeBuffers.add(current);
+            current = null;
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Exception cause = failure.get();
+        if (cause instanceof IOException ioException) {
+            throw ioException;
+        } else if (cause != null) {
+            throw new IOException("Read-ahead failed: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package epox.webaom.hash;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
@@ -36,20 +37,48 @@ public class Sha1Hash implements HashAlgorithm {
         }
     }
 
+    private Sha1Hash(MessageDigest sha1) {
+        this.sha1 = sha1;
+    }
+
     @Override
     public void update(byte[] buffer, int offset, int length) {
         sha1.update(buffer, offset, length);
         cachedDigest = null;
     }
 
+    @Override
+    public void update(ByteBuffer buffer) {
+        sha1.update(buffer);
+        cachedDigest = null;
+    }
+
     @Override
     public void reset() {
         sha1.reset();
         cachedDigest = null;
     }
 
+    @Override
+    public byte[] digest() {
+        return computeDigest().clone();
+    }
+
     @Override
     public String hexValue() {
+        return HexFormat.of().formatHex(computeDigest());
+    }
+
+    @Override
+    public HashAlgorithm copy() {
+        try {
+            return new Sha1Hash((MessageDigest) sha1.clone());
+        } catch (CloneNotSupportedException e) {
+            return null;
+        }
+    }
+
+    private byte[] computeDigest() {
         if (cachedDigest == null) {
             try {
                 cachedDigest = ((MessageDigest) sha1.clone()).digest();
@@ -57,6 +86,6 @@ public class Sha1Hash implements HashAlgorithm {
                 cachedDigest = sha1.digest();
             }
         }
-        return HexFormat.of().formatHex(cachedDigest);
+        return cachedDigest;
     }
 }
@@ -18,6 +18,7 @@ package epox.webaom.hash;
 
 import com.bitzi.util.Base32;
 import com.bitzi.util.TigerTree;
+import java.nio.ByteBuffer;
 import java.util.Locale;
 
 /**
@@ -29,7 +30,11 @@ public class TthHash implements HashAlgorithm {
     private byte[] cachedDigest;
 
     public TthHash() {
-        tigerTree = new TigerTree();
+        this(new TigerTree());
+    }
+
+    private TthHash(TigerTree tigerTree) {
+        this.tigerTree = tigerTree;
     }
 
     @Override
@@ -38,17 +43,37 @@ public class TthHash implements HashAlgorithm {
         cachedDigest = null;
     }
 
+    @Override
+    public void update(ByteBuffer buffer) {
+        tigerTree.update(buffer);
+        cachedDigest = null;
+    }
+
     @Override
     public void reset() {
         tigerTree.reset();
         cachedDigest = null;
     }
 
+    @Override
+    public byte[] digest() {
+        return computeDigest().clone();
+    }
+
     @Override
     public String hexValue() {
+        return Base32.encode(computeDigest()).toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public HashAlgorithm copy() {
+        return new TthHash(tigerTree.copy());
+    }
+
+    private byte[] computeDigest() {
         if (cachedDigest == null) {
             cachedDigest = tigerTree.digest();
         }
-        return Base32.encode(cachedDigest).toLowerCase(Locale.ROOT);
+        return cachedDigest;
     }
 }
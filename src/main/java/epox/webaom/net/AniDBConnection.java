@@ -24,17 +24,19 @@ import epox.webaom.ui.JDialogLogin;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.io.UnsupportedEncodingException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.channels.DatagramChannel;
 import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
-import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 import javax.swing.Timer;
 
@@ -43,47 +45,38 @@ public class AniDBConnection implements ActionListener {
     public static final String DEFAULT_HOST = "api.anidb.net";
     public static final int DEFAULT_REMOTE_PORT = 9000;
     public static final int DEFAULT_LOCAL_PORT = 45678;
-    private static final int TAG_LENGTH = 5;
     private static final int KEEP_ALIVE_INTERVAL = 3 * 1000 * 60 * 10; // 30 min
 
     private static boolean shutdown = false;
     private static int remainingLoginAttempts = 2;
     private final Timer keepAliveTimer;
     private final AniDBConnectionSettings settings;
+    private final FloodLimiter floodLimiter;
     private final Log log;
-    private boolean authenticated = false;
-    protected String session = null;
-    protected String currentTag = null;
-    private int tagCounter = 0;
+    private final Object loginLock = new Object();
+    private volatile boolean authenticated = false;
+    protected volatile String session = null;
     private boolean connected = false;
     private UserPass userPass = null;
-    private long timeUsed = 0;
-    private long timestamp = 0;
+    private volatile long timestamp = 0;
     private int remainingAuthAttempts = 3;
-    private String lastError = "Not Initialized.";
-    private SecretKeySpec encryptionKey = null;
-    private Cipher cipher;
-    private DatagramSocket socket;
+    private volatile String lastError = "Not Initialized.";
+    private final DatagramCodec codec = new DatagramCodec();
+    private DatagramChannel channel;
     private InetAddress serverAddress;
-    private String encoding = "ascii";
+    private UdpTransport transport;
 
     public AniDBConnection(Log log, AniDBConnectionSettings settings) {
+        this(log, settings, FloodLimiter.shared());
+    }
+
+    AniDBConnection(Log log, AniDBConnectionSettings settings, FloodLimiter floodLimiter) {
         this.log = log;
         this.settings = settings;
-        generateTag();
+        this.floodLimiter = floodLimiter;
         keepAliveTimer = new Timer(KEEP_ALIVE_INTERVAL, this);
     }
 
-    private void generateTag() {
-        tagCounter++;
-        StringBuilder sb = new StringBuilder(String.valueOf(tagCounter));
-        while (sb.length() < TAG_LENGTH) {
-            sb.insert(0, '0');
-        }
-        sb.insert(0, 't');
-        currentTag = sb.toString();
-    }
-
     @Override
     public void actionPerformed(ActionEvent event) {
         if (!settings.natEnabled) {
@@ -143,9 +136,14 @@ public class AniDBConnection implements ActionListener {
         return authenticated;
     }
 
+    /** Ping the server once, without retries, and return the round trip in milliseconds. */
     public int ping() throws IOException, AniDBException {
-        sendRaw("PING", true);
-        return (int) timeUsed;
+        return (int) (long) await(pingAsync());
+    }
+
+    /** Asynchronous {@link #ping()}. */
+    public CompletableFuture<Long> pingAsync() {
+        return submit("PING", 1, true).thenApply(response -> response.roundTripMillis);
     }
 
     @SuppressWarnings("java:S5542") // ECB mode required by AniDB protocol
@@ -153,20 +151,18 @@ public class AniDBConnection implements ActionListener {
         if (userPass.apiKey == null || userPass.apiKey.isEmpty()) {
             return ping();
         }
-        AniDBConnectionResponse response = sendWithSession("ENCRYPT", "user=" + userPass.username + "&type=1", true);
+        AniDBConnectionResponse response =
+                await(submit(withSession("ENCRYPT", "user=" + userPass.username + "&type=1"), 1, true));
         if (response != null && response.code == AniDBConnectionResponse.ENCRYPTION_ENABLED) {
             try {
                 MessageDigest digest = MessageDigest.getInstance("MD5");
                 digest.update(userPass.apiKey.getBytes());
                 digest.update(response.data.getBytes());
-                byte[] keyBytes = digest.digest();
-                encryptionKey = new SecretKeySpec(keyBytes, "AES");
-                cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-                return (int) timeUsed;
+                codec.setKey(new SecretKeySpec(digest.digest(), "AES"));
+                return (int) response.roundTripMillis;
             } catch (Exception ex) {
                 LOGGER.warning("Encryption setup failed: " + ex.getMessage());
-                encryptionKey = null;
-                cipher = null;
+                codec.setKey(null);
             }
         } else if (response != null && response.code == AniDBConnectionResponse.API_PASSWORD_NOT_DEFINED) {
             throw new AniDBException(AniDBException.ENCRYPTION, "AniPass not defined. Check your profile settings.");
@@ -258,8 +254,11 @@ public class AniDBConnection implements ActionListener {
             if (authenticated && session != null) { // last chance logout
                 String command = "LOGOUT s=" + session;
                 authenticated = false;
+                UdpTransport activeTransport = transport;
                 try {
-                    sendRaw(command, false);
+                    if (activeTransport != null) {
+                        activeTransport.sendOnce(command);
+                    }
                 } catch (IOException ex) {
                     // don't care
                 }
@@ -276,7 +275,7 @@ public class AniDBConnection implements ActionListener {
                     AniDBConnectionResponse.INVALID_SESSION,
                     AniDBConnectionResponse.LOGIN_FIRST:
                 authenticated = false;
-                encoding = "ascii";
+                resetEncoding();
                 return true;
             default:
                 error(response.message);
@@ -284,13 +283,28 @@ public class AniDBConnection implements ActionListener {
         return false;
     }
 
+    private void resetEncoding() {
+        try {
+            codec.setEncoding("ascii");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     // CORE
     public boolean connect() {
         try {
-            socket = new DatagramSocket(settings.localPort);
-            socket.setSoTimeout(settings.timeoutMillis);
             serverAddress = InetAddress.getByName(settings.host);
-            serverAddress.getHostAddress();
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(settings.localPort));
+            transport = new UdpTransport(
+                    channel,
+                    new InetSocketAddress(serverAddress, settings.remotePort),
+                    floodLimiter,
+                    codec,
+                    new SessionEvents(),
+                    settings.timeoutMillis);
+            transport.start();
             connected = true;
             return true;
         } catch (SocketException ex) {
@@ -298,227 +312,207 @@ public class AniDBConnection implements ActionListener {
             error("SocketException: " + ex.getMessage());
         } catch (UnknownHostException ex) {
             error("Unknown Host: " + settings.host);
+        } catch (IOException ex) {
+            LOGGER.warning("IO Exception: " + ex.getMessage());
+            error("Operation Failed: IOEXCEPT: " + ex.getMessage());
         }
+        closeChannel();
         return false;
     }
 
     public void disconnect() {
         keepAliveTimer.stop();
-        DatagramSocket activeSocket = socket;
-        socket = null;
+        UdpTransport activeTransport = transport;
+        transport = null;
+        if (activeTransport != null) {
+            activeTransport.close();
+        }
+        closeChannel();
         serverAddress = null;
         connected = false;
         authenticated = false;
+    }
 
-        if (activeSocket != null) {
+    private void closeChannel() {
+        DatagramChannel activeChannel = channel;
+        channel = null;
+        if (activeChannel != null) {
             try {
-                activeSocket.disconnect();
-            } catch (Exception ignored) {
+                activeChannel.close();
+            } catch (IOException ignored) {
                 // ignore
             }
-            activeSocket.close();
         }
     }
 
-    public synchronized AniDBConnectionResponse send(String operation, String param, boolean wait)
-            throws AniDBException {
-        if (operation == null) {
-            throw new AniDBException(AniDBException.CLIENT_BUG);
-        }
-        return sendWithRetry(operation, param, wait);
+    public AniDBConnectionResponse send(String operation, String param, boolean wait) throws AniDBException {
+        return awaitReply(sendAsync(operation, param, wait));
     }
 
-    public synchronized String send(String command, boolean wait) throws AniDBException {
+    public String send(String command, boolean wait) throws AniDBException {
         if (command == null) {
             throw new AniDBException(AniDBException.CLIENT_BUG);
         }
 
         String[] parts = command.split(" ", 2);
-        AniDBConnectionResponse response = sendWithRetry(parts[0], parts.length > 1 ? parts[1] : null, wait);
+        AniDBConnectionResponse response = send(parts[0], parts.length > 1 ? parts[1] : null, wait);
         return response.code + " " + response.message + (response.data != null ? "\n" + response.data : "");
     }
 
-    private AniDBConnectionResponse sendWithRetry(String operation, String param, boolean wait) throws AniDBException {
-        int timeoutCount = 0;
-        AniDBConnectionResponse response;
-        while (timeoutCount++ < settings.maxTimeouts && !shutdown) {
-            try {
-                response = sendWithSession(operation, param, wait);
-                if (response != null
-                        && !operation.equals("LOGOUT")
-                        && (response.code == AniDBConnectionResponse.LOGIN_FIRST
-                                || response.code == AniDBConnectionResponse.INVALID_SESSION)) {
-                    login();
-                    return sendWithSession(operation, param, wait);
-                }
-                return response;
-            } catch (SocketTimeoutException ex) {
-                if (shutdown) {
-                    throw new AniDBException(AniDBException.CLIENT_SYSTEM, ex.getMessage());
-                }
-                generateTag();
-                error("Operation Failed: TIMEOUT or SERVER BUSY. Try #" + timeoutCount);
-                settings.packetDelay += 100;
-            } catch (IOException ex) {
-                if (shutdown) {
-                    throw new AniDBException(AniDBException.CLIENT_SYSTEM, ex.getMessage());
-                }
-                LOGGER.warning("IO Exception: " + ex.getMessage());
-                error("Operation Failed: IOEXCEPT: " + ex.getMessage());
-            }
-        }
-        if (shutdown) {
-            throw new AniDBException(AniDBException.CLIENT_SYSTEM, "Connection shutdown");
-        }
-        throw new AniDBException(AniDBException.ANIDB_UNREACHABLE, getLastError());
+    /** Asynchronous {@link #send(String, String, boolean)} that waits for the flood limiter. */
+    public CompletableFuture<AniDBConnectionResponse> sendAsync(String operation, String param) {
+        return sendAsync(operation, param, true);
     }
 
-    private AniDBConnectionResponse sendWithSession(String operation, String param, boolean wait)
-            throws IOException, AniDBException {
-        if (param != null) {
-            if (session != null) {
-                param += "&s=" + session;
+    /**
+     * Queue a request with the session attached. Several requests may be in flight at once; each is
+     * retried up to the configured number of timeouts. If the server has forgotten the session, the
+     * connection logs in again and repeats the request.
+     *
+     * @param wait whether to wait for the flood limiter before sending
+     * @return the reply; fails with {@link AniDBException} for error replies and with a
+     *     {@link SocketTimeoutException} when the server does not answer
+     */
+    public CompletableFuture<AniDBConnectionResponse> sendAsync(String operation, String param, boolean wait) {
+        if (operation == null) {
+            return CompletableFuture.failedFuture(new AniDBException(AniDBException.CLIENT_BUG));
+        }
+        String sessionUsed = session;
+        return submit(withSession(operation, param), settings.maxTimeouts, wait).thenCompose(response -> {
+            if (operation.equals("LOGOUT")
+                    || (response.code != AniDBConnectionResponse.LOGIN_FIRST
+                            && response.code != AniDBConnectionResponse.INVALID_SESSION)) {
+                return CompletableFuture.completedFuture(response);
             }
-        } else if (session != null) {
-            param = "s=" + session;
-        }
-        generateTag();
-        if (param != null) {
-            param += "&tag=" + currentTag;
-        } else {
-            param = "tag=" + currentTag;
-        }
-        return sendRaw(operation + " " + param, wait);
+            return CompletableFuture.runAsync(() -> relogin(sessionUsed))
+                    .thenCompose(ignored -> submit(withSession(operation, param), settings.maxTimeouts, wait));
+        });
     }
 
-    private AniDBConnectionResponse sendRaw(String command, boolean wait) throws IOException, AniDBException {
-        if (shutdown) {
-            return null;
-        }
-
-        keepAliveTimer.stop();
-        if (wait) {
+    /** Log in again unless another request already did since {@code sessionUsed} was rejected. */
+    private void relogin(String sessionUsed) {
+        synchronized (loginLock) {
+            String current = session;
+            if (current != null && !current.equals(sessionUsed)) {
+                return;
+            }
             try {
-                long timeDelta = System.currentTimeMillis() - timestamp;
-                timeDelta = (timeDelta / 100) * 100; // round down to nearest 100
-                if (timeDelta < settings.packetDelay) {
-                    debug("- Sleep: " + (settings.packetDelay - timeDelta));
-                    Thread.sleep(settings.packetDelay - timeDelta);
-                }
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                throw new AniDBException(AniDBException.CLIENT_SYSTEM, "Java: " + ex.getMessage());
+                login();
+            } catch (AniDBException ex) {
+                throw new CompletionException(ex);
             }
         }
+    }
 
-        if (shutdown) {
-            return null;
-        }
-
-        String censoredCommand = command;
-        int passwordIndex = censoredCommand.indexOf("pass=");
-        if (passwordIndex > 0) {
-            int ampersandIndex = censoredCommand.indexOf("&", passwordIndex);
-            if (ampersandIndex > 0) {
-                censoredCommand = censoredCommand.substring(0, passwordIndex + 5) + "xxxxx"
-                        + censoredCommand.substring(ampersandIndex);
-            }
+    private String withSession(String operation, String param) {
+        String sessionParam = session != null ? "s=" + session : null;
+        if (param == null) {
+            return sessionParam != null ? operation + " " + sessionParam : operation;
         }
-        debug("> " + censoredCommand);
-        byte[] outData = command.getBytes(encoding);
-        int length = outData.length;
+        return operation + " " + param + (sessionParam != null ? "&" + sessionParam : "");
+    }
 
-        if (encryptionKey != null) {
-            try {
-                cipher.init(Cipher.ENCRYPT_MODE, encryptionKey);
-                outData = cipher.doFinal(outData);
-                length = outData.length;
-            } catch (Exception ex) {
-                LOGGER.warning("Encryption failed: " + ex.getMessage());
-            }
+    private CompletableFuture<AniDBConnectionResponse> submit(String command, int maxAttempts, boolean wait) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(
+                    new AniDBException(AniDBException.CLIENT_SYSTEM, "Connection shutdown"));
         }
-
-        DatagramSocket activeSocket = socket;
-        InetAddress activeServerAddress = serverAddress;
-        if (activeSocket == null || activeSocket.isClosed() || activeServerAddress == null) {
-            throw new IOException("Socket closed");
+        UdpTransport activeTransport = transport;
+        if (activeTransport == null) {
+            return CompletableFuture.failedFuture(new IOException("Socket closed"));
         }
+        floodLimiter.configure(settings.packetDelay);
+        return activeTransport.submit(command, maxAttempts, wait);
+    }
 
-        DatagramPacket outPacket = new DatagramPacket(outData, length, activeServerAddress, settings.remotePort);
-        timestamp = System.currentTimeMillis();
-
-        activeSocket.send(outPacket);
-
-        int encIndex = command.indexOf("&enc=");
-        if (encIndex > 0) {
-            encIndex += 5;
-            int endIndex = command.indexOf('&', encIndex);
-            if (endIndex < 0) {
-                endIndex = command.length();
+    /** Wait for a reply, turning transport failures into the errors {@link #send} has always thrown. */
+    protected AniDBConnectionResponse awaitReply(CompletableFuture<AniDBConnectionResponse> reply)
+            throws AniDBException {
+        try {
+            return await(reply);
+        } catch (IOException ex) {
+            if (shutdown) {
+                throw new AniDBException(AniDBException.CLIENT_SYSTEM, ex.getMessage());
             }
-            encoding = command.substring(encIndex, endIndex);
+            if (!(ex instanceof SocketTimeoutException)) {
+                LOGGER.warning("IO Exception: " + ex.getMessage());
+                error("Operation Failed: IOEXCEPT: " + ex.getMessage());
+            }
+            throw new AniDBException(AniDBException.ANIDB_UNREACHABLE, getLastError());
         }
+    }
 
-        if (!shutdown) { // wait
-            AniDBConnectionResponse response = receive(activeSocket);
-            keepAliveTimer.start();
-            return response;
+    private static <T> T await(CompletableFuture<T> future) throws IOException, AniDBException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new AniDBException(AniDBException.CLIENT_SYSTEM, "Java: " + ex.getMessage());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof AniDBException aniDBException) {
+                throw aniDBException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new AniDBException(AniDBException.CLIENT_BUG, String.valueOf(cause));
         }
-        return null;
     }
 
-    private AniDBConnectionResponse receive(DatagramSocket activeSocket) throws IOException, AniDBException {
-        if (shutdown) {
-            return null;
-        }
-        if (activeSocket == null || activeSocket.isClosed()) {
-            throw new IOException("Socket closed");
+    /**
+     * Turn a decrypted datagram into response text: inflate it when the server compressed it (two
+     * leading zero bytes), decode it with the given charset and drop the trailing newline.
+     */
+    static String decodePayload(byte[] buffer, int length, String encoding) throws UnsupportedEncodingException {
+        DatagramCodec payloadCodec = new DatagramCodec();
+        payloadCodec.setEncoding(encoding);
+        try {
+            return payloadCodec.decode(buffer, 0, length);
+        } catch (AniDBException ex) {
+            throw new IllegalStateException("No key, nothing to decrypt", ex);
         }
+    }
 
-        int bufferSize = 2048 * 2;
-        byte[] buffer = new byte[bufferSize];
-        DatagramPacket inPacket = new DatagramPacket(buffer, bufferSize);
-
-        activeSocket.receive(inPacket);
-        timeUsed = System.currentTimeMillis() - timestamp;
-        timestamp += timeUsed / 2; // test, share used time
-
-        int length = inPacket.getLength();
-
-        if (encryptionKey != null) {
-            try {
-                cipher.init(Cipher.DECRYPT_MODE, encryptionKey);
-                buffer = cipher.doFinal(buffer, 0, length);
-                length = buffer.length;
-            } catch (Exception ex) {
-                debug("! Decryption failed: " + ex.getMessage());
-                encryptionKey = null;
-                cipher = null;
-                throw new AniDBException(AniDBException.ENCRYPTION);
+    /** Logs the traffic and keeps the keep-alive timer informed. */
+    private final class SessionEvents implements UdpTransport.Endpoint {
+        @Override
+        public void sending(String command, String tag) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                String censoredCommand = command;
+                int passwordIndex = censoredCommand.indexOf("pass=");
+                if (passwordIndex > 0) {
+                    int ampersandIndex = censoredCommand.indexOf("&", passwordIndex);
+                    if (ampersandIndex > 0) {
+                        censoredCommand = censoredCommand.substring(0, passwordIndex + 5) + "xxxxx"
+                                + censoredCommand.substring(ampersandIndex);
+                    }
+                }
+                if (tag != null) {
+                    // As sent, so logged sessions can be replayed by the local server
+                    censoredCommand += (command.indexOf(' ') > 0 ? "&" : " ") + "tag=" + tag;
+                }
+                debug("> " + censoredCommand);
             }
+            timestamp = System.currentTimeMillis();
+            keepAliveTimer.restart();
         }
-        if (buffer.length > 1 && buffer[0] == 0 && buffer[1] == 0) {
-            try {
-                Inflater decompressor = new Inflater();
-                decompressor.setInput(buffer, 2, length - 2);
-                byte[] result = new byte[length * 3];
-                length = decompressor.inflate(result);
-                decompressor.end();
-                buffer = result;
-            } catch (DataFormatException ex) {
-                LOGGER.warning("Decompression failed: " + ex.getMessage());
+
+        @Override
+        public void received(String reply) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                debug("< " + reply);
             }
         }
-        try {
-            byte[] rawData = new byte[length];
-            System.arraycopy(buffer, 0, rawData, 0, length);
-            String responseString = new String(rawData, encoding);
-            responseString = responseString.substring(0, responseString.length() - 1);
-            debug("< " + responseString);
-            return new AniDBConnectionResponse(currentTag, TAG_LENGTH, responseString);
-        } catch (TagMismatchException ex) {
-            debug("! Wrong tag! Should be: " + currentTag);
-            return receive(activeSocket);
+
+        @Override
+        public void timedOut(String command, int attempt, long backoffMillis) {
+            error("Operation Failed: TIMEOUT or SERVER BUSY. Try #" + attempt
+                    + (backoffMillis > 0 ? ", next in " + (backoffMillis + 999) / 1000 + " s" : ""));
         }
     }
 }
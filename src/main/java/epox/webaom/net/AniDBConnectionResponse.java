@@ -120,11 +120,15 @@ public class AniDBConnectionResponse {
     public static final int ENCODING_NOT_SUPPORTED = 510; // M
     public static final int BANNED = 555; // C
     public static final int INTERNAL_SERVER_ERROR = 600; // C
+    public static final int OUT_OF_SERVICE = 601; // C
     public static final int SERVER_BUSY = 602;
+    public static final int SERVER_TIMEOUT = 604;
     public int code = -1;
     public String message = null;
     public String data = null;
     public String tag;
+    /** Time from sending the request to receiving this reply, -1 if unknown. */
+    public long roundTripMillis = -1;
     //	UNKNOWN_COMMAND					=598, //C
 
     /*
@@ -146,7 +150,14 @@ public class AniDBConnectionResponse {
             throw new AniDBException(AniDBException.ANIDB_SERVER_ERROR, "Unexpected response");
         }
 
-        if ((code > 600 && code < 700) && code != 602) {
+        // Busy and timeout replies are retried like a lost packet, after a back-off
+        if (code == SERVER_BUSY || code == SERVER_TIMEOUT) {
+            throw new SocketTimeoutException(rawResponse.trim());
+        }
+        if (code == OUT_OF_SERVICE) {
+            throw new AniDBException(AniDBException.ANIDB_OUT_OF_SERVICE, rawResponse);
+        }
+        if (code > 600 && code < 700) {
             throw new AniDBException(AniDBException.ANIDB_SERVER_ERROR, rawResponse);
         }
 
@@ -158,7 +169,7 @@ public class AniDBConnectionResponse {
                 if (separatorIndex > 0) {
                     banReason = rawResponse.substring(separatorIndex + 1);
                 }
-                throw new AniDBException(AniDBException.CLIENT_USER, "Banned: " + banReason);
+                throw new AniDBException(AniDBException.BANNED, "Banned: " + banReason);
             case LOGIN_ACCEPTED:
             case LOGIN_ACCEPTED_NEW_VER:
                 separatorIndex = rawResponse.indexOf("LOGIN ACCEPTED");
@@ -172,8 +183,6 @@ public class AniDBConnectionResponse {
                 break;
             case ACCESS_DENIED:
                 throw new AniDBException(AniDBException.CLIENT_USER);
-            case SERVER_BUSY:
-                throw new SocketTimeoutException();
             case CLIENT_BANNED:
                 message = rawResponse.substring(4, 17);
                 // data = rawResponse.substring(18);
@@ -198,6 +207,5 @@ public class AniDBConnectionResponse {
     public String toString() {
         return code + " " + message + " [" + data + "]";
     }
-    //	ANIDB_OUT_OF_SERVICE			=601, //C
     //	API_VIOLATION					=666; //C
 }
@@ -26,6 +26,7 @@ public class AniDBException extends Exception {
     public static final int ANIDB_OUT_OF_SERVICE = 6;
     public static final int ANIDB_SERVER_ERROR = 7;
     public static final int ENCRYPTION = 8;
+    public static final int BANNED = 9;
 
     private final int code;
 
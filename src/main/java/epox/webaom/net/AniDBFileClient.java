@@ -24,11 +24,9 @@ import epox.swing.Log;
 import epox.util.StringUtilities;
 import epox.webaom.Job;
 import epox.webaom.data.Mylist;
+import java.util.concurrent.CompletableFuture;
 
 public class AniDBFileClient extends AniDBConnection {
-    /** Query parameters for file and anime data fields bitmasks */
-    private static final String FILE_AND_ANIME_CODES = "&fcode=123682590&acode=75435779";
-
     public AniDBFileClient(Log log, AniDBConnectionSettings settings) {
         super(log, settings);
     }
@@ -42,13 +40,46 @@ public class AniDBFileClient extends AniDBConnection {
     }
 
     public String[] retrieveFileData(long fileSize, String ed2kHash, String fileName) throws AniDBException {
-        String query = "size=" + fileSize + "&ed2k=" + ed2kHash + FILE_AND_ANIME_CODES;
-        String ed2kLink = "ed2k://|file|" + fileName + "|" + fileSize + "|" + ed2kHash + "|";
-        return retrieveFileData(send("FILE", query, true), ed2kLink);
+        return retrieveFileData(requestFileData(fileSize, ed2kHash), ed2kLink(fileSize, ed2kHash, fileName));
     }
 
     public String[] retrieveFileData(int fileId, String fileName) throws AniDBException {
-        return retrieveFileData(send("FILE", "fid=" + fileId + FILE_AND_ANIME_CODES, true), fileName);
+        return retrieveFileData(requestFileData(fileId), fileName);
+    }
+
+    /** Send a FILE request for all fields by size and ED2K hash without waiting for the reply. */
+    public CompletableFuture<AniDBConnectionResponse> requestFileData(long fileSize, String ed2kHash) {
+        return requestFileData(fileSize, ed2kHash, FileMask.FULL);
+    }
+
+    /** Send a FILE request by size and ED2K hash for the fields in {@code mask}. */
+    public CompletableFuture<AniDBConnectionResponse> requestFileData(long fileSize, String ed2kHash, FileMask mask) {
+        return sendAsync("FILE", "size=" + fileSize + "&ed2k=" + ed2kHash + mask.params());
+    }
+
+    /** Send a FILE request for all fields by file id without waiting for the reply. */
+    public CompletableFuture<AniDBConnectionResponse> requestFileData(int fileId) {
+        return requestFileData(fileId, FileMask.FULL);
+    }
+
+    /** Send a FILE request by file id for the fields in {@code mask}. */
+    public CompletableFuture<AniDBConnectionResponse> requestFileData(int fileId, FileMask mask) {
+        return sendAsync("FILE", "fid=" + fileId + mask.params());
+    }
+
+    /**
+     * Wait for the reply to a {@link #requestFileData} call.
+     *
+     * @param fileName name to report the file under if it is unknown
+     * @return the file's fields, or null if AniDB does not know the file
+     */
+    public String[] retrieveFileData(CompletableFuture<AniDBConnectionResponse> reply, String fileName)
+            throws AniDBException {
+        return retrieveFileData(awaitReply(reply), fileName);
+    }
+
+    public static String ed2kLink(long fileSize, String ed2kHash, String fileName) {
+        return "ed2k://|file|" + fileName + "|" + fileSize + "|" + ed2kHash + "|";
     }
 
     private String[] retrieveFileData(AniDBConnectionResponse response, String fileName) {
@@ -0,0 +1,318 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Turns commands into AniDB datagrams and datagrams back into reply text for one session: charset,
+ * {@code enc=} switch, AES encryption and the server's deflate compression.
+ *
+ * <p>All working memory is kept between packets. The charset encoder, the two ciphers and the
+ * {@link Inflater} are created once, the ciphers are initialised when the key changes rather than
+ * per packet, and the working arrays only grow, so after the first few packets a request costs no
+ * garbage beyond the reply {@code String}. The inflate buffer doubles whenever a reply needs more
+ * room, so highly compressed replies are never cut short.
+ *
+ * <p>Encoding and decoding keep separate state: {@link #encode} calls must not overlap each other,
+ * nor {@link #decode} calls, but one of each may run at the same time, as the transport's sender and
+ * receiver threads do. The charset and key are shared and only ever replaced.
+ */
+final class DatagramCodec {
+    private static final Logger LOGGER = Logger.getLogger(DatagramCodec.class.getName());
+
+    /**
+     * AES/ECB with PKCS#5 padding as the API requires, but the padding is added and removed here:
+     * the provider copies every packet into a new array when it handles the padding itself.
+     */
+    private static final String CIPHER = "AES/ECB/NoPadding";
+
+    private static final int CIPHER_BLOCK = 16;
+
+    private static final int INITIAL_SIZE = 2048;
+
+    private static final String ENCODING_PARAM = "&enc=";
+
+    private volatile Charset charset = StandardCharsets.US_ASCII;
+    private volatile SecretKeySpec key;
+
+    // Sender side
+    private CharBuffer commandChars = CharBuffer.allocate(INITIAL_SIZE);
+    private ByteBuffer encoded = ByteBuffer.allocate(INITIAL_SIZE);
+    private byte[] encrypted = new byte[INITIAL_SIZE + CIPHER_BLOCK];
+    private CharsetEncoder encoder;
+    private Cipher encryptCipher;
+    private SecretKeySpec encryptKey;
+
+    // Receiver side
+    private byte[] received = new byte[INITIAL_SIZE];
+    private byte[] decrypted = new byte[0];
+    private byte[] inflated = new byte[INITIAL_SIZE];
+    private final Inflater inflater = new Inflater();
+    private Cipher decryptCipher;
+    private SecretKeySpec decryptKey;
+
+    /** The charset of the session; replies are decoded with it and later commands encoded. */
+    void setEncoding(String encoding) throws UnsupportedEncodingException {
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException ex) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /** Encrypt from the next packet on, or stop encrypting with {@code null}. */
+    void setKey(SecretKeySpec key) {
+        this.key = key;
+    }
+
+    boolean isEncrypting() {
+        return key != null;
+    }
+
+    /**
+     * Write the datagram for a command to {@code out}, starting at its position. A command that
+     * switches the session charset with {@code enc=} is itself still sent in the previous one.
+     *
+     * @param tag appended as the {@code tag} parameter, or null to send the command as it is
+     * @throws BufferOverflowException if {@code out} has no room for the datagram
+     */
+    void encode(String command, String tag, ByteBuffer out) throws IOException {
+        int length = command.length() + (tag != null ? tag.length() + 5 : 0);
+        if (commandChars.capacity() < length) {
+            commandChars = CharBuffer.allocate(grow(commandChars.capacity(), length));
+        }
+        commandChars.clear().put(command);
+        if (tag != null) {
+            commandChars.put(command.indexOf(' ') > 0 ? '&' : ' ').put("tag=").put(tag);
+        }
+        commandChars.flip();
+        int size = encodeChars();
+
+        byte[] data = encoded.array();
+        SecretKeySpec current = key;
+        if (current != null) {
+            try {
+                if (encryptKey != current) {
+                    encryptKey = null;
+                    if (encryptCipher == null) {
+                        encryptCipher = Cipher.getInstance(CIPHER);
+                    }
+                    encryptCipher.init(Cipher.ENCRYPT_MODE, current);
+                    encryptKey = current;
+                }
+                int padded = pad(data, size);
+                if (encrypted.length < padded) {
+                    encrypted = new byte[grow(encrypted.length, padded)];
+                }
+                size = encryptCipher.doFinal(data, 0, padded, encrypted, 0);
+                data = encrypted;
+            } catch (GeneralSecurityException ex) {
+                encryptKey = null;
+                LOGGER.warning("Encryption failed: " + ex.getMessage());
+            }
+        }
+        out.put(data, 0, size);
+
+        int encodingIndex = command.indexOf(ENCODING_PARAM);
+        if (encodingIndex > 0) {
+            encodingIndex += ENCODING_PARAM.length();
+            int endIndex = command.indexOf('&', encodingIndex);
+            String encoding = command.substring(encodingIndex, endIndex < 0 ? command.length() : endIndex);
+            try {
+                setEncoding(encoding);
+            } catch (UnsupportedEncodingException ex) {
+                LOGGER.warning("Unsupported encoding, keeping " + charset.name() + ": " + encoding);
+            }
+        }
+    }
+
+    /** Encode {@link #commandChars} into {@link #encoded} with the session charset, growing it as needed. */
+    private int encodeChars() throws CharacterCodingException {
+        Charset current = charset;
+        if (encoder == null || !encoder.charset().equals(current)) {
+            // Unmappable characters become '?', as String.getBytes does
+            encoder = current.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        // Leave room for the padding in case the session is encrypted
+        int needed = (int) Math.ceil(commandChars.remaining() * (double) encoder.maxBytesPerChar()) + CIPHER_BLOCK;
+        if (encoded.capacity() < needed) {
+            encoded = ByteBuffer.allocate(grow(encoded.capacity(), needed));
+        }
+        encoder.reset();
+        encoded.clear();
+        CoderResult result = encoder.encode(commandChars, encoded, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(encoded);
+        }
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        return encoded.position();
+    }
+
+    /**
+     * Turn the datagram between the buffer's position and limit into reply text: decrypt it when
+     * the session is encrypted, inflate it when the server compressed it (two leading zero bytes),
+     * decode it with the session charset and drop the trailing newline.
+     *
+     * @throws AniDBException with {@link AniDBException#ENCRYPTION} when the datagram cannot be
+     *     decrypted; encryption is switched off then, since the server has evidently forgotten the key
+     */
+    String decode(ByteBuffer datagram) throws AniDBException {
+        int length = datagram.remaining();
+        if (received.length < length) {
+            received = new byte[grow(received.length, length)];
+        }
+        datagram.get(received, 0, length);
+        return decode(received, 0, length);
+    }
+
+    /** {@link #decode(ByteBuffer)} for an array. */
+    String decode(byte[] datagram, int offset, int length) throws AniDBException {
+        byte[] data = datagram;
+        SecretKeySpec current = key;
+        if (current != null) {
+            try {
+                if (decryptKey != current) {
+                    decryptKey = null;
+                    if (decryptCipher == null) {
+                        decryptCipher = Cipher.getInstance(CIPHER);
+                    }
+                    decryptCipher.init(Cipher.DECRYPT_MODE, current);
+                    decryptKey = current;
+                }
+                if (decrypted.length < length) {
+                    decrypted = new byte[grow(decrypted.length, length)];
+                }
+                length = unpad(decrypted, decryptCipher.doFinal(datagram, offset, length, decrypted, 0));
+                data = decrypted;
+                offset = 0;
+            } catch (GeneralSecurityException ex) {
+                LOGGER.fine("! Decryption failed: " + ex.getMessage());
+                decryptKey = null;
+                if (key == current) {
+                    key = null;
+                }
+                throw new AniDBException(AniDBException.ENCRYPTION);
+            }
+        }
+        if (length > 1 && data[offset] == 0 && data[offset + 1] == 0) {
+            int inflatedLength = inflate(data, offset + 2, length - 2);
+            if (inflatedLength >= 0) {
+                data = inflated;
+                offset = 0;
+                length = inflatedLength;
+            }
+        }
+        if (length == 0) {
+            return "";
+        }
+        if (data[offset + length - 1] == '\n' && isAsciiCompatible(charset)) {
+            return new String(data, offset, length - 1, charset);
+        }
+        String text = new String(data, offset, length, charset);
+        return text.substring(0, text.length() - 1);
+    }
+
+    /**
+     * Inflate into {@link #inflated}, doubling it until the whole reply fits.
+     *
+     * @return the inflated length, or -1 if the data is not valid deflate data
+     */
+    private int inflate(byte[] data, int offset, int length) {
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        int total = 0;
+        try {
+            while (!inflater.finished()) {
+                if (total == inflated.length) {
+                    byte[] larger = new byte[inflated.length * 2];
+                    System.arraycopy(inflated, 0, larger, 0, total);
+                    inflated = larger;
+                }
+                int count = inflater.inflate(inflated, total, inflated.length - total);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += count;
+            }
+        } catch (DataFormatException ex) {
+            LOGGER.warning("Decompression failed: " + ex.getMessage());
+            return -1;
+        }
+        return total;
+    }
+
+    /** Append PKCS#5 padding after {@code length} bytes; the array must have a block to spare. */
+    private static int pad(byte[] data, int length) {
+        int padding = CIPHER_BLOCK - length % CIPHER_BLOCK;
+        Arrays.fill(data, length, length + padding, (byte) padding);
+        return length + padding;
+    }
+
+    /** The length without PKCS#5 padding. */
+    private static int unpad(byte[] data, int length) throws BadPaddingException {
+        int padding = length > 0 ? data[length - 1] & 0xff : 0;
+        if (padding < 1 || padding > CIPHER_BLOCK || padding > length) {
+            throw new BadPaddingException("Invalid padding");
+        }
+        for (int i = length - padding; i < length - 1; i++) {
+            if (data[i] != (byte) padding) {
+                throw new BadPaddingException("Invalid padding");
+            }
+        }
+        return length - padding;
+    }
+
+    /** Whether a newline is the single byte 10 in this charset, so it can be cut before decoding. */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private static int grow(int capacity, int needed) {
+        return Math.max(needed, capacity * 2);
+    }
+}
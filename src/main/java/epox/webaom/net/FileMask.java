@@ -0,0 +1,89 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.net;
+
+/**
+ * Which parts of a {@code FILE} reply to ask for. The file fields are always requested; the
+ * group, episode and anime fields (the {@code acode} bits) can be left out when the client
+ * already has them, which keeps replies to a fraction of their size, mostly by dropping the
+ * anime titles and categories.
+ *
+ * <p>Fields come back in bit order: the {@value #FILE_FIELDS} file fields, then group name and
+ * short name, episode number and titles, and anime episode counts, years, type, titles and
+ * categories.
+ */
+public record FileMask(boolean group, boolean episode, boolean anime) {
+    /** File id, anime/episode/group/mylist ids, state, size, hashes, languages, codecs, length. */
+    public static final int FILE_CODE = 123682590;
+
+    /** Group name and short name. */
+    public static final int GROUP_CODE = 0x3;
+
+    /** Episode number and English, romaji and kanji titles. */
+    public static final int EPISODE_CODE = 0xF00;
+
+    /** Episode count, highest episode, years, type, romaji, kanji and English titles, categories. */
+    public static final int ANIME_CODE = 0x47F0000;
+
+    public static final int FILE_FIELDS = 20;
+
+    public static final int GROUP_FIELDS = Integer.bitCount(GROUP_CODE);
+
+    public static final int EPISODE_FIELDS = Integer.bitCount(EPISODE_CODE);
+
+    public static final int ANIME_FIELDS = Integer.bitCount(ANIME_CODE);
+
+    /** Everything, for files whose anime, episode and group are not known yet. */
+    public static final FileMask FULL = new FileMask(true, true, true);
+
+    public int animeCode() {
+        return (group ? GROUP_CODE : 0) | (episode ? EPISODE_CODE : 0) | (anime ? ANIME_CODE : 0);
+    }
+
+    /** Number of fields in a reply to a request with this mask. */
+    public int fieldCount() {
+        return FILE_FIELDS
+                + (group ? GROUP_FIELDS : 0)
+                + (episode ? EPISODE_FIELDS : 0)
+                + (anime ? ANIME_FIELDS : 0);
+    }
+
+    /** The mask parameters to append to a FILE request. */
+    public String params() {
+        int animeCode = animeCode();
+        return "&fcode=" + FILE_CODE + (animeCode != 0 ? "&acode=" + animeCode : "");
+    }
+
+    @Override
+    public String toString() {
+        if (equals(FULL)) {
+            return "full";
+        }
+        StringBuilder parts = new StringBuilder("file");
+        if (group) {
+            parts.append("+group");
+        }
+        if (episode) {
+            parts.append("+episode");
+        }
+        if (anime) {
+            parts.append("+anime");
+        }
+        return parts.toString();
+    }
+}
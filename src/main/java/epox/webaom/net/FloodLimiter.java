@@ -0,0 +1,269 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Paces the packets sent to the AniDB UDP API according to its flood protection rules: at most one
+ * packet every two seconds once the first five have gone out, and one every four seconds over an
+ * extended time. Each rule is a {@link TokenBucket}; a packet waits until both have a token.
+ *
+ * <p>The long-term interval is the user's packet delay setting. Its bucket holds
+ * {@link #LONG_TERM_BURST} packets, so a fresh batch is sent at the short-term rate for the first
+ * few minutes before it slows down to the sustained rate.
+ *
+ * <p>When the server stops answering or replies that it is busy, out of service or that the client
+ * is banned, the limiter empties both buckets and backs off for an exponentially growing, jittered
+ * time before the next packet. The API's limits apply per client, not per connection, so the
+ * application shares one limiter ({@link #shared()}) across reconnects.
+ */
+public class FloodLimiter implements FloodLimiterMXBean {
+    private static final Logger LOGGER = Logger.getLogger(FloodLimiter.class.getName());
+
+    public static final String OBJECT_NAME = "epox.webaom:type=NetIO";
+
+    /** Packets the server accepts before it enforces the short-term limit. */
+    public static final int SHORT_TERM_BURST = 5;
+
+    public static final long SHORT_TERM_INTERVAL_MS = 2000;
+
+    public static final long LONG_TERM_INTERVAL_MS = 4000;
+
+    /** Five minutes at the short-term rate before the long-term rate applies. */
+    public static final int LONG_TERM_BURST =
+            (int) (5 * 60 * 1000 * (1.0 / SHORT_TERM_INTERVAL_MS - 1.0 / LONG_TERM_INTERVAL_MS));
+
+    static final long MAX_BACKOFF_MS = 2 * 60 * 1000;
+
+    /** Back-offs are stretched by a random share of up to this much, so clients don't retry in step. */
+    static final double JITTER = 0.5;
+
+    private static final FloodLimiter SHARED = new FloodLimiter();
+
+    /** Sleeps for the limiter. Replaceable for tests. */
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private final Random random;
+    private TokenBucket shortTerm;
+    private TokenBucket longTerm;
+    private long sustainedIntervalMs = -1;
+    private long blockedUntil;
+    private int consecutiveThrottles;
+
+    private long packetsSent;
+    private long packetsDelayed;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private long backoffs;
+    private String lastDecision = "idle";
+
+    public FloodLimiter() {
+        this(System::currentTimeMillis, Thread::sleep, new Random());
+    }
+
+    FloodLimiter(LongSupplier clock, Sleeper sleeper, Random random) {
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.random = random;
+        configure(LONG_TERM_INTERVAL_MS);
+    }
+
+    /** The limiter all connections of this application share. */
+    public static FloodLimiter shared() {
+        return SHARED;
+    }
+
+    /** Publish the limiter's figures through the platform MBean server. Failures are logged, not thrown. */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            LOGGER.warning("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set the sustained interval between packets. The short-term interval is the documented two
+     * seconds, or the sustained interval if that is shorter; 0 turns all limits off, which is only
+     * meant for local test servers. The buckets start full again when the interval changes.
+     */
+    public synchronized void configure(long sustainedIntervalMillis) {
+        long interval = Math.max(0, sustainedIntervalMillis);
+        if (interval == sustainedIntervalMs) {
+            return;
+        }
+        sustainedIntervalMs = interval;
+        shortTerm = new TokenBucket(SHORT_TERM_BURST, Math.min(SHORT_TERM_INTERVAL_MS, interval));
+        longTerm = new TokenBucket(LONG_TERM_BURST, interval);
+    }
+
+    /**
+     * Wait until the next packet may be sent, then count it as sent.
+     *
+     * @return milliseconds waited
+     */
+    public long acquire() throws InterruptedException {
+        long waited = 0;
+        String firstReason = null;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                long now = clock.getAsLong();
+                long shortWait = shortTerm.waitMillis(now);
+                long longWait = longTerm.waitMillis(now);
+                long backoffWait = blockedUntil - now;
+                wait = Math.max(backoffWait, Math.max(shortWait, longWait));
+                if (wait <= 0) {
+                    count(now);
+                    if (waited > 0) {
+                        packetsDelayed++;
+                        totalWaitMillis += waited;
+                        maxWaitMillis = Math.max(maxWaitMillis, waited);
+                        lastDecision = "waited " + waited + " ms (" + firstReason + ")";
+                    } else {
+                        lastDecision = "sent without waiting";
+                    }
+                    return waited;
+                }
+                String reason;
+                if (wait == backoffWait) {
+                    reason = "back-off";
+                } else if (wait == longWait) {
+                    reason = "long-term limit";
+                } else {
+                    reason = "short-term limit";
+                }
+                if (firstReason == null) {
+                    firstReason = reason;
+                }
+                lastDecision = "waiting " + wait + " ms (" + reason + ")";
+            }
+            LOGGER.fine(() -> "Flood protection: " + getLastDecision());
+            sleeper.sleep(wait);
+            waited += wait;
+        }
+    }
+
+    /** Count a packet that is sent without waiting, such as the last-chance logout on exit. */
+    public synchronized void sentWithoutWaiting() {
+        count(clock.getAsLong());
+    }
+
+    private void count(long now) {
+        shortTerm.take(now);
+        longTerm.take(now);
+        packetsSent++;
+    }
+
+    /**
+     * The server did not answer or said it is overloaded or that the client is banned: hold off
+     * before the next packet.
+     *
+     * @param reason what happened, for the log
+     * @return the back-off in milliseconds, 0 when the limits are off
+     */
+    public synchronized long throttled(String reason) {
+        if (sustainedIntervalMs == 0) {
+            return 0;
+        }
+        consecutiveThrottles++;
+        long now = clock.getAsLong();
+        long backoff = Math.min(MAX_BACKOFF_MS, sustainedIntervalMs << Math.min(consecutiveThrottles - 1, 16));
+        backoff = Math.min(MAX_BACKOFF_MS, (long) (backoff * (1 + random.nextDouble() * JITTER)));
+        blockedUntil = Math.max(blockedUntil, now + backoff);
+        shortTerm.drain(now);
+        longTerm.drain(now);
+        backoffs++;
+        lastDecision = "backing off " + backoff + " ms after " + reason + " (#" + consecutiveThrottles + ")";
+        LOGGER.fine(() -> "Flood protection: " + lastDecision);
+        return backoff;
+    }
+
+    /** A reply came back; the next throttling signal starts the back-off from the bottom again. */
+    public synchronized void succeeded() {
+        consecutiveThrottles = 0;
+    }
+
+    @Override
+    public synchronized long getPacketsSent() {
+        return packetsSent;
+    }
+
+    @Override
+    public synchronized long getPacketsDelayed() {
+        return packetsDelayed;
+    }
+
+    @Override
+    public synchronized long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    @Override
+    public synchronized long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public synchronized long getBackoffs() {
+        return backoffs;
+    }
+
+    @Override
+    public synchronized long getSustainedIntervalMillis() {
+        return sustainedIntervalMs;
+    }
+
+    @Override
+    public synchronized double getShortTermTokens() {
+        return shortTerm.available(clock.getAsLong());
+    }
+
+    @Override
+    public synchronized double getLongTermTokens() {
+        return longTerm.available(clock.getAsLong());
+    }
+
+    @Override
+    public synchronized long getBackoffRemainingMillis() {
+        return Math.max(0, blockedUntil - clock.getAsLong());
+    }
+
+    @Override
+    public synchronized String getLastDecision() {
+        return lastDecision;
+    }
+
+    @Override
+    public synchronized void reset() {
+        packetsSent = 0;
+        packetsDelayed = 0;
+        totalWaitMillis = 0;
+        maxWaitMillis = 0;
+        backoffs = 0;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+/**
+ * JMX view of {@link FloodLimiter}, registered as {@value FloodLimiter#OBJECT_NAME}. Totals cover the
+ * whole run of the application, or everything since the last {@link #reset()}.
+ */
+public interface FloodLimiterMXBean {
+    long getPacketsSent();
+
+    /** Packets that had to wait for the rate limits or a back-off. */
+    long getPacketsDelayed();
+
+    long getTotalWaitMillis();
+
+    long getMaxWaitMillis();
+
+    /** Back-offs started after timeouts or throttling replies. */
+    long getBackoffs();
+
+    /** Sustained interval between packets, 0 when unlimited. */
+    long getSustainedIntervalMillis();
+
+    double getShortTermTokens();
+
+    double getLongTermTokens();
+
+    long getBackoffRemainingMillis();
+
+    /** What the limiter last decided and why, e.g. "waited 1400 ms (short-term limit)". */
+    String getLastDecision();
+
+    void reset();
+}
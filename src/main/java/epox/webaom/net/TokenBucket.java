@@ -0,0 +1,94 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+/**
+ * A token bucket: up to {@code capacity} packets may go out back to back, after which one more
+ * becomes available every {@code intervalMillis}. Time is passed in, so the bucket can be driven by
+ * a test clock. Not thread-safe; callers synchronize.
+ */
+public class TokenBucket {
+    private final int capacity;
+    private final long intervalMillis;
+    private double tokens;
+    private long updatedMillis = Long.MIN_VALUE;
+
+    /** A full bucket. An interval of 0 makes it unlimited. */
+    public TokenBucket(int capacity, long intervalMillis) {
+        if (capacity < 1 || intervalMillis < 0) {
+            throw new IllegalArgumentException("capacity " + capacity + ", interval " + intervalMillis);
+        }
+        this.capacity = capacity;
+        this.intervalMillis = intervalMillis;
+        this.tokens = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /** Tokens available at {@code nowMillis}, including fractions of the next one. */
+    public double available(long nowMillis) {
+        refill(nowMillis);
+        return tokens;
+    }
+
+    /** Milliseconds until a token is available, 0 if one is available now. */
+    public long waitMillis(long nowMillis) {
+        refill(nowMillis);
+        if (tokens >= 1 || intervalMillis == 0) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * intervalMillis);
+    }
+
+    /** Take a token if one is available. */
+    public boolean tryTake(long nowMillis) {
+        if (waitMillis(nowMillis) > 0) {
+            return false;
+        }
+        take(nowMillis);
+        return true;
+    }
+
+    /** Take a token even if none is available; the bucket goes into debt and refills from there. */
+    public void take(long nowMillis) {
+        refill(nowMillis);
+        if (intervalMillis > 0) {
+            tokens -= 1;
+        }
+    }
+
+    /** Empty the bucket, e.g. after the server has signalled that the client is sending too fast. */
+    public void drain(long nowMillis) {
+        refill(nowMillis);
+        tokens = Math.min(tokens, 0);
+    }
+
+    private void refill(long nowMillis) {
+        if (updatedMillis != Long.MIN_VALUE && nowMillis > updatedMillis && intervalMillis > 0) {
+            tokens = Math.min(capacity, tokens + (double) (nowMillis - updatedMillis) / intervalMillis);
+        }
+        if (updatedMillis == Long.MIN_VALUE || nowMillis > updatedMillis) {
+            updatedMillis = nowMillis;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends AniDB UDP API requests and matches the replies to them by tag, so several requests can be
+ * in flight at once.
+ *
+ * <p>Requests are queued and sent by one sender thread in the order they were submitted, each when
+ * the {@link FloodLimiter} allows it. Every packet gets a new tag, which the server echoes in its
+ * reply. A receiver thread looks the tag up and completes the request's future. A request that gets
+ * no reply within the timeout is sent again under a new tag, but its earlier tags stay valid: a late
+ * reply still answers the request it belongs to and is never taken for the answer to another one.
+ * Replies to requests that have already been answered are dropped.
+ *
+ * <p>The channel is non-blocking. The receiver thread waits on a {@link Selector} for replies or
+ * for the earliest deadline of a request in flight, whichever comes first, so timeouts need no
+ * thread or scheduled task of their own. Datagrams are sent from and received into direct buffers
+ * that live as long as the transport, and the {@link DatagramCodec} reuses its working memory too.
+ */
+class UdpTransport implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(UdpTransport.class.getName());
+
+    /** Digits in a tag; tags are {@code t} followed by a zero-padded counter. */
+    static final int TAG_LENGTH = 5;
+
+    private static final int TAG_LIMIT = 100_000;
+
+    /** Largest UDP payload, so a datagram is never truncated. */
+    private static final int MAX_DATAGRAM = 65_507;
+
+    /** Pause before sending again when the socket's send buffer is full. */
+    private static final long SEND_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Receives the session's events; the {@link DatagramCodec} does the actual encoding. */
+    interface Endpoint {
+        /** A command is about to be sent, under {@code tag} unless that is null. */
+        void sending(String command, String tag);
+
+        void received(String reply);
+
+        /** A request timed out or the server was busy, and will be tried again if attempts are left. */
+        void timedOut(String command, int attempt, long backoffMillis);
+    }
+
+    /** A submitted request and the tags it has been sent under. */
+    private static final class Request {
+        final String command;
+        final int maxAttempts;
+        final boolean paced;
+        final CompletableFuture<AniDBConnectionResponse> future = new CompletableFuture<>();
+        final List<String> tags = new ArrayList<>();
+        int attempt;
+        long sentMillis;
+        /** When the latest attempt times out, 0 while none is waiting for a reply. */
+        long deadline;
+
+        Request(String command, int maxAttempts, boolean paced) {
+            this.command = command;
+            this.maxAttempts = maxAttempts;
+            this.paced = paced;
+        }
+    }
+
+    private final DatagramChannel channel;
+    private final InetSocketAddress server;
+    private final FloodLimiter floodLimiter;
+    private final DatagramCodec codec;
+    private final Endpoint endpoint;
+    private final long timeoutMillis;
+    private final Selector selector;
+    private final LinkedBlockingDeque<Request> queue = new LinkedBlockingDeque<>();
+    /** Requests in flight by tag, oldest first. Guarded by {@code this}. */
+    private final Map<String, Request> pending = new LinkedHashMap<>();
+    /** Guards the send buffer and the codec's encoding side. */
+    private final Object sendLock = new Object();
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM);
+    private final Thread sender;
+    private final Thread receiver;
+    private int tagCounter;
+    private volatile boolean closed;
+    private volatile long lastRoundTripMillis = -1;
+
+    /**
+     * @param channel a bound channel; it is switched to non-blocking mode and must stay open until
+     *     after {@link #close()}
+     * @param server where to send requests
+     */
+    UdpTransport(
+            DatagramChannel channel,
+            InetSocketAddress server,
+            FloodLimiter floodLimiter,
+            DatagramCodec codec,
+            Endpoint endpoint,
+            long timeoutMillis)
+            throws IOException {
+        this.channel = channel;
+        this.server = server;
+        this.floodLimiter = floodLimiter;
+        this.codec = codec;
+        this.endpoint = endpoint;
+        this.timeoutMillis = timeoutMillis;
+        this.selector = Selector.open();
+        try {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            selector.close();
+            throw e;
+        }
+        this.sender = new Thread(this::sendLoop, "AniDB-send");
+        this.sender.setDaemon(true);
+        this.receiver = new Thread(this::receiveLoop, "AniDB-receive");
+        this.receiver.setDaemon(true);
+    }
+
+    void start() {
+        sender.start();
+        receiver.start();
+    }
+
+    /**
+     * Queue a request. The transport appends the tag.
+     *
+     * @param command the command with its parameters, e.g. {@code FILE fid=1&s=abcde}
+     * @param maxAttempts times to send it before giving up with a {@link SocketTimeoutException}
+     * @param paced whether to wait for the flood limiter
+     * @return the reply; fails with {@link AniDBException} on error replies
+     */
+    CompletableFuture<AniDBConnectionResponse> submit(String command, int maxAttempts, boolean paced) {
+        Request request = new Request(command, Math.max(1, maxAttempts), paced);
+        if (closed) {
+            request.future.completeExceptionally(new AniDBException(AniDBException.CLIENT_SYSTEM, "Connection closed"));
+        } else {
+            queue.add(request);
+        }
+        return request.future;
+    }
+
+    /** Send a command right away without a tag, waiting for the limiter or a reply, e.g. a last-chance logout. */
+    void sendOnce(String command) throws IOException {
+        floodLimiter.sentWithoutWaiting();
+        transmit(command, null);
+    }
+
+    /** Round trip of the most recent reply, -1 before the first. */
+    long getLastRoundTripMillis() {
+        return lastRoundTripMillis;
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    int getQueuedCount() {
+        return queue.size();
+    }
+
+    /** Stop the threads and fail everything not yet answered. The caller closes the channel. */
+    @Override
+    public void close() {
+        closed = true;
+        sender.interrupt();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.fine(() -> "Closing selector: " + e.getMessage());
+        }
+        AniDBException error = new AniDBException(AniDBException.CLIENT_SYSTEM, "Connection closed");
+        List<Request> unanswered = new ArrayList<>(queue);
+        queue.clear();
+        synchronized (this) {
+            unanswered.addAll(pending.values());
+            pending.clear();
+        }
+        for (Request request : unanswered) {
+            request.future.completeExceptionally(error);
+        }
+    }
+
+    private void sendLoop() {
+        while (!closed) {
+            Request request;
+            try {
+                request = queue.take();
+                if (request.future.isDone()) {
+                    continue; // cancelled by the caller
+                }
+                if (request.paced) {
+                    long waited = floodLimiter.acquire();
+                    if (waited > 0) {
+                        LOGGER.fine(() -> "- Flood protection: " + floodLimiter.getLastDecision());
+                    }
+                } else {
+                    floodLimiter.sentWithoutWaiting();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (AniDBConnection.isShutdown()) {
+                request.future.completeExceptionally(
+                        new AniDBException(AniDBException.CLIENT_SYSTEM, "Connection shutdown"));
+                continue;
+            }
+            send(request);
+        }
+    }
+
+    private void send(Request request) {
+        String tag;
+        synchronized (this) {
+            tag = nextTag();
+            request.tags.add(tag);
+            request.attempt++;
+            request.sentMillis = System.currentTimeMillis();
+            pending.put(tag, request);
+        }
+        try {
+            transmit(request.command, tag);
+            synchronized (this) {
+                if (!request.future.isDone() && !closed) {
+                    request.deadline = System.currentTimeMillis() + timeoutMillis;
+                }
+            }
+            selector.wakeup(); // the receiver may be waiting for a later deadline
+        } catch (IOException | RuntimeException e) {
+            finish(request);
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private void transmit(String command, String tag) throws IOException {
+        synchronized (sendLock) {
+            endpoint.sending(command, tag);
+            sendBuffer.clear();
+            codec.encode(command, tag, sendBuffer);
+            sendBuffer.flip();
+            // A non-blocking send only fails to go out while the socket's send buffer is full
+            while (channel.send(sendBuffer, server) == 0) {
+                LockSupport.parkNanos(SEND_RETRY_NANOS);
+                if (closed) {
+                    throw new ClosedChannelException();
+                }
+            }
+        }
+    }
+
+    private String nextTag() {
+        tagCounter = (tagCounter + 1) % TAG_LIMIT;
+        StringBuilder sb = new StringBuilder(String.valueOf(tagCounter));
+        while (sb.length() < TAG_LENGTH) {
+            sb.insert(0, '0');
+        }
+        return sb.insert(0, 't').toString();
+    }
+
+    /** Milliseconds until the earliest deadline, 0 when nothing is waiting for a reply. */
+    private synchronized long millisToNextDeadline(long now) {
+        long next = Long.MAX_VALUE;
+        for (Request request : pending.values()) {
+            if (request.deadline != 0) {
+                next = Math.min(next, request.deadline);
+            }
+        }
+        return next == Long.MAX_VALUE ? 0 : Math.max(1, next - now);
+    }
+
+    /** Retry or fail the requests whose latest attempt got no reply in time. */
+    private void expire(long now) {
+        List<Request> expired = null;
+        synchronized (this) {
+            for (Request request : pending.values()) {
+                if (request.deadline != 0 && request.deadline <= now) {
+                    request.deadline = 0; // also skips the request's other tags in this loop
+                    if (expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(request);
+                }
+            }
+        }
+        if (expired != null) {
+            for (Request request : expired) {
+                retry(request, "no reply to " + request.tags.get(request.tags.size() - 1));
+            }
+        }
+    }
+
+    /** Back off and queue the request again at the front, or fail it when out of attempts. */
+    private void retry(Request request, String reason) {
+        long backoff = floodLimiter.throttled(reason);
+        endpoint.timedOut(request.command, request.attempt, backoff);
+        if (request.attempt >= request.maxAttempts || closed) {
+            finish(request);
+            request.future.completeExceptionally(new SocketTimeoutException(reason));
+        } else {
+            queue.addFirst(request);
+        }
+    }
+
+    /** Forget every tag of a request, so late replies to it are dropped. */
+    private synchronized void finish(Request request) {
+        for (String tag : request.tags) {
+            pending.remove(tag);
+        }
+        request.deadline = 0;
+    }
+
+    private void receiveLoop() {
+        while (!closed) {
+            try {
+                selector.select(millisToNextDeadline(System.currentTimeMillis()));
+                selector.selectedKeys().clear();
+                receiveAll();
+            } catch (ClosedSelectorException | ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.warning("Receive failed: " + e.getMessage());
+            }
+            expire(System.currentTimeMillis());
+        }
+    }
+
+    /** Handle every datagram waiting on the channel. */
+    private void receiveAll() throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            if (channel.receive(receiveBuffer) == null) {
+                return;
+            }
+            receiveBuffer.flip();
+            String text;
+            try {
+                text = codec.decode(receiveBuffer);
+            } catch (AniDBException e) {
+                Request oldest = oldestPending();
+                if (oldest != null) {
+                    finish(oldest);
+                    oldest.future.completeExceptionally(e);
+                }
+                continue;
+            }
+            endpoint.received(text);
+            dispatch(text);
+        }
+    }
+
+    private synchronized Request oldestPending() {
+        return pending.isEmpty() ? null : pending.values().iterator().next();
+    }
+
+    private void dispatch(String text) {
+        String tag = text.length() > TAG_LENGTH + 1 && text.charAt(0) == 't' ? text.substring(0, TAG_LENGTH + 1) : null;
+        Request request;
+        synchronized (this) {
+            // Replies without a tag (e.g. to unparseable packets) go to the oldest request
+            request = tag != null ? pending.get(tag) : oldestPending();
+        }
+        if (request == null) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("! Dropped late or unknown reply: " + text);
+            }
+            return;
+        }
+        finish(request);
+        lastRoundTripMillis = System.currentTimeMillis() - request.sentMillis;
+        try {
+            AniDBConnectionResponse response = new AniDBConnectionResponse(tag, TAG_LENGTH, text);
+            response.roundTripMillis = lastRoundTripMillis;
+            floodLimiter.succeeded();
+            request.future.complete(response);
+        } catch (SocketTimeoutException e) {
+            retry(request, e.getMessage()); // server busy
+        } catch (AniDBException e) {
+            if (e.is(AniDBException.BANNED) || e.is(AniDBException.ANIDB_OUT_OF_SERVICE)) {
+                // Keep away from the server even if the user reconnects right away
+                floodLimiter.throttled(e.getMessage());
+            }
+            request.future.completeExceptionally(e);
+        } catch (TagMismatchException e) {
+            request.future.completeExceptionally(new AniDBException(AniDBException.CLIENT_BUG, "Tag mismatch"));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import epox.webaom.net.FloodLimiter;
+
+/**
+ * Packet rate limits a {@link LocalAniDBServer} enforces per client, modelled on the AniDB UDP API's
+ * flood protection: after a short burst, packets that come faster than the short-term interval, or
+ * faster than the long-term interval over an extended time, are dropped without a reply. A client
+ * that keeps sending while throttled gets banned and receives {@code 555 BANNED} until the ban runs
+ * out. Both limits are token buckets, the same model the client's {@link FloodLimiter} paces itself by.
+ *
+ * @param burst packets accepted back to back before the short-term interval applies
+ * @param shortTermIntervalMs time in which the short-term allowance grows by one packet
+ * @param longTermBurst packets accepted at the short-term rate before the long-term interval applies
+ * @param longTermIntervalMs time in which the long-term allowance grows by one packet, 0 for no limit
+ * @param banAfterDrops dropped packets after which the client is banned, 0 to never ban
+ * @param banMillis how long a ban lasts
+ */
+public record FloodPolicy(
+        int burst,
+        long shortTermIntervalMs,
+        int longTermBurst,
+        long longTermIntervalMs,
+        int banAfterDrops,
+        long banMillis) {
+
+    /** The limits documented for the real server: 5 free packets, then one per 2 s and one per 4 s in the long run. */
+    public static final FloodPolicy ANIDB = new FloodPolicy(
+            FloodLimiter.SHORT_TERM_BURST,
+            FloodLimiter.SHORT_TERM_INTERVAL_MS,
+            FloodLimiter.LONG_TERM_BURST,
+            FloodLimiter.LONG_TERM_INTERVAL_MS,
+            10,
+            30 * 60 * 1000L);
+
+    /** No limits at all, for throughput tests. */
+    public static final FloodPolicy OFF = new FloodPolicy(Integer.MAX_VALUE, 0, 1, 0, 0, 0);
+
+    public FloodPolicy {
+        if (burst < 1 || shortTermIntervalMs < 0 || longTermBurst < 1 || longTermIntervalMs < 0) {
+            throw new IllegalArgumentException("Invalid flood policy");
+        }
+    }
+
+    public boolean isOff() {
+        return burst == Integer.MAX_VALUE;
+    }
+}
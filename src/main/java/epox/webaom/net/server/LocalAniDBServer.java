@@ -0,0 +1,671 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import epox.webaom.net.FileMask;
+import epox.webaom.net.TokenBucket;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A stand-in for the AniDB UDP API ({@code api.anidb.net:9000}) that runs in-process on a local port,
+ * so the network layer can be tested and benchmarked offline.
+ *
+ * <p>It implements the commands WebAOM uses, as described in {@code docs/udp-api-definition.md}:
+ * AUTH, LOGOUT, ENCRYPT, FILE, MYLISTADD, MYLISTDEL and PING, with sessions bound to the client's
+ * address, tag echoing, the {@code enc}, {@code comp}, {@code nat} and {@code mtu} AUTH options and
+ * AES encryption. Users and files are registered up front; FILE replies carry whatever data line was
+ * registered, the field masks are not interpreted. {@link ReplyFixtures} can supply recorded replies
+ * instead, for any command except the session commands AUTH, LOGOUT, ENCRYPT and PING.
+ *
+ * <p>To look like a real network it can delay replies, drop a share of the requests and enforce a
+ * {@link FloodPolicy}. Requests are handled on one thread in arrival order; delayed replies are sent
+ * from a scheduler, so slow replies don't hold up other clients.
+ */
+public class LocalAniDBServer implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(LocalAniDBServer.class.getName());
+
+    /** Largest reply the real server sends; longer replies are compressed or truncated. */
+    public static final int DEFAULT_MTU = 1400;
+
+    private static final int MIN_MTU = 400;
+    private static final int MAX_PACKET = 4096;
+    private static final long DEFAULT_SESSION_TIMEOUT_MS = 35 * 60 * 1000L;
+    private static final String KEY_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<Integer, FileEntry> filesById = new ConcurrentHashMap<>();
+    private final Map<String, FileEntry> filesByHash = new ConcurrentHashMap<>();
+    private final Map<SocketAddress, Client> clients = new HashMap<>();
+    private final AtomicInteger nextListId = new AtomicInteger(1);
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong replied = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong banned = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private volatile int minLatencyMs;
+    private volatile int maxLatencyMs;
+    private volatile double packetLoss;
+    private volatile boolean compressAll;
+    private volatile FloodPolicy floodPolicy = FloodPolicy.ANIDB;
+    private volatile ReplyFixtures fixtures;
+    private volatile long sessionTimeoutMs = DEFAULT_SESSION_TIMEOUT_MS;
+    private Random random = new Random();
+    private volatile DatagramSocket socket;
+    private Thread receiver;
+    private ScheduledExecutorService sender;
+
+    /** Counters since the server was created. */
+    public record Stats(long received, long replied, long lost, long throttled, long banned, long discarded) {}
+
+    private record User(String name, String password, String apiKey, Map<Integer, Integer> mylist) {}
+
+    private record FileEntry(int fileId, long size, String ed2k, String data) {}
+
+    /** What the server remembers about one client address. */
+    private static final class Client {
+        FloodPolicy policy;
+        TokenBucket shortTerm;
+        TokenBucket longTerm;
+        long lastSeen;
+        long bannedUntil;
+        int drops;
+        User user;
+        String session;
+        Charset charset = StandardCharsets.US_ASCII;
+        boolean compression;
+        int mtu = DEFAULT_MTU;
+        SecretKeySpec key;
+        SecretKeySpec pendingKey;
+    }
+
+    /**
+     * Run the server on its own, e.g. to point the desktop or batch client at it:
+     * {@code LocalAniDBServer [--port 9000] [--latency 50[-200]] [--loss 0.01] [--no-flood]
+     * [--user name:password[:apikey]]... [--fixtures file]}. Without {@code --user} any
+     * {@code test} login with password {@code test} is accepted.
+     */
+    public static void main(String[] args) throws Exception {
+        LocalAniDBServer server = new LocalAniDBServer();
+        int port = 9000;
+        boolean userAdded = false;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(value);
+                case "--latency" -> {
+                    String[] bounds = value.split("-", 2);
+                    int min = Integer.parseInt(bounds[0]);
+                    server.setLatency(min, bounds.length > 1 ? Integer.parseInt(bounds[1]) : min);
+                }
+                case "--loss" -> server.setPacketLoss(Double.parseDouble(value));
+                case "--fixtures" -> server.setFixtures(ReplyFixtures.load(Path.of(value)));
+                case "--user" -> {
+                    String[] parts = value.split(":", 3);
+                    server.addUser(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : null);
+                    userAdded = true;
+                }
+                case "--no-flood" -> {
+                    server.setFloodPolicy(FloodPolicy.OFF);
+                    continue;
+                }
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+            i++;
+        }
+        if (!userAdded) {
+            server.addUser("test", "test", "test");
+        }
+        server.start(port);
+        System.out.println("Local AniDB server on 127.0.0.1:" + server.getPort() + ", Ctrl+C to stop");
+        Thread.currentThread().join();
+    }
+
+    /** Register an account. {@code apiKey} is needed for ENCRYPT and may be null. */
+    public void addUser(String name, String password, String apiKey) {
+        users.put(name.toLowerCase(Locale.ROOT), new User(name, password, apiKey, new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Register a file that FILE and MYLISTADD can find by id or by size and ED2K hash.
+     *
+     * @param data the data line of the {@code 220 FILE} reply, starting with the file id
+     */
+    public void addFile(int fileId, long size, String ed2k, String data) {
+        FileEntry entry = new FileEntry(fileId, size, ed2k.toLowerCase(Locale.ROOT), data);
+        filesById.put(fileId, entry);
+        filesByHash.put(size + "|" + entry.ed2k(), entry);
+    }
+
+    /** Delay every reply by a random time between the two bounds. */
+    public void setLatency(int minMillis, int maxMillis) {
+        minLatencyMs = Math.max(0, minMillis);
+        maxLatencyMs = Math.max(minLatencyMs, maxMillis);
+    }
+
+    /** Share of requests, 0 to 1, that are dropped as if lost on the way. */
+    public void setPacketLoss(double probability) {
+        packetLoss = Math.max(0, Math.min(1, probability));
+    }
+
+    /** Compress every reply to clients that sent {@code comp=1}, not only those above the MTU. */
+    public void setCompressAll(boolean compressAll) {
+        this.compressAll = compressAll;
+    }
+
+    public void setFloodPolicy(FloodPolicy policy) {
+        floodPolicy = policy;
+    }
+
+    public void setFixtures(ReplyFixtures fixtures) {
+        this.fixtures = fixtures;
+    }
+
+    /** Idle time after which a session is no longer valid; the real server uses 35 minutes. */
+    public void setSessionTimeout(long millis) {
+        sessionTimeoutMs = millis;
+    }
+
+    /** Seed the random source used for latency, packet loss, session keys and salts. */
+    public synchronized void setSeed(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Start listening.
+     *
+     * @param port UDP port to bind on the loopback address, 0 for any free port
+     */
+    public synchronized void start(int port) throws SocketException {
+        if (socket != null) {
+            throw new IllegalStateException("Already started");
+        }
+        socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LocalAniDBServer-send");
+            thread.setDaemon(true);
+            return thread;
+        });
+        receiver = new Thread(this::receiveLoop, "LocalAniDBServer");
+        receiver.setDaemon(true);
+        receiver.start();
+        LOGGER.info("Local AniDB server listening on " + socket.getLocalSocketAddress());
+    }
+
+    public synchronized int getPort() {
+        if (socket == null) {
+            throw new IllegalStateException("Not started");
+        }
+        return socket.getLocalPort();
+    }
+
+    public Stats getStats() {
+        return new Stats(
+                received.get(), replied.get(), lost.get(), throttled.get(), banned.get(), discarded.get());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (socket == null) {
+            return;
+        }
+        socket.close();
+        sender.shutdownNow();
+        try {
+            receiver.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        socket = null;
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[MAX_PACKET];
+        DatagramSocket activeSocket = socket;
+        while (!activeSocket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                activeSocket.receive(packet);
+            } catch (IOException e) {
+                if (!activeSocket.isClosed()) {
+                    LOGGER.warning("Receive failed: " + e.getMessage());
+                }
+                continue;
+            }
+            received.incrementAndGet();
+            try {
+                handle(packet.getSocketAddress(), Arrays.copyOf(packet.getData(), packet.getLength()));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to handle request", e);
+            }
+        }
+    }
+
+    private void handle(SocketAddress address, byte[] datagram) {
+        if (packetLoss > 0 && nextDouble() < packetLoss) {
+            lost.incrementAndGet();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Client client = clients.computeIfAbsent(address, a -> new Client());
+        if (client.session != null && now - client.lastSeen > sessionTimeoutMs) {
+            endSession(client);
+        }
+        client.lastSeen = now;
+
+        String request;
+        try {
+            byte[] plain = client.key != null ? crypt(Cipher.DECRYPT_MODE, client.key, datagram) : datagram;
+            request = new String(plain, client.charset).trim();
+        } catch (GeneralSecurityException e) {
+            discarded.incrementAndGet(); // unencrypted or garbled packet in an encrypted session
+            return;
+        }
+        int space = request.indexOf(' ');
+        String command = (space < 0 ? request : request.substring(0, space)).toUpperCase(Locale.ROOT);
+        Map<String, String> params = parseParams(space < 0 ? "" : request.substring(space + 1));
+        String tag = params.get("tag");
+
+        if (now < client.bannedUntil) {
+            banned.incrementAndGet();
+            send(address, client, tag, "555 BANNED\nFlood protection");
+            return;
+        }
+        if (!admit(address, client, now)) {
+            throttled.incrementAndGet();
+            return;
+        }
+
+        send(address, client, tag, reply(address, client, command, params));
+        afterReply(client, command);
+    }
+
+    /** Apply the flood policy to a packet; false if it must be dropped. */
+    private boolean admit(SocketAddress address, Client client, long now) {
+        FloodPolicy policy = floodPolicy;
+        if (policy.isOff()) {
+            return true;
+        }
+        if (client.policy != policy) {
+            client.policy = policy;
+            client.shortTerm = new TokenBucket(policy.burst(), policy.shortTermIntervalMs());
+            client.longTerm = new TokenBucket(policy.longTermBurst(), policy.longTermIntervalMs());
+        }
+        if (client.shortTerm.waitMillis(now) > 0 || client.longTerm.waitMillis(now) > 0) {
+            client.drops++;
+            if (policy.banAfterDrops() > 0 && client.drops >= policy.banAfterDrops()) {
+                client.bannedUntil = now + policy.banMillis();
+                client.drops = 0;
+                client.policy = null; // the allowance starts over once the ban runs out
+                LOGGER.info("Banned " + address + " for flooding");
+            }
+            return false;
+        }
+        client.shortTerm.take(now);
+        client.longTerm.take(now);
+        return true;
+    }
+
+    private String reply(SocketAddress address, Client client, String command, Map<String, String> params) {
+        switch (command) {
+            case "PING":
+                return "1".equals(params.get("nat"))
+                        ? "300 PONG\n" + ((InetSocketAddress) address).getPort()
+                        : "300 PONG";
+            case "AUTH":
+                return auth(address, client, params);
+            case "ENCRYPT":
+                return encrypt(client, params);
+            case "LOGOUT":
+                String sessionError = checkSession(client, params);
+                return sessionError != null ? sessionError : "203 LOGGED OUT";
+            default:
+                break;
+        }
+        String sessionError = checkSession(client, params);
+        if (sessionError != null) {
+            return sessionError;
+        }
+        ReplyFixtures recorded = fixtures;
+        String fixture = recorded != null ? recorded.next(command, params) : null;
+        if (fixture != null) {
+            return fixture;
+        }
+        return switch (command) {
+            case "FILE" -> file(params);
+            case "MYLISTADD" -> mylistAdd(client, params);
+            case "MYLISTDEL" -> mylistDelete(client, params);
+            default -> "598 UNKNOWN COMMAND";
+        };
+    }
+
+    private void afterReply(Client client, String command) {
+        if (client.pendingKey != null) {
+            client.key = client.pendingKey;
+            client.pendingKey = null;
+        }
+        if (command.equals("LOGOUT") && client.session != null) {
+            endSession(client);
+        }
+    }
+
+    private String auth(SocketAddress address, Client client, Map<String, String> params) {
+        String name = params.get("user");
+        String password = params.get("pass");
+        if (name == null || password == null || !params.containsKey("protover") || !params.containsKey("client")) {
+            return "505 ILLEGAL INPUT OR ACCESS DENIED";
+        }
+        User user = users.get(name.toLowerCase(Locale.ROOT));
+        if (user == null || !user.password().equals(password)) {
+            return "500 LOGIN FAILED";
+        }
+        client.user = user;
+        client.session = randomString(5);
+        client.compression = "1".equals(params.get("comp"));
+        String encoding = params.get("enc");
+        if (encoding != null && Charset.isSupported(encoding)) {
+            client.charset = Charset.forName(encoding);
+        }
+        String mtu = params.get("mtu");
+        if (mtu != null) {
+            try {
+                client.mtu = Math.max(MIN_MTU, Math.min(DEFAULT_MTU, Integer.parseInt(mtu)));
+            } catch (NumberFormatException e) {
+                return "505 ILLEGAL INPUT OR ACCESS DENIED";
+            }
+        }
+        if ("1".equals(params.get("nat"))) {
+            InetSocketAddress socketAddress = (InetSocketAddress) address;
+            return "200 " + client.session + " " + socketAddress.getAddress().getHostAddress() + ":"
+                    + socketAddress.getPort() + " LOGIN ACCEPTED";
+        }
+        return "200 " + client.session + " LOGIN ACCEPTED";
+    }
+
+    private String encrypt(Client client, Map<String, String> params) {
+        String name = params.get("user");
+        User user = name != null ? users.get(name.toLowerCase(Locale.ROOT)) : null;
+        if (user == null) {
+            return "394 NO SUCH USER";
+        }
+        if (user.apiKey() == null || user.apiKey().isEmpty()) {
+            return "309 API PASSWORD NOT DEFINED";
+        }
+        if (!"1".equals(params.get("type"))) {
+            return "509 NO SUCH ENCRYPTION TYPE";
+        }
+        String salt = randomString(8);
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            md5.update(user.apiKey().getBytes(StandardCharsets.US_ASCII));
+            md5.update(salt.getBytes(StandardCharsets.US_ASCII));
+            // The reply to ENCRYPT itself goes out in the clear; everything after it is encrypted
+            client.pendingKey = new SecretKeySpec(md5.digest(), "AES");
+        } catch (NoSuchAlgorithmException e) {
+            return "600 INTERNAL SERVER ERROR";
+        }
+        return "209 " + salt + " ENCRYPTION ENABLED";
+    }
+
+    /** Null if the request carries the client's current session, otherwise the error reply. */
+    private static String checkSession(Client client, Map<String, String> params) {
+        String session = params.get("s");
+        if (session == null) {
+            return "501 LOGIN FIRST";
+        }
+        if (client.session == null || !client.session.equals(session)) {
+            return "506 INVALID SESSION";
+        }
+        return null;
+    }
+
+    private void endSession(Client client) {
+        client.session = null;
+        client.user = null;
+        client.key = null;
+        client.charset = StandardCharsets.US_ASCII;
+        client.compression = false;
+        client.mtu = DEFAULT_MTU;
+    }
+
+    private String file(Map<String, String> params) {
+        FileEntry entry = findFile(params);
+        if (entry == null) {
+            return params.containsKey("fid") || params.containsKey("ed2k")
+                    ? "320 NO SUCH FILE"
+                    : "505 ILLEGAL INPUT OR ACCESS DENIED";
+        }
+        return "220 FILE\n" + masked(entry.data(), params);
+    }
+
+    /**
+     * Drop the group, episode and anime fields the request's {@code acode} did not ask for. Only data
+     * laid out like the client's full mask is cut; anything else is returned as registered.
+     */
+    private static String masked(String data, Map<String, String> params) {
+        String[] fields = data.split("\\|", -1);
+        if (fields.length != FileMask.FULL.fieldCount()) {
+            return data;
+        }
+        int animeCode;
+        try {
+            animeCode = Integer.parseInt(params.getOrDefault("acode", "0"));
+        } catch (NumberFormatException ex) {
+            return data;
+        }
+        StringJoiner reply = new StringJoiner("|");
+        int index = 0;
+        index = copy(fields, index, FileMask.FILE_FIELDS, true, reply);
+        index = copy(fields, index, FileMask.GROUP_FIELDS, (animeCode & FileMask.GROUP_CODE) != 0, reply);
+        index = copy(fields, index, FileMask.EPISODE_FIELDS, (animeCode & FileMask.EPISODE_CODE) != 0, reply);
+        copy(fields, index, FileMask.ANIME_FIELDS, (animeCode & FileMask.ANIME_CODE) != 0, reply);
+        return reply.toString();
+    }
+
+    private static int copy(String[] fields, int from, int count, boolean wanted, StringJoiner reply) {
+        if (wanted) {
+            for (int i = from; i < from + count; i++) {
+                reply.add(fields[i]);
+            }
+        }
+        return from + count;
+    }
+
+    private String mylistAdd(Client client, Map<String, String> params) {
+        boolean edit = "1".equals(params.get("edit"));
+        Map<Integer, Integer> mylist = client.user.mylist();
+        if (edit && params.containsKey("lid")) {
+            return mylist.containsValue(parseInt(params.get("lid")))
+                    ? "311 MYLIST ENTRY EDITED\n1"
+                    : "411 NO SUCH MYLIST ENTRY";
+        }
+        FileEntry entry = findFile(params);
+        if (entry == null) {
+            return "320 NO SUCH FILE";
+        }
+        Integer listId = mylist.get(entry.fileId());
+        if (listId == null) {
+            if (edit) {
+                return "411 NO SUCH MYLIST ENTRY";
+            }
+            listId = nextListId.getAndIncrement();
+            mylist.put(entry.fileId(), listId);
+            return "210 MYLIST ENTRY ADDED\n" + listId;
+        }
+        if (edit) {
+            return "311 MYLIST ENTRY EDITED\n1";
+        }
+        String state = params.getOrDefault("state", "0");
+        return "310 FILE ALREADY IN MYLIST\n" + listId + "|" + entry.fileId() + "|0|0|0|0|" + state + "|0|||||0";
+    }
+
+    private static String mylistDelete(Client client, Map<String, String> params) {
+        int listId = parseInt(params.get("lid"));
+        boolean removed = client.user.mylist().values().remove(listId);
+        return removed ? "211 MYLIST ENTRY DELETED\n1" : "411 NO SUCH MYLIST ENTRY";
+    }
+
+    private FileEntry findFile(Map<String, String> params) {
+        if (params.containsKey("fid")) {
+            return filesById.get(parseInt(params.get("fid")));
+        }
+        String size = params.get("size");
+        String ed2k = params.get("ed2k");
+        if (size == null || ed2k == null) {
+            return null;
+        }
+        return filesByHash.get(size + "|" + ed2k.toLowerCase(Locale.ROOT));
+    }
+
+    /** Encode, compress or truncate to the MTU, encrypt, and send the reply after the simulated latency. */
+    private void send(SocketAddress address, Client client, String tag, String reply) {
+        String text = (tag != null ? tag + " " : "") + reply + "\n";
+        byte[] payload = text.getBytes(client.charset);
+        if (client.compression && (compressAll || payload.length > client.mtu)) {
+            payload = deflate(payload);
+        } else if (payload.length > client.mtu) {
+            payload = Arrays.copyOf(payload, client.mtu);
+            payload[payload.length - 1] = '\n';
+        }
+        if (client.key != null) {
+            try {
+                payload = crypt(Cipher.ENCRYPT_MODE, client.key, payload);
+            } catch (GeneralSecurityException e) {
+                LOGGER.warning("Encryption failed: " + e.getMessage());
+                return;
+            }
+        }
+        DatagramPacket packet = new DatagramPacket(payload, payload.length, address);
+        int delay = minLatencyMs + (maxLatencyMs > minLatencyMs ? nextInt(maxLatencyMs - minLatencyMs + 1) : 0);
+        if (delay == 0) {
+            transmit(packet);
+        } else {
+            sender.schedule(() -> transmit(packet), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void transmit(DatagramPacket packet) {
+        DatagramSocket activeSocket = socket;
+        if (activeSocket == null) {
+            return;
+        }
+        try {
+            activeSocket.send(packet);
+            replied.incrementAndGet();
+        } catch (IOException e) {
+            // closed while the reply was pending
+        }
+    }
+
+    /** Zlib-compress a reply and prefix the two zero bytes that mark compressed datagrams. */
+    static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 16);
+        out.write(0);
+        out.write(0);
+        byte[] chunk = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("java:S5542") // ECB mode required by AniDB protocol
+    private static byte[] crypt(int mode, SecretKeySpec key, byte[] data) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(mode, key);
+        return cipher.doFinal(data);
+    }
+
+    /** Split {@code key=value&key=value} into a map; values are kept as sent. */
+    static Map<String, String> parseParams(String query) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                params.put(pair, "");
+            } else {
+                params.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return params;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return value != null ? Integer.parseInt(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private synchronized String randomString(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(KEY_CHARS.charAt(random.nextInt(KEY_CHARS.length())));
+        }
+        return text.toString();
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private synchronized int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+}
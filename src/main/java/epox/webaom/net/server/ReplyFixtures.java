@@ -0,0 +1,147 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recorded replies that a {@link LocalAniDBServer} plays back for matching requests.
+ *
+ * <p>The format is the request/reply trace {@link epox.webaom.net.AniDBConnection} writes at level
+ * FINE, so a real session can be recorded by turning that logger up and copying the lines:
+ *
+ * <pre>
+ * # comment
+ * &gt; FILE size=1024&amp;ed2k=70cd93f2ffe26c2fcf8fa4b4e9fde6f3&amp;fcode=123682590&amp;s=Ab3dE&amp;tag=t00007
+ * &lt; t00007 220 FILE
+ * 1021453|8069|117863|8853|...
+ * </pre>
+ *
+ * <p>A reply runs until the next request line, a blank or comment line or the end of the input.
+ * Requests are matched on the command and its parameters in any order, ignoring the session
+ * ({@code s}) and {@code tag}, whose values change between runs; the recorded tag is stripped from
+ * the reply. If the same request was recorded several times its replies are played in order,
+ * repeating the last one.
+ */
+public class ReplyFixtures {
+    private static final String REQUEST_PREFIX = "> ";
+    private static final String REPLY_PREFIX = "< ";
+
+    private final Map<String, List<String>> replies = new HashMap<>();
+    private final Map<String, Integer> played = new HashMap<>();
+
+    public static ReplyFixtures load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static ReplyFixtures parse(String text) {
+        try {
+            return parse(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringReader doesn't throw
+        }
+    }
+
+    public static ReplyFixtures parse(Reader input) throws IOException {
+        ReplyFixtures fixtures = new ReplyFixtures();
+        BufferedReader reader = new BufferedReader(input);
+        String request = null;
+        StringBuilder reply = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(REQUEST_PREFIX)) {
+                fixtures.addRecorded(request, reply);
+                request = line.substring(REQUEST_PREFIX.length()).trim();
+                reply = null;
+            } else if (line.startsWith(REPLY_PREFIX) && request != null && reply == null) {
+                reply = new StringBuilder(line.substring(REPLY_PREFIX.length()));
+            } else if (line.isBlank() || line.startsWith("#")) {
+                fixtures.addRecorded(request, reply);
+                request = null;
+                reply = null;
+            } else if (reply != null) {
+                reply.append('\n').append(line);
+            }
+        }
+        fixtures.addRecorded(request, reply);
+        return fixtures;
+    }
+
+    private void addRecorded(String request, StringBuilder reply) {
+        if (request == null || reply == null) {
+            return;
+        }
+        int space = request.indexOf(' ');
+        String command = space < 0 ? request : request.substring(0, space);
+        Map<String, String> params = LocalAniDBServer.parseParams(space < 0 ? "" : request.substring(space + 1));
+        String text = reply.toString();
+        String tag = params.get("tag");
+        if (tag != null && text.startsWith(tag + " ")) {
+            text = text.substring(tag.length() + 1);
+        }
+        add(command, params, text);
+    }
+
+    /**
+     * Add a reply for a request.
+     *
+     * @param reply the reply without tag and without trailing newline, e.g. {@code "220 FILE\n1|2|3"}
+     */
+    public synchronized void add(String command, Map<String, String> params, String reply) {
+        replies.computeIfAbsent(key(command, params), k -> new ArrayList<>()).add(reply);
+    }
+
+    /** The next recorded reply for a request, or null if none was recorded. */
+    public synchronized String next(String command, Map<String, String> params) {
+        String key = key(command, params);
+        List<String> recorded = replies.get(key);
+        if (recorded == null) {
+            return null;
+        }
+        int index = played.merge(key, 1, Integer::sum) - 1;
+        return recorded.get(Math.min(index, recorded.size() - 1));
+    }
+
+    public synchronized int size() {
+        int count = 0;
+        for (List<String> recorded : replies.values()) {
+            count += recorded.size();
+        }
+        return count;
+    }
+
+    private static String key(String command, Map<String, String> params) {
+        Map<String, String> sorted = new TreeMap<>(params);
+        sorted.remove("s");
+        sorted.remove("tag");
+        return command.toUpperCase(Locale.ROOT) + " " + sorted;
+    }
+}
@@ -16,6 +16,7 @@
 
 package epox.webaom.ui;
 
+import epox.webaom.LocalIdentifier;
 import epox.webaom.Options;
 import epox.webaom.net.AniDBConnection;
 import java.awt.Component;
@@ -44,6 +45,7 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
     public final JTextField hostTextField;
     public final JTextField remotePortTextField;
     public final JTextField localPortTextField;
+    private final JTextField localIdentifyDaysTextField;
 
     public ConnectionOptionsPanel() {
         super(new GridBagLayout());
@@ -64,6 +66,9 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
         hostTextField = new JTextField(AniDBConnection.DEFAULT_HOST);
         remotePortTextField = new JTextField("" + AniDBConnection.DEFAULT_REMOTE_PORT);
         localPortTextField = new JTextField("" + AniDBConnection.DEFAULT_LOCAL_PORT);
+        localIdentifyDaysTextField = new JTextField("" + LocalIdentifier.DEFAULT_MAX_AGE_DAYS);
+        localIdentifyDaysTextField.setToolTipText("Files AniDB identified before are identified from the database"
+                + " for this many days after their data was last fetched. 0 always asks AniDB.");
 
         KeyAdapter numericOnlyAdapter = new KeyAdapter() {
             @Override
@@ -75,6 +80,7 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
         };
         remotePortTextField.addKeyListener(numericOnlyAdapter);
         localPortTextField.addKeyListener(numericOnlyAdapter);
+        localIdentifyDaysTextField.addKeyListener(numericOnlyAdapter);
 
         natKeepAliveCheckbox = new JCheckBox("Keep-Alive");
 
@@ -101,6 +107,7 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
 
         add("Delay (sec)", delaySlider, constraints);
         add("Timeout (sec)", timeoutSlider, constraints);
+        add("Local ID (days)", localIdentifyDaysTextField, constraints);
 
         constraints.insets = new Insets(8, 4, 2, 4);
         constraints.anchor = GridBagConstraints.CENTER;
@@ -139,6 +146,10 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
         return delaySlider.getValue() * 1000;
     }
 
+    public int getLocalIdentifyDays() {
+        return LocalIdentifier.parseDays(localIdentifyDaysTextField.getText());
+    }
+
     public boolean isNatKeepAliveEnabled() {
         return natKeepAliveCheckbox.isSelected();
     }
@@ -160,6 +171,7 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
         options.setInteger(Options.INT_TIMEOUT, timeoutSlider.getValue());
         options.setInteger(Options.INT_DATAGRAM_DELAY, delaySlider.getValue());
         options.setBoolean(Options.BOOL_NAT_KEEP_ALIVE, natKeepAliveCheckbox.isSelected());
+        options.setString(Options.STR_LOCAL_IDENTIFY_DAYS, String.valueOf(getLocalIdentifyDays()));
     }
 
     public void loadOptions(Options options) {
@@ -184,5 +196,7 @@ public class ConnectionOptionsPanel extends JPanel implements ChangeListener {
         delaySlider.setValue(delay);
 
         natKeepAliveCheckbox.setSelected(options.getBoolean(Options.BOOL_NAT_KEEP_ALIVE));
+        localIdentifyDaysTextField.setText(
+                "" + LocalIdentifier.parseDays(options.getString(Options.STR_LOCAL_IDENTIFY_DAYS)));
     }
 }
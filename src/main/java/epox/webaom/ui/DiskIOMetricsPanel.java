@@ -0,0 +1,80 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.ui;
+
+import epox.webaom.DiskIOMetrics;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.function.Supplier;
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.JToggleButton;
+import javax.swing.Timer;
+
+/**
+ * Expandable view of {@link DiskIOMetrics} above the status bars. It is hidden until its toggle
+ * button is pressed, and only refreshes while shown.
+ */
+public class DiskIOMetricsPanel extends JPanel implements ActionListener {
+    private static final int REFRESH_INTERVAL_MS = 1000;
+
+    private final Supplier<DiskIOMetrics> metrics;
+    private final JTextArea textArea = new JTextArea(5, 40);
+    private final JToggleButton toggleButton = new JToggleButton("I/O");
+    private final Timer refreshTimer = new Timer(REFRESH_INTERVAL_MS, this);
+
+    public DiskIOMetricsPanel(Supplier<DiskIOMetrics> metrics) {
+        super(new BorderLayout());
+        this.metrics = metrics;
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, textArea.getFont().getSize()));
+        add(textArea, BorderLayout.CENTER);
+        setVisible(false);
+
+        toggleButton.setToolTipText("Show where DiskIO spends its time: reads, digests, moves and parsing");
+        toggleButton.addActionListener(event -> setExpanded(toggleButton.isSelected()));
+    }
+
+    /** Button that shows and hides this panel; placed by the owner next to the status bars. */
+    public JToggleButton getToggleButton() {
+        return toggleButton;
+    }
+
+    public void setExpanded(boolean expanded) {
+        toggleButton.setSelected(expanded);
+        if (expanded) {
+            refresh();
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        setVisible(expanded);
+        revalidate();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent event) {
+        refresh();
+    }
+
+    private void refresh() {
+        DiskIOMetrics current = metrics.get();
+        textArea.setText(current != null ? String.join("\n", current.describe()) : "DiskIO metrics are not available.");
+    }
+}
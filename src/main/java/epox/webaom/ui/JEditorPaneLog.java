@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import javax.swing.JEditorPane;
 import javax.swing.UIManager;
 
@@ -57,17 +58,27 @@ public class JEditorPaneLog extends JEditorPane implements Log {
 
     @Override
     public void println(Object message) {
+        printAll(List.of(message));
+    }
+
+    /** Log several lines with a single document refresh. */
+    public void printAll(List<?> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
         String formattedTime = HyperlinkBuilder.formatAsNumber(StringUtilities.time());
-        StringBuffer logLine = new StringBuffer(256);
-        logLine.append('[');
-        logLine.append(formattedTime);
-        logLine.append("] ");
-        logLine.append(message);
-        logLine.append("<br>\n");
-        append(logLine.toString());
+        StringBuilder logLines = new StringBuilder(256 * messages.size());
+        for (Object message : messages) {
+            logLines.append('[');
+            logLines.append(formattedTime);
+            logLines.append("] ");
+            logLines.append(message);
+            logLines.append("<br>\n");
+        }
+        append(logLines.toString());
 
         try {
-            logOutputStream.print(logLine);
+            logOutputStream.print(logLines);
         } catch (NullPointerException ignored) {
             // Log file not yet opened, ignore
         }
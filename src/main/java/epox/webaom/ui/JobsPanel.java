@@ -254,12 +254,17 @@ public class JobsPanel extends JPanel implements ActionListener {
         if (updateCounter % 4 == 0 && filterCheckboxes[INDEX_AUTO_UPDATE].isSelected()) {
             applyFilter();
         } else {
-            int topRow = scrollTable.getTopVisibleRow();
-            int bottomRow = scrollTable.getBottomVisibleRow();
+            refreshVisibleRows();
+        }
+    }
 
-            if (topRow >= 0 || bottomRow > topRow) {
-                tableModel.fireTableRowsUpdated(topRow, bottomRow);
-            }
+    /** Repaint the rows currently scrolled into view, e.g. to show hashing progress. */
+    public void refreshVisibleRows() {
+        int topRow = scrollTable.getTopVisibleRow();
+        int bottomRow = scrollTable.getBottomVisibleRow();
+
+        if (topRow >= 0 || bottomRow > topRow) {
+            tableModel.fireTableRowsUpdated(topRow, bottomRow);
         }
     }
 
@@ -19,11 +19,12 @@ package epox.webaom.ui;
 import epox.swing.FileChooserBuilder;
 import epox.swing.JPanelCommand;
 import epox.swing.JPanelDebug;
-import epox.swing.Log;
 import epox.util.StringUtilities;
 import epox.webaom.AppContext;
 import epox.webaom.Cache;
 import epox.webaom.ChiiEmu;
+import epox.webaom.Frontend;
+import epox.webaom.HashOptions;
 import epox.webaom.HyperlinkBuilder;
 import epox.webaom.Job;
 import epox.webaom.JobManager;
@@ -31,6 +32,7 @@ import epox.webaom.Options;
 import epox.webaom.Parser;
 import epox.webaom.data.Anime;
 import epox.webaom.data.Episode;
+import epox.webaom.data.Mylist;
 import epox.webaom.net.AniDBConnection;
 import epox.webaom.net.AniDBConnectionSettings;
 import epox.webaom.net.AniDBFileClient;
@@ -70,6 +72,7 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
@@ -82,7 +85,7 @@ import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
 
 public class MainPanel extends JPanel
-        implements Log, ActionListener, HyperlinkListener, ChangeListener, DropTargetListener {
+        implements Frontend, ActionListener, HyperlinkListener, ChangeListener, DropTargetListener {
 
     private static final Logger LOGGER = Logger.getLogger(MainPanel.class.getName());
     private static final int BUTTON_WIKI = 0;
@@ -120,7 +123,9 @@ public class MainPanel extends JPanel
     protected final Timer progressTimer;
     protected final Timer unfreezeTimer;
     protected final Timer guiUpdateTimer;
+    protected final Timer frameTimer;
     private final MainPanelRuntime runtime;
+    private final ProgressBus progressBus = new ProgressBus();
     private JTextField newExtensionTextField;
     private JEditorPaneLog logEditorPane;
     private JTextArea hashTextArea;
@@ -150,8 +155,10 @@ public class MainPanel extends JPanel
         progressTimer = runtime.createTimer(1000, this);
         unfreezeTimer = runtime.createTimer(1000 * 60 * 30, this);
         guiUpdateTimer = runtime.createTimer(500, this);
+        frameTimer = runtime.createTimer(ProgressBus.FRAME_INTERVAL_MS, this);
 
         progressTimer.start();
+        frameTimer.start();
         if (AppContext.opt.loadFromFile()) {
             loadOptions(AppContext.opt);
         } else {
@@ -496,11 +503,17 @@ public class MainPanel extends JPanel
         JPanel progressPanel = new JPanel(new GridLayout(2, 1));
         progressPanel.add(statusProgressBar);
         progressPanel.add(jobProgressBar);
+        DiskIOMetricsPanel diskIoMetricsPanel =
+                new DiskIOMetricsPanel(() -> AppContext.dio != null ? AppContext.dio.getMetrics() : null);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(diskIoMetricsPanel, BorderLayout.NORTH);
+        statusPanel.add(progressPanel, BorderLayout.CENTER);
+        statusPanel.add(diskIoMetricsPanel.getToggleButton(), BorderLayout.EAST);
         ////////////////////////////////// MAIN//////////////////////////////////
         setLayout(new BorderLayout());
         add(buttonsPanel, BorderLayout.NORTH);
         add(tabbedPane, BorderLayout.CENTER);
-        add(progressPanel, BorderLayout.SOUTH);
+        add(statusPanel, BorderLayout.SOUTH);
         ////////////////////////////////// END///////////////////////////////////
 
         // Enable drag-and-drop for the entire panel
@@ -514,10 +527,12 @@ public class MainPanel extends JPanel
      * //jobsTableModel.updateRow(j);
      * }
      */
+    @Override
     public void setDiskIoOptionsEnabled(boolean enabled) {
         miscOptionsPanel.setEnabled(enabled);
     }
 
+    @Override
     public void setNetworkIoOptionsEnabled(boolean enabled) {
         if (!isKilled()) {
             connectionOptionsPanel.setEnabled(enabled);
@@ -526,6 +541,7 @@ public class MainPanel extends JPanel
         }
     }
 
+    @Override
     public void setNetworkIoEnabled(boolean enabled) {
         if (!isKilled()) {
             if (enabled) {
@@ -538,6 +554,7 @@ public class MainPanel extends JPanel
         }
     }
 
+    @Override
     public void handleFatalError(boolean isFatal) {
         if (AppContext.isInteractionBlocked() && !isFatal) {
             return;
@@ -625,6 +642,8 @@ public class MainPanel extends JPanel
             openHyperlink("https://wiki.anidb.net/WebAOM");
         } else if (source == diskIoTimer) {
             startDiskIo();
+        } else if (source == frameTimer) {
+            applyFrame();
         } else if (source == progressTimer) {
             // System.err.println(A.frame.getFocusOwner());
             updateProgressBar();
@@ -726,6 +745,7 @@ public class MainPanel extends JPanel
     }
 
     ///////////////////////////////// DIV METH///////////////////////////////////
+    @Override
     public void toggleDiskIo() {
         MainPanelController.DiskToggleAction action =
                 MainPanelController.toggleDiskIo(isDiskIoRunning, LABEL_DISK_IO_ENABLE, LABEL_DISK_IO_DISABLE);
@@ -736,6 +756,13 @@ public class MainPanel extends JPanel
             diskIoTimer.start();
         } else {
             diskIoTimer.stop();
+            wakeDiskIo(); // let a parked DiskIO thread see that it should stop
+        }
+    }
+
+    private void wakeDiskIo() {
+        if (AppContext.dio != null) {
+            AppContext.dio.wakeUp();
         }
     }
 
@@ -784,14 +811,18 @@ public class MainPanel extends JPanel
         return false;
     }
 
+    @Override
     public void kill() {
         isKilled = true;
+        wakeDiskIo();
     }
 
+    @Override
     public boolean isDiskIoOk() {
         return isDiskIoRunning && !isKilled;
     }
 
+    @Override
     public boolean isNetworkIoOk() {
         return isNetworkIoRunning && !isKilled;
     }
@@ -800,6 +831,7 @@ public class MainPanel extends JPanel
         return isKilled;
     }
 
+    @Override
     public void showMessage(String msg) {
         AppContext.dialog("Message", msg);
     }
@@ -808,25 +840,25 @@ public class MainPanel extends JPanel
         DialogHelper.showMessageDialog(AppContext.component, msg, title, JOptionPane.WARNING_MESSAGE);
     }
 
+    /** Logs a line. Safe to call from any thread; other threads' lines show up with the next frame. */
     @Override
     public void println(Object message) {
-        logEditorPane.println(message.toString());
-        if (logEditorPane.isVisible()) {
-            javax.swing.SwingUtilities.invokeLater(jobScrollDownRunnable);
-        }
+        progressBus.println(message.toString());
+        flushOnEventThread();
     }
 
     /** Sets the status message in the main status bar. Required by Log interface. */
     @Override
     public void status0(String str) {
-        statusProgressBar.setString(str);
-        lastStatusMessage = str;
+        progressBus.status0(str);
+        flushOnEventThread();
     }
 
     /** Sets the status message in the job progress bar. Required by Log interface. */
     @Override
     public void status1(String str) {
-        jobProgressBar.setString(str);
+        progressBus.status1(str);
+        flushOnEventThread();
     }
 
     /** Alias for status0 - sets the status message in the main status bar. */
@@ -839,10 +871,91 @@ public class MainPanel extends JPanel
         status1(str);
     }
 
+    @Override
     public void printHash(String msg) {
         hashTextArea.append(msg + "\r\n");
     }
 
+    @Override
+    public void setProgress(int value) {
+        progressBus.setProgress(value);
+        flushOnEventThread();
+    }
+
+    @Override
+    public void diskIoStopped() {
+        diskIoThread = null;
+    }
+
+    @Override
+    public void networkIoStopped() {
+        networkIoThread = null;
+    }
+
+    @Override
+    public HashOptions getHashOptions() {
+        return miscOptionsPanel;
+    }
+
+    @Override
+    public Mylist getMylistData() {
+        return mylistOptionsPanel.getMylistData();
+    }
+
+    @Override
+    public int getLocalIdentifyDays() {
+        return connectionOptionsPanel.getLocalIdentifyDays();
+    }
+
+    @Override
+    public void invokeLater(Runnable task) {
+        SwingUtilities.invokeLater(task);
+    }
+
+    /** Updates published on the event dispatch thread itself are shown right away, in order. */
+    private void flushOnEventThread() {
+        if (SwingUtilities.isEventDispatchThread()) {
+            applyPublished();
+        }
+    }
+
+    /**
+     * One frame of {@link #frameTimer}: shows what the workers published since the last frame, the
+     * overall progress and, while DiskIO or NetIO is running, the current state of the visible job rows.
+     */
+    private void applyFrame() {
+        applyPublished();
+        if (AppContext.jobCounter != null) {
+            jobProgressBar.setValue(AppContext.jobCounter.getProgress());
+        }
+        if ((isDiskIoRunning || isNetworkIoRunning) && tabbedPane.getSelectedComponent() == jobsPanel) {
+            jobsPanel.refreshVisibleRows();
+        }
+    }
+
+    private void applyPublished() {
+        ProgressBus.Frame frame = progressBus.poll();
+        if (frame == null) {
+            return;
+        }
+        if (frame.status0() != null) {
+            statusProgressBar.setString(frame.status0());
+            lastStatusMessage = frame.status0();
+        }
+        if (frame.status1() != null) {
+            jobProgressBar.setString(frame.status1());
+        }
+        if (frame.hasProgress()) {
+            statusProgressBar.setValue(frame.progress());
+        }
+        if (!frame.lines().isEmpty()) {
+            logEditorPane.printAll(frame.lines());
+            if (logEditorPane.isVisible()) {
+                SwingUtilities.invokeLater(jobScrollDownRunnable);
+            }
+        }
+    }
+
     public void updateProgressBar() {
         jobProgressBar.setValue(AppContext.jobCounter.getProgress());
         if (AppContext.frame != null) {
@@ -866,6 +979,7 @@ public class MainPanel extends JPanel
         }
     }
 
+    @Override
     public AniDBFileClient createConnection() {
         AppContext.usetup = new AniDBConnectionSettings(
                 getHost(),
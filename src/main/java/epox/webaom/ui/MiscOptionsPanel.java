@@ -20,12 +20,10 @@ import epox.swing.FlatLafTheme;
 import epox.swing.ThemeComboBox;
 import epox.webaom.AppContext;
 import epox.webaom.DiskIOManager;
+import epox.webaom.FileMover;
+import epox.webaom.HashOptions;
+import epox.webaom.HashScheduler;
 import epox.webaom.Options;
-import epox.webaom.hash.Crc32Hash;
-import epox.webaom.hash.Ed2kHash;
-import epox.webaom.hash.Md5Hash;
-import epox.webaom.hash.Sha1Hash;
-import epox.webaom.hash.TthHash;
 import java.awt.Component;
 import java.awt.FlowLayout;
 import java.awt.GridBagConstraints;
@@ -33,15 +31,18 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.io.File;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.StringTokenizer;
 import javax.swing.Box;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 
-public class MiscOptionsPanel extends JPanel {
+public class MiscOptionsPanel extends JPanel implements HashOptions {
     public static final int HASH_ED2K = 0;
     public static final int HASH_CRC32 = 1;
     public static final int HASH_MD5 = 2;
@@ -53,8 +54,14 @@ public class MiscOptionsPanel extends JPanel {
     private final JCheckBox autoSaveCheckBox;
     private final JCheckBox autoRenameCheckBox;
     public final JCheckBox[] hashCheckBoxes = new JCheckBox[5];
+    private final JCheckBox hashPipelineCheckBox;
+    private final JCheckBox hashMemoryMapCheckBox;
+    private final JCheckBox hashAutotuneCheckBox;
+    private final JCheckBox hashReadAheadCheckBox;
     public JTextField newExtensionField;
     public final JTextField hashDirectoriesField;
+    public final JTextField hashDeviceLimitsField;
+    private final JComboBox<FileMover.VerifyPolicy> moveVerifyComboBox;
     public final JTextField browserPathField;
     public final JTextField databaseUrlField;
     public final JButton disconnectButton;
@@ -65,6 +72,8 @@ public class MiscOptionsPanel extends JPanel {
         super(new GridBagLayout());
 
         hashDirectoriesField = new JTextField();
+        hashDeviceLimitsField = new JTextField();
+        moveVerifyComboBox = new JComboBox<>(FileMover.VerifyPolicy.values());
         browserPathField = new JTextField();
         databaseUrlField = new JTextField();
         disconnectButton = new JButton("Disconnect");
@@ -74,6 +83,12 @@ public class MiscOptionsPanel extends JPanel {
         themeComboBox = new ThemeComboBox(AppContext.component);
 
         hashDirectoriesField.setToolTipText("Check these directories for new files every now and then");
+        hashDeviceLimitsField.setToolTipText("Files hashed at once per mount, e.g. /mnt/disk1=1;/mnt/nvme=6."
+                + " Other mounts: " + HashScheduler.ROTATIONAL_LIMIT + " for spinning disks, "
+                + HashScheduler.SOLID_STATE_LIMIT + " for SSDs, " + HashScheduler.UNKNOWN_LIMIT + " if unknown");
+        moveVerifyComboBox.setToolTipText(
+                "How files copied to another drive are checked before the original is deleted: hash the data"
+                        + " as it is copied (one pass), read the copy back (two passes) or trust the copy");
         browserPathField.setToolTipText("Absolute path to preferred browser");
         databaseUrlField.setToolTipText(
                 "JDBC url (e.g. jdbc:postgresql://localhost:5432/webaom?user=root&password=pass)."
@@ -90,6 +105,18 @@ public class MiscOptionsPanel extends JPanel {
         autoRenameCheckBox.setToolTipText("Automatically rename/move files after identification");
         storePasswordCheckBox = new JCheckBox("Store password");
         storePasswordCheckBox.setToolTipText("Do you want to store your password on disk? (not cleartext)");
+        hashPipelineCheckBox = new JCheckBox("Parallel digests", true);
+        hashPipelineCheckBox.setToolTipText(
+                "Compute each selected checksum on its own CPU core (faster when several are selected)"
+                        + " and spread TTH over all cores");
+        hashMemoryMapCheckBox = new JCheckBox("Map large files");
+        hashMemoryMapCheckBox.setToolTipText(
+                "Hash files over 64 MB through memory-mapped windows instead of read calls");
+        hashAutotuneCheckBox = new JCheckBox("Auto-tune");
+        hashAutotuneCheckBox.setToolTipText(
+                "Adjust how many files are hashed at once from measured throughput and CPU load");
+        hashReadAheadCheckBox = new JCheckBox("Read ahead", true);
+        hashReadAheadCheckBox.setToolTipText("Read the next part of a file while the current one is being hashed");
 
         GridBagConstraints constraints = new GridBagConstraints();
         constraints.insets = new Insets(2, 4, 2, 4);
@@ -98,6 +125,8 @@ public class MiscOptionsPanel extends JPanel {
         constraints.weighty = 0.0;
 
         addLabeledComponent("Hash Dirs", hashDirectoriesField, constraints);
+        addLabeledComponent("Device Limits", hashDeviceLimitsField, constraints);
+        addLabeledComponent("Move Check", moveVerifyComboBox, constraints);
         addLabeledComponent("Browser Path", browserPathField, constraints);
 
         // Database row with disconnect button
@@ -121,6 +150,10 @@ public class MiscOptionsPanel extends JPanel {
         }
         hashCheckBoxes[HASH_ED2K].setSelected(true);
         hashCheckBoxes[HASH_ED2K].setEnabled(false);
+        hashOptionsPanel.add(hashPipelineCheckBox);
+        hashOptionsPanel.add(hashMemoryMapCheckBox);
+        hashOptionsPanel.add(hashAutotuneCheckBox);
+        hashOptionsPanel.add(hashReadAheadCheckBox);
 
         JPanel booleanOptionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 0));
         booleanOptionsPanel.add(autoLoadDatabaseCheckBox);
@@ -182,6 +215,36 @@ public class MiscOptionsPanel extends JPanel {
         return storePasswordCheckBox.isSelected();
     }
 
+    @Override
+    public boolean isHashPipelineEnabled() {
+        return hashPipelineCheckBox.isSelected();
+    }
+
+    @Override
+    public boolean isHashMemoryMapEnabled() {
+        return hashMemoryMapCheckBox.isSelected();
+    }
+
+    @Override
+    public boolean isHashAutotuneEnabled() {
+        return hashAutotuneCheckBox.isSelected();
+    }
+
+    @Override
+    public boolean isHashReadAheadEnabled() {
+        return hashReadAheadCheckBox.isSelected();
+    }
+
+    @Override
+    public String getHashDeviceLimits() {
+        return hashDeviceLimitsField.getText();
+    }
+
+    @Override
+    public FileMover.VerifyPolicy getMoveVerifyPolicy() {
+        return (FileMover.VerifyPolicy) moveVerifyComboBox.getSelectedItem();
+    }
+
     public File[] getHashDirectories() {
         StringTokenizer tokenizer = new StringTokenizer(hashDirectoriesField.getText(), ";");
         File[] directories = new File[tokenizer.countTokens()];
@@ -194,9 +257,14 @@ public class MiscOptionsPanel extends JPanel {
     @Override
     public void setEnabled(boolean enabled) {
         hashDirectoriesField.setEnabled(enabled);
+        hashDeviceLimitsField.setEnabled(enabled);
         for (int i = 1; i < hashCheckBoxes.length; i++) {
             hashCheckBoxes[i].setEnabled(enabled);
         }
+        hashPipelineCheckBox.setEnabled(enabled);
+        hashMemoryMapCheckBox.setEnabled(enabled);
+        hashAutotuneCheckBox.setEnabled(enabled);
+        hashReadAheadCheckBox.setEnabled(enabled);
     }
 
     public void saveToOptions(Options options) {
@@ -204,6 +272,10 @@ public class MiscOptionsPanel extends JPanel {
         options.setBoolean(Options.BOOL_HASH_MD5, hashCheckBoxes[HASH_MD5].isSelected());
         options.setBoolean(Options.BOOL_HASH_SHA, hashCheckBoxes[HASH_SHA1].isSelected());
         options.setBoolean(Options.BOOL_HASH_TTH, hashCheckBoxes[HASH_TTH].isSelected());
+        options.setBoolean(Options.BOOL_HASH_PIPELINE, hashPipelineCheckBox.isSelected());
+        options.setBoolean(Options.BOOL_HASH_MMAP, hashMemoryMapCheckBox.isSelected());
+        options.setBoolean(Options.BOOL_HASH_AUTOTUNE, hashAutotuneCheckBox.isSelected());
+        options.setBoolean(Options.BOOL_HASH_READ_AHEAD, hashReadAheadCheckBox.isSelected());
         options.setBoolean(Options.BOOL_STORE_PASSWORD, storePasswordCheckBox.isSelected());
         options.setBoolean(Options.BOOL_AUTO_LOAD_DATABASE, autoLoadDatabaseCheckBox.isSelected());
         options.setBoolean(Options.BOOL_AUTO_LOG, autoLogCheckBox.isSelected());
@@ -211,6 +283,8 @@ public class MiscOptionsPanel extends JPanel {
         options.setBoolean(Options.BOOL_AUTO_RENAME, autoRenameCheckBox.isSelected());
 
         options.setString(Options.STR_HASH_DIRECTORY, hashDirectoriesField.getText());
+        options.setString(Options.STR_HASH_DEVICE_LIMITS, hashDeviceLimitsField.getText());
+        options.setString(Options.STR_MOVE_VERIFY, getMoveVerifyPolicy().getOptionValue());
         options.setString(Options.STR_BROWSER, browserPathField.getText());
         options.setString(Options.STR_DATABASE_URL, databaseUrlField.getText());
         options.setString(Options.STR_LOG_FILE, logFilePathField.getText());
@@ -223,6 +297,10 @@ public class MiscOptionsPanel extends JPanel {
         hashCheckBoxes[HASH_MD5].setSelected(options.getBoolean(Options.BOOL_HASH_MD5));
         hashCheckBoxes[HASH_SHA1].setSelected(options.getBoolean(Options.BOOL_HASH_SHA));
         hashCheckBoxes[HASH_TTH].setSelected(options.getBoolean(Options.BOOL_HASH_TTH));
+        hashPipelineCheckBox.setSelected(options.getBoolean(Options.BOOL_HASH_PIPELINE));
+        hashMemoryMapCheckBox.setSelected(options.getBoolean(Options.BOOL_HASH_MMAP));
+        hashAutotuneCheckBox.setSelected(options.getBoolean(Options.BOOL_HASH_AUTOTUNE));
+        hashReadAheadCheckBox.setSelected(options.getBoolean(Options.BOOL_HASH_READ_AHEAD));
         storePasswordCheckBox.setSelected(options.getBoolean(Options.BOOL_STORE_PASSWORD));
         autoLoadDatabaseCheckBox.setSelected(options.getBoolean(Options.BOOL_AUTO_LOAD_DATABASE));
         autoLogCheckBox.setSelected(options.getBoolean(Options.BOOL_AUTO_LOG));
@@ -230,6 +308,9 @@ public class MiscOptionsPanel extends JPanel {
         autoRenameCheckBox.setSelected(options.getBoolean(Options.BOOL_AUTO_RENAME));
 
         hashDirectoriesField.setText(options.getString(Options.STR_HASH_DIRECTORY));
+        hashDeviceLimitsField.setText(options.getString(Options.STR_HASH_DEVICE_LIMITS));
+        moveVerifyComboBox.setSelectedItem(
+                FileMover.VerifyPolicy.fromOptionValue(options.getString(Options.STR_MOVE_VERIFY)));
         browserPathField.setText(options.getString(Options.STR_BROWSER));
         databaseUrlField.setText(options.getString(Options.STR_DATABASE_URL));
         logFilePathField.setText(options.getString(Options.STR_LOG_FILE));
@@ -253,31 +334,15 @@ public class MiscOptionsPanel extends JPanel {
         return createChecksums();
     }
 
-    /**
-     * Create a new set of checksum algorithms for a single hashing task.
-     * Each call creates fresh instances since hash algorithms are NOT thread-safe.
-     * This method should be called once per HashTask worker.
-     *
-     * @return a new LinkedHashMap of checksum algorithms; always contains at least "ed2k"
-     */
-    public LinkedHashMap<String, DiskIOManager.ChecksumData> createChecksums() {
-        LinkedHashMap<String, DiskIOManager.ChecksumData> checksums = new LinkedHashMap<>();
-
-        if (hashCheckBoxes[HASH_ED2K].isSelected()) {
-            checksums.put("ed2k", new DiskIOManager.ChecksumData("ed2k", new Ed2kHash()));
-        }
-        if (hashCheckBoxes[HASH_CRC32].isSelected()) {
-            checksums.put("crc32", new DiskIOManager.ChecksumData("crc32", new Crc32Hash()));
-        }
-        if (hashCheckBoxes[HASH_MD5].isSelected()) {
-            checksums.put("md5", new DiskIOManager.ChecksumData("md5", new Md5Hash()));
-        }
-        if (hashCheckBoxes[HASH_SHA1].isSelected()) {
-            checksums.put("sha1", new DiskIOManager.ChecksumData("sha1", new Sha1Hash()));
-        }
-        if (hashCheckBoxes[HASH_TTH].isSelected()) {
-            checksums.put("tth", new DiskIOManager.ChecksumData("tth", new TthHash()));
+    /** Names of the selected checksums, as used as keys by {@link #createChecksums()}. */
+    @Override
+    public Set<String> getChecksumNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < hashCheckBoxes.length; i++) {
+            if (hashCheckBoxes[i].isSelected()) {
+                names.add(getHashName(i));
+            }
         }
-        return checksums;
+        return names;
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hand-over point between the worker threads and the Swing components that show their progress.
+ *
+ * <p>Workers publish the latest status text and progress value without locking and without touching
+ * Swing. A single timer on the event dispatch thread takes a {@link Frame} at a fixed rate and applies
+ * it, so any number of updates between two frames costs one repaint. Status text and progress only
+ * keep their latest value; log lines are queued, since each of them has to be shown.
+ */
+public class ProgressBus {
+    /** Frames per second the UI samples the bus at. */
+    public static final int FRAME_RATE = 10;
+
+    public static final int FRAME_INTERVAL_MS = 1000 / FRAME_RATE;
+
+    /** Log lines taken per frame, so a burst of output cannot stall the event dispatch thread. */
+    static final int MAX_LINES_PER_FRAME = 500;
+
+    private static final int UNCHANGED = -1;
+
+    private final AtomicReference<String> status0 = new AtomicReference<>();
+    private final AtomicReference<String> status1 = new AtomicReference<>();
+    private final AtomicInteger progress = new AtomicInteger(UNCHANGED);
+    private final ConcurrentLinkedQueue<Object> lines = new ConcurrentLinkedQueue<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    /**
+     * What changed since the previous frame.
+     *
+     * @param status0 latest main status text, or null if unchanged
+     * @param status1 latest job status text, or null if unchanged
+     * @param progress latest progress value, or -1 if unchanged
+     * @param lines log lines in the order they were published
+     */
+    public record Frame(String status0, String status1, int progress, List<Object> lines) {
+        public boolean hasProgress() {
+            return progress != UNCHANGED;
+        }
+    }
+
+    public void status0(String text) {
+        status0.set(text);
+        published.incrementAndGet();
+    }
+
+    public void status1(String text) {
+        status1.set(text);
+        published.incrementAndGet();
+    }
+
+    public void setProgress(int value) {
+        progress.set(Math.max(0, value));
+        published.incrementAndGet();
+    }
+
+    public void println(Object message) {
+        lines.add(message);
+        published.incrementAndGet();
+    }
+
+    /**
+     * Take everything published since the last call.
+     *
+     * @return the changes, or null if nothing was published
+     */
+    public Frame poll() {
+        String latestStatus0 = status0.getAndSet(null);
+        String latestStatus1 = status1.getAndSet(null);
+        int latestProgress = progress.getAndSet(UNCHANGED);
+        List<Object> pendingLines = List.of();
+        if (!lines.isEmpty()) {
+            pendingLines = new ArrayList<>();
+            Object line;
+            while (pendingLines.size() < MAX_LINES_PER_FRAME && (line = lines.poll()) != null) {
+                pendingLines.add(line);
+            }
+        }
+        if (latestStatus0 == null && latestStatus1 == null && latestProgress == UNCHANGED && pendingLines.isEmpty()) {
+            return null;
+        }
+        frames.incrementAndGet();
+        return new Frame(latestStatus0, latestStatus1, latestProgress, pendingLines);
+    }
+
+    /** Number of updates published so far. */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /** Number of non-empty frames taken so far. */
+    public long getFrameCount() {
+        return frames.get();
+    }
+}
@@ -18,27 +18,28 @@ package epox.webaom.ui.actions.jobs;
 
 public enum JobActionCommand {
     PAUSE(0, "Pause", false, false),
-    SEPARATOR_0(1, null, false, true),
-    SHOW_INFO(2, "Show Info", true, false),
-    WATCH_NOW(3, "Watch Now", true, false),
-    EXPLORER(4, "Explore Folder", true, false),
-    SEPARATOR_1(5, null, false, true),
-    REHASH(6, "Rehash", false, false),
-    REID(7, "Identify", false, false),
-    READD(8, "Add to mylist", false, false),
-    REMOVE_FROM_MYLIST(9, "Remove from AniDB MyList", false, false),
-    APPLY_RULES(10, "Apply Rules", false, false),
-    SEPARATOR_2(11, null, false, true),
-    SET_FINISHED(12, "Set Finished", false, false),
-    RESTORE_NAME(13, "Restore Name", false, false),
-    SET_FOLDER(14, "Set Folder", false, false),
-    SET_PAR_FLD(15, "Set Parent Folder", false, false),
-    EDIT_PATH(16, "Edit Folder Path", false, false),
-    EDIT_NAME(17, "Edit File Name", true, false),
-    SEPARATOR_3(18, null, false, true),
-    PARSE(19, "Parse with avinfo", false, false),
-    SET_FID(20, "Set fid (force)", true, false),
-    REMOVE_LOCAL(21, "Remove from Jobs", false, false);
+    BOOST(1, "Boost Priority", false, false),
+    SEPARATOR_0(2, null, false, true),
+    SHOW_INFO(3, "Show Info", true, false),
+    WATCH_NOW(4, "Watch Now", true, false),
+    EXPLORER(5, "Explore Folder", true, false),
+    SEPARATOR_1(6, null, false, true),
+    REHASH(7, "Rehash", false, false),
+    REID(8, "Identify", false, false),
+    READD(9, "Add to mylist", false, false),
+    REMOVE_FROM_MYLIST(10, "Remove from AniDB MyList", false, false),
+    APPLY_RULES(11, "Apply Rules", false, false),
+    SEPARATOR_2(12, null, false, true),
+    SET_FINISHED(13, "Set Finished", false, false),
+    RESTORE_NAME(14, "Restore Name", false, false),
+    SET_FOLDER(15, "Set Folder", false, false),
+    SET_PAR_FLD(16, "Set Parent Folder", false, false),
+    EDIT_PATH(17, "Edit Folder Path", false, false),
+    EDIT_NAME(18, "Edit File Name", true, false),
+    SEPARATOR_3(19, null, false, true),
+    PARSE(20, "Parse with avinfo", false, false),
+    SET_FID(21, "Set fid (force)", true, false),
+    REMOVE_LOCAL(22, "Remove from Jobs", false, false);
 
     private final int id;
     private final String label;
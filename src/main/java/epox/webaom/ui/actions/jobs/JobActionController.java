@@ -56,6 +56,9 @@ public class JobActionController {
             case PAUSE:
                 gateway.updateStatus(job, Job.H_PAUSED, true);
                 break;
+            case BOOST:
+                job.boosted = true;
+                break;
             case REHASH:
                 gateway.updateStatus(job, Job.HASHWAIT, true);
                 break;
@@ -0,0 +1,186 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.util;
+
+import java.nio.ByteBuffer;
+import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bounded pool of page-aligned direct buffers shared by the DiskIO stages (hashing, copying and
+ * verifying).
+ *
+ * <p>Requests are rounded up to a size class ({@link #SMALL}, {@link #MEDIUM}, {@link #LARGE}), and
+ * released buffers are kept for the next request of the same class. Buffers are only allocated
+ * while the total stays under the configured cap. At the cap, free buffers of other classes are
+ * dropped first, then callers wait until buffers are released. A request is never held back while
+ * nothing is lent out, so a single request larger than the cap still gets through.
+ *
+ * <p>Several buffers that are used together (like a {@link epox.webaom.hash.HashPipeline} ring) must
+ * be taken in one {@link #acquire(int, int)} call, so two callers can't each hold part of what they
+ * need and wait on each other.
+ */
+public final class BufferPool {
+    /** For positional reads of single ED2K blocks. */
+    public static final int SMALL = 1048576;
+
+    /** For sequential reads from solid-state and unknown storage. */
+    public static final int MEDIUM = 4 * 1048576;
+
+    /** For sequential reads from spinning disks, where longer reads mean fewer seeks between streams. */
+    public static final int LARGE = 8 * 1048576;
+
+    /** Alignment of the buffer addresses; a common page and block size. */
+    static final int ALIGNMENT = 4096;
+
+    private static final DecimalFormat DECIMAL_FORMATTER = new DecimalFormat("0.0");
+
+    private final long maxBytes;
+    private final Map<Integer, ArrayDeque<ByteBuffer>> free = new TreeMap<>();
+    private final Set<ByteBuffer> lent = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long allocatedBytes;
+    private long lentBytes;
+    private long hits;
+    private long misses;
+    private long waits;
+
+    /** Snapshot of the pool counters. */
+    public record Stats(long hits, long misses, long waits, long allocatedBytes, long lentBytes, long maxBytes) {
+        /** Share of requests served from free buffers, in [0, 1]. */
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "hits " + hits + ", misses " + misses + " (" + Math.round(hitRate() * 100) + "% hit), waits "
+                    + waits + ", " + megabytes(lentBytes) + "/" + megabytes(allocatedBytes) + " MB in use, cap "
+                    + megabytes(maxBytes) + " MB";
+        }
+
+        private static String megabytes(long bytes) {
+            return DECIMAL_FORMATTER.format(bytes / 1048576.0);
+        }
+    }
+
+    /** @param maxBytes cap on the direct memory held by the pool, lent out or free */
+    public BufferPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Take a cleared buffer of at least {@code size} bytes, waiting if the pool is at its cap.
+     * Its capacity is the size class, its limit is {@code size}.
+     */
+    public ByteBuffer acquire(int size) throws InterruptedException {
+        return acquire(size, 1)[0];
+    }
+
+    /** Take {@code count} buffers of at least {@code size} bytes at once. */
+    public synchronized ByteBuffer[] acquire(int size, int count) throws InterruptedException {
+        int capacity = sizeClass(size);
+        long needed = (long) capacity * count;
+        ArrayDeque<ByteBuffer> classFree = free.computeIfAbsent(capacity, c -> new ArrayDeque<>());
+        while (classFree.size() < count
+                && allocatedBytes + (long) capacity * (count - classFree.size()) > maxBytes
+                && !dropFreeBuffers(capacity, (long) capacity * (count - classFree.size()))
+                && lentBytes > 0) {
+            waits++;
+            wait();
+        }
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer buffer = classFree.poll();
+            if (buffer != null) {
+                hits++;
+            } else {
+                misses++;
+                buffer = allocateAligned(capacity);
+                allocatedBytes += capacity;
+            }
+            buffer.clear().limit(size);
+            lent.add(buffer);
+            buffers[i] = buffer;
+        }
+        lentBytes += needed;
+        return buffers;
+    }
+
+    /** Return buffers taken from this pool. Null entries are ignored. */
+    public synchronized void release(ByteBuffer... buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer == null) {
+                continue;
+            }
+            if (!lent.remove(buffer)) {
+                throw new IllegalArgumentException("Buffer was not lent by this pool");
+            }
+            lentBytes -= buffer.capacity();
+            free.computeIfAbsent(buffer.capacity(), c -> new ArrayDeque<>()).push(buffer.clear());
+        }
+        notifyAll();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, waits, allocatedBytes, lentBytes, maxBytes);
+    }
+
+    /** The size class used for a request, i.e. the capacity of the buffer handed out. */
+    static int sizeClass(int size) {
+        if (size <= SMALL) {
+            return SMALL;
+        } else if (size <= MEDIUM) {
+            return MEDIUM;
+        } else if (size <= LARGE) {
+            return LARGE;
+        }
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Drop free buffers of other classes until {@code bytes} more fit under the cap. The memory goes
+     * back to the JVM once the buffers are collected.
+     *
+     * @return true if enough was dropped
+     */
+    private boolean dropFreeBuffers(int keepCapacity, long bytes) {
+        for (Map.Entry<Integer, ArrayDeque<ByteBuffer>> entry : free.entrySet()) {
+            if (entry.getKey() == keepCapacity) {
+                continue;
+            }
+            ArrayDeque<ByteBuffer> buffers = entry.getValue();
+            while (!buffers.isEmpty() && allocatedBytes + bytes > maxBytes) {
+                buffers.pop();
+                allocatedBytes -= entry.getKey();
+            }
+        }
+        return allocatedBytes + bytes <= maxBytes;
+    }
+
+    private static ByteBuffer allocateAligned(int capacity) {
+        return ByteBuffer.allocateDirect(capacity + ALIGNMENT - 1)
+                .alignedSlice(ALIGNMENT)
+                .limit(capacity)
+                .slice();
+    }
+}
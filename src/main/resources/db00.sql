@@ -97,8 +97,24 @@ CREATE TABLE jtb
     CONSTRAINT fk_fid FOREIGN KEY (fid) REFERENCES ftb (fid),
     CONSTRAINT fk_uid FOREIGN KEY (uid) REFERENCES utb (uid)
 );
+CREATE TABLE htb
+(
+    did   integer      NOT NULL,
+    name  varchar(255) NOT NULL,
+    size  bigint       NOT NULL,
+    mtime bigint       NOT NULL,
+    fkey  varchar(64)  NOT NULL default '',
+    ed2k  varchar(32)  NOT NULL,
+    md5   varchar(32)           default NULL,
+    sha1  varchar(40)           default NULL,
+    tth   varchar(39)           default NULL,
+    crc32 varchar(8)            default NULL,
+    time  timestamp    NOT NULL default CURRENT_TIMESTAMP,
+    PRIMARY KEY (did, name)
+);
 CREATE INDEX i_dtb_name ON dtb (name);
 CREATE INDEX i_jtb_name ON jtb (name);
+CREATE INDEX i_ftb_size_ed2k ON ftb (size, ed2k);
 INSERT INTO ftb (fid, aid, eid, gid, state, size, ed2k, def_name, sublang, dublang)
 VALUES (0, 0, 0, 0, 0, 0, 'ed2k', '', '', '');
 INSERT INTO etb (eid, english, number)
@@ -106,4 +122,4 @@ VALUES (0, '', '');
 INSERT INTO utb (name)
 VALUES ('default');
 INSERT INTO vtb
-VALUES (7);
+VALUES (8);
@@ -108,8 +108,25 @@ CREATE TABLE jtb
     FOREIGN KEY (uid) REFERENCES utb (uid)
 );
 
+CREATE TABLE htb
+(
+    did   INTEGER NOT NULL,
+    name  TEXT    NOT NULL,
+    size  INTEGER NOT NULL,
+    mtime INTEGER NOT NULL,
+    fkey  TEXT    NOT NULL DEFAULT '',
+    ed2k  TEXT    NOT NULL,
+    md5   TEXT             DEFAULT NULL,
+    sha1  TEXT             DEFAULT NULL,
+    tth   TEXT             DEFAULT NULL,
+    crc32 TEXT             DEFAULT NULL,
+    time  TEXT    NOT NULL DEFAULT (datetime('now')),
+    PRIMARY KEY (did, name)
+);
+
 CREATE INDEX i_dtb_name ON dtb (name);
 CREATE INDEX i_jtb_name ON jtb (name);
+CREATE INDEX i_ftb_size_ed2k ON ftb (size, ed2k);
 
 INSERT INTO ftb (fid, aid, eid, gid, state, size, ed2k, def_name, sublang, dublang)
 VALUES (0, 0, 0, 0, 0, 0, 'ed2k', '', '', '');
@@ -118,4 +135,4 @@ VALUES (0, '', '');
 INSERT INTO utb (name)
 VALUES ('default');
 INSERT INTO vtb
-VALUES (7);
+VALUES (8);
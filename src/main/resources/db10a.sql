@@ -0,0 +1,17 @@
+CREATE TABLE htb
+(
+    did   integer      NOT NULL,
+    name  varchar(255) NOT NULL,
+    size  bigint       NOT NULL,
+    mtime bigint       NOT NULL,
+    fkey  varchar(64)  NOT NULL default '',
+    ed2k  varchar(32)  NOT NULL,
+    md5   varchar(32)           default NULL,
+    sha1  varchar(40)           default NULL,
+    tth   varchar(39)           default NULL,
+    crc32 varchar(8)            default NULL,
+    time  timestamp    NOT NULL default CURRENT_TIMESTAMP,
+    PRIMARY KEY (did, name)
+);
+CREATE INDEX i_ftb_size_ed2k ON ftb (size, ed2k);
+UPDATE vtb SET ver=8;
@@ -0,0 +1,20 @@
+-- SQLite v7 to v8 migration
+-- Hash cache: checksums of files by path, valid while size, mtime and file key are unchanged
+CREATE TABLE htb
+(
+    did   INTEGER NOT NULL,
+    name  TEXT    NOT NULL,
+    size  INTEGER NOT NULL,
+    mtime INTEGER NOT NULL,
+    fkey  TEXT    NOT NULL DEFAULT '',
+    ed2k  TEXT    NOT NULL,
+    md5   TEXT             DEFAULT NULL,
+    sha1  TEXT             DEFAULT NULL,
+    tth   TEXT             DEFAULT NULL,
+    crc32 TEXT             DEFAULT NULL,
+    time  TEXT    NOT NULL DEFAULT (datetime('now')),
+    PRIMARY KEY (did, name)
+);
+-- Local identification looks files up by size and ed2k
+CREATE INDEX i_ftb_size_ed2k ON ftb (size, ed2k);
+UPDATE vtb SET ver=8;
@@ -18,6 +18,7 @@ package epox.webaom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -30,9 +31,12 @@ import epox.webaom.data.Anime;
 import epox.webaom.data.Episode;
 import epox.webaom.data.Group;
 import epox.webaom.db.DatabaseManager;
+import epox.webaom.net.FileMask;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -151,6 +155,103 @@ class CacheTest {
         verify(databaseManager, times(1)).update(55, anime, DatabaseManager.INDEX_ANIME);
     }
 
+    @Test
+    void cacheFileMaskFor_unknownDirectory_requestsEverything() throws IOException {
+        Cache cache = new Cache();
+        Job job = new Job(Files.createFile(tempDir.resolve("first.mkv")).toFile(), Job.IDENTWAIT);
+
+        assertEquals(FileMask.FULL, cache.fileMaskFor(job));
+    }
+
+    @Test
+    void cacheParseFile_fileAndEpisodeMask_fillsAnimeAndGroupFromCache() throws IOException {
+        Cache cache = new Cache();
+        DatabaseManager databaseManager = AppContext.databaseManager;
+        Job first = new Job(Files.createFile(tempDir.resolve("ep1.mkv")).toFile(), Job.IDENTWAIT);
+        AniDBFile firstFile = cache.parseFile(fileFields(501, 7, 801, 12, "1", true, true, true), first);
+
+        Job second = new Job(Files.createFile(tempDir.resolve("ep2.mkv")).toFile(), Job.IDENTWAIT);
+        FileMask mask = cache.fileMaskFor(second);
+        String[] fields = fileFields(502, 7, 802, 12, "2", false, true, false);
+        assertEquals(new FileMask(false, true, false), mask);
+        assertTrue(cache.canComplete(fields, mask));
+        AniDBFile secondFile = cache.parseFile(fields, mask, second);
+
+        assertSame(firstFile.getAnime(), secondFile.getAnime());
+        assertSame(firstFile.getGroup(), secondFile.getGroup());
+        assertEquals("2", secondFile.getEpisode().num);
+        assertEquals("Anime 7 - 2 - Episode 2 - [G12]", secondFile.getDefaultName());
+        verify(databaseManager, times(1)).update(7, firstFile.getAnime(), DatabaseManager.INDEX_ANIME);
+        verify(databaseManager, times(1)).update(12, firstFile.getGroup(), DatabaseManager.INDEX_GROUP);
+    }
+
+    @Test
+    void cacheCanComplete_airingAnimeFromDatabase_needsAnimeFields() {
+        Cache cache = new Cache();
+        DatabaseManager databaseManager = AppContext.databaseManager;
+        Anime airing = buildAnime(8);
+        airing.episodeCount = 0;
+        Anime finished = buildAnime(9);
+        when(databaseManager.getGeneric(8, DatabaseManager.INDEX_ANIME)).thenReturn(airing);
+        when(databaseManager.getGeneric(9, DatabaseManager.INDEX_ANIME)).thenReturn(finished);
+        FileMask fileOnly = new FileMask(false, true, false);
+
+        assertFalse(cache.canComplete(fileFields(601, 8, 901, 0, "1", false, true, false), fileOnly));
+        assertTrue(cache.canComplete(fileFields(602, 9, 902, 0, "1", false, true, false), fileOnly));
+    }
+
+    @Test
+    void cacheParseFile_fieldCountNotMatchingMask_fails() throws IOException {
+        Cache cache = new Cache();
+        Job job = new Job(Files.createFile(tempDir.resolve("short.mkv")).toFile(), Job.IDENTWAIT);
+
+        assertNull(cache.parseFile(fileFields(701, 7, 801, 12, "1", false, true, false), job));
+        assertNull(job.anidbFile);
+    }
+
+    /** Reply fields in the order of the FILE masks, with the given parts included. */
+    private static String[] fileFields(
+            int fileId,
+            int animeId,
+            int episodeId,
+            int groupId,
+            String episodeNumber,
+            boolean group,
+            boolean episode,
+            boolean anime) {
+        List<String> fields = new ArrayList<>(List.of(
+                String.valueOf(fileId),
+                String.valueOf(animeId),
+                String.valueOf(episodeId),
+                groupId > 0 ? String.valueOf(groupId) : "",
+                "0",
+                "1",
+                "1000",
+                "0123456789abcdef0123456789abcdef",
+                "",
+                "",
+                "",
+                "japanese",
+                "english",
+                "high",
+                "www",
+                "aac",
+                "h264",
+                "1920x1080",
+                "mkv",
+                "1440"));
+        if (group) {
+            fields.addAll(List.of("Group" + groupId, "G" + groupId));
+        }
+        if (episode) {
+            fields.addAll(List.of(episodeNumber, "Episode " + episodeNumber, "", ""));
+        }
+        if (anime) {
+            fields.addAll(List.of("12", "12", "2001-2002", "TV", "Anime " + animeId, "", "", "Action"));
+        }
+        return fields.toArray(new String[0]);
+    }
+
     private Job buildCompleteJob(int idBase, String episodeNumber, boolean missingFile) throws IOException {
         Path filePath = missingFile
                 ? tempDir.resolve("missing-" + idBase + ".mkv")
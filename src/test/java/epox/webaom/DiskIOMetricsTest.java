@@ -0,0 +1,106 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.webaom.hash.HashTimings;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class DiskIOMetricsTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long HUNDRED_MB = 100L * 1048576;
+
+    private final DiskIOMetrics metrics = new DiskIOMetrics(() -> 7, () -> 3, () -> 1, () -> 4096);
+
+    @Test
+    void fileHashed_slowReadsMakeTheSessionIoBound() {
+        metrics.fileHashed("a.mkv", HUNDRED_MB, 4 * SECOND, timings(3 * SECOND, SECOND, 0), false);
+
+        assertEquals("I/O-bound", metrics.getBottleneck());
+        assertEquals(0.75, metrics.getReadShare(), 1e-9);
+        assertEquals(100.0 / 3, metrics.getReadMegabytesPerSecond(), 1e-6);
+        assertEquals(100.0, metrics.getDigestMegabytesPerSecond().get("ed2k"), 1e-6);
+    }
+
+    @Test
+    void fileHashed_onlyTheSlowestOverlappingDigestCounts() {
+        metrics.fileHashed("a.mkv", HUNDRED_MB, 3 * SECOND, timings(3 * SECOND, 2 * SECOND, 2 * SECOND), true);
+        assertEquals("I/O-bound", metrics.getBottleneck());
+
+        metrics.reset();
+        metrics.fileHashed("a.mkv", HUNDRED_MB, 7 * SECOND, timings(3 * SECOND, 2 * SECOND, 2 * SECOND), false);
+        assertEquals("CPU-bound", metrics.getBottleneck());
+    }
+
+    @Test
+    void recentFiles_keepsTheNewestFiles() {
+        for (int i = 0; i < DiskIOMetrics.RECENT_FILES + 3; i++) {
+            metrics.fileHashed("file" + i + ".mkv", HUNDRED_MB, SECOND, timings(SECOND, SECOND, 0), false);
+        }
+
+        List<String> recent = metrics.getRecentFiles();
+        assertEquals(DiskIOMetrics.RECENT_FILES, recent.size());
+        assertTrue(recent.get(0).startsWith("file" + (DiskIOMetrics.RECENT_FILES + 2) + ".mkv: 100.00 MB"));
+    }
+
+    @Test
+    void movesAndParses_areAveraged() {
+        metrics.moveRenamed();
+        metrics.moveCopied(HUNDRED_MB, SECOND);
+        metrics.moveCopied(HUNDRED_MB, SECOND);
+        metrics.moveVerified(HUNDRED_MB, SECOND / 2);
+        metrics.fileParsed(SECOND / 10);
+        metrics.fileParsed(3 * SECOND / 10);
+
+        assertEquals(1, metrics.getMovesRenamed());
+        assertEquals(2, metrics.getMovesCopied());
+        assertEquals(100.0, metrics.getCopyMegabytesPerSecond(), 1e-6);
+        assertEquals(200.0, metrics.getVerifyMegabytesPerSecond(), 1e-6);
+        assertEquals(200.0, metrics.getAverageParseMillis(), 1e-6);
+    }
+
+    @Test
+    void register_publishesAttributesThroughJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DiskIOMetrics.OBJECT_NAME);
+        metrics.register();
+        try {
+            assertEquals(7, server.getAttribute(name, "HashQueueDepth"));
+            assertEquals(3, server.getAttribute(name, "ActiveHashWorkers"));
+            assertEquals(4096L, server.getAttribute(name, "BytesInFlight"));
+            assertEquals("unknown", server.getAttribute(name, "Bottleneck"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static HashTimings timings(long readNanos, long ed2kNanos, long md5Nanos) {
+        HashTimings timings = new HashTimings();
+        timings.addRead(readNanos);
+        timings.digestCounter("ed2k").add(ed2kNanos);
+        if (md5Nanos > 0) {
+            timings.digestCounter("md5").add(md5Nanos);
+        }
+        return timings;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.webaom.FileMover.VerifyPolicy;
+import epox.webaom.hash.Ed2kHash;
+import epox.webaom.util.BufferPool;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileMoverTest {
+    /** Spans two ED2K blocks and several copy chunks. */
+    private static final int FILE_SIZE = Ed2kHash.BLOCK_SIZE + 12345;
+
+    @TempDir
+    Path tempDir;
+
+    private final BufferPool pool = new BufferPool(BufferPool.MEDIUM);
+
+    @Test
+    void hashWhileCopying_copiesDataAndReportsItsEd2k() throws IOException {
+        byte[] data = randomBytes(FILE_SIZE);
+        Path source = Files.write(tempDir.resolve("source.mkv"), data);
+        Path target = tempDir.resolve("target.mkv");
+        long[] lastProgress = {-1};
+
+        FileMover mover = new FileMover(() -> true, pool);
+        assertTrue(mover.copy(source, target, VerifyPolicy.HASH_WHILE_COPYING, done -> lastProgress[0] = done));
+
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(ed2kOf(data), mover.getChecksum());
+        assertEquals(FILE_SIZE, lastProgress[0]);
+    }
+
+    @Test
+    void readBack_hashesTheWrittenCopy() throws IOException {
+        byte[] data = randomBytes(FILE_SIZE);
+        Path source = Files.write(tempDir.resolve("source.mkv"), data);
+        Path target = tempDir.resolve("target.mkv");
+
+        FileMover mover = new FileMover(() -> true, pool);
+        assertTrue(mover.copy(source, target, VerifyPolicy.READ_BACK, done -> {}));
+
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(ed2kOf(data), mover.getChecksum());
+        assertTrue(mover.getCopyNanos() > 0);
+        assertTrue(mover.getVerifyNanos() > 0);
+    }
+
+    @Test
+    void trustTransfer_copiesWithoutHashing() throws IOException {
+        byte[] data = randomBytes(FILE_SIZE);
+        Path source = Files.write(tempDir.resolve("source.mkv"), data);
+        Path target = tempDir.resolve("target.mkv");
+
+        FileMover mover = new FileMover(() -> true, pool);
+        assertTrue(mover.copy(source, target, VerifyPolicy.TRUST_TRANSFER, done -> {}));
+
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertNull(mover.getChecksum());
+    }
+
+    @Test
+    void copy_stopsWhenAborted() throws IOException {
+        Path source = Files.write(tempDir.resolve("source.mkv"), randomBytes(FILE_SIZE));
+
+        FileMover mover = new FileMover(() -> false, pool);
+        assertFalse(mover.copy(source, tempDir.resolve("a.mkv"), VerifyPolicy.HASH_WHILE_COPYING, done -> {}));
+        assertFalse(mover.copy(source, tempDir.resolve("b.mkv"), VerifyPolicy.TRUST_TRANSFER, done -> {}));
+        assertNull(mover.getChecksum());
+    }
+
+    @Test
+    void transfer_copiesThroughBufferWhenTransferToStalls() throws IOException {
+        byte[] data = randomBytes(FILE_SIZE);
+        Path source = Files.write(tempDir.resolve("source.mkv"), data);
+        Path target = tempDir.resolve("target.mkv");
+        long[] lastProgress = {-1};
+
+        FileMover mover = new FileMover(() -> true, pool);
+        try (FileChannel in = new StallingChannel(FileChannel.open(source));
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            assertTrue(mover.transfer(in, out, done -> lastProgress[0] = done));
+        }
+
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(FILE_SIZE, lastProgress[0]);
+    }
+
+    @Test
+    void rename_movesWithinTheSameFileStore() throws IOException {
+        byte[] data = randomBytes(1000);
+        Path source = Files.write(tempDir.resolve("source.mkv"), data);
+        Path target = Files.createDirectory(tempDir.resolve("series")).resolve("target.mkv");
+
+        assertTrue(new FileMover(() -> true, pool).rename(source, target));
+
+        assertFalse(Files.exists(source));
+        assertArrayEquals(data, Files.readAllBytes(target));
+    }
+
+    @Test
+    void verifyPolicy_defaultsToHashingWhileCopying() {
+        assertEquals(VerifyPolicy.READ_BACK, VerifyPolicy.fromOptionValue("readback"));
+        assertEquals(VerifyPolicy.TRUST_TRANSFER, VerifyPolicy.fromOptionValue("trust"));
+        assertEquals(VerifyPolicy.HASH_WHILE_COPYING, VerifyPolicy.fromOptionValue(""));
+        assertEquals(VerifyPolicy.HASH_WHILE_COPYING, VerifyPolicy.fromOptionValue(null));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    private static String ed2kOf(byte[] data) {
+        Ed2kHash ed2k = new Ed2kHash();
+        ed2k.update(data, 0, data.length);
+        return ed2k.hexValue();
+    }
+
+    /** A file channel whose {@link #transferTo} never moves a byte, as some file systems do. */
+    private static final class StallingChannel extends FileChannel {
+        private final FileChannel delegate;
+
+        StallingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            return 0;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import epox.webaom.hash.Crc32Hash;
+import epox.webaom.hash.Ed2kHash;
+import epox.webaom.hash.HashAlgorithm;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HashCheckpointsTest {
+    private static final File FILE = new File("/anime/episode.mkv");
+    private static final FileFingerprint FINGERPRINT = new FileFingerprint(1000, 1234, "");
+
+    private final HashCheckpoints checkpoints = new HashCheckpoints();
+
+    @Test
+    void takeReturnsCopiesOnceForUnchangedFile() {
+        Map<String, HashAlgorithm> algorithms = new LinkedHashMap<>();
+        algorithms.put("ed2k", new Ed2kHash());
+        algorithms.put("crc32", new Crc32Hash());
+        algorithms.values().forEach(algorithm -> algorithm.update(new byte[500], 0, 500));
+
+        checkpoints.saveStream(FILE, FINGERPRINT, 500, algorithms);
+        HashCheckpoints.Checkpoint checkpoint = checkpoints.take(FILE, FINGERPRINT);
+
+        assertNotNull(checkpoint);
+        assertEquals(500, checkpoint.offset());
+        assertEquals(algorithms.keySet(), checkpoint.algorithms().keySet());
+        assertNotSame(algorithms.get("ed2k"), checkpoint.algorithms().get("ed2k"));
+        assertEquals(algorithms.get("crc32").hexValue(), checkpoint.algorithms().get("crc32").hexValue());
+        assertNull(checkpoints.take(FILE, FINGERPRINT));
+    }
+
+    @Test
+    void modifiedFileDoesNotResume() {
+        checkpoints.saveBlocks(FILE, FINGERPRINT, 100, new byte[2][]);
+
+        assertNull(checkpoints.take(FILE, new FileFingerprint(1000, 5678, "")));
+        assertEquals(0, checkpoints.size());
+    }
+
+    @Test
+    void nothingIsSavedWhenAnAlgorithmCannotBeCopied() {
+        HashAlgorithm uncopyable = new HashAlgorithm() {
+            @Override
+            public void update(byte[] buffer, int offset, int length) {}
+
+            @Override
+            public void update(ByteBuffer buffer) {}
+
+            @Override
+            public void reset() {}
+
+            @Override
+            public byte[] digest() {
+                return new byte[0];
+            }
+
+            @Override
+            public String hexValue() {
+                return "";
+            }
+        };
+
+        checkpoints.saveStream(FILE, FINGERPRINT, 500, Map.of("ed2k", new Ed2kHash(), "other", uncopyable));
+
+        assertEquals(0, checkpoints.size());
+    }
+
+    @Test
+    void oldestFilesAreDroppedBeyondLimit() {
+        for (int i = 0; i <= HashCheckpoints.MAX_ENTRIES; i++) {
+            checkpoints.saveBlocks(new File("/anime/" + i + ".mkv"), FINGERPRINT, 100, new byte[1][]);
+        }
+
+        assertEquals(HashCheckpoints.MAX_ENTRIES, checkpoints.size());
+        assertNull(checkpoints.take(new File("/anime/0.mkv"), FINGERPRINT));
+        assertNotNull(checkpoints.take(new File("/anime/1.mkv"), FINGERPRINT));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.IntToDoubleFunction;
+import org.junit.jupiter.api.Test;
+
+class HashConcurrencyTunerTest {
+    private static final long WINDOW_MS = 5000;
+
+    private long bytes;
+    private long now;
+
+    @Test
+    void climbsToThroughputPeakAndSettlesThere() {
+        HashConcurrencyTuner tuner = new HashConcurrencyTuner(2, 1, 16);
+        // Throughput grows until 6 workers, then drops as the disks start thrashing
+        IntToDoubleFunction mbPerSecond = level -> level <= 6 ? 100.0 * level : 600.0 - 50.0 * (level - 6);
+
+        run(tuner, mbPerSecond, 0.5, 60);
+
+        assertTrue(tuner.isSettled());
+        assertEquals(6, tuner.getLevel());
+    }
+
+    @Test
+    void stepsDownWhenFewerWorkersAreFaster() {
+        HashConcurrencyTuner tuner = new HashConcurrencyTuner(4, 1, 16);
+        IntToDoubleFunction mbPerSecond = level -> 500.0 - 80.0 * level;
+
+        run(tuner, mbPerSecond, 0.5, 60);
+
+        assertTrue(tuner.isSettled());
+        assertEquals(1, tuner.getLevel());
+    }
+
+    @Test
+    void doesNotClimbWhileCpuIsSaturated() {
+        HashConcurrencyTuner tuner = new HashConcurrencyTuner(4, 1, 16);
+        IntToDoubleFunction mbPerSecond = level -> 100.0 * level;
+
+        run(tuner, mbPerSecond, 0.95, 10);
+
+        assertTrue(tuner.getLevel() <= 4);
+    }
+
+    @Test
+    void starvedWindowsAreIgnored() {
+        HashConcurrencyTuner tuner = new HashConcurrencyTuner(4, 1, 16);
+        for (int i = 0; i < 10; i++) {
+            now += WINDOW_MS;
+            assertFalse(tuner.sample(bytes, now, 0.1, false));
+        }
+        assertEquals(4, tuner.getLevel());
+    }
+
+    private void run(HashConcurrencyTuner tuner, IntToDoubleFunction mbPerSecond, double cpuLoad, int windows) {
+        tuner.sample(bytes, now, cpuLoad, true);
+        for (int i = 0; i < windows; i++) {
+            now += WINDOW_MS;
+            bytes += (long) (mbPerSecond.applyAsDouble(tuner.getLevel()) * 1048576 * WINDOW_MS / 1000);
+            tuner.sample(bytes, now, cpuLoad, true);
+            if (tuner.isSettled()) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HashSchedulerTest {
+    @TempDir
+    Path tempDir;
+
+    private JobList jobList;
+
+    /** Treats each top-level directory under tempDir as a device; "hdd*" ones are rotational. */
+    private final HashScheduler.DeviceResolver resolver = file -> {
+        String device = tempDir.relativize(file.toPath()).getName(0).toString();
+        return new HashScheduler.StorageDevice(device, device, device.startsWith("hdd"));
+    };
+
+    @BeforeEach
+    void setUp() {
+        AppContext.jobCounter = new JobCounter();
+        jobList = new JobList();
+    }
+
+    @Test
+    void next_limitsRotationalDeviceToOneStreamAndFillsSolidState() throws IOException {
+        addJobs("hdd1", 3);
+        addJobs("ssd1", 6);
+        HashScheduler scheduler = new HashScheduler(16, "", resolver);
+
+        List<Job> selected = scheduler.next(jobList, Set.of());
+
+        assertEquals(1, countOn(selected, "hdd1"));
+        assertEquals(HashScheduler.SOLID_STATE_LIMIT, countOn(selected, "ssd1"));
+    }
+
+    @Test
+    void next_interleavesDevicesWhenGlobalLimitIsTight() throws IOException {
+        addJobs("ssd1", 5);
+        addJobs("ssd2", 5);
+        HashScheduler scheduler = new HashScheduler(4, "", resolver);
+
+        List<Job> selected = scheduler.next(jobList, Set.of());
+
+        assertEquals(4, selected.size());
+        assertEquals(2, countOn(selected, "ssd1"));
+        assertEquals(2, countOn(selected, "ssd2"));
+    }
+
+    @Test
+    void release_freesDeviceSlotForNextJobOnSameDevice() throws IOException {
+        List<Job> jobs = addJobs("hdd1", 2);
+        HashScheduler scheduler = new HashScheduler(16, "", resolver);
+
+        List<Job> first = scheduler.next(jobList, Set.of());
+        assertEquals(List.of(jobs.get(0)), first);
+        assertTrue(scheduler.next(jobList, Set.copyOf(first)).isEmpty());
+
+        scheduler.release(jobs.get(0));
+        assertEquals(List.of(jobs.get(1)), scheduler.next(jobList, Set.copyOf(first)));
+    }
+
+    @Test
+    void next_offersSlotToDeviceQueuedBehindLongBacklog() throws IOException {
+        addJobs("hdd1", 600);
+        List<Job> behind = addJobs("hdd2", 1);
+        HashScheduler scheduler = new HashScheduler(16, "", resolver);
+
+        List<Job> selected = scheduler.next(jobList, Set.of());
+
+        assertEquals(2, selected.size());
+        assertTrue(selected.contains(behind.get(0)));
+    }
+
+    @Test
+    void mountOverride_takesPrecedenceOverDetectedType() throws IOException {
+        addJobs("hdd1", 4);
+        HashScheduler scheduler = new HashScheduler(16, tempDir.resolve("hdd1") + "=3", resolver);
+
+        assertEquals(3, scheduler.next(jobList, Set.of()).size());
+    }
+
+    @Test
+    void mountOverride_matchesWholePathComponentsOnly() throws IOException {
+        addJobs("hdd10", 4);
+        HashScheduler scheduler = new HashScheduler(16, tempDir.resolve("hdd1") + "=3", resolver);
+
+        assertEquals(HashScheduler.ROTATIONAL_LIMIT, scheduler.next(jobList, Set.of()).size());
+    }
+
+    @Test
+    void parseLimits_skipsMalformedEntriesAndClampsToOne() {
+        Map<String, Integer> limits = HashScheduler.parseLimits(" /mnt/a=2; broken ;/mnt/b=x;C:\\Media=0");
+
+        assertEquals(Map.of("/mnt/a", 2, "C:\\Media", 1), limits);
+    }
+
+    private List<Job> addJobs(String device, int count) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve(device));
+        List<Job> jobs = new java.util.ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = Files.write(directory.resolve("file" + i + ".mkv"), new byte[] {1}).toFile();
+            Job job = new Job(file, Job.HASHWAIT);
+            jobList.updateQueues(job, -1, Job.HASHWAIT);
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    private long countOn(List<Job> jobs, String device) {
+        return jobs.stream()
+                .filter(job -> job.getFile().getParentFile().getName().equals(device))
+                .count();
+    }
+}
@@ -49,4 +49,35 @@ class JobListTest {
         assertFalse(jobList.getJobsDio(10, Job.HASHWAIT, Set.of()).contains(job));
         assertEquals(job, jobList.getJobNio());
     }
+
+    @Test
+    void jobListUpdateQueues_wakesDiskIoOnlyForDiskWork() throws IOException {
+        DiskIOManager previous = AppContext.dio;
+        WakeCountingDiskIOManager dio = new WakeCountingDiskIOManager();
+        AppContext.dio = dio;
+        try {
+            JobList jobList = new JobList();
+            Job job = new Job(Files.createFile(tempDir.resolve("episode.mkv")).toFile(), Job.HASHWAIT);
+
+            jobList.updateQueues(job, -1, Job.HASHWAIT);
+            assertEquals(1, dio.wakeUps);
+
+            jobList.updateQueues(job, Job.HASHWAIT, Job.IDENTWAIT);
+            assertEquals(1, dio.wakeUps);
+
+            jobList.updateQueues(job, Job.IDENTWAIT, Job.MOVEWAIT);
+            assertEquals(2, dio.wakeUps);
+        } finally {
+            AppContext.dio = previous;
+        }
+    }
+
+    private static final class WakeCountingDiskIOManager extends DiskIOManager {
+        private int wakeUps;
+
+        @Override
+        public void wakeUp() {
+            wakeUps++;
+        }
+    }
 }
@@ -21,8 +21,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import epox.webaom.data.AniDBFile;
+import epox.webaom.data.Anime;
+import epox.webaom.data.Episode;
+import epox.webaom.db.DatabaseManager;
 import epox.webaom.ui.MainPanel;
 import epox.webaom.ui.actions.jobs.JobDeleteScope;
 import java.io.File;
@@ -41,24 +48,30 @@ class JobManagerTest {
     private JobList originalJobs;
     private JobCounter originalJobCounter;
     private MainPanel originalGui;
+    private Frontend originalFrontend;
+    private Runnable restoreAfterTest = () -> {};
 
     @BeforeEach
     void setUp() {
         originalJobs = AppContext.jobs;
         originalJobCounter = AppContext.jobCounter;
         originalGui = AppContext.gui;
+        originalFrontend = AppContext.frontend;
 
         AppContext.jobs = new JobList();
         AppContext.jobCounter = new JobCounter();
         AppContext.gui = mock(MainPanel.class);
+        AppContext.frontend = AppContext.gui;
         Cache.setTreeSortMode(Cache.MODE_ANIME_EPISODE_FILE);
     }
 
     @AfterEach
     void tearDown() {
+        restoreAfterTest.run();
         AppContext.jobs = originalJobs;
         AppContext.jobCounter = originalJobCounter;
         AppContext.gui = originalGui;
+        AppContext.frontend = originalFrontend;
         JobManager.resetBatchChoice();
     }
 
@@ -135,4 +148,69 @@ class JobManagerTest {
                 AppContext.jobs.getJobsDio(10, Job.HASHWAIT, java.util.Set.of()).size());
         assertNotNull(AppContext.jobs.add(source));
     }
+
+    @Test
+    void hashed_fileKnownToDatabase_isIdentifiedWithoutNetIO() throws IOException {
+        Job job = knownFileJob("known.mkv");
+
+        JobManager.hashed(job);
+
+        assertEquals(Job.FINISHED, job.getStatus());
+        assertEquals(77, job.anidbFile.getFileId());
+        assertEquals("Anime 5", job.anidbFile.getAnime().romajiTitle);
+        assertEquals("01", job.anidbFile.getEpisode().num);
+    }
+
+    @Test
+    void updateStatusHashed_reidentify_waitsForNetIO() throws IOException {
+        Job job = knownFileJob("reidentify.mkv");
+
+        JobManager.updateStatus(job, Job.HASHED);
+
+        assertEquals(Job.IDENTWAIT, job.getStatus());
+        assertNull(job.anidbFile);
+    }
+
+    /** A hashed job whose file, anime and episode are in a mocked database, with renaming off. */
+    private Job knownFileJob(String name) throws IOException {
+        DatabaseManager originalDatabaseManager = AppContext.databaseManager;
+        Cache originalCache = AppContext.cache;
+        Options originalOptions = AppContext.opt;
+        restoreAfterTest = () -> {
+            AppContext.databaseManager = originalDatabaseManager;
+            AppContext.cache = originalCache;
+            AppContext.opt = originalOptions;
+            AppContext.animeTreeRoot.clear();
+        };
+
+        String ed2k = "0123456789abcdef0123456789abcdef";
+        AniDBFile file = new AniDBFile(new String[] {
+            "77", "5", "6", "0", "0", "1", "5", ed2k, "", "", "", "japanese", "english", "high", "www", "aac",
+            "h264", "1920x1080", "mkv", "1440"
+        });
+        file.setDefaultName("Anime 5 - 01");
+        Anime anime = new Anime(5);
+        anime.romajiTitle = "Anime 5";
+        anime.episodeCount = 1;
+        anime.latestEpisode = 1;
+        anime.init();
+        Episode episode = new Episode(6);
+        episode.num = "01";
+
+        DatabaseManager databaseManager = mock(DatabaseManager.class);
+        when(databaseManager.isConnected()).thenReturn(true);
+        when(databaseManager.getFile(eq(5L), eq(ed2k), anyLong())).thenReturn(file);
+        when(databaseManager.getGeneric(5, DatabaseManager.INDEX_ANIME)).thenReturn(anime);
+        when(databaseManager.getGeneric(6, DatabaseManager.INDEX_EPISODE)).thenReturn(episode);
+        when(AppContext.gui.getLocalIdentifyDays()).thenReturn(LocalIdentifier.DEFAULT_MAX_AGE_DAYS);
+        AppContext.databaseManager = databaseManager;
+        AppContext.cache = new Cache();
+        AppContext.opt = new Options(tempDir.resolve("options.conf").toFile());
+        AppContext.opt.setBoolean(Options.BOOL_AUTO_RENAME, false);
+
+        Job job = new Job(Files.writeString(tempDir.resolve(name), "video").toFile(), Job.HASHWAIT);
+        job.ed2kHash = ed2k;
+        job.isFresh = false;
+        return job;
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.webaom.util.BufferPool;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MoveSchedulerTest {
+    @TempDir
+    Path tempDir;
+
+    private JobList jobList;
+
+    /** Treats each top-level directory under tempDir as a device. */
+    private final HashScheduler.DeviceResolver resolver = file -> {
+        String device = tempDir.relativize(file.toPath()).getName(0).toString();
+        return new HashScheduler.StorageDevice(device, device, null);
+    };
+
+    @BeforeEach
+    void setUp() {
+        AppContext.jobCounter = new JobCounter();
+        jobList = new JobList();
+    }
+
+    @Test
+    void next_startsOneMovePerDevicePair() throws IOException {
+        addMove("disk1", "disk2", "a");
+        addMove("disk1", "disk2", "b");
+        addMove("disk1", "disk3", "c");
+        addMove("disk4", "disk2", "d");
+        MoveScheduler scheduler = new MoveScheduler(8, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+
+        List<MoveScheduler.Assignment> selected = scheduler.next(jobList, Set.of());
+
+        assertEquals(List.of("a", "c", "d"), names(selected));
+        assertNotSame(selected.get(0).mover(), selected.get(1).mover());
+    }
+
+    @Test
+    void release_freesLaneForNextJobOnSamePair() throws IOException {
+        Job first = addMove("disk1", "disk2", "a");
+        addMove("disk1", "disk2", "b");
+        MoveScheduler scheduler = new MoveScheduler(8, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+
+        List<MoveScheduler.Assignment> running = scheduler.next(jobList, Set.of());
+        assertEquals(List.of("a"), names(running));
+        assertTrue(scheduler.next(jobList, Set.of(first)).isEmpty());
+
+        scheduler.release(first);
+        List<MoveScheduler.Assignment> next = scheduler.next(jobList, Set.of(first));
+        assertEquals(List.of("b"), names(next));
+        assertSame(running.get(0).mover(), next.get(0).mover());
+    }
+
+    @Test
+    void next_neverStartsTwoMovesToTheSameTarget() throws IOException {
+        addMove("disk1", "disk3", "a");
+        addMove("disk2", "disk3", "a");
+        MoveScheduler scheduler = new MoveScheduler(8, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+
+        assertEquals(1, scheduler.next(jobList, Set.of()).size());
+    }
+
+    @Test
+    void release_freesTargetClearedByTheMove() throws IOException {
+        Job first = addMove("disk1", "disk3", "a");
+        Job second = addMove("disk2", "disk3", "a");
+        MoveScheduler scheduler = new MoveScheduler(8, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+        assertEquals(1, scheduler.next(jobList, Set.of()).size());
+
+        // A finished move clears the job's target before the scheduler hears of it
+        first.targetFile = null;
+        jobList.updateQueues(first, Job.MOVEWAIT, Job.FINISHED);
+        scheduler.release(first);
+
+        List<MoveScheduler.Assignment> next = scheduler.next(jobList, Set.of());
+        assertEquals(1, next.size());
+        assertSame(second, next.get(0).job());
+    }
+
+    @Test
+    void next_startsIdleLaneQueuedBehindLongBacklog() throws IOException {
+        for (int i = 0; i < 600; i++) {
+            addMove("disk1", "disk2", "a" + i);
+        }
+        addMove("disk3", "disk4", "b");
+        MoveScheduler scheduler = new MoveScheduler(8, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+
+        assertEquals(List.of("a0", "b"), names(scheduler.next(jobList, Set.of())));
+    }
+
+    @Test
+    void next_respectsGlobalLimit() throws IOException {
+        addMove("disk1", "disk2", "a");
+        addMove("disk3", "disk4", "b");
+        addMove("disk5", "disk6", "c");
+        MoveScheduler scheduler = new MoveScheduler(2, () -> true, new BufferPool(BufferPool.MEDIUM), resolver);
+
+        assertEquals(2, scheduler.next(jobList, Set.of()).size());
+        assertTrue(scheduler.next(jobList, Set.of()).isEmpty());
+        assertEquals(2, scheduler.getActiveCount());
+    }
+
+    private Job addMove(String sourceDevice, String targetDevice, String name) throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve(sourceDevice));
+        Files.createDirectories(tempDir.resolve(targetDevice));
+        File file = Files.write(source.resolve(name + ".mkv"), new byte[] {1}).toFile();
+        Job job = new Job(file, Job.MOVEWAIT);
+        // The series folder doesn't exist yet, as is usual before a move
+        job.targetFile = tempDir.resolve(targetDevice).resolve("Series").resolve(name + ".mkv").toFile();
+        jobList.updateQueues(job, -1, Job.MOVEWAIT);
+        return job;
+    }
+
+    private static List<String> names(List<MoveScheduler.Assignment> assignments) {
+        return assignments.stream()
+                .map(assignment -> assignment.job().currentFile.getName().replace(".mkv", ""))
+                .collect(Collectors.toList());
+    }
+}
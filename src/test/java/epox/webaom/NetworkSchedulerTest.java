@@ -0,0 +1,144 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NetworkSchedulerTest {
+    @TempDir
+    Path tempDir;
+
+    private JobList jobList;
+    private long now;
+    private NetworkScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        AppContext.jobCounter = new JobCounter();
+        jobList = new JobList();
+        now = 1_000_000;
+        scheduler = new NetworkScheduler(() -> now);
+    }
+
+    @Test
+    void next_identifiesNewFilesWhileLongerBatchesWait() throws IOException {
+        addJobs("remove", Job.REMWAIT, 20);
+        addJobs("add", Job.ADDWAIT, 20);
+        addJobs("identify", Job.IDENTWAIT, 20);
+
+        List<Job> run = runTurns(14);
+
+        assertEquals(8, countStatus(run, Job.IDENTWAIT));
+        assertEquals(4, countStatus(run, Job.ADDWAIT));
+        assertEquals(2, countStatus(run, Job.REMWAIT));
+    }
+
+    @Test
+    void next_runsBoostedJobFirstWithinAndAcrossOperations() throws IOException {
+        addJobs("add", Job.ADDWAIT, 50);
+        List<Job> identify = addJobs("identify", Job.IDENTWAIT, 5);
+        scheduler.next(jobList);
+        now += 60_000;
+
+        Job looking = identify.get(4);
+        looking.boosted = true;
+
+        assertEquals(looking, scheduler.next(jobList));
+    }
+
+    @Test
+    void next_jobWaitingLongerThanBoostGoesFirst() throws IOException {
+        Job old = addJobs("old", Job.IDENTWAIT, 1).get(0);
+        scheduler.next(jobList);
+        now += NetworkScheduler.BOOST_MS + 1;
+        Job boosted = addJobs("boosted", Job.IDENTWAIT, 1).get(0);
+        boosted.boosted = true;
+
+        assertEquals(old, scheduler.next(jobList));
+    }
+
+    @Test
+    void next_idleOperationDoesNotSaveUpTurns() throws IOException {
+        addJobs("identify", Job.IDENTWAIT, 20);
+        runTurns(10);
+        addJobs("add", Job.ADDWAIT, 20);
+
+        List<Job> run = runTurns(6);
+
+        assertEquals(4, countStatus(run, Job.IDENTWAIT));
+        assertEquals(2, countStatus(run, Job.ADDWAIT));
+    }
+
+    @Test
+    void next_returnsJobInProgressFirstAndNullWhenIdle() throws IOException {
+        assertNull(scheduler.next(jobList));
+        addJobs("identify", Job.IDENTWAIT, 2);
+        Job adding = addJobs("adding", Job.ADDING, 1).get(0);
+
+        assertEquals(adding, scheduler.next(jobList));
+    }
+
+    @Test
+    void upcoming_ordersBoostedJobsFirstThenQueueOrder() throws IOException {
+        List<Job> identify = addJobs("identify", Job.IDENTWAIT, 4);
+        addJobs("add", Job.ADDWAIT, 2);
+        identify.get(2).boosted = true;
+
+        List<Job> upcoming = scheduler.upcoming(jobList, Job.IDENTWAIT, 3);
+
+        assertEquals(List.of(identify.get(2), identify.get(0), identify.get(1)), upcoming);
+    }
+
+    /** Run {@code turns} jobs, each leaving the queue once picked. */
+    private List<Job> runTurns(int turns) {
+        List<Job> run = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            Job job = scheduler.next(jobList);
+            run.add(job);
+            jobList.updateQueues(job, job.getStatus(), Job.FINISHED);
+            now += 4000;
+        }
+        return run;
+    }
+
+    private List<Job> addJobs(String directoryName, int status, int count) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve(directoryName));
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = Files.write(directory.resolve("file" + i + ".mkv"), new byte[] {1}).toFile();
+            Job job = new Job(file, status);
+            jobList.updateQueues(job, -1, status);
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    private long countStatus(List<Job> jobs, int status) {
+        return jobs.stream().filter(job -> job.getStatus() == status).count();
+    }
+}
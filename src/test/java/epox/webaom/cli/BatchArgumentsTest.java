@@ -0,0 +1,79 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BatchArgumentsTest {
+
+    @Test
+    void parse_defaultsFollowTheOptions() {
+        BatchArguments arguments = BatchArguments.parse("/media/anime");
+
+        assertEquals(List.of(new File("/media/anime")), arguments.paths());
+        assertNull(arguments.optionsFile());
+        assertNull(arguments.databaseUrl());
+        assertNull(arguments.addToMylist());
+        assertTrue(arguments.useDatabase());
+        assertTrue(arguments.identify());
+        assertTrue(arguments.move());
+        assertEquals(BatchArguments.DEFAULT_PROGRESS_SECONDS, arguments.progressSeconds());
+    }
+
+    @Test
+    void parse_readsOptionsBetweenPaths() {
+        BatchArguments arguments = BatchArguments.parse(
+                "a", "--options", "webaom.conf", "--no-identify", "--no-add", "--no-move", "--progress", "0", "b");
+
+        assertEquals(List.of(new File("a"), new File("b")), arguments.paths());
+        assertEquals(new File("webaom.conf"), arguments.optionsFile());
+        assertFalse(arguments.identify());
+        assertFalse(arguments.addToMylist());
+        assertFalse(arguments.move());
+        assertEquals(0, arguments.progressSeconds());
+    }
+
+    @Test
+    void parse_doubleDashEndsOptions() {
+        BatchArguments arguments = BatchArguments.parse("--", "--odd name.mkv");
+
+        assertEquals(List.of(new File("--odd name.mkv")), arguments.paths());
+    }
+
+    @Test
+    void parse_helpNeedsNoPath() {
+        assertTrue(BatchArguments.parse("--help").help());
+    }
+
+    @Test
+    void parse_rejectsMistakes() {
+        assertThrows(IllegalArgumentException.class, BatchArguments::parse);
+        assertThrows(IllegalArgumentException.class, () -> BatchArguments.parse("--frobnicate", "a"));
+        assertThrows(IllegalArgumentException.class, () -> BatchArguments.parse("a", "--db"));
+        assertThrows(IllegalArgumentException.class, () -> BatchArguments.parse("a", "--progress", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> BatchArguments.parse("a", "--progress", "soon"));
+    }
+}
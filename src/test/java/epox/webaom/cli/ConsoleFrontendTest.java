@@ -0,0 +1,94 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.webaom.Options;
+import epox.webaom.data.Mylist;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ConsoleFrontendTest {
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final Options options = new Options(new File("unused.conf"));
+    private final ConsoleFrontend console =
+            new ConsoleFrontend(new PrintStream(output, true, StandardCharsets.UTF_8), options);
+
+    @Test
+    void toPlainText_dropsLogMarkup() {
+        String html = "Moved <span class=\"log-name\">a &amp; b.mkv</span> to <a href=\"x\">&lt;dir&gt;</a>";
+
+        assertEquals("Moved a & b.mkv to <dir>", ConsoleFrontend.toPlainText(html));
+        assertEquals("plain", ConsoleFrontend.toPlainText("plain"));
+    }
+
+    @Test
+    void println_writesPlainLines() {
+        console.println("<span class=\"log-warning\">File missing</span>");
+        console.showMessage(" Banned");
+
+        assertEquals(List.of("File missing", "! Banned"), output.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
+    @Test
+    void diskIo_runsUntilStoppedOrKilled() {
+        assertFalse(console.isDiskIoOk());
+        console.setDiskIoRunning(true);
+        assertTrue(console.isDiskIoOk());
+        console.toggleDiskIo();
+        assertFalse(console.isDiskIoOk());
+
+        console.setDiskIoRunning(true);
+        console.setNetworkIoRunning(true);
+        console.kill();
+        assertFalse(console.isDiskIoOk());
+        assertFalse(console.isNetworkIoOk());
+    }
+
+    @Test
+    void networkIo_stopsWhenTheWorkerReportsItDisabled() {
+        console.setNetworkIoRunning(true);
+        console.setNetworkIoEnabled(true);
+        assertTrue(console.isNetworkIoOk());
+
+        console.setNetworkIoEnabled(false);
+        assertFalse(console.isNetworkIoOk());
+    }
+
+    @Test
+    void settings_comeFromTheOptions() {
+        options.setBoolean(Options.BOOL_HASH_CRC, true);
+        options.setBoolean(Options.BOOL_HASH_TTH, true);
+        options.setBoolean(Options.BOOL_WATCHED, true);
+        options.setString(Options.STR_STORAGE, "nas");
+
+        assertEquals(Set.of("ed2k", "crc32", "tth"), console.getHashOptions().getChecksumNames());
+        assertEquals(List.of("ed2k", "crc32", "tth"), List.copyOf(console.getHashOptions().createChecksums().keySet()));
+        Mylist mylist = console.getMylistData();
+        assertEquals(1, mylist.viewed);
+        assertEquals("nas", mylist.storage);
+    }
+}
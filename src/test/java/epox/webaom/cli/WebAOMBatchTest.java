@@ -0,0 +1,151 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import epox.webaom.AppContext;
+import epox.webaom.Cache;
+import epox.webaom.DiskIOManager;
+import epox.webaom.FileHandler;
+import epox.webaom.Frontend;
+import epox.webaom.JobCounter;
+import epox.webaom.JobList;
+import epox.webaom.NetworkIOManager;
+import epox.webaom.Options;
+import epox.webaom.Rules;
+import epox.webaom.db.DatabaseManager;
+import epox.webaom.hash.Ed2kHash;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WebAOMBatchTest {
+    @TempDir
+    Path tempDir;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private JobList jobs;
+    private JobCounter jobCounter;
+    private Rules rules;
+    private Cache cache;
+    private DatabaseManager databaseManager;
+    private FileHandler fileHandler;
+    private Options opt;
+    private DiskIOManager dio;
+    private NetworkIOManager nio;
+    private Frontend frontend;
+    private boolean autoadd;
+    private String username;
+    private String password;
+
+    @BeforeEach
+    void saveAppContext() {
+        jobs = AppContext.jobs;
+        jobCounter = AppContext.jobCounter;
+        rules = AppContext.rules;
+        cache = AppContext.cache;
+        databaseManager = AppContext.databaseManager;
+        fileHandler = AppContext.fileHandler;
+        opt = AppContext.opt;
+        dio = AppContext.dio;
+        nio = AppContext.nio;
+        frontend = AppContext.frontend;
+        autoadd = AppContext.autoadd;
+        username = AppContext.userPass.username;
+        password = AppContext.userPass.password;
+    }
+
+    @AfterEach
+    void restoreAppContext() {
+        AppContext.jobs = jobs;
+        AppContext.jobCounter = jobCounter;
+        AppContext.rules = rules;
+        AppContext.cache = cache;
+        AppContext.databaseManager = databaseManager;
+        AppContext.fileHandler = fileHandler;
+        AppContext.opt = opt;
+        AppContext.dio = dio;
+        AppContext.nio = nio;
+        AppContext.frontend = frontend;
+        AppContext.autoadd = autoadd;
+        AppContext.userPass.username = username;
+        AppContext.userPass.password = password;
+    }
+
+    @Test
+    void run_hashesDirectoryTreeWithoutIdentifying() throws Exception {
+        Path season = Files.createDirectories(tempDir.resolve("show/season 1"));
+        byte[] data = new byte[300_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        Files.write(season.resolve("episode 01.mkv"), data);
+        Files.write(season.resolve("episode 02.mkv"), new byte[] {1, 2, 3});
+        Files.writeString(season.resolve("notes.txt"), "not a video");
+        Ed2kHash ed2k = new Ed2kHash();
+        ed2k.update(data, 0, data.length);
+
+        int status = run(
+                "--options",
+                tempDir.resolve("webaom.conf").toString(),
+                "--no-identify",
+                "--no-db",
+                "--progress",
+                "0",
+                tempDir.resolve("show").toString());
+
+        String text = output.toString(StandardCharsets.UTF_8);
+        assertEquals(WebAOMBatch.EXIT_OK, status, text);
+        assertTrue(text.contains("Added 2 files"), text);
+        assertTrue(text.contains("ed2k://|file|episode 01.mkv|300000|" + ed2k.hexValue()), text);
+        assertTrue(text.contains("Done in "), text);
+        assertTrue(text.contains("2 files, 0 finished, 0 failed, 2 hashed."), text);
+    }
+
+    @Test
+    void run_needsLoginToIdentify() {
+        assumeTrue(System.getenv("WEBAOM_USERNAME") == null && System.getenv("WEBAOM_PASSWORD") == null);
+        AppContext.userPass.username = null;
+        AppContext.userPass.password = null;
+
+        int status = run("--options", tempDir.resolve("webaom.conf").toString(), tempDir.toString());
+
+        assertEquals(WebAOMBatch.EXIT_USAGE, status);
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("No AniDB login"));
+    }
+
+    @Test
+    void run_rejectsMissingPaths() {
+        assertEquals(WebAOMBatch.EXIT_USAGE, run(tempDir.resolve("missing").toString()));
+        assertEquals(WebAOMBatch.EXIT_USAGE, run("--bogus", tempDir.toString()));
+        assertEquals(WebAOMBatch.EXIT_OK, run("--help"));
+    }
+
+    private int run(String... args) {
+        return WebAOMBatch.run(new PrintStream(output, true, StandardCharsets.UTF_8), args);
+    }
+}
@@ -16,10 +16,14 @@
 
 package epox.webaom.db;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import epox.webaom.FileFingerprint;
+import epox.webaom.data.AniDBFile;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -35,7 +39,7 @@ class SQLiteDatabaseManagerMigrationTest {
     Path tempDir;
 
     @Test
-    void initialize_existingV6Database_migratesToV7AndBackfillsVisibility() throws Exception {
+    void initialize_existingV6Database_migratesToV8AndBackfillsVisibility() throws Exception {
         Path dbPath = tempDir.resolve("migrate-v6.sqlite");
         createLegacyV6Database(dbPath);
 
@@ -47,7 +51,7 @@ class SQLiteDatabaseManagerMigrationTest {
                 Statement statement = connection.createStatement()) {
             try (ResultSet rs = statement.executeQuery("select ver from vtb")) {
                 assertTrue(rs.next());
-                assertEquals(7, rs.getInt(1));
+                assertEquals(8, rs.getInt(1));
             }
             try (ResultSet rs =
                     statement.executeQuery("select jobs_visible, alt_visible from jtb where ed2k='hash-v6'")) {
@@ -55,6 +59,15 @@ class SQLiteDatabaseManagerMigrationTest {
                 assertEquals(1, rs.getInt(1));
                 assertEquals(1, rs.getInt(2));
             }
+            try (ResultSet rs = statement.executeQuery("select count(*) from htb")) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "select count(*) from sqlite_master where type='index' and name='i_ftb_size_ed2k'")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
         }
     }
 
@@ -81,18 +94,101 @@ class SQLiteDatabaseManagerMigrationTest {
     @Test
     void initialize_existingFutureVersionDatabase_rejectsInitializationAndWarns() throws Exception {
         Path dbPath = tempDir.resolve("future-version.sqlite");
-        createFutureVersionDatabase(dbPath, 8);
+        createFutureVersionDatabase(dbPath, 9);
 
         CapturingSQLiteDatabaseManager manager = new CapturingSQLiteDatabaseManager();
         assertFalse(manager.initialize("jdbc:sqlite:" + dbPath));
-        assertEquals(8, manager.warnedDetectedVersion);
-        assertEquals(7, manager.warnedSupportedVersion);
+        assertEquals(9, manager.warnedDetectedVersion);
+        assertEquals(8, manager.warnedSupportedVersion);
 
         try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
                 Statement statement = connection.createStatement();
                 ResultSet rs = statement.executeQuery("select ver from vtb")) {
             assertTrue(rs.next());
-            assertEquals(8, rs.getInt(1));
+            assertEquals(9, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void cachedHashes_matchOnlyWhileFingerprintIsUnchanged() {
+        SQLiteDatabaseManager manager = new SQLiteDatabaseManager();
+        assertTrue(manager.initialize("jdbc:sqlite:" + tempDir.resolve("hash-cache.sqlite")));
+        try {
+            int directoryId = manager.getDirectoryId("/media/anime");
+            FileFingerprint fingerprint = new FileFingerprint(1234, 1_700_000_000_000L, "(dev=803,ino=42)");
+            String[] hashes = {"ed2k-hash", null, "sha1-hash", null, "crc"};
+
+            assertTrue(manager.putCachedHashes(directoryId, "episode.mkv", fingerprint, hashes));
+            assertArrayEquals(hashes, manager.getCachedHashes(directoryId, "episode.mkv", fingerprint));
+
+            FileFingerprint touched = new FileFingerprint(1234, 1_700_000_000_001L, "(dev=803,ino=42)");
+            FileFingerprint replaced = new FileFingerprint(1234, 1_700_000_000_000L, "(dev=803,ino=43)");
+            assertNull(manager.getCachedHashes(directoryId, "episode.mkv", touched));
+            assertNull(manager.getCachedHashes(directoryId, "episode.mkv", replaced));
+
+            // Re-hashing a path replaces its cache entry
+            assertTrue(manager.putCachedHashes(directoryId, "episode.mkv", touched, hashes));
+            assertNull(manager.getCachedHashes(directoryId, "episode.mkv", fingerprint));
+            assertArrayEquals(hashes, manager.getCachedHashes(directoryId, "episode.mkv", touched));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void storedFile_identifiesBySizeAndHashUntilStale() throws Exception {
+        Path dbPath = tempDir.resolve("local-id.sqlite");
+        SQLiteDatabaseManager manager = new SQLiteDatabaseManager();
+        assertTrue(manager.initialize("jdbc:sqlite:" + dbPath));
+        try {
+            AniDBFile file = new AniDBFile(new String[] {
+                "77", "5", "6", "0", "0", "1", "1234", "0123abcd", "", "", "", "japanese", "english", "high",
+                "DVD", "AAC", "H264", "1280x720", "mkv", "1420"
+            });
+            file.setDefaultName("Show - 01.mkv");
+            assertTrue(manager.update(77, file, DatabaseManager.INDEX_FILE));
+
+            AniDBFile stored = manager.getFile(1234, "0123ABCD", Long.MAX_VALUE);
+            assertEquals(77, stored.getFileId());
+            assertEquals(6, stored.getEpisodeId());
+            assertEquals("Show - 01.mkv", stored.getDefaultName());
+            assertEquals("mkv", stored.getExtension());
+            assertNull(manager.getFile(1235, "0123abcd", Long.MAX_VALUE));
+
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+                    Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE ftb SET time = '2000-01-01 00:00:00' WHERE fid = 77");
+            }
+            long day = 24L * 60 * 60 * 1000;
+            assertNull(manager.getFile(1234, "0123abcd", day));
+
+            // Refreshing the row from AniDB makes it usable again
+            assertTrue(manager.update(77, file, DatabaseManager.INDEX_FILE));
+            assertEquals(77, manager.getFile(1234, "0123abcd", day).getFileId());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void storedFileWithoutExtension_leavesExtensionToTheJob() throws Exception {
+        Path dbPath = tempDir.resolve("local-id-no-ext.sqlite");
+        SQLiteDatabaseManager manager = new SQLiteDatabaseManager();
+        assertTrue(manager.initialize("jdbc:sqlite:" + dbPath));
+        try {
+            // As written before the ext column existed
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+                    Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO ftb (fid, aid, eid, gid, state, size, ed2k, def_name, sublang, "
+                        + "dublang, ext) VALUES (78, 5, 6, 0, 1, 4321, 'abcd0123', 'Show - 02.avi', '', '', '')");
+            }
+
+            AniDBFile stored = manager.getFile(4321, "abcd0123", Long.MAX_VALUE);
+
+            assertEquals(78, stored.getFileId());
+            assertNull(stored.getExtension());
+        } finally {
+            manager.shutdown();
         }
     }
 
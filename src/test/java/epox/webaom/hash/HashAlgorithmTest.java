@@ -16,13 +16,17 @@
 
 package epox.webaom.hash;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import gnu.crypto.hash.IMessageDigest;
 import gnu.crypto.hash.MD4;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.HexFormat;
+import java.util.List;
 import java.util.Random;
+import java.util.zip.CRC32;
 import org.junit.jupiter.api.Test;
 
 /** Correctness tests for all {@link HashAlgorithm} implementations. */
@@ -325,4 +329,99 @@ class HashAlgorithmTest {
             java.util.Locale.setDefault(original);
         }
     }
+
+    // --- ByteBuffer update path and binary digest ---
+
+    @Test
+    void byteBufferUpdate_matchesArrayUpdate_forDirectAndHeapBuffers() {
+        byte[] data = new byte[ED2K_BLOCK_SIZE + 5000]; // crosses an ed2k block boundary
+        new Random(5).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        ByteBuffer heap = ByteBuffer.wrap(data);
+
+        List<HashAlgorithm> expected = allAlgorithms();
+        List<HashAlgorithm> fromDirect = allAlgorithms();
+        List<HashAlgorithm> fromHeap = allAlgorithms();
+        for (int i = 0; i < expected.size(); i++) {
+            expected.get(i).update(data, 0, data.length);
+            // Split the direct buffer unevenly to exercise partial leaves and staging chunks
+            fromDirect.get(i).update(direct.duplicate().limit(1000));
+            fromDirect.get(i).update(direct.duplicate().position(1000));
+            fromHeap.get(i).update(heap.duplicate());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).hexValue(), fromDirect.get(i).hexValue());
+            assertEquals(expected.get(i).hexValue(), fromHeap.get(i).hexValue());
+        }
+    }
+
+    @Test
+    void byteBufferUpdate_consumesBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+        for (HashAlgorithm algorithm : allAlgorithms()) {
+            buffer.clear();
+            algorithm.update(buffer);
+            assertEquals(buffer.limit(), buffer.position());
+        }
+    }
+
+    @Test
+    void digest_matchesHexValue() {
+        byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        for (HashAlgorithm algorithm : List.of(new Crc32Hash(), new Md5Hash(), new Sha1Hash(), new Ed2kHash())) {
+            algorithm.update(data, 0, data.length);
+            assertArrayEquals(HexFormat.of().parseHex(algorithm.hexValue()), algorithm.digest());
+        }
+    }
+
+    @Test
+    void tth_digestMatchesBase32HexValue() {
+        TthHash hash = new TthHash();
+        hash.update(new byte[2048], 0, 2048);
+        byte[] digest = hash.digest();
+        assertEquals(24, digest.length);
+        assertEquals(com.bitzi.util.Base32.encode(digest).toLowerCase(java.util.Locale.ROOT), hash.hexValue());
+    }
+
+    // --- Copying state for checkpoints ---
+
+    @Test
+    void copy_continuesLikeTheOriginal() {
+        byte[] data = new byte[2 * ED2K_BLOCK_SIZE + 777];
+        new Random(11).nextBytes(data);
+        // Split off the block end and mid-leaf/mid-MD4-block offsets
+        int[] splits = {0, 1, 1000, ED2K_BLOCK_SIZE, ED2K_BLOCK_SIZE + 3, 2 * ED2K_BLOCK_SIZE + 777};
+
+        for (int split : splits) {
+            List<HashAlgorithm> expected = allAlgorithms();
+            List<HashAlgorithm> originals = allAlgorithms();
+            for (int i = 0; i < expected.size(); i++) {
+                expected.get(i).update(data, 0, data.length);
+                originals.get(i).update(data, 0, split);
+                HashAlgorithm copy = originals.get(i).copy();
+                // The original keeps going on its own; the copy must not share its state
+                originals.get(i).update(new byte[100], 0, 100);
+                copy = copy.copy();
+                copy.update(ByteBuffer.wrap(data, split, data.length - split));
+                assertEquals(expected.get(i).hexValue(), copy.hexValue(), "split " + split + ", algorithm " + i);
+            }
+        }
+    }
+
+    @Test
+    void crc32_combineMatchesCrcOfConcatenation() {
+        byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+        for (int split = 0; split <= data.length; split++) {
+            CRC32 first = new CRC32();
+            first.update(data, 0, split);
+            CRC32 second = new CRC32();
+            second.update(data, split, data.length - split);
+            int combined = Crc32Hash.combine((int) first.getValue(), (int) second.getValue(), data.length - split);
+            assertEquals(0xCBF43926, combined, "split " + split);
+        }
+    }
+
+    private static List<HashAlgorithm> allAlgorithms() {
+        return List.of(new Crc32Hash(), new Ed2kHash(), new Md5Hash(), new Sha1Hash(), new TthHash());
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests that {@link HashPipeline} produces the same digests as feeding algorithms sequentially. */
+class HashPipelineTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pipelinedDigests_matchSequential() throws Exception {
+        byte[] data = new byte[10_000_000]; // spans an ed2k block boundary
+        new Random(7).nextBytes(data);
+
+        List<HashAlgorithm> sequential = allAlgorithms();
+        for (HashAlgorithm algorithm : sequential) {
+            algorithm.update(data, 0, data.length);
+        }
+
+        List<HashAlgorithm> pipelined = allAlgorithms();
+        int chunkSize = 65_536;
+        try (HashPipeline pipeline = new HashPipeline(pipelined, ring(3, chunkSize, true), executor)) {
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                int length = Math.min(chunkSize, data.length - offset);
+                ByteBuffer buffer = pipeline.acquire();
+                buffer.put(data, offset, length);
+                pipeline.publish(buffer.flip());
+            }
+            pipeline.finish();
+        }
+
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).hexValue(), pipelined.get(i).hexValue());
+        }
+    }
+
+    @Test
+    void publishedViews_areDigestedInOrder() throws Exception {
+        byte[] data = new byte[1_000_000];
+        new Random(11).nextBytes(data);
+        Sha1Hash expected = new Sha1Hash();
+        expected.update(data, 0, data.length);
+
+        Sha1Hash sha1 = new Sha1Hash();
+        ByteBuffer source = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        try (HashPipeline pipeline = new HashPipeline(List.of(sha1, new Crc32Hash()), ring(2, 16, false), executor)) {
+            for (int offset = 0; offset < data.length; offset += 4096) {
+                pipeline.publishView(source.slice(offset, Math.min(4096, data.length - offset)));
+            }
+            pipeline.finish();
+        }
+        assertEquals(expected.hexValue(), sha1.hexValue());
+    }
+
+    @Test
+    void releasedBuffer_isNotDigested() throws Exception {
+        Md5Hash md5 = new Md5Hash();
+        try (HashPipeline pipeline = new HashPipeline(List.of(md5, new Crc32Hash()), ring(2, 16, false), executor)) {
+            ByteBuffer buffer = pipeline.acquire();
+            buffer.put((byte) 1);
+            pipeline.release(buffer);
+            pipeline.finish();
+        }
+        assertEquals(new Md5Hash().hexValue(), md5.hexValue());
+    }
+
+    @Test
+    void failingDigest_surfacesAsIOException() throws Exception {
+        HashAlgorithm failing = new Crc32Hash() {
+            @Override
+            public void update(ByteBuffer buffer) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        try (HashPipeline pipeline = new HashPipeline(List.of(failing, new Md5Hash()), ring(2, 16, false), executor)) {
+            pipeline.publish(pipeline.acquire().flip());
+            IOException e = assertThrows(IOException.class, pipeline::finish);
+            assertTrue(e.getMessage().contains("boom"));
+        }
+    }
+
+    private static ByteBuffer[] ring(int count, int size, boolean direct) {
+        ByteBuffer[] ring = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            ring[i] = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+        return ring;
+    }
+
+    private static List<HashAlgorithm> allAlgorithms() {
+        return List.of(new Ed2kHash(), new Crc32Hash(), new Md5Hash(), new Sha1Hash(), new TthHash());
+    }
+}
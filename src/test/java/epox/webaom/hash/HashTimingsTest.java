@@ -0,0 +1,48 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HashTimingsTest {
+
+    @Test
+    void wrap_keepsTheDigestAndCountsTimePerAlgorithm() {
+        byte[] data = new byte[1 << 20];
+        new Random(3).nextBytes(data);
+        HashTimings timings = new HashTimings();
+        HashAlgorithm sha1 = timings.wrap("sha1", new Sha1Hash());
+        HashAlgorithm crc32 = timings.wrap("crc32", new Crc32Hash());
+
+        sha1.update(data, 0, data.length);
+        crc32.update(ByteBuffer.wrap(data));
+
+        Sha1Hash plain = new Sha1Hash();
+        plain.update(data, 0, data.length);
+        assertEquals(plain.hexValue(), sha1.hexValue());
+        assertEquals(List.of("sha1", "crc32"), List.copyOf(timings.getDigestNanos().keySet()));
+        assertTrue(timings.getDigestNanos().get("sha1") > 0);
+        assertTrue(timings.getDigestNanos().get("crc32") > 0);
+        assertEquals(0, timings.getReadNanos());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import gnu.crypto.hash.IMessageDigest;
+import gnu.crypto.hash.MD4;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Tests {@link Md4} against the RFC 1320 vectors and the gnu.crypto implementation. */
+class Md4Test {
+
+    @Test
+    void digest_matchesRfc1320TestSuite() {
+        assertEquals("31d6cfe0d16ae931b73c59d7e0c089c0", md4(""));
+        assertEquals("bde52cb31de33e46245e05fbdbd6fb24", md4("a"));
+        assertEquals("a448017aaf21d8525fc10ae87aa6729d", md4("abc"));
+        assertEquals("d9130a8164549fe818874806e1c7014b", md4("message digest"));
+        assertEquals("d79e1c308aa5bbcdeea8ed63df412da9", md4("abcdefghijklmnopqrstuvwxyz"));
+        assertEquals(
+                "043f8582f241db351ce627e153e7f0e4",
+                md4("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"));
+        assertEquals(
+                "e33b4ddc9c38f2199c3e7b164fcc0536",
+                md4("12345678901234567890123456789012345678901234567890123456789012345678901234567890"));
+    }
+
+    @Test
+    void randomInputs_matchGnuMd4() {
+        Random random = new Random(17);
+        Md4 md4 = new Md4();
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(5000)];
+            random.nextBytes(data);
+            IMessageDigest reference = new MD4();
+            reference.update(data, 0, data.length);
+
+            // Feed in random-sized pieces so partial blocks are carried across calls
+            int offset = 0;
+            while (offset < data.length) {
+                int length = Math.min(data.length - offset, random.nextInt(150));
+                md4.update(data, offset, length);
+                offset += length;
+            }
+
+            assertArrayEquals(reference.digest(), md4.digest(), "length " + data.length);
+        }
+    }
+
+    @Test
+    void directBuffers_matchArraysInEitherByteOrder() {
+        byte[] data = new byte[10_007];
+        new Random(23).nextBytes(data);
+        Md4 expected = new Md4();
+        expected.update(data, 0, data.length);
+        byte[] expectedDigest = expected.digest();
+
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+            direct.put(data).flip();
+            Md4 md4 = new Md4();
+            md4.update(direct.slice(0, 5).order(order));
+            md4.update(direct.slice(5, data.length - 5).order(order));
+
+            assertArrayEquals(expectedDigest, md4.digest(), order.toString());
+        }
+    }
+
+    @Test
+    void copyFrom_leavesSourceRunning() {
+        byte[] data = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+        Md4 running = new Md4();
+        running.update(data, 0, 10);
+        Md4 copy = new Md4();
+        copy.copyFrom(running);
+        copy.update(data, 10, data.length - 10);
+        running.update(data, 10, data.length - 10);
+
+        assertEquals("1bee69a46ba811185c194762abaeae90", HexFormat.of().formatHex(copy.digest()));
+        assertEquals("1bee69a46ba811185c194762abaeae90", HexFormat.of().formatHex(running.digest()));
+    }
+
+    private static String md4(String text) {
+        byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+        Md4 md4 = new Md4();
+        md4.update(data, 0, data.length);
+        return HexFormat.of().formatHex(md4.digest());
+    }
+}
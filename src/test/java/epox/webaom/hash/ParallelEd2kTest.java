@@ -0,0 +1,176 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.webaom.util.BufferPool;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests that {@link ParallelEd2k} is bit-identical to sequential {@link Ed2kHash}. */
+class ParallelEd2kTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BufferPool pool = new BufferPool(4 * BufferPool.SMALL);
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hash_matchesSequentialAcrossBlockBoundaries() throws Exception {
+        int block = Ed2kHash.BLOCK_SIZE;
+        int[] sizes = {1, 1000, block - 1, block, block + 1, 2 * block, 3 * block + 12345};
+        byte[] data = new byte[3 * block + 12345];
+        new Random(5).nextBytes(data);
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+
+        for (int size : sizes) {
+            Ed2kHash sequential = new Ed2kHash();
+            sequential.update(data, 0, size);
+            AtomicLong progress = new AtomicLong();
+
+            byte[] parallel;
+            try (FileChannel channel = FileChannel.open(file)) {
+                parallel = ParallelEd2k.hash(
+                        channel, size, 3, executor, pool, () -> true, progress::addAndGet, new HashTimings());
+            }
+
+            assertArrayEquals(sequential.digest(), parallel, "size " + size);
+            assertEquals(size, progress.get(), "progress for size " + size);
+        }
+        assertEquals(0, pool.getStats().lentBytes());
+    }
+
+    @Test
+    void hash_reportsReadAndDigestTime() throws Exception {
+        byte[] data = new byte[Ed2kHash.BLOCK_SIZE + 1];
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+        HashTimings timings = new HashTimings();
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            ParallelEd2k.hash(channel, data.length, 2, executor, pool, () -> true, bytes -> {}, timings);
+        }
+
+        assertTrue(timings.getReadNanos() > 0);
+        assertTrue(timings.getDigestNanos().get("ed2k") > 0);
+    }
+
+    @Test
+    void hash_skipsBlocksWithKnownDigests() throws Exception {
+        int block = Ed2kHash.BLOCK_SIZE;
+        byte[] data = new byte[3 * block + 500];
+        new Random(7).nextBytes(data);
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+        Ed2kHash sequential = new Ed2kHash();
+        sequential.update(data, 0, data.length);
+
+        byte[][] blockDigests = new byte[ParallelEd2k.blockCount(data.length)][];
+        assertEquals(4, blockDigests.length);
+        for (int i : new int[] {0, 2}) {
+            Md4 md4 = new Md4();
+            md4.update(data, i * block, block);
+            blockDigests[i] = md4.digest();
+        }
+        assertEquals(2L * block, ParallelEd2k.bytesDone(blockDigests, data.length));
+        AtomicLong progress = new AtomicLong();
+
+        byte[] parallel;
+        try (FileChannel channel = FileChannel.open(file)) {
+            parallel = ParallelEd2k.hash(
+                    channel,
+                    data.length,
+                    2,
+                    executor,
+                    pool,
+                    () -> true,
+                    progress::addAndGet,
+                    new HashTimings(),
+                    blockDigests);
+        }
+
+        assertArrayEquals(sequential.digest(), parallel);
+        assertEquals(block + 500, progress.get());
+        assertEquals(data.length, ParallelEd2k.bytesDone(blockDigests, data.length));
+    }
+
+    @Test
+    void hash_returnsNullWhenAborted() throws Exception {
+        byte[] data = new byte[2 * Ed2kHash.BLOCK_SIZE];
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertNull(ParallelEd2k.hash(
+                    channel, data.length, 2, executor, pool, () -> false, bytes -> {}, new HashTimings()));
+        }
+    }
+
+    @Test
+    void hash_interruptedCallerWaitsForWorkersToStop() throws Exception {
+        byte[] data = new byte[2 * Ed2kHash.BLOCK_SIZE];
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+        AtomicInteger polls = new AtomicInteger();
+        BooleanSupplier slowKeepGoing = () -> {
+            polls.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            return true;
+        };
+        Thread caller = Thread.currentThread();
+        executor.execute(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            caller.interrupt();
+        });
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertThrows(
+                    InterruptedException.class,
+                    () -> ParallelEd2k.hash(
+                            channel, data.length, 2, executor, pool, slowKeepGoing, bytes -> {}, new HashTimings()));
+        }
+        int pollsOnReturn = polls.get();
+        Thread.sleep(50);
+
+        assertEquals(pollsOnReturn, polls.get());
+    }
+}
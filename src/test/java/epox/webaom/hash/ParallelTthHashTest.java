@@ -0,0 +1,105 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Tests that {@link ParallelTthHash} produces the same root as the sequential {@link TthHash}. */
+class ParallelTthHashTest {
+    private static final int SEGMENT_SIZE = ParallelTthHash.SEGMENT_LEAVES * 1024;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void hexValue_matchesSequentialAroundLeafAndSegmentBoundaries() {
+        int[] sizes = {0, 1, 1024, 1025, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE + 5000};
+        byte[] data = new byte[3 * SEGMENT_SIZE + 5000];
+        new Random(3).nextBytes(data);
+
+        for (int size : sizes) {
+            assertEquals(sequential(data, size), parallel(data, size, 65_536), "size " + size);
+        }
+    }
+
+    @Test
+    void hexValue_matchesSequentialWithManySegmentsInFlight() {
+        byte[] data = new byte[17 * SEGMENT_SIZE + 7];
+        new Random(9).nextBytes(data);
+
+        assertEquals(sequential(data, data.length), parallel(data, data.length, 100_003));
+    }
+
+    @Test
+    void directBuffers_andReset_giveSameResult() {
+        byte[] data = new byte[5 * SEGMENT_SIZE + 321];
+        new Random(13).nextBytes(data);
+        ParallelTthHash hash = new ParallelTthHash(pool);
+        hash.update(new byte[SEGMENT_SIZE * 2], 0, SEGMENT_SIZE * 2);
+        hash.reset();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        hash.update(direct);
+
+        assertEquals(sequential(data, data.length), hash.hexValue());
+    }
+
+    @Test
+    void copy_takesOverSegmentsInFlightAndPendingData() {
+        byte[] data = new byte[6 * SEGMENT_SIZE + 4321];
+        new Random(17).nextBytes(data);
+        int split = 4 * SEGMENT_SIZE + 1000;
+        ParallelTthHash hash = new ParallelTthHash(pool);
+        hash.update(data, 0, split);
+
+        HashAlgorithm copy = hash.copy();
+        copy.update(data, split, data.length - split);
+
+        assertEquals(sequential(data, data.length), copy.hexValue());
+    }
+
+    private static String sequential(byte[] data, int size) {
+        TthHash hash = new TthHash();
+        hash.update(data, 0, size);
+        return hash.hexValue();
+    }
+
+    private String parallel(byte[] data, int size, int chunkSize) {
+        ParallelTthHash hash = new ParallelTthHash(pool);
+        for (int offset = 0; offset < size; offset += chunkSize) {
+            hash.update(data, offset, Math.min(chunkSize, size - offset));
+        }
+        return hash.hexValue();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.hash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReadAheadTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void next_returnsRangeInOrder() throws Exception {
+        byte[] data = new byte[10_000];
+        new Random(3).nextBytes(data);
+        Path file = Files.write(tempDir.resolve("data.bin"), data);
+        Ed2kHash expected = new Ed2kHash();
+        expected.update(data, 1234, data.length - 1234);
+        Ed2kHash actual = new Ed2kHash();
+        HashTimings timings = new HashTimings();
+
+        try (FileChannel channel = FileChannel.open(file);
+                ReadAhead reader =
+                        new ReadAhead(channel::read, 1234, data.length, buffers(3, 1000), executor, timings)) {
+            ByteBuffer chunk;
+            while ((chunk = reader.next()) != null) {
+                assertTrue(chunk.remaining() <= 1000);
+                actual.update(chunk);
+            }
+            assertNull(reader.next());
+        }
+
+        assertEquals(expected.hexValue(), actual.hexValue());
+        assertTrue(timings.getReadNanos() > 0);
+    }
+
+    @Test
+    void close_stopsReaderPartWay() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        ReadAhead.PositionalReader source = (destination, position) -> {
+            reads.incrementAndGet();
+            int length = destination.remaining();
+            destination.position(destination.limit());
+            return length;
+        };
+
+        try (ReadAhead reader = new ReadAhead(source, 0, 1_000_000, buffers(2, 100), executor, new HashTimings())) {
+            assertNotNull(reader.next());
+        }
+
+        // One chunk handed out, at most one more read into each buffer before the stop was seen
+        assertTrue(reads.get() <= 4, "reads: " + reads.get());
+    }
+
+    @Test
+    void next_failsWhenFileEndsBeforeRange() throws Exception {
+        Path file = Files.write(tempDir.resolve("short.bin"), new byte[500]);
+
+        try (FileChannel channel = FileChannel.open(file);
+                ReadAhead reader = new ReadAhead(channel::read, 0, 800, buffers(2, 300), executor, new HashTimings())) {
+            assertNotNull(reader.next());
+            assertThrows(EOFException.class, () -> {
+                while (reader.next() != null) {
+                    // drain
+                }
+            });
+        }
+    }
+
+    private static ByteBuffer[] buffers(int count, int size) {
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(size);
+        }
+        return buffers;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.SocketTimeoutException;
+import org.junit.jupiter.api.Test;
+
+class AniDBConnectionResponseTest {
+
+    @Test
+    void busyAndTimeoutReplies_areRetriedLikeLostPackets() {
+        assertThrows(SocketTimeoutException.class, () -> parse("t00001 602 SERVER BUSY"));
+        assertThrows(SocketTimeoutException.class, () -> parse("t00001 604 TIMEOUT - DELAY AND RESUBMIT"));
+    }
+
+    @Test
+    void outOfService_isReported() {
+        AniDBException error = assertThrows(AniDBException.class, () -> parse("t00001 601 ANIDB OUT OF SERVICE"));
+
+        assertTrue(error.is(AniDBException.ANIDB_OUT_OF_SERVICE));
+    }
+
+    @Test
+    void banned_carriesReason() {
+        AniDBException error = assertThrows(AniDBException.class, () -> parse("t00001 555 BANNED\nFlood protection"));
+
+        assertTrue(error.is(AniDBException.BANNED));
+        assertEquals("Banned: Flood protection", error.getMessage());
+    }
+
+    private static AniDBConnectionResponse parse(String raw) throws Exception {
+        return new AniDBConnectionResponse("t00001", 5, raw);
+    }
+}
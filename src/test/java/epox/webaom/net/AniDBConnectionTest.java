@@ -0,0 +1,71 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+class AniDBConnectionTest {
+    private static final String REPLY = "t00001 220 FILE\n312|45|6789|0|0|1|1024|abc|||||||||||mkv|0\n";
+
+    @Test
+    void decodePayload_plainDatagram_dropsTrailingNewline() throws Exception {
+        byte[] datagram = REPLY.getBytes(StandardCharsets.UTF_8);
+
+        String decoded = AniDBConnection.decodePayload(datagram, datagram.length, "UTF-8");
+
+        assertEquals(REPLY.substring(0, REPLY.length() - 1), decoded);
+    }
+
+    @Test
+    void decodePayload_compressedDatagram_isInflated() throws Exception {
+        byte[] datagram = compress(REPLY);
+
+        String decoded = AniDBConnection.decodePayload(datagram, datagram.length, "UTF-8");
+
+        assertEquals(REPLY.substring(0, REPLY.length() - 1), decoded);
+    }
+
+    @Test
+    void decodePayload_highlyCompressedDatagram_isInflatedCompletely() throws Exception {
+        String reply = "t00002 220 FILE\n42|" + "x".repeat(5000) + "\n";
+        byte[] datagram = compress(reply);
+
+        String decoded = AniDBConnection.decodePayload(datagram, datagram.length, "UTF-8");
+
+        assertEquals(reply.substring(0, reply.length() - 1), decoded);
+    }
+
+    private static byte[] compress(String reply) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(reply.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(0);
+        byte[] chunk = new byte[256];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+}
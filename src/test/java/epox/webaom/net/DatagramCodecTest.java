@@ -0,0 +1,122 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+class DatagramCodecTest {
+    private static final SecretKeySpec KEY = new SecretKeySpec(new byte[16], "AES");
+
+    private final DatagramCodec codec = new DatagramCodec();
+
+    @Test
+    void encode_appendsTag() throws Exception {
+        assertEquals("PING tag=t00001", encodeToString("PING", "t00001"));
+        assertEquals("FILE fid=1&s=abc&tag=t00002", encodeToString("FILE fid=1&s=abc", "t00002"));
+        assertEquals("LOGOUT s=abc", encodeToString("LOGOUT s=abc", null));
+    }
+
+    @Test
+    void encode_switchesCharsetAfterAuth() throws Exception {
+        encodeToString("AUTH user=a&pass=b&enc=utf8", "t00001");
+
+        assertEquals(StandardCharsets.UTF_8, codec.getCharset());
+        assertEquals("MYLISTADD other=ä", encodeToString("MYLISTADD other=ä", null));
+    }
+
+    @Test
+    void encode_encryptsWithCachedCipher() throws Exception {
+        codec.setKey(KEY);
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, KEY);
+
+        for (int n = 0; n < 3; n++) {
+            ByteBuffer out = ByteBuffer.allocate(256);
+            codec.encode("PING n=" + n, null, out);
+            byte[] datagram = Arrays.copyOf(out.array(), out.position());
+
+            assertEquals("PING n=" + n, new String(cipher.doFinal(datagram), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void decode_encryptedCompressedReplies() throws Exception {
+        codec.setEncoding("UTF-8");
+        codec.setKey(KEY);
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, KEY);
+
+        for (int n = 1; n <= 3; n++) {
+            // Each reply needs more room than the last, so the inflate buffer has to grow
+            String reply = "t0000" + n + " 220 FILE\n42|" + "x".repeat(n * 20_000) + "\n";
+            byte[] datagram = cipher.doFinal(compress(reply));
+
+            assertEquals(reply.substring(0, reply.length() - 1), codec.decode(ByteBuffer.wrap(datagram)));
+        }
+    }
+
+    @Test
+    void decode_undecryptableReply_switchesEncryptionOff() {
+        codec.setKey(KEY);
+        byte[] plain = "t00001 300 PONG\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(AniDBException.class, () -> codec.decode(ByteBuffer.wrap(plain)));
+        assertFalse(codec.isEncrypting());
+    }
+
+    @Test
+    void decode_readsFromBufferPosition() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put("t00001 300 PONG\n".getBytes(StandardCharsets.US_ASCII)).flip();
+
+        assertEquals("t00001 300 PONG", codec.decode(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    private String encodeToString(String command, String tag) throws Exception {
+        ByteBuffer out = ByteBuffer.allocate(256);
+        codec.encode(command, tag, out);
+        return new String(out.array(), 0, out.position(), codec.getCharset());
+    }
+
+    private static byte[] compress(String reply) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(reply.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(0);
+        byte[] chunk = new byte[256];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.swing.Log;
+import epox.webaom.net.server.FloodPolicy;
+import epox.webaom.net.server.LocalAniDBServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FloodLimiterTest {
+    private long now = 1_000_000;
+    private final List<Long> sent = new ArrayList<>();
+    private final FloodLimiter limiter = new FloodLimiter(() -> now, millis -> now += millis, new Random(1));
+
+    @Test
+    void burstGoesOutAtOnce_thenOnePacketPerShortTermInterval() throws Exception {
+        send(8);
+
+        for (int i = 0; i < FloodLimiter.SHORT_TERM_BURST; i++) {
+            assertEquals(0, sentAt(i));
+        }
+        assertEquals(2000, sentAt(5));
+        assertEquals(4000, sentAt(6));
+        assertEquals(6000, sentAt(7));
+        assertEquals(3, limiter.getPacketsDelayed());
+        assertEquals(2000, limiter.getMaxWaitMillis());
+        assertTrue(limiter.getLastDecision().contains("short-term limit"));
+    }
+
+    @Test
+    void largeBatch_takesNoLongerThanTheLongTermRuleRequires() throws Exception {
+        // 500 files: a FILE and a MYLISTADD each
+        int packets = 1000;
+        send(packets);
+
+        // The long-term rule alone allows no faster schedule; a fixed delay would take (packets - 1) * 4 s
+        long required = (packets - FloodLimiter.LONG_TERM_BURST) * FloodLimiter.LONG_TERM_INTERVAL_MS;
+        assertEquals(required, sentAt(packets - 1));
+        for (int i = FloodLimiter.SHORT_TERM_BURST; i < packets; i++) {
+            assertTrue(sentAt(i) - sentAt(i - 1) >= FloodLimiter.SHORT_TERM_INTERVAL_MS, "packet " + i);
+        }
+        assertEquals(packets, limiter.getPacketsSent());
+    }
+
+    @Test
+    void idleTime_refillsTheBurst() throws Exception {
+        send(6);
+        now += 60_000;
+        sent.clear();
+
+        send(FloodLimiter.SHORT_TERM_BURST);
+
+        assertEquals(62_000, sentAt(FloodLimiter.SHORT_TERM_BURST - 1));
+    }
+
+    @Test
+    void throttled_backsOffExponentiallyWithJitter() throws Exception {
+        long first = limiter.throttled("timeout");
+        long second = limiter.throttled("timeout");
+        long third = limiter.throttled("timeout");
+
+        assertInRange(first, 4000);
+        assertInRange(second, 8000);
+        assertInRange(third, 16_000);
+        assertEquals(third, limiter.getBackoffRemainingMillis());
+        assertEquals(3, limiter.getBackoffs());
+
+        send(1);
+        assertEquals(third, sentAt(0));
+        assertTrue(limiter.getLastDecision().contains("back-off"));
+    }
+
+    @Test
+    void throttled_isCappedAndResetBySuccess() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.throttled("timeout") <= FloodLimiter.MAX_BACKOFF_MS);
+        }
+        now += FloodLimiter.MAX_BACKOFF_MS;
+        limiter.succeeded();
+
+        assertInRange(limiter.throttled("602 SERVER BUSY"), 4000);
+    }
+
+    @Test
+    void zeroInterval_disablesLimits() throws Exception {
+        limiter.configure(0);
+
+        assertEquals(0, limiter.throttled("timeout"));
+        send(100);
+        assertEquals(0, sentAt(99));
+        assertEquals(0, limiter.getPacketsDelayed());
+    }
+
+    @Test
+    void connection_staysWithinServerFloodPolicy() throws Exception {
+        AniDBConnection.setShutdown(false);
+        try (LocalAniDBServer server = new LocalAniDBServer()) {
+            // The client sends one packet per 20 ms after the burst; leave room for loopback jitter, and
+            // one spare token in case the server thread is still warming up when the burst arrives
+            server.setFloodPolicy(new FloodPolicy(FloodLimiter.SHORT_TERM_BURST + 1, 15, 1, 0, 1, 60_000));
+            server.start(0);
+            FloodLimiter realLimiter = new FloodLimiter();
+            AniDBConnectionSettings settings =
+                    new AniDBConnectionSettings("127.0.0.1", server.getPort(), 0, 1, 20, 1, false);
+            AniDBConnection connection = new AniDBConnection(new NullLog(), settings, realLimiter);
+            assertTrue(connection.connect());
+            try {
+                for (int i = 0; i < 20; i++) {
+                    assertEquals(300, connection.send("PING", null, true).code);
+                }
+            } finally {
+                connection.disconnect();
+            }
+
+            assertEquals(0, server.getStats().throttled());
+            assertEquals(20, realLimiter.getPacketsSent());
+            assertTrue(realLimiter.getPacketsDelayed() > 0);
+        }
+    }
+
+    private void send(int packets) throws InterruptedException {
+        for (int i = 0; i < packets; i++) {
+            limiter.acquire();
+            sent.add(now - 1_000_000);
+        }
+    }
+
+    private long sentAt(int packet) {
+        return sent.get(packet);
+    }
+
+    private static void assertInRange(long backoff, long base) {
+        assertTrue(backoff >= base && backoff <= base * (1 + FloodLimiter.JITTER), backoff + " for " + base);
+    }
+
+    private static final class NullLog implements Log {
+        @Override
+        public void println(Object message) {}
+
+        @Override
+        public void status0(String message) {}
+
+        @Override
+        public void status1(String message) {}
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void fullBucket_allowsBurstThenOnePerInterval() {
+        TokenBucket bucket = new TokenBucket(3, 1000);
+
+        assertTrue(bucket.tryTake(0));
+        assertTrue(bucket.tryTake(0));
+        assertTrue(bucket.tryTake(0));
+        assertFalse(bucket.tryTake(0));
+        assertEquals(1000, bucket.waitMillis(0));
+        assertEquals(400, bucket.waitMillis(600));
+        assertTrue(bucket.tryTake(1000));
+        assertFalse(bucket.tryTake(1999));
+    }
+
+    @Test
+    void refill_isCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 1000);
+        bucket.take(0);
+
+        assertEquals(2.0, bucket.available(60_000));
+    }
+
+    @Test
+    void take_goesIntoDebt() {
+        TokenBucket bucket = new TokenBucket(1, 1000);
+        bucket.take(0);
+        bucket.take(0);
+
+        assertEquals(2000, bucket.waitMillis(0));
+    }
+
+    @Test
+    void drain_emptiesBucket() {
+        TokenBucket bucket = new TokenBucket(5, 1000);
+        bucket.drain(0);
+
+        assertEquals(1000, bucket.waitMillis(0));
+        assertEquals(0, bucket.waitMillis(1000));
+    }
+
+    @Test
+    void zeroInterval_isUnlimited() {
+        TokenBucket bucket = new TokenBucket(1, 0);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryTake(0));
+        }
+        bucket.drain(0);
+
+        assertEquals(0, bucket.waitMillis(0));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UdpTransportTest {
+    private static final long TIMEOUT_MS = 150;
+
+    /** Reply delay in ms per request number {@code n}; missing means reply at once. */
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+    /** Request numbers to answer with 602 SERVER BUSY once. */
+    private final Map<String, Boolean> busyOnce = new ConcurrentHashMap<>();
+    private final AtomicInteger timeouts = new AtomicInteger();
+    private final ScheduledExecutorService replies = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fake-anidb-replies");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private DatagramSocket server;
+    private DatagramChannel client;
+    private UdpTransport transport;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AniDBConnection.setShutdown(false);
+        server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Thread serverThread = new Thread(this::serve, "fake-anidb");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        client = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        FloodLimiter limiter = new FloodLimiter();
+        limiter.configure(0);
+        DatagramCodec codec = new DatagramCodec();
+        codec.setEncoding("UTF-8");
+        transport = new UdpTransport(
+                client,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()),
+                limiter,
+                codec,
+                new CountingEndpoint(),
+                TIMEOUT_MS);
+        transport.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        transport.close();
+        client.close();
+        server.close();
+        replies.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequests_areMatchedByTag() throws Exception {
+        for (int n = 0; n < 20; n++) {
+            delays.put(String.valueOf(n), (long) (20 - n) * 3); // later requests are answered first
+        }
+        List<CompletableFuture<AniDBConnectionResponse>> futures = new ArrayList<>();
+        for (int n = 0; n < 20; n++) {
+            futures.add(transport.submit("PING n=" + n, 3, false));
+        }
+
+        for (int n = 0; n < 20; n++) {
+            assertEquals(String.valueOf(n), futures.get(n).get(5, TimeUnit.SECONDS).data);
+        }
+        assertEquals(0, transport.getPendingCount());
+    }
+
+    @Test
+    void lateReply_answersItsOwnRequestOnly() throws Exception {
+        delays.put("1", 2 * TIMEOUT_MS);
+        delays.put("2", 2 * TIMEOUT_MS);
+
+        // The first try times out; its late reply still answers request 1
+        AniDBConnectionResponse first = transport.submit("PING n=1", 3, false).get(5, TimeUnit.SECONDS);
+        // The retry's reply arrives while request 2 is waiting and must be dropped
+        AniDBConnectionResponse second = transport.submit("PING n=2", 3, false).get(5, TimeUnit.SECONDS);
+
+        assertEquals("1", first.data);
+        assertEquals("2", second.data);
+    }
+
+    @Test
+    void serverBusy_isRetried() throws Exception {
+        busyOnce.put("3", true);
+
+        AniDBConnectionResponse response = transport.submit("PING n=3", 2, false).get(5, TimeUnit.SECONDS);
+
+        assertEquals("3", response.data);
+        assertEquals(1, timeouts.get());
+    }
+
+    @Test
+    void noReply_failsAfterLastAttempt() {
+        delays.put("4", 60_000L);
+
+        ExecutionException error = assertThrows(
+                ExecutionException.class, () -> transport.submit("PING n=4", 2, false).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(SocketTimeoutException.class, error.getCause());
+        assertEquals(2, timeouts.get());
+        assertEquals(0, transport.getPendingCount());
+    }
+
+    @Test
+    void close_failsQueuedRequests() {
+        delays.put("5", 60_000L);
+        CompletableFuture<AniDBConnectionResponse> reply = transport.submit("PING n=5", 1, false);
+
+        transport.close();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> reply.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AniDBException.class, error.getCause());
+    }
+
+    /** Answers {@code PING n=<n>&tag=<tag>} with {@code <tag> 300 PONG\n<n>\n}. */
+    private void serve() {
+        byte[] buffer = new byte[1024];
+        while (!server.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                server.receive(packet);
+            } catch (IOException e) {
+                return;
+            }
+            String request = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+            String n = request.replaceAll(".*n=(\\d+).*", "$1");
+            String tag = request.replaceAll(".*tag=(t\\d+).*", "$1");
+            String reply = busyOnce.remove(n) != null ? tag + " 602 SERVER BUSY\n" : tag + " 300 PONG\n" + n + "\n";
+            byte[] data = reply.getBytes(StandardCharsets.UTF_8);
+            DatagramPacket out = new DatagramPacket(data, data.length, packet.getSocketAddress());
+            replies.schedule(
+                    () -> {
+                        try {
+                            server.send(out);
+                        } catch (IOException e) {
+                            // closed
+                        }
+                    },
+                    delays.getOrDefault(n, 0L),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class CountingEndpoint implements UdpTransport.Endpoint {
+        @Override
+        public void sending(String command, String tag) {
+            // nothing to do
+        }
+
+        @Override
+        public void received(String reply) {
+            // nothing to do
+        }
+
+        @Override
+        public void timedOut(String command, int attempt, long backoffMillis) {
+            timeouts.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.swing.Log;
+import epox.webaom.net.AniDBConnectionResponse;
+import epox.webaom.net.AniDBConnectionSettings;
+import epox.webaom.net.AniDBFileClient;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Identification throughput of {@link AniDBFileClient} against a {@link LocalAniDBServer} at several
+ * simulated round-trip times, without the client's packet delay or the server's flood protection,
+ * so the numbers show the cost of the request/reply path itself. Lookups run one at a time, then
+ * with {@link #IN_FLIGHT} requests outstanding as the network thread keeps them.
+ *
+ * <p>Run with: {@code ./gradlew benchmark}
+ *
+ * <p>This is NOT run in normal CI — it uses {@code @Tag("benchmark")}.
+ */
+@Tag("benchmark")
+class IdentificationBenchmarkTest {
+    private static final int FILES = 500;
+    private static final int[] LATENCIES_MS = {0, 5, 20};
+    private static final int IN_FLIGHT = 3;
+
+    @Test
+    void benchmarkFileLookups() throws Exception {
+        System.out.println("\n=== Identification Benchmark (FILE by size+ed2k) ===");
+        System.out.printf("%n%-12s %12s %12s %12s %14s%n", "Latency", "Files", "Files/s", "Avg ms", "Pipelined/s");
+        System.out.println("-".repeat(66));
+
+        for (int latency : LATENCIES_MS) {
+            try (LocalAniDBServer server = new LocalAniDBServer()) {
+                server.setFloodPolicy(FloodPolicy.OFF);
+                server.setLatency(latency, latency);
+                server.addUser("bench", "bench", null);
+                for (int i = 1; i <= FILES; i++) {
+                    server.addFile(i, i * 1000L, ed2k(i), i + "|1|1|1|0|1|" + (i * 1000L) + "|" + ed2k(i));
+                }
+                server.start(0);
+
+                AniDBFileClient client = new AniDBFileClient(
+                        new NullLog(), new AniDBConnectionSettings("127.0.0.1", server.getPort(), 0, 5, 0, 2, false));
+                client.set("bench", "bench", null);
+                assertTrue(client.connect());
+                assertTrue(client.login());
+
+                long start = System.nanoTime();
+                for (int i = 1; i <= FILES; i++) {
+                    assertEquals(String.valueOf(i), client.retrieveFileData(i * 1000L, ed2k(i), "f" + i)[0]);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                start = System.nanoTime();
+                ArrayDeque<CompletableFuture<AniDBConnectionResponse>> inFlight = new ArrayDeque<>();
+                int next = 1;
+                for (int done = 1; done <= FILES; done++) {
+                    for (; next <= FILES && inFlight.size() < IN_FLIGHT; next++) {
+                        inFlight.add(client.requestFileData(next * 1000L, ed2k(next)));
+                    }
+                    assertEquals(String.valueOf(done), client.retrieveFileData(inFlight.poll(), "f" + done)[0]);
+                }
+                double pipelinedSeconds = (System.nanoTime() - start) / 1e9;
+                client.logout();
+                client.disconnect();
+
+                System.out.printf(
+                        Locale.ROOT,
+                        "%-12s %12d %12.1f %12.2f %14.1f%n",
+                        latency + " ms",
+                        FILES,
+                        FILES / seconds,
+                        seconds * 1000 / FILES,
+                        FILES / pipelinedSeconds);
+            }
+        }
+        System.out.println();
+    }
+
+    private static String ed2k(int index) {
+        return String.format(Locale.ROOT, "%032x", index);
+    }
+
+    private static final class NullLog implements Log {
+        @Override
+        public void println(Object message) {}
+
+        @Override
+        public void status0(String message) {}
+
+        @Override
+        public void status1(String message) {}
+    }
+}
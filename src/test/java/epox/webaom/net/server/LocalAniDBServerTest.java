@@ -0,0 +1,309 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import epox.swing.Log;
+import epox.webaom.net.AniDBConnectionResponse;
+import epox.webaom.net.AniDBConnectionSettings;
+import epox.webaom.net.AniDBException;
+import epox.webaom.net.AniDBFileClient;
+import epox.webaom.net.FileMask;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalAniDBServerTest {
+    private static final String ED2K = "70cd93f2ffe26c2fcf8fa4b4e9fde6f3";
+    private static final long SIZE = 1503238553L;
+    private static final String FILE_DATA = "1021453|8069|117863|8853|0|1|" + SIZE + "|" + ED2K + "|mkv";
+
+    private final List<Object> logged = new ArrayList<>();
+    private LocalAniDBServer server;
+    private AniDBFileClient client;
+    private DatagramSocket rawSocket;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AniDBFileClient.setShutdown(false);
+        server = new LocalAniDBServer();
+        server.setSeed(42);
+        server.setFloodPolicy(FloodPolicy.OFF);
+        server.addUser("user", "secret", "apikey");
+        server.addFile(1021453, SIZE, ED2K, FILE_DATA);
+        server.start(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.disconnect();
+        }
+        if (rawSocket != null) {
+            rawSocket.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void client_logsInIdentifiesAndManagesMylist() throws Exception {
+        connect();
+        assertTrue(client.login());
+        assertTrue(client.isLoggedIn());
+
+        String[] fields = client.retrieveFileData(SIZE, ED2K, "episode.mkv");
+        assertArrayEquals(FILE_DATA.split("\\|"), fields);
+        assertNull(client.retrieveFileData(SIZE, "00000000000000000000000000000000", "other.mkv"));
+
+        AniDBConnectionResponse added = client.send("MYLISTADD", "fid=1021453&state=1&viewed=0", true);
+        assertEquals(AniDBConnectionResponse.MYLIST_ENTRY_ADDED, added.code);
+        int listId = Integer.parseInt(added.data);
+        AniDBConnectionResponse again = client.send("MYLISTADD", "fid=1021453&state=1&viewed=0", true);
+        assertEquals(AniDBConnectionResponse.FILE_ALREADY_IN_MYLIST, again.code);
+        assertTrue(again.data.startsWith(listId + "|1021453|"));
+
+        assertTrue(client.removeFromMylist(listId, "episode.mkv"));
+        assertFalse(client.removeFromMylist(listId, "episode.mkv"));
+        assertTrue(client.logout());
+        assertFalse(client.isLoggedIn());
+    }
+
+    @Test
+    void client_reauthenticatesWhenSessionIsMissing() throws Exception {
+        connect();
+
+        AniDBConnectionResponse response = client.send("FILE", "fid=1021453", true);
+
+        assertEquals(AniDBConnectionResponse.FILE, response.code);
+        assertTrue(client.isLoggedIn());
+    }
+
+    @Test
+    void auth_rejectsWrongPassword() throws Exception {
+        connect();
+
+        AniDBConnectionResponse response =
+                client.send("AUTH", "user=user&pass=wrong&protover=3&client=webaom&clientver=119", true);
+
+        assertEquals(AniDBConnectionResponse.LOGIN_FAILED, response.code);
+    }
+
+    @Test
+    void file_dropsFieldsTheMaskLeavesOut() throws Exception {
+        String[] full = new String[FileMask.FULL.fieldCount()];
+        for (int i = 0; i < full.length; i++) {
+            full[i] = "f" + i;
+        }
+        full[0] = "77";
+        server.addFile(77, 2, "22222222222222222222222222222222", String.join("|", full));
+        connect();
+        client.login();
+
+        assertEquals(FileMask.FULL.fieldCount(), client.retrieveFileData(77, "full.mkv").length);
+        String[] fileAndEpisode =
+                client.retrieveFileData(client.requestFileData(77, new FileMask(false, true, false)), "masked.mkv");
+        assertEquals(FileMask.FILE_FIELDS + FileMask.EPISODE_FIELDS, fileAndEpisode.length);
+        assertEquals("f" + (FileMask.FILE_FIELDS + FileMask.GROUP_FIELDS), fileAndEpisode[FileMask.FILE_FIELDS]);
+    }
+
+    @Test
+    void encryptedSession_roundTrips() throws Exception {
+        connect();
+
+        assertTrue(client.encrypt() >= 0);
+        assertTrue(client.login());
+        assertEquals("1021453", client.retrieveFileData(1021453, "episode.mkv")[0]);
+        assertEquals(0, server.getStats().discarded());
+    }
+
+    @Test
+    void encrypt_withoutApiKeyIsRefused() throws Exception {
+        server.addUser("plain", "secret", null);
+        connect();
+
+        AniDBConnectionResponse response = client.send("ENCRYPT", "user=plain&type=1", true);
+
+        assertEquals(AniDBConnectionResponse.API_PASSWORD_NOT_DEFINED, response.code);
+    }
+
+    @Test
+    void compressedReplies_areInflatedByClient() throws Exception {
+        String longData = "42|" + "x".repeat(3000);
+        server.addFile(42, 1, "11111111111111111111111111111111", longData);
+        server.setCompressAll(true);
+        connect();
+        client.login();
+
+        assertEquals(FILE_DATA.split("\\|").length, client.retrieveFileData(1021453, "a.mkv").length);
+        assertEquals("x".repeat(3000), client.retrieveFileData(42, "b.mkv")[1]);
+    }
+
+    @Test
+    void longRepliesWithoutCompression_areTruncatedToMtu() throws Exception {
+        rawConnect();
+        server.addFile(42, 1, "11111111111111111111111111111111", "42|" + "x".repeat(3000));
+        String session = login();
+
+        String reply = exchange("FILE fid=42&s=" + session);
+
+        assertEquals(LocalAniDBServer.DEFAULT_MTU, reply.getBytes(StandardCharsets.US_ASCII).length);
+        assertTrue(reply.startsWith("220 FILE\n42|xxx"));
+    }
+
+    @Test
+    void tags_areEchoed() throws Exception {
+        rawConnect();
+
+        assertEquals("abc123 300 PONG\n", exchange("PING tag=abc123"));
+        assertEquals("300 PONG\n" + rawSocket.getLocalPort() + "\n", exchange("PING nat=1"));
+        assertEquals("t1 501 LOGIN FIRST\n", exchange("FILE fid=1&tag=t1"));
+        assertEquals("t2 506 INVALID SESSION\n", exchange("FILE fid=1&s=nope&tag=t2"));
+    }
+
+    @Test
+    void unknownCommand_isReported() throws Exception {
+        rawConnect();
+        String session = login();
+
+        assertEquals("598 UNKNOWN COMMAND\n", exchange("BOGUS s=" + session));
+    }
+
+    @Test
+    void latency_delaysReplies() throws Exception {
+        server.setLatency(150, 150);
+        connect();
+
+        assertTrue(client.ping() >= 140);
+    }
+
+    @Test
+    void packetLoss_dropsRequests() throws Exception {
+        rawConnect();
+        server.setPacketLoss(1);
+
+        assertNull(exchange("PING"));
+        assertEquals(1, server.getStats().lost());
+
+        server.setPacketLoss(0);
+        assertEquals("300 PONG\n", exchange("PING"));
+    }
+
+    @Test
+    void floodProtection_dropsThenBans() throws Exception {
+        server.setFloodPolicy(new FloodPolicy(2, 60_000, 1, 0, 2, 60_000));
+        rawConnect();
+
+        assertEquals("300 PONG\n", exchange("PING"));
+        assertEquals("300 PONG\n", exchange("PING"));
+        assertNull(exchange("PING"));
+        assertNull(exchange("PING"));
+        assertEquals("x 555 BANNED\nFlood protection\n", exchange("PING tag=x"));
+
+        LocalAniDBServer.Stats stats = server.getStats();
+        assertEquals(2, stats.throttled());
+        assertEquals(1, stats.banned());
+    }
+
+    @Test
+    void bannedClient_getsClientError() throws Exception {
+        server.setFloodPolicy(new FloodPolicy(1, 60_000, 1, 0, 1, 60_000));
+        connect();
+        client.ping();
+        // Dropped without a reply, which uses up the client's allowance and bans it
+        assertThrows(SocketTimeoutException.class, () -> client.ping());
+
+        AniDBException error = assertThrows(AniDBException.class, () -> client.ping());
+
+        assertTrue(error.getMessage().contains("Banned"));
+    }
+
+    @Test
+    void fixtures_replaceFileReplies() throws Exception {
+        server.setFixtures(ReplyFixtures.parse("""
+                > FILE fid=7&fcode=123682590&acode=75435779&s=AbCdE&tag=t00003
+                < t00003 220 FILE
+                7|1|2|3|recorded
+                """));
+        connect();
+        client.login();
+
+        String[] fields = client.retrieveFileData(7, "recorded.mkv");
+
+        assertEquals("recorded", fields[4]);
+    }
+
+    private void connect() {
+        AniDBConnectionSettings settings =
+                new AniDBConnectionSettings("127.0.0.1", server.getPort(), 0, 1, 0, 2, false);
+        client = new AniDBFileClient(new ListLog(), settings);
+        client.set("user", "secret", "apikey");
+        assertTrue(client.connect());
+    }
+
+    private void rawConnect() throws IOException {
+        rawSocket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        rawSocket.setSoTimeout(300);
+    }
+
+    /** Send one request from the raw socket; null if no reply came. */
+    private String exchange(String request) throws IOException {
+        byte[] data = request.getBytes(StandardCharsets.US_ASCII);
+        rawSocket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), server.getPort()));
+        byte[] buffer = new byte[4096];
+        DatagramPacket reply = new DatagramPacket(buffer, buffer.length);
+        try {
+            rawSocket.receive(reply);
+        } catch (SocketTimeoutException e) {
+            return null;
+        }
+        return new String(buffer, 0, reply.getLength(), StandardCharsets.US_ASCII);
+    }
+
+    /** Log in from the raw socket and return the session key. */
+    private String login() throws IOException {
+        String reply = exchange("AUTH user=user&pass=secret&protover=3&client=webaom&clientver=1");
+        assertTrue(reply.startsWith("200 "), reply);
+        return reply.split(" ")[1];
+    }
+
+    private class ListLog implements Log {
+        @Override
+        public void println(Object message) {
+            logged.add(message);
+        }
+
+        @Override
+        public void status0(String message) {}
+
+        @Override
+        public void status1(String message) {}
+    }
+}
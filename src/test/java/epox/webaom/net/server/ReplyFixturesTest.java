@@ -0,0 +1,70 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.net.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ReplyFixturesTest {
+
+    @Test
+    void parse_readsMultiLineRepliesAndStripsTags() {
+        ReplyFixtures fixtures = ReplyFixtures.parse("""
+                # recorded session
+                > FILE fid=7&fcode=1&s=AbCdE&tag=t00003
+                < t00003 220 FILE
+                7|1|2|3
+                > MYLISTDEL lid=9&s=AbCdE&tag=t00004
+                < t00004 211 MYLIST ENTRY DELETED
+                """);
+
+        assertEquals(2, fixtures.size());
+        assertEquals("220 FILE\n7|1|2|3", fixtures.next("FILE", Map.of("fid", "7", "fcode", "1")));
+        assertEquals("211 MYLIST ENTRY DELETED", fixtures.next("mylistdel", Map.of("lid", "9")));
+    }
+
+    @Test
+    void next_ignoresParameterOrderSessionAndTag() {
+        ReplyFixtures fixtures = ReplyFixtures.parse("""
+                > FILE size=10&ed2k=abc&s=old&tag=t1
+                < t1 320 NO SUCH FILE
+                """);
+
+        assertEquals("320 NO SUCH FILE", fixtures.next("FILE", Map.of("ed2k", "abc", "size", "10", "s", "new")));
+        assertNull(fixtures.next("FILE", Map.of("ed2k", "abc", "size", "11")));
+    }
+
+    @Test
+    void next_playsRepeatedRequestsInOrderAndRepeatsTheLast() {
+        ReplyFixtures fixtures = ReplyFixtures.parse("""
+                > MYLISTADD fid=1
+                < 210 MYLIST ENTRY ADDED
+                5
+
+                > MYLISTADD fid=1
+                < 310 FILE ALREADY IN MYLIST
+                5|1
+                """);
+
+        assertEquals("210 MYLIST ENTRY ADDED\n5", fixtures.next("MYLISTADD", Map.of("fid", "1")));
+        assertEquals("310 FILE ALREADY IN MYLIST\n5|1", fixtures.next("MYLISTADD", Map.of("fid", "1")));
+        assertEquals("310 FILE ALREADY IN MYLIST\n5|1", fixtures.next("MYLISTADD", Map.of("fid", "1")));
+    }
+}
@@ -162,6 +162,7 @@ class MainPanelIncompatibleDatabaseLockTest {
         panel.progressTimer.stop();
         panel.unfreezeTimer.stop();
         panel.guiUpdateTimer.stop();
+        panel.frameTimer.stop();
     }
 
     private JButton[] getToolbarButtons(MainPanel panel) throws Exception {
@@ -221,6 +221,7 @@ class MainPanelScaleAwareSizingTest {
         panel.progressTimer.stop();
         panel.unfreezeTimer.stop();
         panel.guiUpdateTimer.stop();
+        panel.frameTimer.stop();
     }
 
     private static final class TestRuntime implements MainPanelRuntime {
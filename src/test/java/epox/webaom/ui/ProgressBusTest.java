@@ -0,0 +1,131 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class ProgressBusTest {
+
+    @Test
+    void poll_returnsNullWhenNothingWasPublished() {
+        ProgressBus bus = new ProgressBus();
+
+        assertNull(bus.poll());
+
+        bus.status0("Hashing");
+        assertNotNull(bus.poll());
+        assertNull(bus.poll());
+    }
+
+    @Test
+    void poll_keepsOnlyLatestStatusAndProgress() {
+        ProgressBus bus = new ProgressBus();
+        for (int i = 0; i <= 1000; i++) {
+            bus.setProgress(i);
+            bus.status0("Parsing " + i);
+        }
+        bus.status1("Idle");
+
+        ProgressBus.Frame frame = bus.poll();
+
+        assertEquals("Parsing 1000", frame.status0());
+        assertEquals("Idle", frame.status1());
+        assertTrue(frame.hasProgress());
+        assertEquals(1000, frame.progress());
+        assertTrue(frame.lines().isEmpty());
+        assertEquals(2003, bus.getPublishedCount());
+        assertEquals(1, bus.getFrameCount());
+    }
+
+    @Test
+    void poll_leavesUnchangedFieldsEmpty() {
+        ProgressBus bus = new ProgressBus();
+        bus.println("line");
+
+        ProgressBus.Frame frame = bus.poll();
+
+        assertNull(frame.status0());
+        assertNull(frame.status1());
+        assertFalse(frame.hasProgress());
+        assertEquals(List.of("line"), frame.lines());
+    }
+
+    @Test
+    void poll_limitsLinesPerFrameAndKeepsTheRestInOrder() {
+        ProgressBus bus = new ProgressBus();
+        int count = ProgressBus.MAX_LINES_PER_FRAME + 10;
+        for (int i = 0; i < count; i++) {
+            bus.println(i);
+        }
+
+        List<Object> lines = new ArrayList<>(bus.poll().lines());
+        assertEquals(ProgressBus.MAX_LINES_PER_FRAME, lines.size());
+        lines.addAll(bus.poll().lines());
+
+        assertEquals(count, lines.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, lines.get(i));
+        }
+        assertNull(bus.poll());
+    }
+
+    @Test
+    void poll_collectsLinesFromConcurrentPublishers() throws InterruptedException {
+        ProgressBus bus = new ProgressBus();
+        int threads = 4;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    bus.setProgress(i);
+                    bus.println("line");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+
+        int lines = 0;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        ProgressBus.Frame frame;
+        while ((frame = bus.poll()) != null) {
+            lines += frame.lines().size();
+        }
+
+        assertEquals(threads * perThread, lines);
+        assertEquals(2L * threads * perThread, bus.getPublishedCount());
+    }
+}
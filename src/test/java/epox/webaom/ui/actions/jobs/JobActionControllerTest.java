@@ -95,6 +95,18 @@ class JobActionControllerTest {
         assertTrue(statusCall.checkIfBusy());
     }
 
+    @Test
+    void executeCommand_boost_marksJobWithoutChangingStatus() throws IOException {
+        FakeGateway gateway = new FakeGateway();
+        JobActionController controller = new JobActionController(gateway);
+        Job job = createJob("episode.mkv", Job.HASHWAIT);
+
+        controller.executeCommand(JobActionCommand.BOOST, job, null);
+
+        assertTrue(job.boosted);
+        assertEquals(0, gateway.statusCalls.size());
+    }
+
     @Test
     void localRemoveActionLabel_usesJobsScopeLabel() {
         JobActionController controller = new JobActionController(new FakeGateway(), JobDeleteScope.JOBS);
@@ -0,0 +1,104 @@
+/*
+ * WebAOM - Web Anime-O-Matic
+ * Copyright (C) 2005-2010 epoximator 2025 Alysson Souza
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the Free
+ * Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package epox.webaom.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+
+    @Test
+    void acquire_roundsUpToSizeClassAndReusesReleasedBuffers() throws Exception {
+        BufferPool pool = new BufferPool(16 * BufferPool.MEDIUM);
+
+        ByteBuffer first = pool.acquire(3 * 1048576);
+        assertTrue(first.isDirect());
+        assertEquals(BufferPool.MEDIUM, first.capacity());
+        assertEquals(3 * 1048576, first.limit());
+        assertEquals(0, first.alignmentOffset(0, BufferPool.ALIGNMENT));
+
+        pool.release(first);
+        ByteBuffer second = pool.acquire(BufferPool.MEDIUM);
+        assertSame(first, second);
+        assertEquals(BufferPool.MEDIUM, second.limit());
+
+        BufferPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(BufferPool.MEDIUM, stats.lentBytes());
+        assertEquals(BufferPool.MEDIUM, stats.allocatedBytes());
+    }
+
+    @Test
+    void acquire_waitsAtCapUntilABufferIsReleased() throws Exception {
+        BufferPool pool = new BufferPool(2 * BufferPool.SMALL);
+        ByteBuffer[] held = pool.acquire(BufferPool.SMALL, 2);
+
+        CompletableFuture<ByteBuffer> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(BufferPool.SMALL);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+        pool.release(held[0]);
+        assertSame(held[0], waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(2 * BufferPool.SMALL, pool.getStats().allocatedBytes());
+        assertTrue(pool.getStats().waits() > 0);
+    }
+
+    @Test
+    void acquire_dropsFreeBuffersOfOtherClassesToStayUnderCap() throws Exception {
+        BufferPool pool = new BufferPool(BufferPool.LARGE);
+        ByteBuffer large = pool.acquire(BufferPool.LARGE);
+        pool.release(large);
+
+        ByteBuffer small = pool.acquire(BufferPool.SMALL);
+
+        assertNotSame(large, small);
+        assertEquals(BufferPool.SMALL, pool.getStats().allocatedBytes());
+    }
+
+    @Test
+    void acquire_allowsOversizedRequestWhenNothingIsLent() throws Exception {
+        BufferPool pool = new BufferPool(BufferPool.SMALL);
+
+        ByteBuffer buffer = pool.acquire(BufferPool.MEDIUM);
+
+        assertEquals(BufferPool.MEDIUM, buffer.capacity());
+        assertFalse(pool.getStats().allocatedBytes() <= pool.getStats().maxBytes());
+    }
+
+    @Test
+    void release_rejectsForeignBuffers() {
+        BufferPool pool = new BufferPool(BufferPool.SMALL);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(ByteBuffer.allocateDirect(16)));
+    }
+}